@@ -0,0 +1,134 @@
+package ligueBaseball.benchmark;
+
+import java.sql.Date;
+import java.sql.Time;
+import java.util.concurrent.TimeUnit;
+
+import ligueBaseball.entities.Field;
+import ligueBaseball.entities.Match;
+import ligueBaseball.entities.Official;
+import ligueBaseball.entities.Player;
+import ligueBaseball.entities.Team;
+import ligueBaseball.entities.UnitOfWork;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Creation of each kind of entity, one committed transaction per entity as done by the commands.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CreateBenchmark
+{
+    private static final Date FIRST_NEW_MATCH_DATE = Date.valueOf("2100-01-01");
+    private static final Time NEW_MATCH_TIME = Time.valueOf("20:00:00");
+    private static final long DAY_MILLIS = 24L * 60 * 60 * 1000;
+
+    private Team localTeam;
+    private Team visitorTeam;
+    private Field localField;
+
+    @Setup(Level.Trial)
+    public void loadTeams(LeagueState league, SessionState session)
+    {
+        localTeam = Team.getTeamWithName(session.connection, league.teamNames[0]);
+        visitorTeam = Team.getTeamWithName(session.connection, league.teamNames[league.teamNames.length - 1]);
+        localField = localTeam.getField(session.connection);
+    }
+
+    @Benchmark
+    public Team createTeam(LeagueState league, SessionState session) throws Exception
+    {
+        Field field = new Field();
+        field.setName(league.uniqueName("Terrain"));
+        field.setAddress("rue du Stade");
+
+        Team team = new Team();
+        team.setName(league.uniqueName("Equipe"));
+        UnitOfWork work = new UnitOfWork(session.connection);
+        work.save(field);
+        team.setField(field);
+        work.save(team);
+        work.commit();
+        return team;
+    }
+
+    @Benchmark
+    public Player createPlayer(LeagueState league, SessionState session) throws Exception
+    {
+        Player player = new Player();
+        player.setLastName(league.uniqueName("Nom"));
+        player.setFirstName("Prenom");
+        UnitOfWork work = new UnitOfWork(session.connection);
+        work.save(player);
+        work.commit();
+        return player;
+    }
+
+    @Benchmark
+    public Player createPlayerInTeam(LeagueState league, SessionState session) throws Exception
+    {
+        Player player = new Player();
+        player.setLastName(league.uniqueName("Nom"));
+        player.setFirstName("Prenom");
+        player.setNumber(league.uniqueNumber());
+        UnitOfWork work = new UnitOfWork(session.connection);
+        work.save(player);
+        work.addPlayer(localTeam, player);
+        work.commit();
+        return player;
+    }
+
+    @Benchmark
+    public Official createOfficial(LeagueState league, SessionState session) throws Exception
+    {
+        Official official = new Official();
+        official.setLastName(league.uniqueName("Arbitre"));
+        official.setFirstName("Prenom");
+        UnitOfWork work = new UnitOfWork(session.connection);
+        work.save(official);
+        work.commit();
+        return official;
+    }
+
+    @Benchmark
+    public Field createField(LeagueState league, SessionState session) throws Exception
+    {
+        Field field = new Field();
+        field.setName(league.uniqueName("Terrain"));
+        field.setAddress("rue du Stade");
+        UnitOfWork work = new UnitOfWork(session.connection);
+        work.save(field);
+        work.commit();
+        return field;
+    }
+
+    @Benchmark
+    public Match createMatch(LeagueState league, SessionState session) throws Exception
+    {
+        Match match = new Match();
+        match.setLocalTeam(localTeam);
+        match.setVisitorTeam(visitorTeam);
+        match.setField(localField);
+        match.setDate(new Date(FIRST_NEW_MATCH_DATE.getTime() + league.uniqueNumber() * DAY_MILLIS));
+        match.setTime(NEW_MATCH_TIME);
+        UnitOfWork work = new UnitOfWork(session.connection);
+        work.save(match);
+        work.commit();
+        return match;
+    }
+}
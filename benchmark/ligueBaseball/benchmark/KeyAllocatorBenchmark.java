@@ -0,0 +1,39 @@
+package ligueBaseball.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import ligueBaseball.entities.DatabaseEntity;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Throughput of the primary keys given by getNextIdForTable, which delegates to the shared allocator. Run with -p keyBlockSize=1 to measure a
+ * round trip to the sequence table per key.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class KeyAllocatorBenchmark
+{
+    @Benchmark
+    public int nextId(SessionState session) throws Exception
+    {
+        return DatabaseEntity.getKeyAllocator().nextId(session.connection, "arbitre", "arbitreid");
+    }
+
+    @Benchmark
+    @Threads(4)
+    public int nextIdContended(SessionState session) throws Exception
+    {
+        return DatabaseEntity.getKeyAllocator().nextId(session.connection, "arbitre", "arbitreid");
+    }
+}
@@ -0,0 +1,231 @@
+package ligueBaseball.benchmark;
+
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.Time;
+import java.util.Properties;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import ligueBaseball.Logger;
+import ligueBaseball.Logger.LEVEL;
+import ligueBaseball.Logger.LOG_TYPE;
+import ligueBaseball.database.BatchConnection;
+import ligueBaseball.database.ConnectionPool;
+import ligueBaseball.entities.DatabaseEntity;
+import ligueBaseball.entities.Field;
+import ligueBaseball.entities.Match;
+import ligueBaseball.entities.Official;
+import ligueBaseball.entities.Player;
+import ligueBaseball.entities.Team;
+import ligueBaseball.entities.UnitOfWork;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Synthetic league seeded in the database before a benchmark and deleted after it. Every name starts with a prefix unique to the run, so the
+ * league can be added to a database already in use and removed without touching anything else.
+ *
+ * The database is given with the system properties ligue.database, ligue.user and ligue.password.
+ */
+@State(Scope.Benchmark)
+public class LeagueState
+{
+    private static final Date FIRST_MATCH_DATE = Date.valueOf("2000-01-01");
+    private static final long DAY_MILLIS = 24L * 60 * 60 * 1000;
+    private static final int OFFICIALS_PER_MATCH = 3;
+
+    @Param("10")
+    public int teams;
+
+    @Param("25")
+    public int playersPerTeam;
+
+    @Param("20")
+    public int matchesPerTeam;
+
+    @Param("30")
+    public int officials;
+
+    @Param("256")
+    public int teamCacheSize;
+
+    @Param("50")
+    public int keyBlockSize;
+
+    @Param("8")
+    public int poolSize;
+
+    ConnectionPool connectionPool;
+    String prefix;
+    String[] teamNames;
+    String[] fieldNames;
+    String[][] playerNames; // { lastName, firstName }
+    String[][] officialNames; // { lastName, firstName }
+    String[][] matchKeys; // { date, time, localTeamName, visitorTeamName }
+
+    private final AtomicInteger uniqueCounter = new AtomicInteger();
+
+    /**
+     * Open the pool and seed the league. The whole league is inserted in a single transaction.
+     *
+     * @throws Exception Failed to seed the league.
+     */
+    @Setup(Level.Trial)
+    public void seed() throws Exception
+    {
+        // Only the errors, the entities log nothing useful to a benchmark.
+        for (LOG_TYPE type : LOG_TYPE.values()) {
+            Logger.setThreshold(type, LEVEL.ERROR);
+        }
+
+        Properties connectionParameters = new Properties();
+        connectionParameters.setProperty("user", System.getProperty("ligue.user", System.getProperty("user.name")));
+        connectionParameters.setProperty("password", System.getProperty("ligue.password", ""));
+        connectionPool = new ConnectionPool(System.getProperty("ligue.database", "ligue"), connectionParameters, poolSize, 30000, 0, 0);
+
+        DatabaseEntity.getKeyAllocator().setBlockSize(keyBlockSize);
+        DatabaseEntity.getKeyAllocator().setConnectionPool(connectionPool);
+        Team.getCache().setCapacity(teamCacheSize);
+        Team.getCache().clear();
+
+        prefix = "B" + Long.toString(System.currentTimeMillis(), 36) + "x";
+        Random random = new Random(42);
+
+        BatchConnection batch = new BatchConnection(connectionPool.getConnection(), Integer.MAX_VALUE);
+        try {
+            Connection connection = batch.getConnection();
+            UnitOfWork work = new UnitOfWork(connection);
+
+            Team[] seededTeams = new Team[teams];
+            Field[] seededFields = new Field[teams];
+            teamNames = new String[teams];
+            fieldNames = new String[teams];
+            playerNames = new String[teams * playersPerTeam][];
+            for (int i = 0; i < teams; ++i) {
+                fieldNames[i] = prefix + "Terrain" + i;
+                seededFields[i] = new Field();
+                seededFields[i].setName(fieldNames[i]);
+                seededFields[i].setAddress(i + " rue du Stade");
+
+                teamNames[i] = prefix + "Equipe" + i;
+                seededTeams[i] = new Team();
+                seededTeams[i].setName(teamNames[i]);
+                work.save(seededFields[i]);
+                seededTeams[i].setField(seededFields[i]);
+                work.save(seededTeams[i]);
+
+                for (int j = 0; j < playersPerTeam; ++j) {
+                    Player player = new Player();
+                    player.setLastName(prefix + "Nom" + i + "_" + j);
+                    player.setFirstName("Prenom" + j);
+                    player.setNumber(j + 1);
+                    work.save(player);
+                    work.addPlayer(seededTeams[i], player);
+                    playerNames[i * playersPerTeam + j] = new String[] { player.getLastName(), player.getFirstName() };
+                }
+            }
+
+            Official[] seededOfficials = new Official[officials];
+            officialNames = new String[officials][];
+            for (int i = 0; i < officials; ++i) {
+                seededOfficials[i] = new Official();
+                seededOfficials[i].setLastName(prefix + "Arbitre" + i);
+                seededOfficials[i].setFirstName("Prenom" + i);
+                work.save(seededOfficials[i]);
+                officialNames[i] = new String[] { seededOfficials[i].getLastName(), seededOfficials[i].getFirstName() };
+            }
+
+            matchKeys = new String[teams > 1 ? teams * matchesPerTeam : 0][];
+            for (int i = 0; i < matchKeys.length; ++i) {
+                int local = i % teams;
+                int visitor = (local + 1 + (i / teams) % (teams - 1)) % teams;
+
+                Match match = new Match();
+                match.setLocalTeam(seededTeams[local]);
+                match.setVisitorTeam(seededTeams[visitor]);
+                match.setField(seededFields[local]);
+                match.setDate(new Date(FIRST_MATCH_DATE.getTime() + (i / teams) * DAY_MILLIS));
+                match.setTime(Time.valueOf((12 + local % 10) + ":00:00"));
+                match.setLocalTeamScore(random.nextInt(12));
+                match.setVisitorTeamScore(random.nextInt(12));
+                work.save(match);
+
+                for (int j = 0; j < OFFICIALS_PER_MATCH && j < officials; ++j) {
+                    work.addOfficial(match, seededOfficials[(i + j) % officials]);
+                }
+                matchKeys[i] = new String[] { match.getDate().toString(), match.getTime().toString(), teamNames[local], teamNames[visitor] };
+            }
+
+            work.commit();
+            batch.commit();
+        } finally {
+            batch.close();
+        }
+    }
+
+    /**
+     * Delete everything created by the run, seeded or created by the benchmarks, and close the pool.
+     *
+     * @throws Exception Failed to delete the league.
+     */
+    @TearDown(Level.Trial)
+    public void clean() throws Exception
+    {
+        String teamsOfLeague = "SELECT equipeid FROM equipe WHERE equipenom LIKE ?";
+        String matchesOfLeague = "SELECT matchid FROM match WHERE equipelocal IN (" + teamsOfLeague + ") OR equipevisiteur IN (" + teamsOfLeague + ")";
+        String[] deletes = {
+                "DELETE FROM arbitrer WHERE matchid IN (" + matchesOfLeague + ") OR arbitreid IN (SELECT arbitreid FROM arbitre WHERE arbitrenom LIKE ?);",
+                "DELETE FROM match WHERE matchid IN (" + matchesOfLeague + ");",
+                "DELETE FROM faitpartie WHERE equipeid IN (" + teamsOfLeague + ") OR joueurid IN (SELECT joueurid FROM joueur WHERE joueurnom LIKE ?);",
+                "DELETE FROM joueur WHERE joueurnom LIKE ?;",
+                "DELETE FROM equipe WHERE equipenom LIKE ?;",
+                "DELETE FROM terrain WHERE terrainnom LIKE ?;",
+                "DELETE FROM arbitre WHERE arbitrenom LIKE ?;" };
+
+        try (Connection connection = connectionPool.getConnection()) {
+            for (String sql : deletes) {
+                try (PreparedStatement statement = connection.prepareStatement(sql)) {
+                    int parameterCount = sql.length() - sql.replace("?", "").length();
+                    for (int i = 1; i <= parameterCount; ++i) {
+                        statement.setString(i, prefix + "%");
+                    }
+                    statement.executeUpdate();
+                }
+            }
+            connection.commit();
+        } finally {
+            DatabaseEntity.getKeyAllocator().setConnectionPool(null);
+            Team.getCache().clear();
+            connectionPool.close();
+            Logger.flush();
+        }
+    }
+
+    /**
+     * Get a name never used before by this run, for the entities created by the benchmarks.
+     *
+     * @param kind - Kind of entity, part of the name.
+     * @return String - Unique name starting with the prefix of the run.
+     */
+    String uniqueName(String kind)
+    {
+        return prefix + kind + "New" + uniqueCounter.incrementAndGet();
+    }
+
+    /**
+     * Get a number never used before by this run.
+     *
+     * @return int - Unique number.
+     */
+    int uniqueNumber()
+    {
+        return uniqueCounter.incrementAndGet();
+    }
+}
@@ -0,0 +1,71 @@
+package ligueBaseball.benchmark;
+
+import java.sql.Date;
+import java.sql.Time;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import ligueBaseball.entities.Field;
+import ligueBaseball.entities.Match;
+import ligueBaseball.entities.Official;
+import ligueBaseball.entities.Player;
+import ligueBaseball.entities.Team;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Lookup of the entities by name, as done by every command before working on them. The names are picked at random in the seeded league. Run with
+ * -p teamCacheSize=0 to measure the team lookups without the cache.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LookupBenchmark
+{
+    @Benchmark
+    public Team teamByName(LeagueState league, SessionState session)
+    {
+        return Team.getTeamWithName(session.connection, pick(league.teamNames));
+    }
+
+    @Benchmark
+    public List<Player> playerByName(LeagueState league, SessionState session)
+    {
+        String[] name = pick(league.playerNames);
+        return Player.getPlayerWithName(session.connection, name[1], name[0]);
+    }
+
+    @Benchmark
+    public Official officialByName(LeagueState league, SessionState session)
+    {
+        String[] name = pick(league.officialNames);
+        return Official.getOfficialWithName(session.connection, name[1], name[0]);
+    }
+
+    @Benchmark
+    public Field fieldByName(LeagueState league, SessionState session)
+    {
+        return Field.getFieldWithName(session.connection, pick(league.fieldNames));
+    }
+
+    @Benchmark
+    public Match matchByDateTimeAndTeams(LeagueState league, SessionState session) throws Exception
+    {
+        String[] key = pick(league.matchKeys);
+        return Match.getMatchWithDateTimeEquipe(session.connection, Date.valueOf(key[0]), Time.valueOf(key[1]), key[2], key[3]);
+    }
+
+    private static <T> T pick(T[] values)
+    {
+        return values[ThreadLocalRandom.current().nextInt(values.length)];
+    }
+}
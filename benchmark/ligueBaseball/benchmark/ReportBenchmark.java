@@ -0,0 +1,72 @@
+package ligueBaseball.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import ligueBaseball.entities.DatabaseEntity;
+import ligueBaseball.entities.EntityCursor;
+import ligueBaseball.entities.MatchReport;
+import ligueBaseball.entities.Player;
+import ligueBaseball.entities.Team;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Loading of the rosters and generation of the match reports, the reads behind afficherJoueursEquipe and afficherResultats.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ReportBenchmark
+{
+    private List<Team> teams;
+
+    @Setup(Level.Trial)
+    public void loadTeams(LeagueState league, SessionState session)
+    {
+        teams = new ArrayList<>(league.teamNames.length);
+        for (String name : league.teamNames) {
+            teams.add(Team.getTeamWithName(session.connection, name));
+        }
+    }
+
+    @Benchmark
+    public List<Player> rosterOfTeam(SessionState session) throws Exception
+    {
+        return teams.get(ThreadLocalRandom.current().nextInt(teams.size())).getPlayers(session.connection);
+    }
+
+    @Benchmark
+    public Map<Integer, List<Player>> rostersOfLeague(SessionState session) throws Exception
+    {
+        return Team.getRosters(session.connection, teams);
+    }
+
+    @Benchmark
+    public void matchReportsOfTeam(LeagueState league, SessionState session, Blackhole blackhole) throws Exception
+    {
+        String teamName = league.teamNames[ThreadLocalRandom.current().nextInt(league.teamNames.length)];
+        try (EntityCursor<MatchReport> reports = MatchReport.openMatchesOfTeam(session.connection, teamName, DatabaseEntity.DEFAULT_FETCH_SIZE)) {
+            while (reports.hasNext()) {
+                blackhole.consume(reports.next());
+            }
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package ligueBaseball.benchmark;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Connection kept by a benchmark thread for the whole run, so borrowing from the pool isn't part of the measure.
+ */
+@State(Scope.Thread)
+public class SessionState
+{
+    Connection connection;
+
+    @Setup(Level.Trial)
+    public void open(LeagueState league) throws Exception
+    {
+        connection = league.connectionPool.getConnection();
+    }
+
+    @TearDown(Level.Trial)
+    public void close() throws SQLException
+    {
+        connection.close();
+    }
+}
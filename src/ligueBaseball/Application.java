@@ -1,39 +1,70 @@
 package ligueBaseball;
 
 import java.io.BufferedReader;
+import java.io.EOFException;
 import java.io.File;
-import java.io.FileNotFoundException;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
-import java.security.InvalidParameterException;
+import java.net.Socket;
+import java.nio.charset.Charset;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Paths;
 import java.sql.Connection;
-import java.sql.Date;
-import java.sql.DriverManager;
 import java.sql.SQLException;
-import java.sql.Time;
 import java.text.ParseException;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
-import java.util.Map.Entry;
+import java.util.Map;
 import java.util.Properties;
 import java.util.Scanner;
 
+import ligueBaseball.Logger.LEVEL;
 import ligueBaseball.Logger.LOG_TYPE;
+import ligueBaseball.bulk.BulkExporter;
+import ligueBaseball.bulk.BulkExporter.Format;
+import ligueBaseball.bulk.BulkImporter;
+import ligueBaseball.bulk.ExportKind;
+import ligueBaseball.bulk.ImportKind;
+import ligueBaseball.bulk.ImportReport;
+import ligueBaseball.bulk.ImportReport.Rejection;
 import ligueBaseball.command.Command;
+import ligueBaseball.command.CommandHandler;
+import ligueBaseball.command.CommandRegistry;
+import ligueBaseball.command.LineReader;
+import ligueBaseball.database.BatchConnection;
+import ligueBaseball.database.ConnectionPool;
+import ligueBaseball.database.LatencyHistogram;
+import ligueBaseball.database.QueryStatistics;
+import ligueBaseball.database.QueryStatistics.Measure;
+import ligueBaseball.database.SchemaVerifier;
+import ligueBaseball.entities.DatabaseEntity;
+import ligueBaseball.entities.EntityCursor;
 import ligueBaseball.entities.Field;
+import ligueBaseball.entities.KeyAllocator;
 import ligueBaseball.entities.Match;
+import ligueBaseball.entities.MatchReport;
 import ligueBaseball.entities.Official;
 import ligueBaseball.entities.Player;
 import ligueBaseball.entities.Team;
 import ligueBaseball.exceptions.CannotFindTeamWithNameException;
+import ligueBaseball.exceptions.DatabaseRequiredException;
+import ligueBaseball.exceptions.FailedToComputeStandingsException;
 import ligueBaseball.exceptions.FailedToConnectToDatabaseException;
 import ligueBaseball.exceptions.FailedToDeleteEntityException;
+import ligueBaseball.exceptions.FailedToRetrieveNextKeyFromSequenceException;
 import ligueBaseball.exceptions.FailedToRetrievePlayersOfTeamException;
 import ligueBaseball.exceptions.FailedToSaveEntityException;
 import ligueBaseball.exceptions.MatchAlreadyHaveTheMaximumNumberOfOfficialsException;
 import ligueBaseball.exceptions.MatchDoesntExistsException;
-import ligueBaseball.exceptions.MissingCommandParameterException;
 import ligueBaseball.exceptions.NegativeScore;
+import ligueBaseball.exceptions.NoConnectionAvailableException;
+import ligueBaseball.exceptions.OfficialAlreadyExistsException;
 import ligueBaseball.exceptions.OfficialDoesntExistsException;
 import ligueBaseball.exceptions.PlayerAlreadyExistsException;
 import ligueBaseball.exceptions.TeamCantPlayAgainstItselfException;
@@ -41,31 +72,179 @@ import ligueBaseball.exceptions.TeamDoesntExistException;
 import ligueBaseball.exceptions.TeamIsNotEmptyException;
 import ligueBaseball.exceptions.TeamNameAlreadyTakenException;
 import ligueBaseball.exceptions.UnknownCommandException;
+import ligueBaseball.output.LineFormat;
+import ligueBaseball.output.OutputSink;
+import ligueBaseball.repositories.CompletionListener;
+import ligueBaseball.repositories.Repositories;
+import ligueBaseball.repositories.RepositoryFactory;
+import ligueBaseball.repositories.memory.MemoryRepositoryFactory;
+import ligueBaseball.repositories.postgresql.PostgreSqlRepositories;
+import ligueBaseball.repositories.postgresql.PostgreSqlRepositoryFactory;
+import ligueBaseball.standings.Standings;
+import ligueBaseball.standings.TeamStanding;
 
 class Application
 {
+    private static final LineFormat TEAM_LINE = LineFormat.compile(" -> %s, équipe # %s");
+    private static final LineFormat ROSTER_HEADER = LineFormat.compile("Équipe: %s");
+    private static final LineFormat PLAYER_LINE = LineFormat.compile(" -> %s %s #%s");
+    private static final LineFormat PLAYER_CHOICE_LINE = LineFormat.compile(" (%s) %s %s id=%s numero=%s");
+    private static final LineFormat OFFICIAL_LINE = LineFormat.compile(" -> %s %s");
+    private static final LineFormat MATCH_HEADER = LineFormat.compile("%-10s %-10s %-5s %-5s %-12s %-10s");
+    private static final LineFormat MATCH_LINE = LineFormat.compile("%-11s %-15s %-10s %-13s %-11s %-10s");
+    private static final LineFormat MATCH_OFFICIAL_LINE = LineFormat.compile(" -> %-10s %-10s");
+    private static final LineFormat STATISTICS_LINE = LineFormat.compile("%-60s %8s %9s %6s %9s %9s %9s %9s");
+    private static final int STATISTICS_NAME_WIDTH = 60;
+    private static final LineFormat STANDINGS_LINE = LineFormat.compile("%4s %-20s %4s %4s %4s %4s %6s %5s %5s %5s");
+    private static final LineFormat REJECTED_LINE = LineFormat.compile(" -> ligne %s : %s");
+    private static final int MAXIMUM_REJECTIONS_DISPLAYED = 100;
+    private static final int ENTRY_FILE_BUFFER_SIZE = 1 << 20;
+
     private ApplicationParameters parameters;
-    private Connection connectionWithDatabase;
-    private static HashMap<String, String> actions = new HashMap<>();
+    private ConnectionPool connectionPool; // Null when the league is kept in memory
+    private RepositoryFactory repositoryFactory;
+    private OutputSink output;
+    private QueryStatistics statistics;
+    private Standings standings;
+    private BufferedReader input; // Null for the console
+    private static final CommandRegistry<Application> COMMANDS = new CommandRegistry<>();
 
     static {
-        // Create all the available actions.
-        actions.put("creerEquipe", "<EquipeNom> [<NomTerrain> AdresseTerrain]");
-        actions.put("afficherEquipes", null);
-        actions.put("supprimerEquipe", "<EquipeNom>");
-        actions.put("creerJoueur", "<JoueurNom> <JoueurPrenom> [<EquipeNom> <Numero> [<DateDebut>]]");
-        actions.put("afficherJoueursEquipe", "[<EquipeNom >]");
-        actions.put("supprimerJoueur", "<JoueurNom> <JoueurPrenom>");
-        actions.put("creerMatch", "<MatchDate> <MatchHeure> <EquipeNomLocal> <EquipeNomVisiteur>");
-        actions.put("creerArbitre", "<ArbitreNom> <ArbitrePrenom>");
-        actions.put("afficherArbitres", null);
-        actions.put("arbitrerMatch", "<MatchDate> <MatchHeure> <EquipeNomLocal> <EquipeNomVisiteur> <ArbitreNom> <ArbitrePrenom>");
-        actions.put("entrerResultatMatch", "<MatchDate> <MatchHeure> <EquipeNomLocal> <EquipeNomVisiteur> <PointsLocal> <PointsVisiteur>");
-        actions.put("afficherResultatsDate", "[<APartirDate>]");
-        actions.put("afficherResultats", "[<EquipeNom>]");
-
-        actions.put("aide", null);
-        actions.put("quitter", null);
+        // Create all the available commands.
+        COMMANDS.register(new CommandHandler<Application>("creerEquipe", "<EquipeNom> [<NomTerrain> [AdresseTerrain]]", false) {
+            @Override
+            protected void execute(Application application, Repositories repositories, Command command) throws Exception
+            {
+                application.createTeam(repositories, command);
+            }
+        });
+        COMMANDS.register(new CommandHandler<Application>("afficherEquipes", "", true) {
+            @Override
+            protected void execute(Application application, Repositories repositories, Command command) throws Exception
+            {
+                application.displayTeams(repositories);
+            }
+        });
+        COMMANDS.register(new CommandHandler<Application>("supprimerEquipe", "<EquipeNom>", false) {
+            @Override
+            protected void execute(Application application, Repositories repositories, Command command) throws Exception
+            {
+                application.deleteTeam(repositories, command);
+            }
+        });
+        COMMANDS.register(new CommandHandler<Application>("creerJoueur", "<JoueurNom> <JoueurPrenom> [<EquipeNom> <Numero> [<DateDebut>]]", false) {
+            @Override
+            protected void execute(Application application, Repositories repositories, Command command) throws Exception
+            {
+                application.createPlayer(repositories, command);
+            }
+        });
+        COMMANDS.register(new CommandHandler<Application>("afficherJoueursEquipe", "[<EquipeNom>]", true) {
+            @Override
+            protected void execute(Application application, Repositories repositories, Command command) throws Exception
+            {
+                application.displayTeamPlayers(repositories, command);
+            }
+        });
+        COMMANDS.register(new CommandHandler<Application>("supprimerJoueur", "<JoueurNom> <JoueurPrenom>", false) {
+            @Override
+            protected void execute(Application application, Repositories repositories, Command command) throws Exception
+            {
+                application.deletePlayer(repositories, command);
+            }
+        });
+        COMMANDS.register(new CommandHandler<Application>("creerMatch", "<MatchDate> <MatchHeure> <EquipeNomLocal> <EquipeNomVisiteur>", false) {
+            @Override
+            protected void execute(Application application, Repositories repositories, Command command) throws Exception
+            {
+                application.createMatch(repositories, command);
+            }
+        });
+        COMMANDS.register(new CommandHandler<Application>("creerArbitre", "<ArbitreNom> <ArbitrePrenom>", false) {
+            @Override
+            protected void execute(Application application, Repositories repositories, Command command) throws Exception
+            {
+                application.createOfficial(repositories, command);
+            }
+        });
+        COMMANDS.register(new CommandHandler<Application>("afficherArbitres", "", true) {
+            @Override
+            protected void execute(Application application, Repositories repositories, Command command) throws Exception
+            {
+                application.displayOfficials(repositories);
+            }
+        });
+        COMMANDS.register(new CommandHandler<Application>("arbitrerMatch", "<MatchDate> <MatchHeure> <EquipeNomLocal> <EquipeNomVisiteur> <ArbitreNom> <ArbitrePrenom>", false) {
+            @Override
+            protected void execute(Application application, Repositories repositories, Command command) throws Exception
+            {
+                application.refereeAMatch(repositories, command);
+            }
+        });
+        COMMANDS.register(new CommandHandler<Application>("entrerResultatMatch", "<MatchDate> <MatchHeure> <EquipeNomLocal> <EquipeNomVisiteur> <PointsLocal> <PointsVisiteur>", false) {
+            @Override
+            protected void execute(Application application, Repositories repositories, Command command) throws Exception
+            {
+                application.enterMatchResults(repositories, command);
+            }
+        });
+        COMMANDS.register(new CommandHandler<Application>("afficherResultatsDate", "[<APartirDate>]", true) {
+            @Override
+            protected void execute(Application application, Repositories repositories, Command command) throws Exception
+            {
+                application.displayResultsDate(repositories, command);
+            }
+        });
+        COMMANDS.register(new CommandHandler<Application>("afficherResultats", "[<EquipeNom>]", true) {
+            @Override
+            protected void execute(Application application, Repositories repositories, Command command) throws Exception
+            {
+                application.displayResults(repositories, command);
+            }
+        });
+        COMMANDS.register(new CommandHandler<Application>("afficherClassement", "", true) {
+            @Override
+            protected void execute(Application application, Repositories repositories, Command command) throws Exception
+            {
+                application.displayStandings(repositories);
+            }
+        });
+        COMMANDS.register(new CommandHandler<Application>("importer", "<terrain|equipe|arbitre|joueur|faitpartie|match|arbitrer> <FichierCsv>", false) {
+            @Override
+            protected void execute(Application application, Repositories repositories, Command command) throws Exception
+            {
+                application.importFile(repositories, command);
+            }
+        });
+        COMMANDS.register(new CommandHandler<Application>("exporter", "<terrain|equipe|arbitre|joueur|faitpartie|match|arbitrer> <Fichier[.gz]> [csv|json]", true) {
+            @Override
+            protected void execute(Application application, Repositories repositories, Command command) throws Exception
+            {
+                application.exportFile(repositories, command);
+            }
+        });
+
+        COMMANDS.register(new CommandHandler<Application>("stats", "[reinitialiser]", true) {
+            @Override
+            protected void execute(Application application, Repositories repositories, Command command) throws Exception
+            {
+                application.displayStatistics(command);
+            }
+        });
+        COMMANDS.register(new CommandHandler<Application>("aide", "", true) {
+            @Override
+            protected void execute(Application application, Repositories repositories, Command command) throws Exception
+            {
+                application.showAvailableActions();
+            }
+        });
+        COMMANDS.register(new CommandHandler<Application>("quitter", "", true) {
+            @Override
+            protected void execute(Application application, Repositories repositories, Command command) throws Exception
+            {
+                application.exitProgram();
+            }
+        });
     }
 
     /**
@@ -75,40 +254,116 @@ class Application
      */
     Application(ApplicationParameters parameters) {
         this.parameters = parameters;
+        this.output = new OutputSink(System.out, parameters.isRawOutput());
+        this.standings = new Standings();
+        if (parameters.isStatisticsEnabled()) {
+            this.statistics = new QueryStatistics(parameters.getSlowQueryThreshold());
+        }
+    }
+
+    /**
+     * Constructor of a session of the server. The session shares the pool and the statistics of the server, but has its own input and output.
+     *
+     * @param server - Application accepting the sessions.
+     * @param output - Output of the session.
+     * @param input - Input of the session.
+     */
+    private Application(Application server, OutputSink output, BufferedReader input) {
+        this.parameters = server.parameters;
+        this.connectionPool = server.connectionPool;
+        this.repositoryFactory = server.repositoryFactory;
+        this.statistics = server.statistics;
+        this.standings = server.standings;
+        this.output = output;
+        this.input = input;
+    }
+
+    /**
+     * Open the storage engine of the league: the database, or the memory when started with --memory.
+     *
+     * @throws FailedToConnectToDatabaseException
+     */
+    private void openRepositories() throws FailedToConnectToDatabaseException
+    {
+        if (parameters.isInMemory()) {
+            repositoryFactory = new MemoryRepositoryFactory();
+            Logger.info(LOG_TYPE.SYSTEM, "La ligue est gardée en mémoire, la base de données n'est pas utilisée.");
+            if (parameters.getBatchSize() > 0) {
+                Logger.warning(LOG_TYPE.SYSTEM, "Les transactions par lot sont ignorées en mémoire.");
+            }
+        } else {
+            openConnectionWithDatabase();
+            repositoryFactory = new PostgreSqlRepositoryFactory(connectionPool, parameters.getFetchSize());
+        }
+    }
+
+    /**
+     * Close the storage engine of the league.
+     */
+    private void closeRepositories()
+    {
+        if (connectionPool == null && repositoryFactory != null) {
+            Logger.info(LOG_TYPE.SYSTEM, repositoryFactory.toString());
+        }
+        repositoryFactory = null;
+        closeConnectionWithDatabase();
     }
 
     /**
-     * Open a connection with the database.
+     * Open the pool of connections with the database. A first connection is opened right away to make sure the database can be reached.
      *
      * @throws FailedToConnectToDatabaseException
      */
     private void openConnectionWithDatabase() throws FailedToConnectToDatabaseException
     {
+        Properties connectionParameters = new Properties();
+        connectionParameters.setProperty("user", parameters.getUsername());
+        connectionParameters.setProperty("password", parameters.getPassword());
+        int poolSize = parameters.getPoolSize();
+        if (parameters.getServerPort() > 0 && poolSize < parameters.getMaximumSessions()) {
+            // A connection per running session, the IDs are reserved on a connection outside of the pool.
+            poolSize = parameters.getMaximumSessions();
+            Logger.info(LOG_TYPE.SYSTEM, "Taille du pool portée à %s connexions pour les sessions du serveur.", poolSize);
+        }
+        connectionPool = new ConnectionPool(parameters.getDatabaseName(), connectionParameters, poolSize, parameters.getPoolMaximumWait(), parameters.getPoolIdleTimeout(), parameters.getPoolLeakThreshold());
+        connectionPool.setStatementCacheSize(parameters.getStatementCacheSize());
+        connectionPool.setQueryStatistics(statistics);
+
         try {
-            String connectionString = "jdbc:postgresql:" + parameters.getDatabaseName();
-            Properties connectionParameters = new Properties();
-            connectionParameters.setProperty("user", parameters.getUsername());
-            connectionParameters.setProperty("password", parameters.getPassword());
-            connectionWithDatabase = DriverManager.getConnection(connectionString, connectionParameters);
-            connectionWithDatabase.setAutoCommit(false);
-        } catch (SQLException e) {
+            // The connection only proves the database can be reached, it goes back in the pool at once.
+            connectionPool.getConnection().close();
+        } catch (SQLException | NoConnectionAvailableException e) {
             throw new FailedToConnectToDatabaseException(parameters.getDatabaseName(), e);
         }
+
+        if (parameters.isSchemaVerified()) {
+            try (Connection connection = connectionPool.getConnection()) {
+                new SchemaVerifier(parameters.isMissingIndexesCreated()).verify(connection);
+            } catch (SQLException | NoConnectionAvailableException e) {
+                Logger.warning(LOG_TYPE.SYSTEM, "Impossible de vérifier le schéma : %s", e.getMessage());
+            }
+        }
+
+        // IDs are reserved on a connection of their own so they never commit the work of a command.
+        KeyAllocator keyAllocator = DatabaseEntity.getKeyAllocator();
+        keyAllocator.setBlockSize(parameters.getKeyBlockSize());
+        keyAllocator.setConnectionPool(connectionPool);
+
+        Team.getCache().setCapacity(parameters.getTeamCacheSize());
     }
 
     /**
-     * Close the opened connection with the database. Won't close it again if already closed.
+     * Close the pool of connections with the database. Won't close it again if already closed.
      */
     private void closeConnectionWithDatabase()
     {
-        if (connectionWithDatabase != null) {
-            try {
-                if (!connectionWithDatabase.isClosed()) {
-                    connectionWithDatabase.close();
-                }
-            } catch (SQLException e) {
-                connectionWithDatabase = null;
-            }
+        if (connectionPool != null) {
+            DatabaseEntity.getKeyAllocator().setConnectionPool(null);
+            Logger.info(LOG_TYPE.SYSTEM, connectionPool.toString());
+            Logger.info(LOG_TYPE.SYSTEM, connectionPool.getStatementCacheStatistics().toString());
+            Logger.info(LOG_TYPE.SYSTEM, Team.getCache().toString());
+            connectionPool.close();
+            connectionPool = null;
         }
     }
 
@@ -120,23 +375,131 @@ class Application
      */
     public void launch() throws FailedToConnectToDatabaseException, UnknownCommandException
     {
-        openConnectionWithDatabase();
-        executeCommandsFromFile();
+        openRepositories();
+        if (parameters.isInMemory() && !parameters.getMemorySeedFile().isEmpty()) {
+            executeCommandsFromFile(parameters.getMemorySeedFile());
+        }
+        executeCommandsFromFile(parameters.getEntryFile());
+
+        if (parameters.getServerPort() > 0) {
+            serveSessions();
+            return;
+        }
 
         while (true) {
             try {
-                Command command = askCommandToUser();
-                if (!actions.containsKey(command.getCommandName())) {
-                    throw new UnknownCommandException(command.getCommandName());
-                } else {
-                    executeCommand(command);
+                executeCommand(askCommandToUser());
+            } catch (Exception e) {
+                Logger.error(LOG_TYPE.EXCEPTION, e.getMessage() + "(" + e.getClass().getName() + ")");
+            }
+        }
+    }
+
+    /**
+     * Execute the commands of the clients connected on the port of the server, until the program is stopped.
+     */
+    private void serveSessions()
+    {
+        CommandServer server = new CommandServer(this, parameters.getServerPort(), parameters.getMaximumSessions(), parameters.getSessionQueueDepth());
+        try {
+            server.run();
+        } catch (IOException e) {
+            Logger.error(LOG_TYPE.SYSTEM, "Impossible d'écouter sur le port %s : %s", parameters.getServerPort(), e.getMessage());
+        } finally {
+            server.close();
+            exitProgram();
+        }
+    }
+
+    /**
+     * Execute the commands of a client, one per line, until it sends quitter or closes the socket. The socket is closed at the end.
+     *
+     * @param socket - Socket of the client.
+     */
+    void runSession(Socket socket)
+    {
+        Object client = socket.getRemoteSocketAddress();
+        Logger.info(LOG_TYPE.SYSTEM, "Session ouverte : %s", client);
+
+        try (Socket sessionSocket = socket) {
+            OutputSink sessionOutput = new OutputSink(sessionSocket.getOutputStream(), parameters.isRawOutput());
+            BufferedReader sessionInput = new BufferedReader(new InputStreamReader(sessionSocket.getInputStream(), "UTF-8"));
+            new Application(this, sessionOutput, sessionInput).executeCommandsOfSession();
+        } catch (IOException e) {
+            Logger.error(LOG_TYPE.EXCEPTION, "Session %s interrompue : %s", client, e.getMessage());
+        }
+
+        Logger.info(LOG_TYPE.SYSTEM, "Session fermée : %s", client);
+    }
+
+    /**
+     * Read and execute the commands of the session. The errors are sent to the client too.
+     *
+     * @throws IOException The client is gone.
+     */
+    private void executeCommandsOfSession() throws IOException
+    {
+        Command command = new Command();
+        while (!Thread.currentThread().isInterrupted()) {
+            output.print("$ ");
+            flushOutput();
+
+            String line = input.readLine();
+            if (line == null) {
+                break;
+            }
+            line = line.trim();
+            if (line.isEmpty() || line.startsWith("--")) {
+                continue;
+            }
+
+            try {
+                command.parse(line);
+                if (command.getCommandName().equals("quitter")) {
+                    // Only the session of the client ends.
+                    break;
                 }
+                executeCommand(command);
             } catch (Exception e) {
                 Logger.error(LOG_TYPE.EXCEPTION, e.getMessage() + "(" + e.getClass().getName() + ")");
+                output.println("Erreur : " + e.getMessage());
+                flushOutput();
+            }
+            if (output.checkError()) {
+                throw new IOException("Le client ne reçoit plus les résultats.");
             }
         }
     }
 
+    /**
+     * Read a line entered by the user, from the console or from the client of the session.
+     *
+     * @return String - Line without the end of line, null at the end of the input.
+     * @throws IOException Failed to read the input.
+     */
+    private String readLine() throws IOException
+    {
+        if (input != null) {
+            return input.readLine();
+        }
+        return new BufferedReader(new InputStreamReader(System.in)).readLine();
+    }
+
+    /**
+     * Read the answer of the user to a question.
+     *
+     * @return String - Answer, without the spaces around it.
+     * @throws IOException Failed to read the answer, or nothing is left to read.
+     */
+    private String readAnswer() throws IOException
+    {
+        String answer = readLine();
+        if (answer == null) {
+            throw new EOFException("Aucune réponse n'a été donnée.");
+        }
+        return answer.trim();
+    }
+
     /**
      * Ask the player enter a command with parameters if needed.
      *
@@ -146,7 +509,8 @@ class Application
     {
         Scanner scanner = new Scanner(System.in);
         try {
-            System.out.print("$ ");
+            output.print("$ ");
+            flushOutput();
             return Command.extractCommandFromString(scanner.nextLine().trim());
         } finally {
             // BUG dans Eclipse, si on le ferme ça va faire plein de null pointer exception.
@@ -156,267 +520,297 @@ class Application
     }
 
     /**
-     * Execute all the commands inside the file given as the entry file.
+     * Execute all the commands inside the given file. In batch mode, the commands are grouped in transactions. The file is read through a large
+     * buffer, and the comments are only decoded when they are logged.
      *
-     * @throws FileNotFoundException
+     * @param fileName - Path of the file, nothing is done if empty.
      */
-    private void executeCommandsFromFile()
+    private void executeCommandsFromFile(String fileName)
     {
-        if (!parameters.getEntryFile().isEmpty()) {
-            Logger.info(LOG_TYPE.OTHER, "Exécution des commandes fournies dans le fichier '%s'...", parameters.getEntryFile());
-
-            Scanner scanner = null;
+        if (!fileName.isEmpty()) {
+            Logger.info(LOG_TYPE.OTHER, "Exécution des commandes fournies dans le fichier '%s'...", fileName);
+
+            LineReader reader = null;
+            BatchConnection batch = null;
+            Command command = new Command();
+            boolean commentsLogged = Logger.isEnabled(LOG_TYPE.COMMENT, LEVEL.INFO);
+            boolean commandsLogged = Logger.isEnabled(LOG_TYPE.COMMAND, LEVEL.INFO);
+            long start = System.nanoTime();
             try {
-                scanner = new Scanner(new File(parameters.getEntryFile()));
-                while (scanner.hasNextLine()) {
-                    String line = scanner.nextLine().trim();
-                    if (!line.startsWith("--")) {
+                // Same charset as the Scanner that used to read the entry files.
+                reader = new LineReader(Paths.get(fileName), Charset.defaultCharset(), ENTRY_FILE_BUFFER_SIZE);
+                if (parameters.getBatchSize() > 0 && connectionPool != null) {
+                    batch = new BatchConnection(connectionPool.getConnection(), parameters.getBatchSize());
+                }
+
+                while (reader.nextLine()) {
+                    if (!reader.isComment()) {
                         try {
-                            Logger.info(LOG_TYPE.COMMAND, line);
-                            executeCommand(Command.extractCommandFromString(line));
+                            if (commandsLogged) {
+                                Logger.info(LOG_TYPE.COMMAND, reader.getText().toString());
+                            }
+                            command.parse(reader.getText());
+                            if (batch == null) {
+                                executeCommand(command);
+                            } else {
+                                executeCommandInBatch(batch, command);
+                            }
                         } catch (Exception e) {
                             Logger.error(LOG_TYPE.EXCEPTION, e.getMessage() + "(" + e.getClass().getName() + ")");
                         } finally {
-                            System.out.println("");
+                            output.text("");
+                            flushOutput();
                         }
-                    } else if (line.length() > 2) {
-                        Logger.info(LOG_TYPE.COMMENT, line.substring(2));
+                    } else if (commentsLogged && reader.getByteLength() > 2) {
+                        Logger.info(LOG_TYPE.COMMENT, reader.getText().subSequence(2, reader.getText().length()).toString());
                     }
                 }
-            } catch (FileNotFoundException e) {
-                Logger.error(LOG_TYPE.USER, "Impossible de trouver le fichier %s.", parameters.getEntryFile());
+            } catch (NoSuchFileException e) {
+                Logger.error(LOG_TYPE.USER, "Impossible de trouver le fichier %s.", fileName);
+            } catch (IOException e) {
+                Logger.error(LOG_TYPE.USER, "Impossible de lire le fichier %s : %s", fileName, e.getMessage());
+            } catch (FailedToConnectToDatabaseException | NoConnectionAvailableException e) {
+                Logger.error(LOG_TYPE.EXCEPTION, e.getMessage() + "(" + e.getClass().getName() + ")");
             } finally {
-                Logger.info(LOG_TYPE.OTHER, "Exécution des commandes terminé.");
-                if (scanner != null) {
-                    scanner.close();
+                if (batch != null) {
+                    try {
+                        batch.close();
+                        Logger.info(LOG_TYPE.SYSTEM, "%s transactions confirmées.", batch.getCommitCount());
+                    } catch (SQLException e) {
+                        forgetRolledBackWork();
+                        Logger.error(LOG_TYPE.EXCEPTION, "Impossible de confirmer la dernière transaction : %s", e.getMessage());
+                    }
+                }
+
+                long lineCount = 0;
+                if (reader != null) {
+                    lineCount = reader.getLineNumber();
+                    try {
+                        reader.close();
+                    } catch (IOException e) {
+                        Logger.error(LOG_TYPE.EXCEPTION, e.getMessage() + "(" + e.getClass().getName() + ")");
+                    }
                 }
+
+                double seconds = (System.nanoTime() - start) / 1000000000.0;
+                Logger.info(LOG_TYPE.OTHER, "Exécution des commandes terminé : %s lignes en %.3f s (%.0f lignes/s).", lineCount, seconds, lineCount / Math.max(seconds, 0.000001));
+                Logger.flush();
             }
         }
     }
 
     /**
-     * Execute the command with the informations given by the user.
+     * Execute a command inside the current transaction of the batch. If the command fails, only its own work is rolled back.
+     *
+     * @param batch - Transaction shared by the commands of the entry file.
+     * @param command - Command to execute.
+     */
+    private void executeCommandInBatch(BatchConnection batch, Command command) throws Exception
+    {
+        CommandHandler<Application> handler = COMMANDS.find(command);
+        try {
+            if (handler.getName().equals("quitter")) {
+                batch.commit();
+            }
+            batch.beginCommand();
+        } catch (SQLException e) {
+            // The transaction of the previous commands is lost.
+            forgetRolledBackWork();
+            throw e;
+        }
+
+        Repositories repositories = new PostgreSqlRepositories(batch.getConnection(), parameters.getFetchSize());
+        try {
+            executeCommand(handler, repositories, command);
+        } catch (Exception e) {
+            // The connection stays open for the next commands, only the work of this one is dropped.
+            repositories.discard();
+            if (!handler.isReadOnly()) {
+                forgetRolledBackWork();
+            }
+            failCommandInBatch(batch);
+            throw e;
+        }
+
+        try {
+            batch.endCommand();
+        } catch (SQLException e) {
+            // The writes of the command or the commit of the transaction failed, whatever the command did.
+            forgetRolledBackWork();
+            failCommandInBatch(batch);
+            throw e;
+        }
+    }
+
+    /**
+     * Roll back the work of the current command of the batch. If it can't be, the whole transaction is lost.
+     *
+     * @param batch - Transaction shared by the commands of the entry file.
+     * @throws SQLException Failed to roll back to the savepoint of the command.
+     */
+    private void failCommandInBatch(BatchConnection batch) throws SQLException
+    {
+        try {
+            batch.failCommand();
+        } catch (SQLException e) {
+            forgetRolledBackWork();
+            throw e;
+        }
+    }
+
+    /**
+     * Forget the cached teams and the standings, which may hold work that was rolled back. They are read again when needed.
+     */
+    private void forgetRolledBackWork()
+    {
+        Team.getCache().clear();
+        standings.invalidate();
+    }
+
+    /**
+     * Execute the command with the informations given by the user. The repositories, and the connection they hold with the database, are
+     * opened for the duration of the command.
      *
      * @param command - Command requested by the user.
      */
     private void executeCommand(Command command) throws Exception
     {
-        switch (command.getCommandName()) {
-            case "creerEquipe":
-                createTeam(command.getParameters());
-                break;
-            case "afficherEquipes":
-                displayTeams();
-                break;
-            case "supprimerEquipe":
-                deleteTeam(command.getParameters());
-                break;
-            case "creerJoueur":
-                createPlayer(command.getParameters());
-                break;
-            case "afficherJoueursEquipe":
-                displayTeamPlayers(command.getParameters());
-                break;
-            case "supprimerJoueur":
-                deletePlayer(command.getParameters());
-                break;
-            case "creerMatch":
-                createMatch(command.getParameters());
-                break;
-            case "creerArbitre":
-                createOfficial(command.getParameters());
-                break;
-            case "afficherArbitres":
-                displayOfficials();
-                break;
-            case "arbitrerMatch":
-                refereeAMatch(command.getParameters());
-                break;
-            case "entrerResultatMatch":
-                enterMatchResults(command.getParameters());
-                break;
-            case "afficherResultatsDate":
-                displayResultsDate(command.getParameters());
-                break;
-            case "afficherResultats":
-                displayResults(command.getParameters());
-                break;
-            case "aide":
-                showAvailableActions();
-                break;
-            case "quitter":
-                exitProgram();
-            default:
-                System.out.println("Commande non implémentée.");
-                break;
+        CommandHandler<Application> handler = COMMANDS.find(command);
+        try (Repositories repositories = repositoryFactory.open()) {
+            executeCommand(handler, repositories, command);
+        }
+    }
+
+    /**
+     * Execute the command with the informations given by the user. What the command saved is committed once, when it succeeds.
+     *
+     * @param handler - Handler of the command, found in the registry.
+     * @param repositories - Repositories opened for this command.
+     * @param command - Command requested by the user.
+     */
+    private void executeCommand(CommandHandler<Application> handler, Repositories repositories, Command command) throws Exception
+    {
+        try {
+            handler.handle(this, repositories, command, statistics != null);
+            repositories.commit();
+        } finally {
+            flushOutput();
         }
     }
 
     /**
      * Create a new team.
      *
-     * @param parameters - <EquipeNom> [<NomTerrain> AdresseTerrain]
+     * @param command - <EquipeNom> [<NomTerrain> AdresseTerrain]
      * @throws FailedToSaveEntityException
-     * @throws MissingCommandParameterException
      * @throws TeamNameAlreadyTakenException
      */
-    private void createTeam(ArrayList<String> parameters) throws FailedToSaveEntityException, MissingCommandParameterException, TeamNameAlreadyTakenException
+    private void createTeam(Repositories repositories, Command command) throws FailedToSaveEntityException, TeamNameAlreadyTakenException
     {
-        if (parameters.size() < 1) {
-            throw new MissingCommandParameterException("creerEquipe", "EquipeNom");
-        }
-
-        // Prepare field
+        // Prepare field, the existing one with the same name is used if any
         Field field = null;
-        if (parameters.size() > 1) {
-            // Check if field already exists
-            field = Field.getFieldWithName(connectionWithDatabase, parameters.get(1));
-            if (field == null) {
-                field = new Field();
-                field.setName(parameters.get(1));
-                if (parameters.size() > 2) {
-                    field.setAddress(parameters.get(2));
-                }
-                field.save(connectionWithDatabase);
+        if (command.getParameterCount() > 1) {
+            field = new Field();
+            field.setName(command.getString(1));
+            if (command.getParameterCount() > 2) {
+                field.setAddress(command.getString(2));
             }
         }
 
-        // Check if team already exists
-        Team team = Team.getTeamWithName(connectionWithDatabase, parameters.get(0));
-        if (team != null) {
-            throw new TeamNameAlreadyTakenException(parameters.get(0));
-        }
-        team = new Team();
-        team.setName(parameters.get(0));
-        team.setField(connectionWithDatabase, field);
-        team.save(connectionWithDatabase);
+        // The name of the team is checked while it is created
+        Team team = new Team();
+        team.setName(command.getString(0));
+        repositories.teams().create(team, field);
     }
 
     /**
      * Display all the teams.
      */
-    private void displayTeams()
+    private void displayTeams(Repositories repositories)
     {
-        List<Team> teams = Team.getAllTeams(connectionWithDatabase);
+        List<Team> teams = repositories.teams().getAllTeams();
         for (Team team : teams) {
-            System.out.println(String.format(" -> %s, équipe # %s", team.getName(), team.getId()));
+            output.row(TEAM_LINE, team.getName(), team.getId());
         }
     }
 
     /**
      * Delete a team.
      *
-     * @param parameters - <EquipeNom>
+     * @param command - <EquipeNom>
      * @throws FailedToDeleteEntityException
-     * @throws MissingCommandParameterException
      * @throws NumberFormatException
      */
-    private void deleteTeam(ArrayList<String> parameters) throws TeamIsNotEmptyException, FailedToDeleteEntityException, MissingCommandParameterException
+    private void deleteTeam(Repositories repositories, Command command) throws TeamIsNotEmptyException, FailedToDeleteEntityException
     {
-        if (parameters.size() < 1) {
-            throw new MissingCommandParameterException("supprimerEquipe", "EquipeNom");
-        }
-
-        Team team = Team.getTeamWithName(connectionWithDatabase, parameters.get(0));
+        Team team = repositories.teams().getTeamWithName(command.getString(0));
         if (team == null) {
-            Logger.error(LOG_TYPE.USER, "L'équipe %s n'existe pas.", parameters.get(0));
+            Logger.error(LOG_TYPE.USER, "L'équipe %s n'existe pas.", command.getString(0));
         } else {
-            try {
-                team.delete(connectionWithDatabase);
-            } catch (Exception e) {
-                e.printStackTrace();
-            }
+            repositories.teams().delete(team);
         }
     }
 
     /**
      * Create a player
      *
-     * @param parameters - <JoueurNom> <JoueurPrenom> [<EquipeNom> <Numero> [<DateDbut>]]
-     * @throws MissingCommandParameterException
+     * @param command - <JoueurNom> <JoueurPrenom> [<EquipeNom> <Numero> [<DateDbut>]]
      * @throws TeamDoesntExistException
      * @throws FailedToSaveEntityException
      * @throws ParseException
      * @throws PlayerAlreadyExistsException
      */
-    private void createPlayer(ArrayList<String> parameters) throws MissingCommandParameterException, TeamDoesntExistException, FailedToSaveEntityException, NullPointerException, IllegalArgumentException, ParseException, PlayerAlreadyExistsException
+    private void createPlayer(Repositories repositories, Command command) throws TeamDoesntExistException, FailedToSaveEntityException, NullPointerException, IllegalArgumentException, ParseException, PlayerAlreadyExistsException
     {
         Team team = null;
 
-        if (parameters.get(1) != null || parameters.get(2) != null) {
-
-            // If param 3 or 4 exists, then they both can't be null
-            if (parameters.get(1) == null) {
-                throw new MissingCommandParameterException("EquipeNom", "creerJoueur");
-            } else if (parameters.get(2) == null) {
-                throw new MissingCommandParameterException("Numero", "creerJoueur");
-            }
-
+        // The team and the number are given together.
+        if (command.getParameterCount() >= 4) {
             // Check if team exists
-            team = Team.getTeamWithName(connectionWithDatabase, parameters.get(2));
+            team = repositories.teams().getTeamWithName(command.getString(2));
             if (team == null) {
-                throw new TeamDoesntExistException(parameters.get(2));
-            }
-        }
-
-        // Make sure that the player don't already exists
-        if (parameters.size() >= 3) {
-            List<Player> players = Player.getPlayerWithName(connectionWithDatabase, parameters.get(1), parameters.get(0));
-            for (Player player : players) {
-                if (player.getNumber() == Integer.parseInt(parameters.get(2))) {
-                    throw new PlayerAlreadyExistsException();
-                }
+                throw new TeamDoesntExistException(command.getString(2));
             }
         }
 
         Player player = new Player();
-        player.setFirstName(parameters.get(1));
-        player.setLastName(parameters.get(0));
+        player.setFirstName(command.getString(1));
+        player.setLastName(command.getString(0));
 
-        if (parameters.size() == 4) { // Checking only 1 param validates both
-            player.setNumber(Integer.parseInt(parameters.get(3)));
+        if (command.getParameterCount() >= 4) {
+            player.setNumber(command.getInt(3));
         }
 
-        if (parameters.size() == 5) {
-            try {
-                player.setDate(Date.valueOf(parameters.get(4)));
-            } catch (IllegalArgumentException e) {
-                throw new InvalidParameterException("La date est invalide.");
-            }
+        if (command.getParameterCount() == 5) {
+            player.setDate(command.getDate(4));
         }
 
-        player.save(connectionWithDatabase);
-
-        if (parameters.size() >= 3) {
-            team.addPlayer(connectionWithDatabase, player);
-        }
+        // The number is checked while the player joins the team
+        repositories.players().create(player, team);
     }
 
     /**
      * Display all the players of each team. If a team name is given, it will display all the player of this team only. Only currently employed
      * players are displayed.
      *
-     * @param parameters - [<EquipeNom>]
+     * @param command - [<EquipeNom>]
      * @throws TeamDoesntExistException
-     * @throws MissingCommandParameterException
+     * @throws FailedToRetrievePlayersOfTeamException
      */
-    private void displayTeamPlayers(ArrayList<String> parameters) throws TeamDoesntExistException
+    private void displayTeamPlayers(Repositories repositories, Command command) throws TeamDoesntExistException, FailedToRetrievePlayersOfTeamException
     {
-        if (parameters.isEmpty()) {
-            List<Team> teams = Team.getAllTeams(connectionWithDatabase);
-            if (teams != null) {
-                for (Team team : teams) {
-                    showAllPlayersForTeam(team);
-                }
-            } else {
-                throw new TeamDoesntExistException(parameters.get(0));
+        if ((command.getParameterCount() == 0)) {
+            List<Team> teams = repositories.teams().getAllTeams();
+            Map<Integer, List<Player>> rosters = repositories.teams().getRosters(null);
+            for (Team team : teams) {
+                showAllPlayersForTeam(team, rosters.get(team.getId()));
             }
         } else {
-            Team team = Team.getTeamWithName(connectionWithDatabase, parameters.get(0));
+            Team team = repositories.teams().getTeamWithName(command.getString(0));
             if (team != null) {
-                showAllPlayersForTeam(team);
+                showAllPlayersForTeam(team, repositories.teams().getPlayers(team));
             } else {
-                throw new TeamDoesntExistException(parameters.get(0));
+                throw new TeamDoesntExistException(command.getString(0));
             }
         }
     }
@@ -424,76 +818,64 @@ class Application
     /**
      * Show all the players that plays for the team given in parameters.
      *
-     * @param teamName - Name of the Team.
-     * @throws FailedToRetrievePlayersOfTeamException
+     * @param team - Team.
+     * @param players - Current players of the team, can be null if none.
      */
-    private void showAllPlayersForTeam(Team team)
+    private void showAllPlayersForTeam(Team team, List<Player> players)
     {
-        try {
-            System.out.println(String.format("Équipe: %s", team.getName()));
-            List<Player> players = team.getPlayers(connectionWithDatabase);
-            if (players.isEmpty()) {
-                System.out.println(" -> Aucun joueur ne fait partie de cette équipe.");
-            } else {
-                for (Player player : players) {
-                    System.out.println(String.format(" -> %s %s #%s", player.getFirstName(), player.getLastName(), player.getNumber()));
-                }
+        output.text(ROSTER_HEADER, team.getName());
+        if (players == null || players.isEmpty()) {
+            output.text(" -> Aucun joueur ne fait partie de cette équipe.");
+        } else {
+            for (Player player : players) {
+                output.text(PLAYER_LINE, player.getFirstName(), player.getLastName(), player.getNumber());
+                output.record(team.getName(), player.getFirstName(), player.getLastName(), player.getNumber());
             }
-        } catch (FailedToRetrievePlayersOfTeamException e) {
-            e.printStackTrace();
-            Logger.error(LOG_TYPE.EXCEPTION, e.getMessage());
         }
     }
 
     /**
      * Delete a player and all informations related to it.
      *
-     * @param parameters - <JoueurNom> <JoueurPrenom>
-     * @throws MissingCommandParameterException Missing parameter.
+     * @param command - <JoueurNom> <JoueurPrenom>
+     * @throws IOException
      */
-    private void deletePlayer(ArrayList<String> parameters) throws MissingCommandParameterException
+    private void deletePlayer(Repositories repositories, Command command) throws IOException
     {
-        if (parameters.isEmpty()) {
-            throw new MissingCommandParameterException("supprimerJoueur", "JoueurNom");
-        } else if (parameters.size() == 1) {
-            throw new MissingCommandParameterException("supprimerJoueur", "JoueurPrenom");
-        }
-
-        List<Player> players = Player.getPlayerWithName(connectionWithDatabase, parameters.get(1), parameters.get(0));
+        List<Player> players = repositories.players().getPlayerWithName(command.getString(1), command.getString(0));
 
         if (players.isEmpty()) {
-            Logger.error(LOG_TYPE.USER, "Le joueur '%s %s' n'existe pas.", parameters.get(1), parameters.get(0));
+            Logger.error(LOG_TYPE.USER, "Le joueur '%s %s' n'existe pas.", command.getString(1), command.getString(0));
+        } else if (players.size() == 1) {
+            // Confirmation
+            output.print("Êtes-vous certain de vouloir supprimer ce joueur ? (O/N) : ");
+            flushOutput();
+            String confirmation = readAnswer();
+            if (confirmation.startsWith("o") || confirmation.startsWith("O")) {
+                Team team = repositories.players().getTeam(players.get(0));
+                if (team != null) {
+                    repositories.teams().removePlayer(team, players.get(0));
+                }
+            }
         } else {
-            try {
-                if (players.size() == 1) {
-                    // Confirmation
-                    System.out.print("Êtes-vous certain de vouloir supprimer ce joueur ? (O/N) : ");
-                    char confirmation = new BufferedReader(new InputStreamReader(System.in)).readLine().trim().charAt(0);
-                    if (confirmation == 'o' || confirmation == 'O') {
-                        Team team = players.get(0).getTeam(connectionWithDatabase);
-                        if (team != null) {
-                            team.removePlayer(connectionWithDatabase, players.get(0));
-                        }
-                    }
-                } else {
-                    System.out.println("Entrez le # du joueur a supprimer parmi les suivants : ");
+            output.println("Entrez le # du joueur a supprimer parmi les suivants : ");
 
-                    int i = 0;
-                    for (Player player : players) {
-                        System.out.println(String.format(" (%s) %s %s id=%s numero=%s", i, player.getFirstName(), player.getLastName(), player.getId(), player.getNumber()));
-                        i++;
-                    }
+            int i = 0;
+            for (Player player : players) {
+                output.row(PLAYER_CHOICE_LINE, i, player.getFirstName(), player.getLastName(), player.getId(), player.getNumber());
+                i++;
+            }
 
-                    System.out.print("Votre choix : ");
+            output.print("Votre choix : ");
+            flushOutput();
 
-                    int playerNumber = Integer.parseInt(new BufferedReader(new InputStreamReader(System.in)).readLine().trim());
-                    Team team = players.get(playerNumber).getTeam(connectionWithDatabase);
-                    if (team != null) {
-                        team.removePlayer(connectionWithDatabase, players.get(playerNumber));
-                    }
-                }
-            } catch (Exception e) {
-                e.printStackTrace();
+            int playerNumber = Integer.parseInt(readAnswer());
+            if (playerNumber < 0 || playerNumber >= players.size()) {
+                throw new IllegalArgumentException(String.format("Le joueur #%s n'est pas dans la liste.", playerNumber));
+            }
+            Team team = repositories.players().getTeam(players.get(playerNumber));
+            if (team != null) {
+                repositories.teams().removePlayer(team, players.get(playerNumber));
             }
         }
     }
@@ -501,238 +883,428 @@ class Application
     /**
      * Create a new match.
      *
-     * @param parameters - <MatchDate> <MatchHeure> <EquipeNomLocal> <EquipeNomVisiteur>
-     * @throws MissingCommandParameterException
+     * @param command - <MatchDate> <MatchHeure> <EquipeNomLocal> <EquipeNomVisiteur>
      * @throws TeamCantPlayAgainstItselfException
      * @throws CannotFindTeamWithNameException
+     * @throws FailedToSaveEntityException
      */
-    private void createMatch(ArrayList<String> parameters) throws MissingCommandParameterException, TeamCantPlayAgainstItselfException, CannotFindTeamWithNameException
+    private void createMatch(Repositories repositories, Command command) throws TeamCantPlayAgainstItselfException, CannotFindTeamWithNameException, FailedToSaveEntityException
     {
-        // Validate parameters
-        switch (parameters.size()) {
-            case 0:
-                throw new MissingCommandParameterException("creerMatch", "MatchDate");
-            case 1:
-                throw new MissingCommandParameterException("creerMatch", "MatchHeure");
-            case 2:
-                throw new MissingCommandParameterException("creerMatch", "EquipeNomLocal");
-            case 3:
-                throw new MissingCommandParameterException("creerMatch", "EquipeNomVisiteur");
-            default:
-                // Ok !
-        }
-
         // Verifications
-        if (parameters.get(2).equalsIgnoreCase(parameters.get(3))) {
-            throw new TeamCantPlayAgainstItselfException(parameters.get(2));
+        if (command.getString(2).equalsIgnoreCase(command.getString(3))) {
+            throw new TeamCantPlayAgainstItselfException(command.getString(2));
         }
 
         // Ex.: creerMatch 2000-01-01 08:00:00 Red_Sox Yankees
 
         Match match = new Match();
 
-        Team local = Team.getTeamWithName(connectionWithDatabase, parameters.get(2));
+        Team local = repositories.teams().getTeamWithName(command.getString(2));
         if (local == null) {
-            throw new CannotFindTeamWithNameException(parameters.get(2));
+            throw new CannotFindTeamWithNameException(command.getString(2));
         }
         match.setLocalTeam(local);
-        match.setField(local.getField(connectionWithDatabase));
+        match.setField(repositories.teams().getField(local));
 
-        Team visitor = Team.getTeamWithName(connectionWithDatabase, parameters.get(3));
+        Team visitor = repositories.teams().getTeamWithName(command.getString(3));
         if (visitor == null) {
-            throw new CannotFindTeamWithNameException(parameters.get(3));
+            throw new CannotFindTeamWithNameException(command.getString(3));
         }
         match.setVisitorTeam(visitor);
 
-        // PATCH: in case the user forgot the seconds, we add them.
-        String timeAsString = parameters.get(1);
-        if (timeAsString.lastIndexOf(':') <= 2) {
-            timeAsString += ":00";
-        }
-
-        match.setDate(Date.valueOf(parameters.get(0)));
-        match.setTime(Time.valueOf(timeAsString));
-        try {
-            match.save(connectionWithDatabase);
-        } catch (FailedToSaveEntityException e) {
-            Logger.error(LOG_TYPE.EXCEPTION, e.getMessage());
-            e.printStackTrace();
-        }
+        match.setDate(command.getDate(0));
+        match.setTime(command.getTime(1));
+        repositories.matches().save(match);
     }
 
     /**
      * Create a new official.
      *
-     * @param parameters - <ArbitreNom> <ArbitrePrenom>
-     * @throws MissingCommandParameterException
+     * @param command - <ArbitreNom> <ArbitrePrenom>
      * @throws FailedToSaveEntityException
      */
-    private void createOfficial(ArrayList<String> parameters) throws MissingCommandParameterException, FailedToSaveEntityException
+    private void createOfficial(Repositories repositories, Command command) throws FailedToSaveEntityException
     {
-        if (parameters.isEmpty()) {
-            throw new MissingCommandParameterException("creerArbitre", "ArbitreNom");
-        } else if (parameters.size() == 1) {
-            throw new MissingCommandParameterException("creerArbitre", "ArbitrePrenom");
-        }
-
-        // Check if this official already exists
-        Official official = Official.getOfficialWithName(connectionWithDatabase, parameters.get(1), parameters.get(0));
-        if (official != null) {
-            Logger.error(LOG_TYPE.USER, "L'arbitre existe déjà.");
-        } else {
-            official = new Official();
-            official.setFirstName(parameters.get(1));
-            official.setLastName(parameters.get(0));
-            official.save(connectionWithDatabase);
+        Official official = new Official();
+        official.setFirstName(command.getString(1));
+        official.setLastName(command.getString(0));
+        try {
+            repositories.officials().create(official);
             Logger.info(LOG_TYPE.SYSTEM, "Ajout fait avec succès.");
+        } catch (OfficialAlreadyExistsException e) {
+            Logger.error(LOG_TYPE.USER, e.getMessage());
         }
     }
 
     /**
      * Display all the officials.
      */
-    private void displayOfficials()
+    private void displayOfficials(Repositories repositories)
     {
-        List<Official> officials = Official.getAllOfficials(connectionWithDatabase);
+        List<Official> officials = repositories.officials().getAllOfficials();
 
-        System.out.println("Les arbitres sont: ");
+        output.text("Les arbitres sont: ");
         for (Official official : officials) {
-            System.out.println(String.format(" -> %s %s", official.getFirstName(), official.getLastName()));
+            output.row(OFFICIAL_LINE, official.getFirstName(), official.getLastName());
         }
     }
 
     /**
      * Referee a match.
      *
-     * @param parameters - <MatchDate> <MatchHeure> <EquipeNomLocal> <EquipeNomVisiteur> <ArbitreNom> <ArbitrePrenom>
+     * @param command - <MatchDate> <MatchHeure> <EquipeNomLocal> <EquipeNomVisiteur> <ArbitreNom> <ArbitrePrenom>
      * @throws MatchDoesntExistsException
-     * @throws MissingCommandParameterException
      * @throws OfficialDoesntExistsException
      * @throws MatchAlreadyHaveTheMaximumNumberOfOfficialsException
      * @throws FailedToSaveEntityException
      * @throws TeamDoesntExistException
      */
-    private void refereeAMatch(ArrayList<String> parameters) throws MatchDoesntExistsException, MissingCommandParameterException, OfficialDoesntExistsException, MatchAlreadyHaveTheMaximumNumberOfOfficialsException, FailedToSaveEntityException, TeamDoesntExistException
+    private void refereeAMatch(Repositories repositories, Command command) throws MatchDoesntExistsException, OfficialDoesntExistsException, MatchAlreadyHaveTheMaximumNumberOfOfficialsException, FailedToSaveEntityException, TeamDoesntExistException
     {
-        if (parameters.size() != 6) {
-            throw new MissingCommandParameterException("arbitrerMatch", "");
-        }
-
         // Find if match exists
-        Match match = Match.getMatchWithDateTimeEquipe(connectionWithDatabase, parameters.get(0), parameters.get(1), parameters.get(2), parameters.get(3));
+        Match match = repositories.matches().getMatchWithDateTimeTeams(command.getDate(0), command.getTime(1), command.getString(2), command.getString(3));
         if (match == null) {
             throw new MatchDoesntExistsException();
         }
 
         // Find if official exists
-        Official official = Official.getOfficialWithName(connectionWithDatabase, parameters.get(5), parameters.get(4));
+        Official official = repositories.officials().getOfficialWithName(command.getString(5), command.getString(4));
         if (official == null) {
             throw new OfficialDoesntExistsException();
         }
 
         // Make sure that the match don't have more than 4 officials
-        if (match.getOfficials(connectionWithDatabase).size() >= 4) {
+        if (repositories.matches().getOfficials(match).size() >= 4) {
             throw new MatchAlreadyHaveTheMaximumNumberOfOfficialsException();
-        } else if (match.getOfficials(connectionWithDatabase).contains(official)) {
+        } else if (repositories.matches().getOfficials(match).contains(official)) {
             // Do nothing because the official is already defined for this match.
             Logger.warning(LOG_TYPE.USER, "L'arbitre est déjà assigné a ce match.");
         } else {
-            match.addOfficial(connectionWithDatabase, official);
+            repositories.matches().addOfficial(match, official);
         }
     }
 
     /**
      * Enter the results of a match.
      *
-     * @param parameters - <MatchDate> <MatchHeure> <EquipeNomLocal> <EquipeNomVisiteur> <PointsLocal> <PointsVisiteur>
+     * @param command - <MatchDate> <MatchHeure> <EquipeNomLocal> <EquipeNomVisiteur> <PointsLocal> <PointsVisiteur>
+     * @throws MatchDoesntExistsException
      * @throws TeamDoesntExistException
+     * @throws FailedToSaveEntityException
      */
-    private void enterMatchResults(ArrayList<String> parameters) throws MissingCommandParameterException, NegativeScore, TeamDoesntExistException
+    private void enterMatchResults(Repositories repositories, Command command) throws NegativeScore, MatchDoesntExistsException, TeamDoesntExistException, FailedToSaveEntityException
     {
         // Update
         // EX : entrerResultatMatch 2007-06-16 19:30:00 Yankees Mets 45 22
         // EX : entrerResultatMatch 2000-01-01 08:00:00 Yankees Red_Sox 70 30
 
-        if (Integer.parseInt(parameters.get(4)) < 0 || Integer.parseInt(parameters.get(5)) < 0) {
+        int localTeamScore = command.getInt(4);
+        int visitorTeamScore = command.getInt(5);
+        if (localTeamScore < 0 || visitorTeamScore < 0) {
             throw new NegativeScore();
         }
 
-        Match match = Match.getMatchWithDateTimeEquipe(connectionWithDatabase, parameters.get(0), parameters.get(1), parameters.get(2), parameters.get(3));
-
-        match.setLocalTeamScore(Integer.parseInt(parameters.get(4)));
-        match.setVisitorTeamScore(Integer.parseInt(parameters.get(5)));
-        try {
-            match.save(connectionWithDatabase);
-            Logger.info(LOG_TYPE.SYSTEM, "Update fait avec succes.");
-        } catch (FailedToSaveEntityException e) {
-            Logger.error(LOG_TYPE.EXCEPTION, e.getMessage());
-            e.printStackTrace();
+        final Match match = repositories.matches().getMatchWithDateTimeTeams(command.getDate(0), command.getTime(1), command.getString(2), command.getString(3));
+        if (match == null) {
+            throw new MatchDoesntExistsException();
         }
+
+        // The previous result is read as it is replaced, a corrected result replaces it in the standings.
+        final Match previous = repositories.matches().enterResult(match, localTeamScore, visitorTeamScore);
+
+        // The standings computed by another session until the result is counted would count it twice, or miss it.
+        standings.beginChange();
+        repositories.addCompletionListener(new CompletionListener() {
+            @Override
+            public void completed(boolean committed)
+            {
+                if (committed) {
+                    if (previous.isResultEntered()) {
+                        standings.removeResult(previous.getLocalTeamId(), previous.getVisitorTeamId(), previous.getLocalTeamScore(), previous.getVisitorTeamScore());
+                    }
+                    standings.addResult(match.getLocalTeamId(), match.getVisitorTeamId(), match.getLocalTeamScore(), match.getVisitorTeamScore());
+                    Logger.info(LOG_TYPE.SYSTEM, "Update fait avec succes.");
+                }
+                standings.endChange();
+            }
+        });
     }
 
     /**
      * Display the results of all the matchs. If a date is given, will only display matchs played until that date.
      *
-     * @param parameters - [<APartirDate>]
+     * @param command - [<APartirDate>]
      */
-    private void displayResultsDate(ArrayList<String> parameters)
+    private void displayResultsDate(Repositories repositories, Command command)
     {
         // afficherResultatsDate 2000-01-01
 
-        List<Match> matchs;
-        List<Official> official;
-
-        if (parameters.isEmpty() == false) {
-            matchs = Match.getMatchWithDate(connectionWithDatabase, parameters.get(0));
+        if ((command.getParameterCount() == 0) == false) {
+            displayMatchReports(repositories.matches().openReportsFromDate(command.getDate(0)));
         } else {
-            matchs = Match.getAllMatch(connectionWithDatabase);
+            displayMatchReports(repositories.matches().openAllReports());
         }
+    }
 
-        for (Match match : matchs) {
-            System.out.println(String.format("%-10s %-10s %-5s %-5s %-12s %-10s", "Equipelocal", "Equipevisiteur", "Scorelocal", "ScoreVisiteur", " Matchdate", "MatchHeure"));
-            System.out.println(String.format("%-11s %-15s %-10s %-13s %-11s %-10s", match.getLocalTeam(connectionWithDatabase).getName(), match.getVisitorTeam(connectionWithDatabase).getName(), match.getLocalTeamScore(), match.getVisitorTeamScore(), match.getDate(), match.getTime()));
+    /**
+     * Display all the match results. If the team name parameter is given, display only the ones where this team played.
+     *
+     * @param command - [<EquipeNom>]
+     * @throws TeamDoesntExistException
+     */
+    private void displayResults(Repositories repositories, Command command) throws TeamDoesntExistException
+    {
+        // afficherResultats Yankees
+
+        if ((command.getParameterCount() == 0) == false) {
+            displayMatchReports(repositories.matches().openReportsOfTeam(command.getString(0)));
+        } else {
+            displayMatchReports(repositories.matches().openAllReports());
+        }
+    }
 
-            official = match.getOfficials(connectionWithDatabase);
-            System.out.println("\nListe des arbitres: ");
-            if (official.size() != 0) {
-                for (Official offi : official) {
-                    System.out.println(String.format(" -> %-10s %-10s", offi.getFirstName(), offi.getLastName()));
+    /**
+     * Display the matches while they are read from the database, then close the cursor.
+     *
+     * @param reports - Cursor over the matches to display, can be null.
+     */
+    private void displayMatchReports(EntityCursor<MatchReport> reports)
+    {
+        if (reports != null) {
+            try {
+                while (reports.hasNext()) {
+                    displayMatchReport(reports.next());
                 }
-            } else {
-                System.out.println(String.format(" -> Aucun arbitre durant le match."));
+            } finally {
+                reports.close();
             }
-            System.out.println(String.format("\n"));
         }
     }
 
     /**
-     * Display all the match results. If the team name parameter is given, display only the ones where this team played.
+     * Display a match with its result and its officials.
      *
-     * @param parameters - [<EquipeNom>]
-     * @throws TeamDoesntExistException
+     * @param report - Match to display.
      */
-    private void displayResults(ArrayList<String> parameters) throws TeamDoesntExistException
+    private void displayMatchReport(MatchReport report)
     {
-        // afficherResultats Yankees
+        if (output.isRaw()) {
+            StringBuilder officials = new StringBuilder();
+            for (Official offi : report.getOfficials()) {
+                if (officials.length() > 0) {
+                    officials.append(", ");
+                }
+                officials.append(offi.getFirstName()).append(' ').append(offi.getLastName());
+            }
+            output.record(report.getLocalTeamName(), report.getVisitorTeamName(), report.getLocalTeamScore(), report.getVisitorTeamScore(), report.getDate(), report.getTime(), officials);
+            return;
+        }
 
-        List<Match> matchs = Match.getMatchForTeam(connectionWithDatabase, parameters.get(0));
-        List<Official> official;
+        output.text(MATCH_HEADER, "Equipelocal", "Equipevisiteur", "Scorelocal", "ScoreVisiteur", " Matchdate", "MatchHeure");
+        output.text(MATCH_LINE, report.getLocalTeamName(), report.getVisitorTeamName(), report.getLocalTeamScore(), report.getVisitorTeamScore(), report.getDate(), report.getTime());
 
-        for (Match match : matchs) {
-            System.out.println(String.format("%-10s %-10s %-5s %-5s %-12s %-10s", "Equipelocal", "Equipevisiteur", "Scorelocal", "ScoreVisiteur", " Matchdate", "MatchHeure"));
-            System.out.println(String.format("%-11s %-15s %-10s %-13s %-11s %-10s", match.getLocalTeam(connectionWithDatabase).getName(), match.getVisitorTeam(connectionWithDatabase).getName(), match.getLocalTeamScore(), match.getVisitorTeamScore(), match.getDate(), match.getTime()));
+        output.text("\nListe des arbitres: ");
+        if (report.getOfficials().size() != 0) {
+            for (Official offi : report.getOfficials()) {
+                output.text(MATCH_OFFICIAL_LINE, offi.getFirstName(), offi.getLastName());
+            }
+        } else {
+            output.text(" -> Aucun arbitre durant le match.");
+        }
+        output.text("\n");
+    }
 
-            official = match.getOfficials(connectionWithDatabase);
+    /**
+     * Display the standings of every team, the best winning percentage first. The standings are computed from every match on the first call
+     * only, the results entered afterward update them.
+     *
+     * @throws FailedToComputeStandingsException
+     */
+    private void displayStandings(Repositories repositories) throws FailedToComputeStandingsException
+    {
+        List<TeamStanding> table = standings.getStandings();
+        if (table == null) {
+            long version = standings.getVersion();
+            table = repositories.matches().computeStandings();
+            if (table == null) {
+                throw new FailedToComputeStandingsException();
+            }
+            standings.load(table, version);
+        }
 
-            System.out.println("\nListe des arbitres: ");
-            if (official.size() != 0) {
-                for (Official offi : official) {
-                    System.out.println(String.format(" -> %-10s %-10s", offi.getFirstName(), offi.getLastName()));
+        Map<Integer, TeamStanding> standingsByTeam = new HashMap<>();
+        for (TeamStanding standing : table) {
+            standingsByTeam.put(standing.getTeamId(), standing);
+        }
+        final Map<Integer, String> teamNames = new HashMap<>();
+        List<TeamStanding> ranking = new ArrayList<>();
+        for (Team team : repositories.teams().getAllTeams()) {
+            teamNames.put(team.getId(), team.getName());
+            TeamStanding standing = standingsByTeam.get(team.getId());
+            ranking.add(standing != null ? standing : new TeamStanding(team.getId()));
+        }
+        Collections.sort(ranking, new Comparator<TeamStanding>() {
+            @Override
+            public int compare(TeamStanding first, TeamStanding second)
+            {
+                int result = Double.compare(second.getWinningPercentage(), first.getWinningPercentage());
+                if (result == 0) {
+                    result = Integer.compare(second.getRunDifferential(), first.getRunDifferential());
                 }
-            } else {
-                System.out.println(String.format(" -> Aucun arbitre durant le match."));
+                return result != 0 ? result : teamNames.get(first.getTeamId()).compareTo(teamNames.get(second.getTeamId()));
             }
-            System.out.println(String.format("\n"));
+        });
+
+        output.text(STANDINGS_LINE, "Rang", "Equipe", "J", "V", "D", "N", "Moy.", "PP", "PC", "Diff");
+        int rank = 0;
+        for (TeamStanding standing : ranking) {
+            output.row(STANDINGS_LINE, ++rank, teamNames.get(standing.getTeamId()), standing.getPlayed(), standing.getWins(), standing.getLosses(), standing.getTies(), String.format("%.3f", standing.getWinningPercentage()), standing.getRunsFor(), standing.getRunsAgainst(), standing.getRunDifferential());
+        }
+    }
+
+    /**
+     * Import the rows of a CSV file in the database, then display how many were inserted and why the others were rejected.
+     *
+     * @param command - <terrain|equipe|arbitre|joueur|faitpartie|match|arbitrer> <FichierCsv>
+     * @throws IOException
+     * @throws SQLException
+     * @throws FailedToRetrieveNextKeyFromSequenceException
+     * @throws DatabaseRequiredException
+     */
+    private void importFile(Repositories repositories, Command command) throws IOException, SQLException, FailedToRetrieveNextKeyFromSequenceException, DatabaseRequiredException
+    {
+        // Ex.: importer match matchs.csv
+        ImportKind kind = ImportKind.fromName(command.getString(0));
+        if (!(repositories instanceof PostgreSqlRepositories)) {
+            throw new DatabaseRequiredException("importer");
+        }
+
+        ImportReport report;
+        try (InputStream csv = new FileInputStream(command.getString(1))) {
+            BulkImporter importer = new BulkImporter(DatabaseEntity.getKeyAllocator(), MAXIMUM_REJECTIONS_DISPLAYED);
+            report = importer.importFile(((PostgreSqlRepositories) repositories).getConnection(), kind, csv);
+        } finally {
+            // The cached teams and the standings may not match what is now in the database.
+            Team.getCache().clear();
+            standings.invalidate();
+        }
+
+        output.text(String.format("%s lignes lues, %s importées, %s rejetées.", report.getReadCount(), report.getInsertedCount(), report.getRejectedCount()));
+        for (Rejection rejection : report.getRejections()) {
+            output.row(REJECTED_LINE, rejection.getLine(), rejection.getReason());
+        }
+        if (report.getRejectedCount() > report.getRejections().size()) {
+            output.text(String.format(" -> ... et %s autres lignes rejetées.", report.getRejectedCount() - report.getRejections().size()));
+        }
+    }
+
+    /**
+     * Write the rows of the league to a CSV or JSON Lines file, compressed with gzip if its name ends with .gz.
+     *
+     * @param command - <terrain|equipe|arbitre|joueur|faitpartie|match|arbitrer> <Fichier[.gz]> [csv|json]
+     * @throws IOException
+     * @throws SQLException
+     * @throws DatabaseRequiredException
+     */
+    private void exportFile(Repositories repositories, Command command) throws IOException, SQLException, DatabaseRequiredException
+    {
+        // Ex.: exporter match matchs.jsonl.gz json
+        ExportKind kind = ExportKind.fromName(command.getString(0));
+        Format format = command.getParameterCount() > 2 ? Format.fromName(command.getString(2)) : Format.CSV;
+        if (!(repositories instanceof PostgreSqlRepositories)) {
+            throw new DatabaseRequiredException("exporter");
+        }
+
+        String fileName = command.getString(1);
+        BulkExporter exporter = new BulkExporter(this.parameters.getFetchSize());
+        long rowCount = exporter.exportFile(((PostgreSqlRepositories) repositories).getConnection(), kind, format, Paths.get(fileName), fileName.endsWith(".gz"));
+        output.text(String.format("%s lignes exportées dans %s.", rowCount, fileName));
+    }
+
+    /**
+     * Display the statistics of the statements and of the commands, or reset them.
+     *
+     * @param command - [reinitialiser]
+     */
+    private void displayStatistics(Command command)
+    {
+        if (statistics == null) {
+            Logger.warning(LOG_TYPE.USER, "Les statistiques sont désactivées.");
+        } else if (!(command.getParameterCount() == 0) && command.getString(0).equals("reinitialiser")) {
+            statistics.reset();
+            COMMANDS.resetMeasures();
+            Logger.info(LOG_TYPE.USER, "Statistiques réinitialisées.");
+        } else {
+            showStatistics(output);
+        }
+    }
+
+    /**
+     * Write the statistics of the statements and of the commands, the most time consuming first.
+     *
+     * @param sink - Where to write them.
+     */
+    private void showStatistics(OutputSink sink)
+    {
+        sink.text("Instructions SQL :");
+        sink.text(STATISTICS_LINE, "Instruction", "Nombre", "Lignes", "Err.", "Moy. ms", "p50 ms", "p99 ms", "Max ms");
+        for (Measure measure : statistics.getStatementMeasures()) {
+            showMeasure(sink, "instruction", measure);
+        }
+
+        sink.text("");
+        sink.text("Commandes :");
+        sink.text(STATISTICS_LINE, "Commande", "Nombre", "Lignes", "Err.", "Moy. ms", "p50 ms", "p99 ms", "Max ms");
+        for (Measure measure : COMMANDS.getMeasures()) {
+            showMeasure(sink, "commande", measure);
+        }
+    }
+
+    /**
+     * Write a line of statistics. In raw mode, the first value of the record tells if it is a statement or a command.
+     *
+     * @param sink - Where to write it.
+     * @param kind - Kind of measure, only written in raw mode.
+     * @param measure - Measure of a statement or of a command.
+     */
+    private void showMeasure(OutputSink sink, String kind, Measure measure)
+    {
+        LatencyHistogram histogram = measure.getHistogram();
+        String mean = String.format("%.3f", histogram.getMeanMillis());
+        String median = String.format("%.3f", histogram.getPercentileMillis(50));
+        String p99 = String.format("%.3f", histogram.getPercentileMillis(99));
+        String maximum = String.format("%.3f", histogram.getMaximumMillis());
+
+        if (sink.isRaw()) {
+            sink.record(kind, measure.getName(), histogram.getCount(), measure.getRowCount(), measure.getErrorCount(), mean, median, p99, maximum);
+        } else {
+            String name = measure.getName();
+            if (name.length() > STATISTICS_NAME_WIDTH) {
+                name = name.substring(0, STATISTICS_NAME_WIDTH - 3) + "...";
+            }
+            sink.text(STATISTICS_LINE, name, histogram.getCount(), measure.getRowCount(), measure.getErrorCount(), mean, median, p99, maximum);
+        }
+    }
+
+    /**
+     * Write the statistics in the file given with --stats-file, if any.
+     */
+    private void writeStatisticsFile()
+    {
+        if (statistics == null || parameters.getStatisticsFile().isEmpty()) {
+            return;
+        }
+
+        try (FileOutputStream stream = new FileOutputStream(parameters.getStatisticsFile())) {
+            OutputSink sink = new OutputSink(stream, parameters.isRawOutput());
+            showStatistics(sink);
+            sink.flush();
+            if (sink.checkError()) {
+                throw new IOException(parameters.getStatisticsFile());
+            }
+            Logger.info(LOG_TYPE.SYSTEM, "Statistiques écrites dans le fichier '%s'.", parameters.getStatisticsFile());
+        } catch (IOException e) {
+            Logger.error(LOG_TYPE.SYSTEM, "Impossible d'écrire les statistiques dans le fichier '%s'.", parameters.getStatisticsFile());
         }
     }
 
@@ -741,18 +1313,32 @@ class Application
      */
     private void showAvailableActions()
     {
-        System.out.println("Liste de toutes les commandes disponibles : ");
-        for (Entry<String, String> entry : actions.entrySet()) {
-            System.out.println(" - " + entry.getKey() + " : " + entry.getValue());
+        output.println("Liste de toutes les commandes disponibles : ");
+        for (CommandHandler<Application> handler : COMMANDS.getHandlers()) {
+            output.println(" - " + handler.getName() + " : " + handler.getUsage());
         }
     }
 
     /**
-     * Close connection with database and exit.
+     * Close the storage of the league and exit.
      */
     private void exitProgram()
     {
-        closeConnectionWithDatabase();
+        flushOutput();
+        writeStatisticsFile();
+        closeRepositories();
+        Logger.flush();
         System.exit(0);
     }
+
+    /**
+     * Write the pending output. When the log is written on the same console, the pending messages are written first so they stay in order.
+     */
+    private void flushOutput()
+    {
+        if (input == null && !Logger.isWritingToFile()) {
+            Logger.flush();
+        }
+        output.flush();
+    }
 }
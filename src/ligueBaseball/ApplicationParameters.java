@@ -1,11 +1,35 @@
 package ligueBaseball;
 
+import ligueBaseball.database.ConnectionPool;
+import ligueBaseball.entities.DatabaseEntity;
+import ligueBaseball.entities.KeyAllocator;
+
 public class ApplicationParameters
 {
     private String username;
     private String password;
     private String databaseName;
     private String entryFile = ""; // Not NULL
+    private int poolSize = 4;
+    private long poolMaximumWait = 30000; // ms
+    private long poolIdleTimeout = 300000; // ms
+    private long poolLeakThreshold = 60000; // ms
+    private int keyBlockSize = KeyAllocator.DEFAULT_BLOCK_SIZE;
+    private int teamCacheSize = 256;
+    private int fetchSize = DatabaseEntity.DEFAULT_FETCH_SIZE;
+    private int statementCacheSize = ConnectionPool.DEFAULT_STATEMENT_CACHE_SIZE;
+    private int batchSize = 0; // Commands per transaction in the entry file, 0 to commit each command.
+    private boolean rawOutput = false; // Tab separated records instead of formatted text.
+    private boolean statisticsEnabled = true;
+    private long slowQueryThreshold = 100; // ms, 0 to disable
+    private String statisticsFile = ""; // Not NULL
+    private int serverPort = 0; // 0 to read the commands from the console
+    private int maximumSessions = 8;
+    private int sessionQueueDepth = 16;
+    private boolean inMemory = false; // League kept in memory instead of the database
+    private String memorySeedFile = ""; // Not NULL, commands executed before the entry file in memory
+    private boolean schemaVerified = true; // Indexes and query plans checked at startup
+    private boolean missingIndexesCreated = true; // Missing indexes created at startup, not only reported
 
     public String getUsername()
     {
@@ -46,4 +70,204 @@ public class ApplicationParameters
     {
         this.entryFile = entryFile;
     }
+
+    public int getPoolSize()
+    {
+        return poolSize;
+    }
+
+    public void setPoolSize(int poolSize)
+    {
+        this.poolSize = poolSize;
+    }
+
+    public long getPoolMaximumWait()
+    {
+        return poolMaximumWait;
+    }
+
+    public void setPoolMaximumWait(long poolMaximumWait)
+    {
+        this.poolMaximumWait = poolMaximumWait;
+    }
+
+    public long getPoolIdleTimeout()
+    {
+        return poolIdleTimeout;
+    }
+
+    public void setPoolIdleTimeout(long poolIdleTimeout)
+    {
+        this.poolIdleTimeout = poolIdleTimeout;
+    }
+
+    public long getPoolLeakThreshold()
+    {
+        return poolLeakThreshold;
+    }
+
+    public void setPoolLeakThreshold(long poolLeakThreshold)
+    {
+        this.poolLeakThreshold = poolLeakThreshold;
+    }
+
+    public int getKeyBlockSize()
+    {
+        return keyBlockSize;
+    }
+
+    public void setKeyBlockSize(int keyBlockSize)
+    {
+        this.keyBlockSize = keyBlockSize;
+    }
+
+    public int getBatchSize()
+    {
+        return batchSize;
+    }
+
+    public void setBatchSize(int batchSize)
+    {
+        this.batchSize = batchSize;
+    }
+
+    public int getTeamCacheSize()
+    {
+        return teamCacheSize;
+    }
+
+    public void setTeamCacheSize(int teamCacheSize)
+    {
+        this.teamCacheSize = teamCacheSize;
+    }
+
+    public int getFetchSize()
+    {
+        return fetchSize;
+    }
+
+    public void setFetchSize(int fetchSize)
+    {
+        this.fetchSize = fetchSize;
+    }
+
+    public boolean isRawOutput()
+    {
+        return rawOutput;
+    }
+
+    public void setRawOutput(boolean rawOutput)
+    {
+        this.rawOutput = rawOutput;
+    }
+
+    public int getStatementCacheSize()
+    {
+        return statementCacheSize;
+    }
+
+    public void setStatementCacheSize(int statementCacheSize)
+    {
+        this.statementCacheSize = statementCacheSize;
+    }
+
+    public boolean isStatisticsEnabled()
+    {
+        return statisticsEnabled;
+    }
+
+    public void setStatisticsEnabled(boolean statisticsEnabled)
+    {
+        this.statisticsEnabled = statisticsEnabled;
+    }
+
+    public long getSlowQueryThreshold()
+    {
+        return slowQueryThreshold;
+    }
+
+    public void setSlowQueryThreshold(long slowQueryThreshold)
+    {
+        this.slowQueryThreshold = slowQueryThreshold;
+    }
+
+    public String getStatisticsFile()
+    {
+        return statisticsFile;
+    }
+
+    public void setStatisticsFile(String statisticsFile)
+    {
+        this.statisticsFile = statisticsFile;
+    }
+
+    public int getServerPort()
+    {
+        return serverPort;
+    }
+
+    public void setServerPort(int serverPort)
+    {
+        this.serverPort = serverPort;
+    }
+
+    public int getMaximumSessions()
+    {
+        return maximumSessions;
+    }
+
+    public void setMaximumSessions(int maximumSessions)
+    {
+        this.maximumSessions = maximumSessions;
+    }
+
+    public int getSessionQueueDepth()
+    {
+        return sessionQueueDepth;
+    }
+
+    public void setSessionQueueDepth(int sessionQueueDepth)
+    {
+        this.sessionQueueDepth = sessionQueueDepth;
+    }
+
+    public boolean isInMemory()
+    {
+        return inMemory;
+    }
+
+    public void setInMemory(boolean inMemory)
+    {
+        this.inMemory = inMemory;
+    }
+
+    public String getMemorySeedFile()
+    {
+        return memorySeedFile;
+    }
+
+    public void setMemorySeedFile(String memorySeedFile)
+    {
+        this.memorySeedFile = memorySeedFile;
+    }
+
+    public boolean isSchemaVerified()
+    {
+        return schemaVerified;
+    }
+
+    public void setSchemaVerified(boolean schemaVerified)
+    {
+        this.schemaVerified = schemaVerified;
+    }
+
+    public boolean isMissingIndexesCreated()
+    {
+        return missingIndexesCreated;
+    }
+
+    public void setMissingIndexesCreated(boolean missingIndexesCreated)
+    {
+        this.missingIndexesCreated = missingIndexesCreated;
+    }
 }
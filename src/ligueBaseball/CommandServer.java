@@ -0,0 +1,133 @@
+package ligueBaseball;
+
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import ligueBaseball.Logger.LOG_TYPE;
+
+/**
+ * Accept the sessions of the clients on a local TCP port. Each session reads the same commands as the console, one per line, and gets its
+ * results back on the same socket. A bounded number of sessions run at the same time, the next ones wait in a bounded queue and the others are
+ * turned away.
+ */
+class CommandServer
+{
+    private final Application application;
+    private final int port;
+    private final ThreadPoolExecutor executor;
+    private final AtomicInteger sessionCounter = new AtomicInteger();
+    private ServerSocket serverSocket;
+
+    /**
+     * Constructor
+     *
+     * @param application - Application executing the commands of the sessions.
+     * @param port - Local TCP port to listen on.
+     * @param maximumSessions - Number of sessions running at the same time.
+     * @param queueDepth - Number of sessions waiting for a running session to end, 0 to turn them away right away.
+     */
+    CommandServer(Application application, int port, int maximumSessions, int queueDepth) {
+        if (maximumSessions < 1) {
+            throw new IllegalArgumentException("Le serveur doit accepter au moins une session.");
+        }
+        this.application = application;
+        this.port = port;
+
+        BlockingQueue<Runnable> waitingSessions = queueDepth > 0 ? new ArrayBlockingQueue<Runnable>(queueDepth) : new SynchronousQueue<Runnable>();
+        this.executor = new ThreadPoolExecutor(maximumSessions, maximumSessions, 60, TimeUnit.SECONDS, waitingSessions, new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable runnable)
+            {
+                Thread thread = new Thread(runnable, "Session-" + sessionCounter.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Accept the sessions until the server is closed.
+     *
+     * @throws IOException Failed to listen on the port.
+     */
+    void run() throws IOException
+    {
+        serverSocket = new ServerSocket(port, 50, InetAddress.getLoopbackAddress());
+        Logger.info(LOG_TYPE.SYSTEM, "Serveur en attente de sessions sur le port %s (%s sessions, %s en attente au plus).", serverSocket.getLocalPort(), executor.getMaximumPoolSize(), executor.getQueue().remainingCapacity());
+        Logger.flush();
+
+        try {
+            while (!serverSocket.isClosed()) {
+                final Socket socket;
+                try {
+                    socket = serverSocket.accept();
+                } catch (IOException e) {
+                    if (serverSocket.isClosed()) {
+                        break;
+                    }
+                    throw e;
+                }
+
+                try {
+                    executor.execute(new Runnable() {
+                        @Override
+                        public void run()
+                        {
+                            application.runSession(socket);
+                        }
+                    });
+                } catch (RejectedExecutionException e) {
+                    turnAway(socket);
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Stop accepting sessions. Running sessions are interrupted.
+     */
+    void close()
+    {
+        try {
+            if (serverSocket != null) {
+                serverSocket.close();
+            }
+        } catch (IOException e) {
+            // Nothing
+        }
+        executor.shutdownNow();
+    }
+
+    /**
+     * Tell the client the server is busy and close its socket.
+     *
+     * @param socket - Socket of the client.
+     */
+    private void turnAway(Socket socket)
+    {
+        Logger.warning(LOG_TYPE.SYSTEM, "Session refusée, le serveur est occupé : %s", socket.getRemoteSocketAddress());
+        try (Socket refused = socket) {
+            Writer writer = new OutputStreamWriter(refused.getOutputStream(), StandardCharsets.UTF_8);
+            writer.write("Serveur occupé, réessayez plus tard." + System.lineSeparator());
+            writer.flush();
+        } catch (IOException e) {
+            // Nothing, the client is gone.
+        }
+    }
+}
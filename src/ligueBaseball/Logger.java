@@ -1,5 +1,19 @@
 package ligueBaseball;
 
+import java.io.BufferedWriter;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Asynchronous logger. Messages are put in a bounded buffer and formatted then written by a background thread, so the caller never waits for the
+ * console or the file unless the buffer is full. Messages below the level configured for their type are dropped before being formatted.
+ *
+ * The arguments of a message are formatted later by the background thread, they must not be modified after being logged.
+ */
 public class Logger
 {
     public enum LOG_TYPE {
@@ -18,43 +32,249 @@ public class Logger
         }
     }
 
-    private static void log(String level, LOG_TYPE type, String message)
+    public enum LEVEL {
+        INFO("Info"), WARNING("Attention"), ERROR("Erreur"), OFF("Aucun");
+
+        private final String value;
+
+        private LEVEL(final String value) {
+            this.value = value;
+        }
+
+        @Override
+        public String toString()
+        {
+            return value;
+        }
+    }
+
+    private static final int BUFFER_CAPACITY = 8192;
+    private static final String LINE_SEPARATOR = System.lineSeparator();
+
+    private static final LEVEL[] thresholds = new LEVEL[LOG_TYPE.values().length];
+    private static final BlockingQueue<Record> buffer = new ArrayBlockingQueue<>(BUFFER_CAPACITY);
+    private static final Object progressLock = new Object();
+    private static long enqueuedCount = 0; // Guarded by progressLock
+    private static long writtenCount = 0; // Guarded by progressLock
+
+    private static volatile Writer writer = new BufferedWriter(new OutputStreamWriter(System.out));
+    private static volatile boolean writingToFile = false;
+
+    static {
+        for (LOG_TYPE type : LOG_TYPE.values()) {
+            thresholds[type.ordinal()] = LEVEL.INFO;
+        }
+
+        Thread writerThread = new Thread(new Runnable() {
+            @Override
+            public void run()
+            {
+                writeRecords();
+            }
+        }, "Logger");
+        writerThread.setDaemon(true);
+        writerThread.start();
+
+        Runtime.getRuntime().addShutdownHook(new Thread(new Runnable() {
+            @Override
+            public void run()
+            {
+                flush();
+            }
+        }, "Logger-shutdown"));
+    }
+
+    /**
+     * Set the minimum level of the messages logged for the given type.
+     *
+     * @param type - Type of message.
+     * @param level - Minimum level, OFF to drop every message of this type.
+     */
+    public static void setThreshold(LOG_TYPE type, LEVEL level)
     {
-        System.out.println(String.format("%s[%s]: %s", level, type, message));
+        thresholds[type.ordinal()] = level;
     }
 
-    private static void log(String level, LOG_TYPE type, String message, Object... args)
+    /**
+     * Check if a message would be logged, to avoid building it for nothing.
+     *
+     * @param type - Type of message.
+     * @param level - Level of the message.
+     * @return boolean - True if the message would be logged.
+     */
+    public static boolean isEnabled(LOG_TYPE type, LEVEL level)
     {
-        log(level, type, String.format(message, args));
+        return level != LEVEL.OFF && level.compareTo(thresholds[type.ordinal()]) >= 0;
+    }
+
+    /**
+     * Write the messages in the given file instead of the console. The file is appended.
+     *
+     * @param path - Path of the file.
+     * @throws IOException Failed to open the file.
+     */
+    public static void setFile(String path) throws IOException
+    {
+        Writer fileWriter = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(path, true), "UTF-8"));
+        // The messages already logged are written where they were expected.
+        flush();
+        writer = fileWriter;
+        writingToFile = true;
+    }
+
+    /**
+     * Check if the messages are written in a file instead of the console.
+     *
+     * @return boolean - True if a file is used.
+     */
+    public static boolean isWritingToFile()
+    {
+        return writingToFile;
+    }
+
+    /**
+     * Wait until every message logged so far has been written.
+     */
+    public static void flush()
+    {
+        synchronized (progressLock) {
+            long target = enqueuedCount;
+            while (writtenCount < target) {
+                try {
+                    progressLock.wait(100);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    private static void log(LEVEL level, LOG_TYPE type, String message, Object[] args)
+    {
+        if (!isEnabled(type, level)) {
+            return;
+        }
+
+        synchronized (progressLock) {
+            ++enqueuedCount;
+        }
+        try {
+            buffer.put(new Record(level, type, message, args));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            markWritten(1);
+        }
+    }
+
+    /**
+     * Loop of the background thread: format and write the messages, flush when the buffer is empty.
+     */
+    private static void writeRecords()
+    {
+        StringBuilder line = new StringBuilder(256);
+        while (true) {
+            long count = 0;
+            try {
+                Record record = buffer.take();
+                do {
+                    ++count;
+                    line.setLength(0);
+                    record.appendTo(line);
+                    line.append(LINE_SEPARATOR);
+                    write(line);
+                    record = buffer.poll();
+                } while (record != null);
+
+                writer.flush();
+
+            } catch (InterruptedException e) {
+                return;
+            } catch (IOException e) {
+                // Nothing, there is nowhere left to report it.
+            } finally {
+                // Handled even if they couldn't be written, so flush() never waits for them forever.
+                markWritten(count);
+            }
+        }
+    }
+
+    private static void write(CharSequence line)
+    {
+        try {
+            writer.append(line);
+        } catch (IOException e) {
+            // Nothing, there is nowhere left to report it.
+        }
+    }
+
+    private static void markWritten(long count)
+    {
+        synchronized (progressLock) {
+            writtenCount += count;
+            progressLock.notifyAll();
+        }
     }
 
     public static void error(LOG_TYPE type, String message)
     {
-        log("Erreur", type, message);
+        log(LEVEL.ERROR, type, message, null);
     }
 
     public static void error(LOG_TYPE type, String message, Object... args)
     {
-        log("Erreur", type, message, args);
+        log(LEVEL.ERROR, type, message, args);
     }
 
     public static void warning(LOG_TYPE type, String message)
     {
-        log("Attention", type, message);
+        log(LEVEL.WARNING, type, message, null);
     }
 
     public static void warning(LOG_TYPE type, String message, Object... args)
     {
-        log("Attention", type, message, args);
+        log(LEVEL.WARNING, type, message, args);
     }
 
     public static void info(LOG_TYPE type, String message)
     {
-        log("Info", type, message);
+        log(LEVEL.INFO, type, message, null);
     }
 
     public static void info(LOG_TYPE type, String message, Object... args)
     {
-        log("Info", type, message, args);
+        log(LEVEL.INFO, type, message, args);
+    }
+
+    /**
+     * Message waiting to be formatted and written.
+     */
+    private static class Record
+    {
+        private final LEVEL level;
+        private final LOG_TYPE type;
+        private final String message;
+        private final Object[] args;
+
+        Record(LEVEL level, LOG_TYPE type, String message, Object[] args) {
+            this.level = level;
+            this.type = type;
+            this.message = message;
+            this.args = args;
+        }
+
+        void appendTo(StringBuilder line)
+        {
+            line.append(level).append('[').append(type).append("]: ");
+            if (args == null) {
+                line.append(message);
+            } else {
+                try {
+                    line.append(String.format(message, args));
+                } catch (RuntimeException e) {
+                    line.append(message);
+                }
+            }
+        }
     }
 }
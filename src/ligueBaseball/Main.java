@@ -1,5 +1,9 @@
 package ligueBaseball;
 
+import java.io.IOException;
+
+import ligueBaseball.Logger.LEVEL;
+import ligueBaseball.Logger.LOG_TYPE;
 import ligueBaseball.exceptions.FailedToConnectToDatabaseException;
 import ligueBaseball.exceptions.UnknownCommandException;
 
@@ -28,7 +32,7 @@ public class Main
         // Check if we at least have what we need to launch the program.
         if (args.length < 3) {
             System.out.println("Missing or invalid program parameters. It should be like this :");
-            System.out.println("program [userId] [password] [dataBase] [entryFile]");
+            System.out.println("program [userId] [password] [dataBase] [entryFile] [--option=valeur ...]");
             System.out.println("Without the [] !");
             System.exit(1);
         }
@@ -38,10 +42,132 @@ public class Main
         parameters.setPassword(args[1]);
         parameters.setDatabaseName(args[2]);
 
-        if (args.length > 3) {
-            parameters.setEntryFile(args[3]);
+        for (int i = 3; i < args.length; ++i) {
+            if (args[i].startsWith("--")) {
+                extractOption(parameters, args[i]);
+            } else {
+                parameters.setEntryFile(args[i]);
+            }
         }
 
         return parameters;
     }
+
+    /**
+     * Extract an option given as --name=value and put it in the parameters.
+     *
+     * @param parameters - Parameters expected by the application.
+     * @param option - Option as received when the program was launched.
+     */
+    private static void extractOption(ApplicationParameters parameters, String option)
+    {
+        int separator = option.indexOf('=');
+        String name = separator < 0 ? option.substring(2) : option.substring(2, separator);
+        String value = separator < 0 ? "" : option.substring(separator + 1);
+
+        try {
+            switch (name) {
+                case "pool-size":
+                    parameters.setPoolSize(Integer.parseInt(value));
+                    break;
+                case "pool-wait":
+                    parameters.setPoolMaximumWait(Long.parseLong(value));
+                    break;
+                case "pool-idle":
+                    parameters.setPoolIdleTimeout(Long.parseLong(value));
+                    break;
+                case "pool-leak":
+                    parameters.setPoolLeakThreshold(Long.parseLong(value));
+                    break;
+                case "key-block":
+                    parameters.setKeyBlockSize(Integer.parseInt(value));
+                    break;
+                case "team-cache":
+                    parameters.setTeamCacheSize(Integer.parseInt(value));
+                    break;
+                case "fetch-size":
+                    parameters.setFetchSize(Integer.parseInt(value));
+                    break;
+                case "statement-cache":
+                    parameters.setStatementCacheSize(Integer.parseInt(value));
+                    break;
+                case "batch":
+                    parameters.setBatchSize(Integer.parseInt(value));
+                    break;
+                case "output":
+                    // "texte" (default) or "tsv"
+                    parameters.setRawOutput(value.equals("tsv"));
+                    break;
+                case "stats":
+                    // "on" (default) or "off"
+                    parameters.setStatisticsEnabled(!value.equals("off"));
+                    break;
+                case "stats-file":
+                    parameters.setStatisticsFile(value);
+                    break;
+                case "slow-query":
+                    parameters.setSlowQueryThreshold(Long.parseLong(value));
+                    break;
+                case "server":
+                    parameters.setServerPort(Integer.parseInt(value));
+                    break;
+                case "max-sessions":
+                    parameters.setMaximumSessions(Integer.parseInt(value));
+                    break;
+                case "queue-depth":
+                    parameters.setSessionQueueDepth(Integer.parseInt(value));
+                    break;
+                case "schema":
+                    // "creer" (default), "verifier" to only report what is missing, or "off"
+                    if (!value.equals("creer") && !value.equals("verifier") && !value.equals("off")) {
+                        throw new IllegalArgumentException(value);
+                    }
+                    parameters.setSchemaVerified(!value.equals("off"));
+                    parameters.setMissingIndexesCreated(value.equals("creer"));
+                    break;
+                case "memory":
+                    // --memory, or --memory=file to create the league with the commands of the file first.
+                    parameters.setInMemory(true);
+                    parameters.setMemorySeedFile(value);
+                    break;
+                case "log-file":
+                    Logger.setFile(value);
+                    break;
+                case "log-level":
+                    extractLogLevels(value);
+                    break;
+                default:
+                    System.out.println(String.format("Option inconnue : %s", option));
+                    System.exit(1);
+            }
+        } catch (IllegalArgumentException e) {
+            System.out.println(String.format("Valeur invalide pour l'option %s", option));
+            System.exit(1);
+        } catch (IOException e) {
+            System.out.println(String.format("Impossible d'ouvrir le fichier de journal : %s", e.getMessage()));
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Extract the log levels given as LEVEL for every type, or as TYPE=LEVEL,TYPE=LEVEL for some types (ex: COMMENT=OFF,COMMAND=WARNING).
+     *
+     * @param value - Value of the --log-level option.
+     * @throws IllegalArgumentException Unknown type or level.
+     */
+    private static void extractLogLevels(String value)
+    {
+        for (String entry : value.split(",")) {
+            int separator = entry.indexOf('=');
+            if (separator < 0) {
+                LEVEL level = LEVEL.valueOf(entry.trim().toUpperCase());
+                for (LOG_TYPE type : LOG_TYPE.values()) {
+                    Logger.setThreshold(type, level);
+                }
+            } else {
+                LOG_TYPE type = LOG_TYPE.valueOf(entry.substring(0, separator).trim().toUpperCase());
+                Logger.setThreshold(type, LEVEL.valueOf(entry.substring(separator + 1).trim().toUpperCase()));
+            }
+        }
+    }
 }
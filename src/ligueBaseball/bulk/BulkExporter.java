@@ -0,0 +1,207 @@
+package ligueBaseball.bulk;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.zip.GZIPOutputStream;
+
+import ligueBaseball.Logger;
+import ligueBaseball.Logger.LOG_TYPE;
+
+import org.postgresql.PGConnection;
+
+/**
+ * Write the rows of the league to a file, in CSV or in JSON Lines, compressed with gzip if asked. The rows are streamed from the database to the
+ * file and never held in memory: the CSV files are written by COPY TO STDOUT, the JSON Lines files are read through a cursor of the server.
+ */
+public class BulkExporter
+{
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    /**
+     * Format of the exported file.
+     */
+    public enum Format {
+        CSV, JSON;
+
+        /**
+         * Get the format with the given name.
+         *
+         * @param name - Name given by the user.
+         * @return Format - Format with this name.
+         * @throws IllegalArgumentException No format has this name.
+         */
+        public static Format fromName(String name)
+        {
+            for (Format format : values()) {
+                if (format.name().equalsIgnoreCase(name)) {
+                    return format;
+                }
+            }
+            throw new IllegalArgumentException(String.format("Format d'exportation inconnu : %s", name));
+        }
+    }
+
+    private final int fetchSize;
+
+    /**
+     * Constructor
+     *
+     * @param fetchSize - Number of rows read at once through the cursor of the server.
+     */
+    public BulkExporter(int fetchSize) {
+        this.fetchSize = fetchSize;
+    }
+
+    /**
+     * Write the rows of the given kind to a file. The file is replaced if it exists.
+     *
+     * @param connection - Connection with the database, in a transaction so the cursor can be used.
+     * @param kind - Kind of the exported rows.
+     * @param format - Format of the file.
+     * @param path - File to write.
+     * @param compressed - True to compress the file with gzip.
+     * @return long - Number of rows written.
+     * @throws SQLException Failed to read the rows.
+     * @throws IOException Failed to write the file.
+     */
+    public long exportFile(Connection connection, ExportKind kind, Format format, Path path, boolean compressed) throws SQLException, IOException
+    {
+        long start = System.nanoTime();
+        long rowCount;
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+        try (OutputStream output = openStream(channel, compressed)) {
+            if (format == Format.CSV) {
+                rowCount = writeCsv(connection, kind, output);
+            } else {
+                rowCount = writeJsonLines(connection, kind, output);
+            }
+        }
+
+        Logger.info(LOG_TYPE.SYSTEM, "Exportation de %s lignes (%s) en %.3f s.", rowCount, kind.getName(), (System.nanoTime() - start) / 1000000000.0);
+        return rowCount;
+    }
+
+    /**
+     * Open a buffered stream on the file, closing the file when closed.
+     */
+    private static OutputStream openStream(FileChannel channel, boolean compressed) throws IOException
+    {
+        OutputStream output = new BufferedOutputStream(Channels.newOutputStream(channel), BUFFER_SIZE);
+        if (!compressed) {
+            return output;
+        }
+        try {
+            return new GZIPOutputStream(output, BUFFER_SIZE);
+        } catch (IOException e) {
+            output.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Copy the rows to the stream as they come from the server, already formatted.
+     */
+    private static long writeCsv(Connection connection, ExportKind kind, OutputStream output) throws SQLException, IOException
+    {
+        PGConnection pgConnection = connection.unwrap(PGConnection.class);
+        return pgConnection.getCopyAPI().copyOut("COPY (" + kind.getQuery() + ") TO STDOUT WITH (FORMAT csv, HEADER true, ENCODING 'UTF8');", output);
+    }
+
+    /**
+     * Write one JSON object per row, the columns being the keys. Only fetchSize rows are held in memory at once.
+     */
+    private long writeJsonLines(Connection connection, ExportKind kind, OutputStream output) throws SQLException, IOException
+    {
+        long rowCount = 0;
+        Writer writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8), BUFFER_SIZE);
+        try (Statement statement = connection.createStatement(ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+            statement.setFetchSize(fetchSize);
+            try (ResultSet rows = statement.executeQuery(kind.getQuery())) {
+                ResultSetMetaData metaData = rows.getMetaData();
+                int columnCount = metaData.getColumnCount();
+                String[] keys = new String[columnCount];
+                for (int column = 1; column <= columnCount; ++column) {
+                    keys[column - 1] = quote(metaData.getColumnLabel(column));
+                }
+
+                while (rows.next()) {
+                    writer.write('{');
+                    for (int column = 1; column <= columnCount; ++column) {
+                        if (column > 1) {
+                            writer.write(',');
+                        }
+                        writer.write(keys[column - 1]);
+                        writer.write(':');
+                        writeValue(writer, rows, column);
+                    }
+                    writer.write("}\n");
+                    ++rowCount;
+                }
+            }
+        }
+        writer.flush();
+        return rowCount;
+    }
+
+    private static void writeValue(Writer writer, ResultSet rows, int column) throws SQLException, IOException
+    {
+        Object value = rows.getObject(column);
+        if (value == null) {
+            writer.write("null");
+        } else if (value instanceof Number || value instanceof Boolean) {
+            writer.write(value.toString());
+        } else {
+            writer.write(quote(rows.getString(column)));
+        }
+    }
+
+    /**
+     * Get a JSON string holding the given text.
+     */
+    private static String quote(String text)
+    {
+        StringBuilder quoted = new StringBuilder(text.length() + 2);
+        quoted.append('"');
+        for (int i = 0; i < text.length(); ++i) {
+            char c = text.charAt(i);
+            switch (c) {
+                case '"':
+                    quoted.append("\\\"");
+                    break;
+                case '\\':
+                    quoted.append("\\\\");
+                    break;
+                case '\n':
+                    quoted.append("\\n");
+                    break;
+                case '\r':
+                    quoted.append("\\r");
+                    break;
+                case '\t':
+                    quoted.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        quoted.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        quoted.append(c);
+                    }
+            }
+        }
+        return quoted.append('"').toString();
+    }
+}
@@ -0,0 +1,129 @@
+package ligueBaseball.bulk;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Locale;
+
+import ligueBaseball.Logger;
+import ligueBaseball.Logger.LOG_TYPE;
+import ligueBaseball.entities.KeyAllocator;
+import ligueBaseball.exceptions.FailedToRetrieveNextKeyFromSequenceException;
+
+import org.postgresql.PGConnection;
+
+/**
+ * Import the rows of a CSV file in a single transaction. The file is streamed to a temporary table with COPY, the names it contains are resolved
+ * to IDs and the rows are validated by a single query over the whole table, then the accepted rows are inserted by one INSERT ... SELECT per
+ * table with IDs reserved all at once. No statement is executed per row.
+ */
+public class BulkImporter
+{
+    private static final int COPY_BUFFER_SIZE = 1 << 16;
+
+    private final KeyAllocator keyAllocator;
+    private final int maximumRejectionsKept;
+
+    /**
+     * Constructor
+     *
+     * @param keyAllocator - Allocator reserving the IDs of the inserted rows.
+     * @param maximumRejectionsKept - Number of rejected rows kept in the report with their reason.
+     */
+    public BulkImporter(KeyAllocator keyAllocator, int maximumRejectionsKept) {
+        this.keyAllocator = keyAllocator;
+        this.maximumRejectionsKept = maximumRejectionsKept;
+    }
+
+    /**
+     * Import a CSV file encoded in UTF-8. The first line of the file holds the names of the columns and is skipped. Either every accepted row is
+     * inserted, or nothing is if the file can't be read or a value can't be converted to the type of its column.
+     *
+     * @param connection - Connection with the database, committed if the import succeeds.
+     * @param kind - Kind of the rows of the file.
+     * @param csv - Content of the file.
+     * @return ImportReport - Number of rows inserted and the rejected rows.
+     * @throws SQLException Failed to load or insert the rows. Nothing was imported.
+     * @throws IOException Failed to read the file. Nothing was imported.
+     * @throws FailedToRetrieveNextKeyFromSequenceException Failed to reserve the IDs. Nothing was imported.
+     */
+    public ImportReport importFile(Connection connection, ImportKind kind, InputStream csv) throws SQLException, IOException, FailedToRetrieveNextKeyFromSequenceException
+    {
+        long start = System.nanoTime();
+        try (Statement statement = connection.createStatement()) {
+            try {
+                // A previous import on this connection may have failed before dropping them.
+                dropWorkTables(statement);
+                statement.execute("CREATE TEMPORARY TABLE import_brut (ligne bigserial, " + kind.getStagingColumns() + ");");
+
+                PGConnection pgConnection = connection.unwrap(PGConnection.class);
+                CsvRecordLines lines = new CsvRecordLines(csv);
+                long readCount = pgConnection.getCopyAPI().copyIn("COPY import_brut (" + kind.getColumnNames() + ") FROM STDIN WITH (FORMAT csv, HEADER true, ENCODING 'UTF8');", lines, COPY_BUFFER_SIZE);
+                statement.execute("ANALYZE import_brut;");
+
+                statement.execute("CREATE TEMPORARY TABLE import_resolu AS " + kind.getResolution() + ";");
+                ImportReport report = readRejections(statement, kind, readCount, lines);
+                insertAcceptedRows(connection, statement, kind, report);
+
+                dropWorkTables(statement);
+                connection.commit();
+
+                Logger.info(LOG_TYPE.SYSTEM, "Importation de %s lignes (%s) en %.3f s.", readCount, kind.getName(), (System.nanoTime() - start) / 1000000000.0);
+                return report;
+
+            } catch (SQLException | IOException | FailedToRetrieveNextKeyFromSequenceException e) {
+                try {
+                    connection.rollback();
+                } catch (SQLException e1) {
+                    Logger.error(LOG_TYPE.EXCEPTION, e1.getMessage());
+                }
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Read the rows rejected by the resolution query, with the line where they start in the file.
+     */
+    private ImportReport readRejections(Statement statement, ImportKind kind, long readCount, CsvRecordLines lines) throws SQLException
+    {
+        ImportReport report = new ImportReport(kind, readCount, maximumRejectionsKept);
+        try (ResultSet rejected = statement.executeQuery("SELECT ligne, motif FROM import_resolu WHERE motif IS NOT NULL ORDER BY ligne;")) {
+            while (rejected.next()) {
+                // The rows are numbered from 1 in the order of the file, the header being record 0.
+                report.reject(lines.getLine(rejected.getLong("ligne")), rejected.getString("motif"));
+            }
+        }
+        return report;
+    }
+
+    /**
+     * Reserve the IDs of the accepted rows and insert them.
+     */
+    private void insertAcceptedRows(Connection connection, Statement statement, ImportKind kind, ImportReport report) throws SQLException, FailedToRetrieveNextKeyFromSequenceException
+    {
+        long acceptedCount = report.getInsertedCount();
+        if (acceptedCount == 0) {
+            return;
+        }
+        if (acceptedCount > Integer.MAX_VALUE) {
+            throw new SQLException("Trop de lignes à importer en une fois.");
+        }
+
+        int firstId = 0;
+        if (kind.getTableName() != null) {
+            firstId = keyAllocator.reserve(connection, kind.getTableName(), kind.getKeyColumnName(), (int) acceptedCount);
+        }
+        for (String insert : kind.getInserts()) {
+            statement.executeUpdate(String.format(Locale.ROOT, insert, firstId));
+        }
+    }
+
+    private static void dropWorkTables(Statement statement) throws SQLException
+    {
+        statement.execute("DROP TABLE IF EXISTS pg_temp.import_brut, pg_temp.import_resolu;");
+    }
+}
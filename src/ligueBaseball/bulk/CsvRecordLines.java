@@ -0,0 +1,102 @@
+package ligueBaseball.bulk;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+/**
+ * Stream of a CSV file noting the line breaks read inside quoted values while COPY reads it. A record holding such a line break spans several
+ * lines, so the line of a record in the file can't be deduced from its position alone.
+ */
+class CsvRecordLines extends FilterInputStream
+{
+    private boolean quoted = false;
+    private long record = 0; // Position of the record being read, the header being 0.
+    // Position of the record holding each line break read inside a quoted value, in increasing order.
+    private long[] quotedBreaks = new long[16];
+    private int quotedBreakCount = 0;
+
+    /**
+     * Constructor
+     *
+     * @param csv - Content of the file.
+     */
+    CsvRecordLines(InputStream csv) {
+        super(csv);
+    }
+
+    /**
+     * Get the line where a record starts, the header being the first line.
+     *
+     * @param position - Position of the record in the file, the header being 0.
+     * @return long - Line of the record, starting at 1.
+     */
+    long getLine(long position)
+    {
+        // Every line break of a record before this one pushes it down one line.
+        int index = Arrays.binarySearch(quotedBreaks, 0, quotedBreakCount, position);
+        if (index < 0) {
+            index = -index - 1;
+        } else {
+            while (index > 0 && quotedBreaks[index - 1] == position) {
+                --index;
+            }
+        }
+        return position + 1 + index;
+    }
+
+    @Override
+    public int read() throws IOException
+    {
+        int value = in.read();
+        if (value >= 0) {
+            scan((byte) value);
+        }
+        return value;
+    }
+
+    @Override
+    public int read(byte[] bytes, int offset, int length) throws IOException
+    {
+        int count = in.read(bytes, offset, length);
+        for (int i = offset; i < offset + count; ++i) {
+            scan(bytes[i]);
+        }
+        return count;
+    }
+
+    @Override
+    public long skip(long count) throws IOException
+    {
+        // Skipped bytes must be scanned too.
+        byte[] skipped = new byte[(int) Math.min(count, 8192)];
+        int read = read(skipped, 0, skipped.length);
+        return Math.max(read, 0);
+    }
+
+    @Override
+    public boolean markSupported()
+    {
+        return false;
+    }
+
+    /**
+     * Follow the quotes and the line breaks. An escaped quote is a quote closing the value followed by one opening it again.
+     */
+    private void scan(byte value)
+    {
+        if (value == '"') {
+            quoted = !quoted;
+        } else if (value == '\n') {
+            if (!quoted) {
+                ++record;
+            } else {
+                if (quotedBreakCount == quotedBreaks.length) {
+                    quotedBreaks = Arrays.copyOf(quotedBreaks, quotedBreakCount * 2);
+                }
+                quotedBreaks[quotedBreakCount++] = record;
+            }
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package ligueBaseball.bulk;
+
+/**
+ * Kind of rows that can be exported. The columns are those of the files read by the importer, so an exported file can be imported in another
+ * league.
+ */
+public enum ExportKind
+{
+    TERRAIN("terrain", "SELECT terrainnom, terrainadresse FROM terrain ORDER BY terrainid"),
+
+    EQUIPE("equipe", "SELECT e.equipenom, t.terrainnom FROM equipe e LEFT JOIN terrain t ON t.terrainid = e.terrainid ORDER BY e.equipeid"),
+
+    ARBITRE("arbitre", "SELECT arbitrenom, arbitreprenom FROM arbitre ORDER BY arbitreid"),
+
+    JOUEUR("joueur", "SELECT j.joueurnom, j.joueurprenom, e.equipenom, f.numero, f.datedebut FROM joueur j "
+            + "LEFT JOIN faitpartie f ON f.joueurid = j.joueurid AND f.datefin IS NULL "
+            + "LEFT JOIN equipe e ON e.equipeid = f.equipeid ORDER BY j.joueurid"),
+
+    FAITPARTIE("faitpartie", "SELECT j.joueurnom, j.joueurprenom, e.equipenom, f.numero, f.datedebut, f.datefin FROM faitpartie f "
+            + "INNER JOIN joueur j ON j.joueurid = f.joueurid "
+            + "INNER JOIN equipe e ON e.equipeid = f.equipeid ORDER BY f.equipeid, f.datedebut, f.joueurid"),
+
+    MATCH("match", "SELECT m.matchdate, m.matchheure, l.equipenom AS equipelocal, v.equipenom AS equipevisiteur, m.pointslocal, m.pointsvisiteur FROM match m "
+            + "INNER JOIN equipe l ON l.equipeid = m.equipelocal "
+            + "INNER JOIN equipe v ON v.equipeid = m.equipevisiteur ORDER BY m.matchdate, m.matchheure, m.matchid"),
+
+    ARBITRER("arbitrer", "SELECT m.matchdate, m.matchheure, l.equipenom AS equipelocal, v.equipenom AS equipevisiteur, a.arbitrenom, a.arbitreprenom FROM arbitrer r "
+            + "INNER JOIN match m ON m.matchid = r.matchid "
+            + "INNER JOIN equipe l ON l.equipeid = m.equipelocal "
+            + "INNER JOIN equipe v ON v.equipeid = m.equipevisiteur "
+            + "INNER JOIN arbitre a ON a.arbitreid = r.arbitreid ORDER BY m.matchdate, m.matchheure, m.matchid, a.arbitrenom, a.arbitreprenom");
+
+    private final String name;
+    private final String query;
+
+    private ExportKind(String name, String query) {
+        this.name = name;
+        this.query = query;
+    }
+
+    /**
+     * Get the kind of rows with the given name.
+     *
+     * @param name - Name given by the user.
+     * @return ExportKind - Kind with this name.
+     * @throws IllegalArgumentException No kind has this name.
+     */
+    public static ExportKind fromName(String name)
+    {
+        for (ExportKind kind : values()) {
+            if (kind.name.equalsIgnoreCase(name)) {
+                return kind;
+            }
+        }
+        throw new IllegalArgumentException(String.format("Type d'exportation inconnu : %s", name));
+    }
+
+    /**
+     * Name given by the user.
+     */
+    public String getName()
+    {
+        return name;
+    }
+
+    /**
+     * Query selecting the exported rows, in the order they are written.
+     */
+    String getQuery()
+    {
+        return query;
+    }
+}
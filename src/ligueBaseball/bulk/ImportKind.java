@@ -0,0 +1,220 @@
+package ligueBaseball.bulk;
+
+/**
+ * Kind of rows that can be imported from a CSV file. Each kind knows the columns of its file, the query resolving the names of the file to IDs
+ * while giving the reason a row is rejected, and the statements inserting the accepted rows.
+ *
+ * The resolution query reads the staging table import_brut, which holds the rows of the file numbered by the column ligne, and must return the
+ * column ligne and a column motif, null for the accepted rows. The insert statements read the accepted rows of the resolved table import_resolu,
+ * %1$d is replaced by the first ID reserved for the kind.
+ */
+public enum ImportKind
+{
+    TERRAIN("terrain", "terrain", "terrainid", "terrainnom text, terrainadresse text",
+
+            "SELECT b.ligne, b.terrainnom, b.terrainadresse, "
+                    + "CASE WHEN COALESCE(b.terrainnom, '') = '' THEN 'nom du terrain manquant' "
+                    + "WHEN row_number() OVER (PARTITION BY b.terrainnom ORDER BY b.ligne) > 1 THEN 'terrain en double dans le fichier' "
+                    + "WHEN t.terrainnom IS NOT NULL THEN 'le terrain existe déjà' "
+                    + "END AS motif FROM import_brut b "
+                    + "LEFT JOIN (SELECT DISTINCT terrainnom FROM terrain) t ON t.terrainnom = b.terrainnom",
+
+            "INSERT INTO terrain (terrainid, terrainnom, terrainadresse) SELECT %1$d - 1 + row_number() OVER (ORDER BY ligne), terrainnom, terrainadresse FROM import_resolu WHERE motif IS NULL;"),
+
+    EQUIPE("equipe", "equipe", "equipeid", "equipenom text, terrainnom text",
+
+            "SELECT b.ligne, b.equipenom, COALESCE(t.terrainid, -1) AS terrainid, "
+                    + "CASE WHEN COALESCE(b.equipenom, '') = '' THEN 'nom de l''équipe manquant' "
+                    + "WHEN row_number() OVER (PARTITION BY b.equipenom ORDER BY b.ligne) > 1 THEN 'équipe en double dans le fichier' "
+                    + "WHEN e.equipenom IS NOT NULL THEN 'le nom de l''équipe est déjà pris' "
+                    + "WHEN COALESCE(b.terrainnom, '') <> '' AND t.terrainid IS NULL THEN 'terrain inconnu' "
+                    + "END AS motif FROM import_brut b "
+                    + "LEFT JOIN (SELECT DISTINCT equipenom FROM equipe) e ON e.equipenom = b.equipenom "
+                    + "LEFT JOIN (SELECT terrainnom, MIN(terrainid) AS terrainid FROM terrain GROUP BY terrainnom) t ON t.terrainnom = b.terrainnom",
+
+            "INSERT INTO equipe (equipeid, equipenom, terrainid) SELECT %1$d - 1 + row_number() OVER (ORDER BY ligne), equipenom, terrainid FROM import_resolu WHERE motif IS NULL;"),
+
+    ARBITRE("arbitre", "arbitre", "arbitreid", "arbitrenom text, arbitreprenom text",
+
+            "SELECT b.ligne, b.arbitrenom, b.arbitreprenom, "
+                    + "CASE WHEN COALESCE(b.arbitrenom, '') = '' OR COALESCE(b.arbitreprenom, '') = '' THEN 'nom ou prénom de l''arbitre manquant' "
+                    + "WHEN row_number() OVER (PARTITION BY b.arbitrenom, b.arbitreprenom ORDER BY b.ligne) > 1 THEN 'arbitre en double dans le fichier' "
+                    + "WHEN a.arbitrenom IS NOT NULL THEN 'l''arbitre existe déjà' "
+                    + "END AS motif FROM import_brut b "
+                    + "LEFT JOIN (SELECT DISTINCT arbitrenom, arbitreprenom FROM arbitre) a ON a.arbitrenom = b.arbitrenom AND a.arbitreprenom = b.arbitreprenom",
+
+            "INSERT INTO arbitre (arbitreid, arbitreprenom, arbitrenom) SELECT %1$d - 1 + row_number() OVER (ORDER BY ligne), arbitreprenom, arbitrenom FROM import_resolu WHERE motif IS NULL;"),
+
+    JOUEUR("joueur", "joueur", "joueurid", "joueurnom text, joueurprenom text, equipenom text, numero integer, datedebut date",
+
+            "SELECT b.ligne, b.joueurnom, b.joueurprenom, e.equipeid, b.numero, COALESCE(b.datedebut, CURRENT_DATE) AS datedebut, "
+                    + "CASE WHEN COALESCE(b.joueurnom, '') = '' OR COALESCE(b.joueurprenom, '') = '' THEN 'nom ou prénom du joueur manquant' "
+                    + "WHEN COALESCE(b.equipenom, '') <> '' AND e.equipeid IS NULL THEN 'équipe inconnue' "
+                    + "WHEN e.equipeid IS NOT NULL AND b.numero IS NULL THEN 'numéro manquant' "
+                    + "WHEN b.numero < 0 THEN 'numéro négatif' "
+                    + "WHEN b.numero IS NOT NULL AND row_number() OVER (PARTITION BY b.joueurnom, b.joueurprenom, b.numero ORDER BY b.ligne) > 1 THEN 'joueur en double dans le fichier' "
+                    + "WHEN x.numero IS NOT NULL THEN 'le joueur existe déjà' "
+                    + "END AS motif FROM import_brut b "
+                    + "LEFT JOIN (SELECT DISTINCT j.joueurnom, j.joueurprenom, f.numero FROM joueur j INNER JOIN faitpartie f ON f.joueurid = j.joueurid AND f.datefin IS NULL) x "
+                    + "ON x.joueurnom = b.joueurnom AND x.joueurprenom = b.joueurprenom AND x.numero = b.numero "
+                    + "LEFT JOIN (SELECT equipenom, MIN(equipeid) AS equipeid FROM equipe GROUP BY equipenom) e ON e.equipenom = b.equipenom",
+
+            "INSERT INTO joueur (joueurid, joueurnom, joueurprenom) SELECT %1$d - 1 + row_number() OVER (ORDER BY ligne), joueurnom, joueurprenom FROM import_resolu WHERE motif IS NULL;",
+
+            // Numbered the same way as the players, then only those given a team join it.
+            "INSERT INTO faitpartie (joueurid, equipeid, numero, datedebut) SELECT joueurid, equipeid, numero, datedebut "
+                    + "FROM (SELECT %1$d - 1 + row_number() OVER (ORDER BY ligne) AS joueurid, equipeid, numero, datedebut FROM import_resolu WHERE motif IS NULL) AS numerotes "
+                    + "WHERE equipeid IS NOT NULL;"),
+
+    FAITPARTIE("faitpartie", null, null, "joueurnom text, joueurprenom text, equipenom text, numero integer, datedebut date, datefin date",
+
+            "SELECT b.ligne, j.joueurid, e.equipeid, b.numero, COALESCE(b.datedebut, CURRENT_DATE) AS datedebut, b.datefin, "
+                    + "CASE WHEN COALESCE(b.joueurnom, '') = '' OR COALESCE(b.joueurprenom, '') = '' THEN 'nom ou prénom du joueur manquant' "
+                    + "WHEN j.joueurid IS NULL THEN 'joueur inconnu' "
+                    + "WHEN j.homonymes > 1 THEN 'plusieurs joueurs portent ce nom' "
+                    + "WHEN e.equipeid IS NULL THEN 'équipe inconnue' "
+                    + "WHEN b.numero IS NULL THEN 'numéro manquant' "
+                    + "WHEN b.numero < 0 THEN 'numéro négatif' "
+                    + "WHEN b.datefin < COALESCE(b.datedebut, CURRENT_DATE) THEN 'la date de fin précède la date de début' "
+                    + "WHEN row_number() OVER (PARTITION BY j.joueurid, e.equipeid ORDER BY b.ligne) > 1 THEN 'appartenance en double dans le fichier' "
+                    + "WHEN x.joueurid IS NOT NULL THEN 'le joueur a déjà fait partie de l''équipe' "
+                    + "END AS motif FROM import_brut b "
+                    + "LEFT JOIN (SELECT joueurnom, joueurprenom, MIN(joueurid) AS joueurid, COUNT(*) AS homonymes FROM joueur GROUP BY joueurnom, joueurprenom) j "
+                    + "ON j.joueurnom = b.joueurnom AND j.joueurprenom = b.joueurprenom "
+                    + "LEFT JOIN (SELECT equipenom, MIN(equipeid) AS equipeid FROM equipe GROUP BY equipenom) e ON e.equipenom = b.equipenom "
+                    + "LEFT JOIN (SELECT DISTINCT joueurid, equipeid FROM faitpartie) x ON x.joueurid = j.joueurid AND x.equipeid = e.equipeid",
+
+            "INSERT INTO faitpartie (joueurid, equipeid, numero, datedebut, datefin) SELECT joueurid, equipeid, numero, datedebut, datefin FROM import_resolu WHERE motif IS NULL;"),
+
+    MATCH("match", "match", "matchid", "matchdate date, matchheure time, equipelocal text, equipevisiteur text, pointslocal integer, pointsvisiteur integer",
+
+            "SELECT b.ligne, l.equipeid AS equipelocal, v.equipeid AS equipevisiteur, l.terrainid, b.matchdate, b.matchheure, b.pointslocal, b.pointsvisiteur, "
+                    + "CASE WHEN b.matchdate IS NULL OR b.matchheure IS NULL THEN 'date ou heure du match manquante' "
+                    + "WHEN l.equipeid IS NULL THEN 'équipe locale inconnue' "
+                    + "WHEN v.equipeid IS NULL THEN 'équipe visiteuse inconnue' "
+                    + "WHEN l.equipeid = v.equipeid THEN 'une équipe ne peut pas jouer contre elle-même' "
+                    + "WHEN (b.pointslocal IS NULL) <> (b.pointsvisiteur IS NULL) THEN 'un seul pointage donné' "
+                    + "WHEN b.pointslocal < 0 OR b.pointsvisiteur < 0 THEN 'pointage négatif' "
+                    + "WHEN row_number() OVER (PARTITION BY l.equipeid, v.equipeid, b.matchdate, b.matchheure ORDER BY b.ligne) > 1 THEN 'match en double dans le fichier' "
+                    + "WHEN m.matchdate IS NOT NULL THEN 'le match existe déjà' "
+                    + "END AS motif FROM import_brut b "
+                    + "LEFT JOIN (SELECT equipenom, MIN(equipeid) AS equipeid, MIN(terrainid) AS terrainid FROM equipe GROUP BY equipenom) l ON l.equipenom = b.equipelocal "
+                    + "LEFT JOIN (SELECT equipenom, MIN(equipeid) AS equipeid FROM equipe GROUP BY equipenom) v ON v.equipenom = b.equipevisiteur "
+                    + "LEFT JOIN (SELECT DISTINCT equipelocal, equipevisiteur, matchdate, matchheure FROM match) m "
+                    + "ON m.equipelocal = l.equipeid AND m.equipevisiteur = v.equipeid AND m.matchdate = b.matchdate AND m.matchheure = b.matchheure",
+
+            "INSERT INTO match (matchid, equipelocal, equipevisiteur, terrainid, matchdate, matchheure, pointslocal, pointsvisiteur) "
+                    + "SELECT %1$d - 1 + row_number() OVER (ORDER BY ligne), equipelocal, equipevisiteur, terrainid, matchdate, matchheure, pointslocal, pointsvisiteur "
+                    + "FROM import_resolu WHERE motif IS NULL;"),
+
+    ARBITRER("arbitrer", null, null, "matchdate date, matchheure time, equipelocal text, equipevisiteur text, arbitrenom text, arbitreprenom text",
+
+            // Only the rows accepted so far are numbered against the referees the match already has.
+            "SELECT ligne, matchid, arbitreid, "
+                    + "CASE WHEN motif IS NOT NULL THEN motif "
+                    + "WHEN row_number() OVER (PARTITION BY matchid, motif IS NULL ORDER BY ligne) + arbitres > 4 "
+                    + "THEN 'le match a déjà le nombre maximal d''arbitres' "
+                    + "END AS motif FROM (SELECT b.ligne, m.matchid, a.arbitreid, COALESCE(n.arbitres, 0) AS arbitres, "
+                    + "CASE WHEN m.matchid IS NULL THEN 'match inconnu' "
+                    + "WHEN a.arbitreid IS NULL THEN 'arbitre inconnu' "
+                    + "WHEN row_number() OVER (PARTITION BY m.matchid, a.arbitreid ORDER BY b.ligne) > 1 THEN 'arbitre en double dans le fichier' "
+                    + "WHEN r.arbitreid IS NOT NULL THEN 'l''arbitre est déjà assigné au match' "
+                    + "END AS motif FROM import_brut b "
+                    + "LEFT JOIN (SELECT equipenom, MIN(equipeid) AS equipeid FROM equipe GROUP BY equipenom) l ON l.equipenom = b.equipelocal "
+                    + "LEFT JOIN (SELECT equipenom, MIN(equipeid) AS equipeid FROM equipe GROUP BY equipenom) v ON v.equipenom = b.equipevisiteur "
+                    + "LEFT JOIN (SELECT equipelocal, equipevisiteur, matchdate, matchheure, MIN(matchid) AS matchid FROM match GROUP BY equipelocal, equipevisiteur, matchdate, matchheure) m "
+                    + "ON m.equipelocal = l.equipeid AND m.equipevisiteur = v.equipeid AND m.matchdate = b.matchdate AND m.matchheure = b.matchheure "
+                    + "LEFT JOIN (SELECT arbitrenom, arbitreprenom, MIN(arbitreid) AS arbitreid FROM arbitre GROUP BY arbitrenom, arbitreprenom) a "
+                    + "ON a.arbitrenom = b.arbitrenom AND a.arbitreprenom = b.arbitreprenom "
+                    + "LEFT JOIN (SELECT DISTINCT matchid, arbitreid FROM arbitrer) r ON r.matchid = m.matchid AND r.arbitreid = a.arbitreid "
+                    + "LEFT JOIN (SELECT matchid, COUNT(*) AS arbitres FROM arbitrer GROUP BY matchid) n ON n.matchid = m.matchid) AS verifies",
+
+            "INSERT INTO arbitrer (arbitreid, matchid) SELECT arbitreid, matchid FROM import_resolu WHERE motif IS NULL;");
+
+    private final String name;
+    private final String tableName;
+    private final String keyColumnName;
+    private final String stagingColumns;
+    private final String resolution;
+    private final String[] inserts;
+
+    private ImportKind(String name, String tableName, String keyColumnName, String stagingColumns, String resolution, String... inserts) {
+        this.name = name;
+        this.tableName = tableName;
+        this.keyColumnName = keyColumnName;
+        this.stagingColumns = stagingColumns;
+        this.resolution = resolution;
+        this.inserts = inserts;
+    }
+
+    /**
+     * Get the kind of rows with the given name.
+     *
+     * @param name - Name given by the user.
+     * @return ImportKind - Kind with this name.
+     * @throws IllegalArgumentException No kind has this name.
+     */
+    public static ImportKind fromName(String name)
+    {
+        for (ImportKind kind : values()) {
+            if (kind.name.equalsIgnoreCase(name)) {
+                return kind;
+            }
+        }
+        throw new IllegalArgumentException(String.format("Type d'importation inconnu : %s", name));
+    }
+
+    /**
+     * Name given by the user.
+     */
+    public String getName()
+    {
+        return name;
+    }
+
+    /**
+     * Table receiving IDs reserved in the sequence, null if the rows have no ID of their own.
+     */
+    String getTableName()
+    {
+        return tableName;
+    }
+
+    String getKeyColumnName()
+    {
+        return keyColumnName;
+    }
+
+    /**
+     * Columns of the file, with the type their values are converted to when loaded.
+     */
+    String getStagingColumns()
+    {
+        return stagingColumns;
+    }
+
+    /**
+     * Names of the columns of the file, in order.
+     */
+    String getColumnNames()
+    {
+        StringBuilder names = new StringBuilder();
+        for (String column : stagingColumns.split(",")) {
+            if (names.length() > 0) {
+                names.append(", ");
+            }
+            names.append(column.trim().split(" ")[0]);
+        }
+        return names.toString();
+    }
+
+    String getResolution()
+    {
+        return resolution;
+    }
+
+    String[] getInserts()
+    {
+        return inserts;
+    }
+}
@@ -0,0 +1,101 @@
+package ligueBaseball.bulk;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * What an import did: how many rows were read, how many were inserted, and why the others were rejected.
+ */
+public class ImportReport
+{
+    private final ImportKind kind;
+    private final long readCount;
+    private final int maximumRejectionsKept;
+    private final List<Rejection> rejections = new ArrayList<>();
+    private long rejectedCount = 0;
+
+    /**
+     * Constructor
+     *
+     * @param kind - Kind of the imported rows.
+     * @param readCount - Number of rows read from the file.
+     * @param maximumRejectionsKept - Number of rejected rows kept with their reason, the others are only counted.
+     */
+    ImportReport(ImportKind kind, long readCount, int maximumRejectionsKept) {
+        this.kind = kind;
+        this.readCount = readCount;
+        this.maximumRejectionsKept = maximumRejectionsKept;
+    }
+
+    /**
+     * Record a rejected row.
+     *
+     * @param line - Line of the row in the file, the header being the first line.
+     * @param reason - Why the row was rejected.
+     */
+    void reject(long line, String reason)
+    {
+        if (rejections.size() < maximumRejectionsKept) {
+            rejections.add(new Rejection(line, reason));
+        }
+        ++rejectedCount;
+    }
+
+    public ImportKind getKind()
+    {
+        return kind;
+    }
+
+    public long getReadCount()
+    {
+        return readCount;
+    }
+
+    /**
+     * Number of rows inserted, all the rows that were not rejected.
+     */
+    public long getInsertedCount()
+    {
+        return readCount - rejectedCount;
+    }
+
+    public long getRejectedCount()
+    {
+        return rejectedCount;
+    }
+
+    /**
+     * Get the first rejected rows, in the order of the file.
+     *
+     * @return List - Rejected rows kept with their reason.
+     */
+    public List<Rejection> getRejections()
+    {
+        return Collections.unmodifiableList(rejections);
+    }
+
+    /**
+     * A row of the file that was not imported.
+     */
+    public static class Rejection
+    {
+        private final long line;
+        private final String reason;
+
+        Rejection(long line, String reason) {
+            this.line = line;
+            this.reason = reason;
+        }
+
+        public long getLine()
+        {
+            return line;
+        }
+
+        public String getReason()
+        {
+            return reason;
+        }
+    }
+}
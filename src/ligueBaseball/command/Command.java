@@ -1,41 +1,92 @@
 package ligueBaseball.command;
 
+import java.sql.Date;
+import java.sql.Time;
 import java.util.ArrayList;
+import java.util.Arrays;
 
+/**
+ * Command entered by the user: a name followed by parameters separated by spaces. A parameter containing spaces is written between double quotes,
+ * a double quote inside such a parameter is written twice: creerEquipe "Red Sox" "Fenway Park" "4 Jersey St, Boston".
+ *
+ * The line is read once, keeping only where each word starts and ends. The parameters are converted to strings, numbers, dates or times only when
+ * asked, straight from the characters of the line. The same object can be reused for every line of a file.
+ */
 public class Command
 {
+    private CharSequence line;
+    private int[] starts = new int[8];
+    private int[] ends = new int[8];
+    private boolean[] escaped = new boolean[8];
+    private String[] strings = new String[8];
+    private int wordCount = 0;
+    private String commandName = "";
+
     /**
      * Extract the command and parameters if any from a given String.
      *
      * @param commandWithParametersIfAny - String with command and parameters if any.
      * @return Command - Extracted command from the user input.
+     * @throws IllegalArgumentException A quoted parameter isn't closed.
      */
     public static Command extractCommandFromString(String commandWithParametersIfAny)
     {
-        String[] splitedString = commandWithParametersIfAny.split(" ");
-
-        // Extract parameters if any
-        ArrayList<String> parameters = new ArrayList<>();
-        if (splitedString.length > 1) {
-            for (int i = 1; i < splitedString.length; ++i) {
-                parameters.add(splitedString[i]);
-            }
-        }
-        return new Command(splitedString[0], parameters);
+        return new Command().parse(commandWithParametersIfAny);
     }
 
-    private String commandName;
-    private ArrayList<String> parameters;
-
     /**
-     * Default constructor.
+     * Read a new line, replacing the previous command.
      *
-     * @param commandName - Name of the command.
-     * @param parameters - Parameters given with the command.
+     * @param commandWithParametersIfAny - Line with the command and its parameters if any. Must not change while this command is used.
+     * @return Command - This command.
+     * @throws IllegalArgumentException A quoted parameter isn't closed.
      */
-    private Command(String commandName, ArrayList<String> parameters) {
-        this.commandName = commandName;
-        this.parameters = parameters;
+    public Command parse(CharSequence commandWithParametersIfAny)
+    {
+        Arrays.fill(strings, 0, wordCount, null);
+        line = commandWithParametersIfAny;
+        wordCount = 0;
+
+        int length = line.length();
+        int position = 0;
+        while (true) {
+            while (position < length && isSeparator(line.charAt(position))) {
+                ++position;
+            }
+            if (position >= length) {
+                break;
+            }
+
+            if (line.charAt(position) == '"') {
+                int start = ++position;
+                boolean hasEscapedQuote = false;
+                while (true) {
+                    if (position >= length) {
+                        throw new IllegalArgumentException("Un paramètre entre guillemets n'est pas fermé.");
+                    }
+                    if (line.charAt(position) == '"') {
+                        if (position + 1 < length && line.charAt(position + 1) == '"') {
+                            hasEscapedQuote = true;
+                            position += 2;
+                            continue;
+                        }
+                        break;
+                    }
+                    ++position;
+                }
+                addWord(start, position, hasEscapedQuote);
+                ++position;
+            } else {
+                int start = position;
+                while (position < length && !isSeparator(line.charAt(position))) {
+                    ++position;
+                }
+                addWord(start, position, false);
+            }
+        }
+
+        commandName = wordCount == 0 ? "" : nameOfCommand();
+        return this;
     }
 
     /**
@@ -49,12 +100,204 @@ public class Command
     }
 
     /**
-     * Get the parameters given with the command if any.
+     * Get the number of parameters given with the command.
+     *
+     * @return int - Number of parameters.
+     */
+    public int getParameterCount()
+    {
+        return Math.max(wordCount - 1, 0);
+    }
+
+    /**
+     * Get a parameter as it was entered, without the quotes.
+     *
+     * @param index - Index of the parameter, from 0.
+     * @return String - Value of the parameter.
+     */
+    public String getString(int index)
+    {
+        int word = wordOf(index);
+        String value = strings[word];
+        if (value == null) {
+            value = line.subSequence(starts[word], ends[word]).toString();
+            if (escaped[word]) {
+                value = value.replace("\"\"", "\"");
+            }
+            strings[word] = value;
+        }
+        return value;
+    }
+
+    /**
+     * Get a parameter holding an integer.
+     *
+     * @param index - Index of the parameter, from 0.
+     * @return int - Value of the parameter.
+     * @throws NumberFormatException The parameter isn't an integer.
+     */
+    public int getInt(int index)
+    {
+        int word = wordOf(index);
+        int position = starts[word];
+        int end = ends[word];
+        boolean negative = position < end && line.charAt(position) == '-';
+        if (negative || (position < end && line.charAt(position) == '+')) {
+            ++position;
+        }
+        if (position >= end) {
+            throw notANumber(index);
+        }
+
+        long value = 0;
+        for (; position < end; ++position) {
+            int digit = line.charAt(position) - '0';
+            if (digit < 0 || digit > 9) {
+                throw notANumber(index);
+            }
+            value = value * 10 + digit;
+            if (value > (long) Integer.MAX_VALUE + 1) {
+                throw notANumber(index);
+            }
+        }
+        value = negative ? -value : value;
+        if (value > Integer.MAX_VALUE) {
+            throw notANumber(index);
+        }
+        return (int) value;
+    }
+
+    /**
+     * Get a parameter holding a date, written yyyy-mm-dd.
+     *
+     * @param index - Index of the parameter, from 0.
+     * @return Date - Value of the parameter.
+     * @throws IllegalArgumentException The parameter isn't a date.
+     */
+    @SuppressWarnings("deprecation")
+    public Date getDate(int index)
+    {
+        int[] fields = readFields(index, '-', 3, 3);
+        if (fields == null || fields[1] < 1 || fields[1] > 12 || fields[2] < 1 || fields[2] > 31) {
+            throw new IllegalArgumentException("La date est invalide.");
+        }
+        // Same conversion as Date.valueOf().
+        return new Date(fields[0] - 1900, fields[1] - 1, fields[2]);
+    }
+
+    /**
+     * Get a parameter holding a time of the day, written hh:mm:ss or hh:mm.
+     *
+     * @param index - Index of the parameter, from 0.
+     * @return Time - Value of the parameter.
+     * @throws IllegalArgumentException The parameter isn't a time.
+     */
+    @SuppressWarnings("deprecation")
+    public Time getTime(int index)
+    {
+        int[] fields = readFields(index, ':', 2, 3);
+        if (fields == null || fields[0] > 23 || fields[1] > 59 || fields[2] > 59) {
+            throw new IllegalArgumentException("L'heure est invalide.");
+        }
+        // Same conversion as Time.valueOf().
+        return new Time(fields[0], fields[1], fields[2]);
+    }
+
+    /**
+     * Get the parameters given with the command if any. Prefer the typed getters, this copies every parameter.
      *
      * @return ArrayList or String - Parameters if any.
      */
     public ArrayList<String> getParameters()
     {
+        ArrayList<String> parameters = new ArrayList<>(getParameterCount());
+        for (int i = 0; i < getParameterCount(); ++i) {
+            parameters.add(getString(i));
+        }
         return parameters;
     }
+
+    @Override
+    public String toString()
+    {
+        return line == null ? "" : line.toString();
+    }
+
+    private static boolean isSeparator(char c)
+    {
+        return c == ' ' || c == '\t';
+    }
+
+    private void addWord(int start, int end, boolean hasEscapedQuote)
+    {
+        if (wordCount == starts.length) {
+            int capacity = wordCount * 2;
+            starts = Arrays.copyOf(starts, capacity);
+            ends = Arrays.copyOf(ends, capacity);
+            escaped = Arrays.copyOf(escaped, capacity);
+            strings = Arrays.copyOf(strings, capacity);
+        }
+        starts[wordCount] = start;
+        ends[wordCount] = end;
+        escaped[wordCount] = hasEscapedQuote;
+        ++wordCount;
+    }
+
+    /**
+     * Get the name of the command, reusing the previous one if it is the same so a file repeating a command doesn't create a string per line.
+     */
+    private String nameOfCommand()
+    {
+        int length = ends[0] - starts[0];
+        boolean same = !escaped[0] && commandName.length() == length;
+        for (int i = 0; same && i < length; ++i) {
+            same = commandName.charAt(i) == line.charAt(starts[0] + i);
+        }
+        if (same) {
+            return commandName;
+        }
+        String name = line.subSequence(starts[0], ends[0]).toString();
+        return escaped[0] ? name.replace("\"\"", "\"") : name;
+    }
+
+    private int wordOf(int index)
+    {
+        if (index < 0 || index >= getParameterCount()) {
+            throw new IndexOutOfBoundsException(String.format("Le paramètre %s n'a pas été donné.", index + 1));
+        }
+        return index + 1;
+    }
+
+    /**
+     * Read the unsigned numbers of a parameter separated by the given character.
+     *
+     * @return int[] - Three numbers, the missing ones are 0. Null if the parameter isn't made of minimumCount to maximumCount numbers.
+     */
+    private int[] readFields(int index, char separator, int minimumCount, int maximumCount)
+    {
+        int word = wordOf(index);
+        int[] fields = new int[3];
+        int count = 0;
+        int digits = 0;
+        for (int position = starts[word]; position < ends[word]; ++position) {
+            char c = line.charAt(position);
+            if (c == separator) {
+                if (digits == 0 || ++count >= maximumCount) {
+                    return null;
+                }
+                digits = 0;
+            } else if (c >= '0' && c <= '9' && digits < 9) {
+                fields[count] = fields[count] * 10 + (c - '0');
+                ++digits;
+            } else {
+                return null;
+            }
+        }
+        return digits > 0 && count + 1 >= minimumCount ? fields : null;
+    }
+
+    private NumberFormatException notANumber(int index)
+    {
+        return new NumberFormatException(String.format("'%s' n'est pas un nombre entier.", getString(index)));
+    }
 }
@@ -0,0 +1,145 @@
+package ligueBaseball.command;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import ligueBaseball.database.QueryStatistics.Measure;
+import ligueBaseball.exceptions.MissingCommandParameterException;
+import ligueBaseball.exceptions.TooManyCommandParametersException;
+import ligueBaseball.repositories.Repositories;
+
+/**
+ * A command the user can enter. The handler knows the parameters of its command, checks how many were given before it is executed, and
+ * measures its own executions.
+ *
+ * The parameters are described by the usage shown to the user, such as "<JoueurNom> <JoueurPrenom> [<EquipeNom> <Numero> [<DateDebut>]]": the
+ * parameters between brackets are optional, and must be given together.
+ *
+ * @param <C> - Context the command is executed in.
+ */
+public abstract class CommandHandler<C>
+{
+    private final String name;
+    private final String usage;
+    private final boolean readOnly;
+    private final String[] parameterNames;
+    private final boolean[] acceptedCounts;
+    private final Measure measure;
+
+    /**
+     * Constructor
+     *
+     * @param name - Name of the command, as entered by the user.
+     * @param usage - Parameters of the command, empty if it has none.
+     * @param readOnly - True if the command never changes the league.
+     */
+    public CommandHandler(String name, String usage, boolean readOnly) {
+        this.name = name;
+        this.usage = usage;
+        this.readOnly = readOnly;
+        this.measure = new Measure(name);
+
+        List<String> names = new ArrayList<>();
+        List<Integer> counts = new ArrayList<>();
+        for (String token : usage.split(" ")) {
+            // Each optional group may end the parameters.
+            for (; token.startsWith("["); token = token.substring(1)) {
+                counts.add(names.size());
+            }
+            token = token.replace("]", "");
+            if (!token.isEmpty()) {
+                names.add(token.replace("<", "").replace(">", ""));
+            }
+        }
+        counts.add(names.size());
+
+        this.parameterNames = names.toArray(new String[names.size()]);
+        this.acceptedCounts = new boolean[parameterNames.length + 1];
+        for (int count : counts) {
+            acceptedCounts[count] = true;
+        }
+    }
+
+    /**
+     * Execute the command.
+     *
+     * @param context - Context the command is executed in.
+     * @param repositories - Storage of the league.
+     * @param command - Command entered by the user, with a valid number of parameters.
+     * @throws Exception The command failed.
+     */
+    protected abstract void execute(C context, Repositories repositories, Command command) throws Exception;
+
+    /**
+     * Make sure the command was given the parameters it needs, and no more.
+     *
+     * @param command - Command entered by the user.
+     * @throws MissingCommandParameterException A required parameter is missing.
+     * @throws TooManyCommandParametersException More parameters than the command accepts were given.
+     */
+    public void validate(Command command) throws MissingCommandParameterException, TooManyCommandParametersException
+    {
+        int count = command.getParameterCount();
+        if (count >= acceptedCounts.length) {
+            throw new TooManyCommandParametersException(name, usage);
+        }
+        if (!acceptedCounts[count]) {
+            throw new MissingCommandParameterException(name, parameterNames[count]);
+        }
+    }
+
+    /**
+     * Execute the command and record how long it took, if asked.
+     *
+     * @param context - Context the command is executed in.
+     * @param repositories - Storage of the league.
+     * @param command - Command entered by the user, already validated.
+     * @param measured - True to record the execution, false when the statistics are disabled.
+     * @throws Exception The command failed.
+     */
+    public final void handle(C context, Repositories repositories, Command command, boolean measured) throws Exception
+    {
+        if (!measured) {
+            execute(context, repositories, command);
+            return;
+        }
+
+        boolean failed = true;
+        long start = System.nanoTime();
+        try {
+            execute(context, repositories, command);
+            failed = false;
+        } finally {
+            measure.record(System.nanoTime() - start, failed);
+        }
+    }
+
+    public String getName()
+    {
+        return name;
+    }
+
+    /**
+     * Parameters of the command, as shown to the user.
+     */
+    public String getUsage()
+    {
+        return usage;
+    }
+
+    /**
+     * True if the command never changes the league. A failed read-only command leaves nothing to clean up.
+     */
+    public boolean isReadOnly()
+    {
+        return readOnly;
+    }
+
+    /**
+     * Executions of the command, how long they took and how many failed.
+     */
+    public Measure getMeasure()
+    {
+        return measure;
+    }
+}
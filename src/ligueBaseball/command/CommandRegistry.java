@@ -0,0 +1,101 @@
+package ligueBaseball.command;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import ligueBaseball.database.QueryStatistics.Measure;
+import ligueBaseball.exceptions.MissingCommandParameterException;
+import ligueBaseball.exceptions.TooManyCommandParametersException;
+import ligueBaseball.exceptions.UnknownCommandException;
+
+/**
+ * Every command the user can enter, found by name. The console, the entry files and the sessions of the server all find their commands here,
+ * so a command is always checked the same way before it is executed.
+ *
+ * @param <C> - Context the commands are executed in.
+ */
+public class CommandRegistry<C>
+{
+    private final Map<String, CommandHandler<C>> handlers = new LinkedHashMap<>();
+
+    /**
+     * Add a command. Must be done before the registry is shared between threads.
+     *
+     * @param handler - Handler of the command.
+     * @throws IllegalArgumentException Another command has the same name.
+     */
+    public void register(CommandHandler<C> handler)
+    {
+        if (handlers.containsKey(handler.getName())) {
+            throw new IllegalArgumentException(String.format("La commande %s existe déjà.", handler.getName()));
+        }
+        handlers.put(handler.getName(), handler);
+    }
+
+    /**
+     * Find the handler of a command and make sure it was given the right parameters.
+     *
+     * @param command - Command entered by the user.
+     * @return CommandHandler - Handler of the command, ready to execute it.
+     * @throws UnknownCommandException No command has this name.
+     * @throws MissingCommandParameterException A required parameter is missing.
+     * @throws TooManyCommandParametersException More parameters than the command accepts were given.
+     */
+    public CommandHandler<C> find(Command command) throws UnknownCommandException, MissingCommandParameterException, TooManyCommandParametersException
+    {
+        CommandHandler<C> handler = handlers.get(command.getCommandName());
+        if (handler == null) {
+            throw new UnknownCommandException(command.getCommandName());
+        }
+        handler.validate(command);
+        return handler;
+    }
+
+    /**
+     * Get the handlers, in the order they were added.
+     *
+     * @return Collection - Every handler.
+     */
+    public Collection<CommandHandler<C>> getHandlers()
+    {
+        return Collections.unmodifiableCollection(handlers.values());
+    }
+
+    /**
+     * Get the measures of the commands that were executed, the most time consuming first.
+     *
+     * @return List - Measures of the commands.
+     */
+    public List<Measure> getMeasures()
+    {
+        List<Measure> measures = new ArrayList<>();
+        for (CommandHandler<C> handler : handlers.values()) {
+            if (handler.getMeasure().getHistogram().getCount() > 0) {
+                measures.add(handler.getMeasure());
+            }
+        }
+        Collections.sort(measures, new Comparator<Measure>() {
+            @Override
+            public int compare(Measure first, Measure second)
+            {
+                return Double.compare(second.getHistogram().getTotalMillis(), first.getHistogram().getTotalMillis());
+            }
+        });
+        return measures;
+    }
+
+    /**
+     * Forget the executions of every command.
+     */
+    public void resetMeasures()
+    {
+        for (CommandHandler<C> handler : handlers.values()) {
+            handler.getMeasure().reset();
+        }
+    }
+}
@@ -0,0 +1,193 @@
+package ligueBaseball.command;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Read the lines of an entry file through a large buffer. The end of each line is found in the bytes, blank lines are skipped and the spaces
+ * around a line are removed before anything is decoded, so a comment line the caller doesn't want costs nothing but the search of its end.
+ *
+ * The text of the current line is decoded only when asked, in a buffer reused for every line: it must not be kept once the next line is read.
+ * The charset must write the spaces, the dashes and the line feeds on one byte, as every charset used for the entry files does.
+ */
+public class LineReader implements Closeable
+{
+    private final FileChannel channel;
+    private final CharsetDecoder decoder;
+    private byte[] bytes;
+    private CharBuffer text = CharBuffer.allocate(256);
+    private int position = 0;
+    private int limit = 0;
+    private int searched = 0;
+    private boolean endOfFile = false;
+    private int lineStart = 0;
+    private int lineEnd = 0;
+    private boolean decoded = false;
+    private long lineNumber = 0;
+
+    /**
+     * Constructor
+     *
+     * @param path - File to read.
+     * @param charset - Charset of the file.
+     * @param bufferSize - Number of bytes read at once, grown if a line is longer.
+     * @throws IOException Failed to open the file.
+     */
+    public LineReader(Path path, Charset charset, int bufferSize) throws IOException {
+        this.channel = FileChannel.open(path, StandardOpenOption.READ);
+        this.decoder = charset.newDecoder().onMalformedInput(CodingErrorAction.REPLACE).onUnmappableCharacter(CodingErrorAction.REPLACE);
+        this.bytes = new byte[bufferSize];
+    }
+
+    /**
+     * Move to the next line holding something other than spaces.
+     *
+     * @return boolean - False if the end of the file was reached.
+     * @throws IOException Failed to read the file.
+     */
+    public boolean nextLine() throws IOException
+    {
+        while (true) {
+            int end = indexOfLineFeed();
+            if (end < 0) {
+                if (!endOfFile) {
+                    fill();
+                    continue;
+                }
+                if (position >= limit) {
+                    return false;
+                }
+                end = limit;
+            }
+
+            ++lineNumber;
+            int start = position;
+            position = Math.min(end + 1, limit);
+            searched = position;
+
+            // Same spaces as String.trim(), the carriage return of a Windows line included.
+            while (start < end && isBlank(bytes[start])) {
+                ++start;
+            }
+            while (end > start && isBlank(bytes[end - 1])) {
+                --end;
+            }
+            if (start < end) {
+                lineStart = start;
+                lineEnd = end;
+                decoded = false;
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Check if the current line is a comment, starting with "--", without decoding it.
+     *
+     * @return boolean - True if the line is a comment.
+     */
+    public boolean isComment()
+    {
+        return lineEnd - lineStart >= 2 && bytes[lineStart] == '-' && bytes[lineStart + 1] == '-';
+    }
+
+    /**
+     * Get the length of the current line in bytes, without the spaces around it.
+     *
+     * @return int - Number of bytes of the line.
+     */
+    public int getByteLength()
+    {
+        return lineEnd - lineStart;
+    }
+
+    /**
+     * Get the text of the current line, without the spaces around it. The buffer is overwritten by the next line.
+     *
+     * @return CharBuffer - Text of the line.
+     */
+    public CharBuffer getText()
+    {
+        if (!decoded) {
+            int length = lineEnd - lineStart;
+            if (text.capacity() < length) {
+                text = CharBuffer.allocate(Math.max(length, text.capacity() * 2));
+            }
+            text.clear();
+            decoder.reset();
+            ByteBuffer input = ByteBuffer.wrap(bytes, lineStart, length);
+            decoder.decode(input, text, true);
+            decoder.flush(text);
+            text.flip();
+            decoded = true;
+        }
+        return text;
+    }
+
+    /**
+     * Get the number of lines read so far, the blank lines included.
+     *
+     * @return long - Number of the current line, from 1.
+     */
+    public long getLineNumber()
+    {
+        return lineNumber;
+    }
+
+    @Override
+    public void close() throws IOException
+    {
+        channel.close();
+    }
+
+    private static boolean isBlank(byte b)
+    {
+        return b >= 0 && b <= ' ';
+    }
+
+    /**
+     * Find the next line feed, without searching again the bytes already searched.
+     */
+    private int indexOfLineFeed()
+    {
+        for (int i = searched; i < limit; ++i) {
+            if (bytes[i] == '\n') {
+                return i;
+            }
+        }
+        searched = limit;
+        return -1;
+    }
+
+    /**
+     * Move the unfinished line to the start of the buffer and read what follows, growing the buffer if the line fills it.
+     */
+    private void fill() throws IOException
+    {
+        if (position > 0) {
+            System.arraycopy(bytes, position, bytes, 0, limit - position);
+            limit -= position;
+            searched -= position;
+            position = 0;
+        }
+        if (limit == bytes.length) {
+            bytes = Arrays.copyOf(bytes, bytes.length * 2);
+        }
+
+        int read = channel.read(ByteBuffer.wrap(bytes, limit, bytes.length - limit));
+        if (read < 0) {
+            endOfFile = true;
+        } else {
+            limit += read;
+        }
+    }
+}
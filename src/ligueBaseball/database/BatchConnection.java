@@ -0,0 +1,325 @@
+package ligueBaseball.database;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.BatchUpdateException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.sql.Statement;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Run many commands in a single transaction. The connection given to the commands defers the commits, groups the consecutive executions of the
+ * same INSERT or UPDATE in a JDBC batch and rolls back to the savepoint of the current command on failure, so a failing command doesn't cancel
+ * the others. The writes are executed in the order they were submitted, a batch being sent as soon as another statement is executed.
+ *
+ * A deferred execution doesn't know how many rows it changes: it returns Statement.SUCCESS_NO_INFO.
+ */
+public class BatchConnection
+{
+    private final Connection connection;
+    private final Connection batchingConnection;
+    private final int commandsPerTransaction;
+
+    private final Map<String, PreparedStatement> statements = new HashMap<>();
+    private String pendingSql; // SQL of the batch waiting to be executed, null if none
+    private Savepoint savepoint;
+    private int uncommittedCommandCount = 0;
+    private long commitCount = 0;
+
+    /**
+     * Constructor
+     *
+     * @param connection - Connection with the database, closed with this object.
+     * @param commandsPerTransaction - Number of commands grouped in a transaction.
+     */
+    public BatchConnection(Connection connection, int commandsPerTransaction) {
+        this.connection = connection;
+        this.commandsPerTransaction = commandsPerTransaction;
+        this.batchingConnection = (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[] { Connection.class }, new ConnectionHandler());
+    }
+
+    /**
+     * Get the connection to give to the commands.
+     *
+     * @return Connection - Connection deferring commits and batching writes.
+     */
+    public Connection getConnection()
+    {
+        return batchingConnection;
+    }
+
+    /**
+     * Start a new command. Its work can be cancelled without affecting the previous commands.
+     *
+     * @throws SQLException Failed to create the savepoint.
+     */
+    public void beginCommand() throws SQLException
+    {
+        flush();
+        savepoint = connection.setSavepoint();
+    }
+
+    /**
+     * End the current command successfully. The transaction is committed once enough commands have been executed.
+     *
+     * @throws SQLException Failed to execute the pending writes of the command.
+     */
+    public void endCommand() throws SQLException
+    {
+        flush();
+        if (savepoint != null) {
+            connection.releaseSavepoint(savepoint);
+            savepoint = null;
+        }
+
+        if (++uncommittedCommandCount >= commandsPerTransaction) {
+            commit();
+        }
+    }
+
+    /**
+     * Cancel the work done by the current command.
+     *
+     * @throws SQLException Failed to roll back to the savepoint of the command.
+     */
+    public void failCommand() throws SQLException
+    {
+        discardPendingStatements();
+        if (savepoint != null) {
+            connection.rollback(savepoint);
+            connection.releaseSavepoint(savepoint);
+            savepoint = null;
+        }
+    }
+
+    /**
+     * Commit the work of all the commands executed since the last commit.
+     *
+     * @throws SQLException Failed to commit.
+     */
+    public void commit() throws SQLException
+    {
+        flush();
+        connection.commit();
+        uncommittedCommandCount = 0;
+        ++commitCount;
+    }
+
+    /**
+     * Commit the remaining work and close the connection.
+     *
+     * @throws SQLException Failed to commit.
+     */
+    public void close() throws SQLException
+    {
+        try {
+            if (uncommittedCommandCount > 0) {
+                commit();
+            }
+        } finally {
+            for (PreparedStatement statement : statements.values()) {
+                try {
+                    statement.close();
+                } catch (SQLException e) {
+                    // Nothing
+                }
+            }
+            statements.clear();
+            connection.close();
+        }
+    }
+
+    /**
+     * Get the number of transactions committed so far.
+     *
+     * @return long - Number of commits.
+     */
+    public long getCommitCount()
+    {
+        return commitCount;
+    }
+
+    /**
+     * Execute the pending batch.
+     *
+     * @throws SQLException Failed to execute the batch.
+     */
+    private void flush() throws SQLException
+    {
+        if (pendingSql == null) {
+            return;
+        }
+        try {
+            statements.get(pendingSql).executeBatch();
+        } catch (BatchUpdateException e) {
+            discardPendingStatements();
+            throw e.getNextException() != null ? e.getNextException() : e;
+        } finally {
+            pendingSql = null;
+        }
+    }
+
+    /**
+     * Forget the batched executions that haven't been sent yet.
+     */
+    private void discardPendingStatements()
+    {
+        if (pendingSql != null) {
+            try {
+                statements.get(pendingSql).clearBatch();
+            } catch (SQLException e) {
+                // Nothing
+            }
+            pendingSql = null;
+        }
+    }
+
+    /**
+     * Check if the statement only writes and can be executed later in a batch.
+     *
+     * @param sql - SQL of the statement.
+     * @return boolean - True if the statement can be batched.
+     */
+    private static boolean isBatchable(String sql)
+    {
+        String trimmed = sql.trim();
+        if (trimmed.length() < 6) {
+            return false;
+        }
+        String verb = trimmed.substring(0, 6);
+        return (verb.equalsIgnoreCase("INSERT") || verb.equalsIgnoreCase("UPDATE")) && !trimmed.toUpperCase().contains("RETURNING");
+    }
+
+    /**
+     * Invoke the method on the target, hiding the reflection exception.
+     */
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable
+    {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Connection given to the commands.
+     */
+    private class ConnectionHandler implements InvocationHandler
+    {
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable
+        {
+            switch (method.getName()) {
+                case "commit":
+                case "close":
+                    // Deferred until the end of the group of commands.
+                    return null;
+                case "rollback":
+                    if (args == null) {
+                        failCommand();
+                        savepoint = connection.setSavepoint();
+                        return null;
+                    }
+                    break;
+                case "isClosed":
+                    return connection.isClosed();
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "BatchConnection(" + connection + ")";
+                case "prepareStatement":
+                    if (args.length == 1 && isBatchable((String) args[0])) {
+                        return prepareBatchedStatement((String) args[0]);
+                    }
+                    break;
+                default:
+                    break;
+            }
+
+            // Anything else may read what was written, execute the pending batches first.
+            flush();
+            return BatchConnection.invoke(connection, method, args);
+        }
+
+        /**
+         * Get a statement adding its executions to the batch of its SQL.
+         *
+         * @param sql - SQL of the statement.
+         * @return PreparedStatement - Batched statement.
+         * @throws SQLException Failed to prepare the statement.
+         */
+        private PreparedStatement prepareBatchedStatement(String sql) throws SQLException
+        {
+            PreparedStatement statement = statements.get(sql);
+            if (statement == null) {
+                statement = connection.prepareStatement(sql);
+                statements.put(sql, statement);
+            }
+            return (PreparedStatement) Proxy.newProxyInstance(PreparedStatement.class.getClassLoader(), new Class<?>[] { PreparedStatement.class }, new StatementHandler(sql, statement));
+        }
+    }
+
+    /**
+     * Statement given to the commands for INSERT and UPDATE. Its executions are added to the pending batch, the batch of another SQL being sent
+     * first so the writes keep their order.
+     */
+    private class StatementHandler implements InvocationHandler
+    {
+        private final String sql;
+        private final PreparedStatement statement;
+
+        StatementHandler(String sql, PreparedStatement statement) {
+            this.sql = sql;
+            this.statement = statement;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable
+        {
+            switch (method.getName()) {
+                case "execute":
+                case "executeUpdate":
+                    if (args == null) {
+                        if (!sql.equals(pendingSql)) {
+                            flush();
+                        }
+                        statement.addBatch();
+                        pendingSql = sql;
+                        return method.getReturnType() == boolean.class ? (Object) false : (Object) Statement.SUCCESS_NO_INFO;
+                    }
+                    flush();
+                    break;
+                case "executeBatch":
+                    // Sent at once with the executions deferred on the same statement, after the writes submitted before.
+                    if (sql.equals(pendingSql)) {
+                        pendingSql = null;
+                    } else {
+                        flush();
+                    }
+                    break;
+                case "executeQuery":
+                    flush();
+                    break;
+                case "close":
+                    // Kept open for the next executions of the same SQL.
+                    return null;
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                default:
+                    break;
+            }
+            return BatchConnection.invoke(statement, method, args);
+        }
+    }
+}
@@ -0,0 +1,452 @@
+package ligueBaseball.database;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Collections;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import ligueBaseball.Logger;
+import ligueBaseball.Logger.LOG_TYPE;
+import ligueBaseball.exceptions.FailedToConnectToDatabaseException;
+import ligueBaseball.exceptions.NoConnectionAvailableException;
+
+/**
+ * Bounded pool of connections with the database. A connection is borrowed for the duration of a command and given back by closing it.
+ */
+public class ConnectionPool
+{
+    /**
+     * Number of prepared statements kept open per connection when none is given.
+     */
+    public static final int DEFAULT_STATEMENT_CACHE_SIZE = 64;
+
+    private static final int VALIDATION_TIMEOUT_SECONDS = 2;
+    private static final long HOUSEKEEPING_PERIOD_MILLIS = 5000;
+
+    private final String databaseName;
+    private final String connectionString;
+    private final Properties connectionParameters;
+    private final int maximumSize;
+    private final long maximumWaitMillis;
+    private final long idleTimeoutMillis;
+    private final long leakThresholdMillis;
+
+    private final Semaphore permits;
+    private final LinkedBlockingDeque<PooledConnection> idleConnections = new LinkedBlockingDeque<>();
+    private final Set<PooledConnection> borrowedConnections = Collections.newSetFromMap(new ConcurrentHashMap<PooledConnection, Boolean>());
+    private final ScheduledExecutorService housekeeper;
+    private volatile boolean closed = false;
+    private volatile int statementCacheSize = DEFAULT_STATEMENT_CACHE_SIZE;
+    private final StatementCacheStatistics statementCacheStatistics = new StatementCacheStatistics();
+    private volatile QueryStatistics queryStatistics;
+
+    private final AtomicLong borrowCount = new AtomicLong();
+    private final AtomicLong totalWaitNanos = new AtomicLong();
+    private final AtomicLong maximumWaitNanos = new AtomicLong();
+    private final AtomicLong timeoutCount = new AtomicLong();
+    private final AtomicLong createdCount = new AtomicLong();
+    private final AtomicLong destroyedCount = new AtomicLong();
+    private final AtomicLong leakCount = new AtomicLong();
+
+    /**
+     * Constructor
+     *
+     * @param databaseName - Name of the PostgreSQL database.
+     * @param connectionParameters - Parameters of the connection (user, password, ...).
+     * @param maximumSize - Maximum number of connections opened at the same time.
+     * @param maximumWaitMillis - Maximum time to wait for a connection before giving up.
+     * @param idleTimeoutMillis - Idle connections are closed after this delay. 0 to keep them forever.
+     * @param leakThresholdMillis - Connections borrowed for longer than this delay are reported. 0 to disable.
+     */
+    public ConnectionPool(String databaseName, Properties connectionParameters, int maximumSize, long maximumWaitMillis, long idleTimeoutMillis, long leakThresholdMillis) {
+        if (maximumSize < 1) {
+            throw new IllegalArgumentException("Le pool doit contenir au moins une connexion.");
+        }
+        this.databaseName = databaseName;
+        this.connectionString = "jdbc:postgresql:" + databaseName;
+        this.connectionParameters = connectionParameters;
+        this.maximumSize = maximumSize;
+        this.maximumWaitMillis = maximumWaitMillis;
+        this.idleTimeoutMillis = idleTimeoutMillis;
+        this.leakThresholdMillis = leakThresholdMillis;
+        this.permits = new Semaphore(maximumSize, true);
+
+        housekeeper = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable runnable)
+            {
+                Thread thread = new Thread(runnable, "ConnectionPool-housekeeper");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        housekeeper.scheduleWithFixedDelay(new Runnable() {
+            @Override
+            public void run()
+            {
+                evictIdleConnections();
+                detectLeaks();
+            }
+        }, HOUSEKEEPING_PERIOD_MILLIS, HOUSEKEEPING_PERIOD_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Set the number of prepared statements kept open by each connection. Only the connections opened afterward are affected.
+     *
+     * @param statementCacheSize - Maximum number of statements per connection, 0 to disable the cache.
+     */
+    public void setStatementCacheSize(int statementCacheSize)
+    {
+        this.statementCacheSize = Math.max(statementCacheSize, 0);
+    }
+
+    /**
+     * Set where the executions of the statements are recorded.
+     *
+     * @param queryStatistics - Statistics of the statements, null to stop measuring them.
+     */
+    public void setQueryStatistics(QueryStatistics queryStatistics)
+    {
+        this.queryStatistics = queryStatistics;
+    }
+
+    public QueryStatistics getQueryStatistics()
+    {
+        return queryStatistics;
+    }
+
+    /**
+     * Borrow a connection from the pool. The connection is given back to the pool when it is closed.
+     *
+     * @return Connection - Valid connection with the database, auto-commit disabled.
+     * @throws FailedToConnectToDatabaseException Failed to open a new connection with the database.
+     * @throws NoConnectionAvailableException No connection was given back to the pool in time.
+     */
+    public Connection getConnection() throws FailedToConnectToDatabaseException, NoConnectionAvailableException
+    {
+        if (closed) {
+            throw new IllegalStateException("Le pool de connexions est fermé.");
+        }
+
+        long start = System.nanoTime();
+        try {
+            if (!permits.tryAcquire(maximumWaitMillis, TimeUnit.MILLISECONDS)) {
+                timeoutCount.incrementAndGet();
+                throw new NoConnectionAvailableException(maximumSize, maximumWaitMillis);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new NoConnectionAvailableException(maximumSize, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        }
+
+        try {
+            // Most recently used first, the others will eventually be evicted.
+            PooledConnection pooledConnection;
+            while ((pooledConnection = idleConnections.pollFirst()) != null) {
+                if (pooledConnection.isValid(VALIDATION_TIMEOUT_SECONDS)) {
+                    break;
+                }
+                Logger.warning(LOG_TYPE.SYSTEM, "Connexion invalide retirée du pool.");
+                destroy(pooledConnection);
+            }
+            if (pooledConnection == null) {
+                pooledConnection = createConnection();
+            }
+
+            recordWait(System.nanoTime() - start);
+            borrowedConnections.add(pooledConnection);
+            return pooledConnection.borrow(leakThresholdMillis > 0);
+
+        } catch (SQLException e) {
+            permits.release();
+            throw new FailedToConnectToDatabaseException(databaseName, e);
+        }
+    }
+
+    /**
+     * Open a connection of its own, outside of the pool. It never takes the place of a pooled connection, and is closed by the caller. Its
+     * statements are measured like those of the pooled connections while the pool keeps statistics.
+     *
+     * @return Connection - New connection with the database, auto-commit disabled.
+     * @throws FailedToConnectToDatabaseException Failed to open the connection.
+     */
+    public Connection openDedicatedConnection() throws FailedToConnectToDatabaseException
+    {
+        if (closed) {
+            throw new IllegalStateException("Le pool de connexions est fermé.");
+        }
+
+        try {
+            Connection connection = DriverManager.getConnection(connectionString, connectionParameters);
+            connection.setAutoCommit(false);
+            return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[] { Connection.class }, new DedicatedConnection(connection));
+        } catch (SQLException e) {
+            throw new FailedToConnectToDatabaseException(databaseName, e);
+        }
+    }
+
+    /**
+     * Give a connection back to the pool. Pending work is rolled back.
+     *
+     * @param pooledConnection - Connection to give back.
+     */
+    void release(PooledConnection pooledConnection)
+    {
+        if (!borrowedConnections.remove(pooledConnection)) {
+            return; // Already given back.
+        }
+
+        try {
+            Connection connection = pooledConnection.getPhysicalConnection();
+            if (closed || connection.isClosed()) {
+                destroy(pooledConnection);
+            } else {
+                connection.rollback();
+                pooledConnection.markIdle();
+                idleConnections.offerFirst(pooledConnection);
+            }
+        } catch (SQLException e) {
+            destroy(pooledConnection);
+        } finally {
+            permits.release();
+        }
+    }
+
+    /**
+     * Close all the connections of the pool. Borrowed connections are closed too.
+     */
+    public void close()
+    {
+        closed = true;
+        housekeeper.shutdownNow();
+
+        PooledConnection pooledConnection;
+        while ((pooledConnection = idleConnections.pollFirst()) != null) {
+            destroy(pooledConnection);
+        }
+        for (PooledConnection borrowedConnection : borrowedConnections) {
+            destroy(borrowedConnection);
+        }
+        borrowedConnections.clear();
+    }
+
+    /**
+     * Open a new physical connection with the database.
+     *
+     * @return PooledConnection - New connection.
+     * @throws SQLException Failed to open the connection.
+     */
+    private PooledConnection createConnection() throws SQLException
+    {
+        int cacheSize = statementCacheSize;
+        Properties parameters = connectionParameters;
+        if (cacheSize > 0 && !parameters.containsKey("prepareThreshold")) {
+            // The cached statements are reused, have the server prepare them from the first execution.
+            parameters = new Properties();
+            parameters.putAll(connectionParameters);
+            parameters.setProperty("prepareThreshold", "1");
+        }
+
+        Connection connection = DriverManager.getConnection(connectionString, parameters);
+        connection.setAutoCommit(false);
+        createdCount.incrementAndGet();
+        return new PooledConnection(this, connection, cacheSize > 0 ? new StatementCache(connection, cacheSize, statementCacheStatistics) : null);
+    }
+
+    /**
+     * Close the physical connection.
+     *
+     * @param pooledConnection - Connection to throw away.
+     */
+    private void destroy(PooledConnection pooledConnection)
+    {
+        pooledConnection.destroy();
+        destroyedCount.incrementAndGet();
+    }
+
+    /**
+     * Close the connections that have been idle for too long.
+     */
+    private void evictIdleConnections()
+    {
+        if (idleTimeoutMillis <= 0) {
+            return;
+        }
+
+        long now = System.currentTimeMillis();
+        for (PooledConnection pooledConnection : idleConnections) {
+            if (now - pooledConnection.getLastReleaseTime() > idleTimeoutMillis && idleConnections.remove(pooledConnection)) {
+                destroy(pooledConnection);
+            }
+        }
+    }
+
+    /**
+     * Report the connections that have been borrowed for too long.
+     */
+    private void detectLeaks()
+    {
+        if (leakThresholdMillis <= 0) {
+            return;
+        }
+
+        long now = System.currentTimeMillis();
+        for (PooledConnection pooledConnection : borrowedConnections) {
+            long borrowedFor = now - pooledConnection.getBorrowTime();
+            if (borrowedFor > leakThresholdMillis && !pooledConnection.isLeakReported()) {
+                pooledConnection.setLeakReported(true);
+                leakCount.incrementAndGet();
+
+                StringBuilder stackTrace = new StringBuilder();
+                Throwable borrower = pooledConnection.getBorrower();
+                if (borrower != null) {
+                    for (StackTraceElement element : borrower.getStackTrace()) {
+                        stackTrace.append("\n    at ").append(element);
+                    }
+                }
+                Logger.warning(LOG_TYPE.SYSTEM, "Connexion empruntée depuis %s ms sans avoir été rendue.%s", borrowedFor, stackTrace);
+            }
+        }
+    }
+
+    /**
+     * Keep track of the time spent waiting for a connection.
+     *
+     * @param waitNanos - Time waited.
+     */
+    private void recordWait(long waitNanos)
+    {
+        borrowCount.incrementAndGet();
+        totalWaitNanos.addAndGet(waitNanos);
+
+        long maximum = maximumWaitNanos.get();
+        while (waitNanos > maximum && !maximumWaitNanos.compareAndSet(maximum, waitNanos)) {
+            maximum = maximumWaitNanos.get();
+        }
+    }
+
+    public StatementCacheStatistics getStatementCacheStatistics()
+    {
+        return statementCacheStatistics;
+    }
+
+    public int getMaximumSize()
+    {
+        return maximumSize;
+    }
+
+    public int getIdleCount()
+    {
+        return idleConnections.size();
+    }
+
+    public int getBorrowedCount()
+    {
+        return borrowedConnections.size();
+    }
+
+    public long getBorrowCount()
+    {
+        return borrowCount.get();
+    }
+
+    public long getTimeoutCount()
+    {
+        return timeoutCount.get();
+    }
+
+    public long getCreatedCount()
+    {
+        return createdCount.get();
+    }
+
+    public long getDestroyedCount()
+    {
+        return destroyedCount.get();
+    }
+
+    public long getLeakCount()
+    {
+        return leakCount.get();
+    }
+
+    /**
+     * Get the average time spent waiting for a connection.
+     *
+     * @return double - Average wait in milliseconds.
+     */
+    public double getAverageWaitMillis()
+    {
+        long count = borrowCount.get();
+        return count == 0 ? 0 : totalWaitNanos.get() / (count * 1000000.0);
+    }
+
+    /**
+     * Get the longest time spent waiting for a connection.
+     *
+     * @return double - Maximum wait in milliseconds.
+     */
+    public double getMaximumWaitMillis()
+    {
+        return maximumWaitNanos.get() / 1000000.0;
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format("Pool: %s/%s empruntées, %s inactives, %s emprunts (attente moy. %.3f ms, max %.3f ms), %s délais dépassés, %s créées, %s fermées, %s fuites", getBorrowedCount(), maximumSize, getIdleCount(), getBorrowCount(), getAverageWaitMillis(), getMaximumWaitMillis(), getTimeoutCount(), getCreatedCount(), getDestroyedCount(), getLeakCount());
+    }
+
+    /**
+     * Connection opened outside of the pool, measuring its statements when the pool keeps statistics.
+     */
+    private class DedicatedConnection implements InvocationHandler
+    {
+        private final Connection connection;
+
+        DedicatedConnection(Connection connection) {
+            this.connection = connection;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable
+        {
+            switch (method.getName()) {
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                default:
+                    break;
+            }
+
+            Object result;
+            try {
+                result = method.invoke(connection, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+
+            QueryStatistics statistics = queryStatistics;
+            if (statistics != null && method.getName().equals("prepareStatement")) {
+                return InstrumentedStatement.wrap((PreparedStatement) result, (String) args[0], (Connection) proxy, statistics);
+            }
+            return result;
+        }
+    }
+}
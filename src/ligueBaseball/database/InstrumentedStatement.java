@@ -0,0 +1,196 @@
+package ligueBaseball.database;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.Arrays;
+
+import ligueBaseball.database.QueryStatistics.Measure;
+import ligueBaseball.database.QueryStatistics.ParameterDescription;
+
+/**
+ * Prepared statement measuring its executions. The parameters are kept so a slow execution can be logged with them, and the rows read through
+ * the result sets are counted.
+ */
+class InstrumentedStatement implements InvocationHandler, ParameterDescription
+{
+    private final PreparedStatement statement;
+    private final Connection owner;
+    private final QueryStatistics statistics;
+    private final Measure measure;
+    private Object[] parameters = new Object[8];
+    private int parameterCount = 0;
+    private int batchCount = 0;
+
+    private InstrumentedStatement(PreparedStatement statement, String sql, Connection owner, QueryStatistics statistics) {
+        this.statement = statement;
+        this.owner = owner;
+        this.statistics = statistics;
+        this.measure = statistics.getStatementMeasure(sql);
+    }
+
+    /**
+     * Wrap a statement to measure its executions.
+     *
+     * @param statement - Statement to measure.
+     * @param sql - SQL of the statement.
+     * @param owner - Connection given to the caller, returned by getConnection() of the statement.
+     * @param statistics - Where the executions are recorded.
+     * @return PreparedStatement - Measured statement.
+     */
+    static PreparedStatement wrap(PreparedStatement statement, String sql, Connection owner, QueryStatistics statistics)
+    {
+        return (PreparedStatement) Proxy.newProxyInstance(PreparedStatement.class.getClassLoader(), new Class<?>[] { PreparedStatement.class }, new InstrumentedStatement(statement, sql, owner, statistics));
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable
+    {
+        String name = method.getName();
+        if (args == null) {
+            switch (name) {
+                case "executeQuery":
+                case "execute":
+                case "executeUpdate":
+                case "executeLargeUpdate":
+                case "executeBatch":
+                case "executeLargeBatch":
+                    return execute(proxy, method);
+                case "addBatch":
+                    ++batchCount;
+                    break;
+                case "clearBatch":
+                    batchCount = 0;
+                    break;
+                case "clearParameters":
+                    Arrays.fill(parameters, 0, parameterCount, null);
+                    parameterCount = 0;
+                    break;
+                case "getResultSet":
+                    return wrapResultSet(proxy, (ResultSet) invokeOn(statement, method, args));
+                case "getConnection":
+                    return owner;
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                default:
+                    break;
+            }
+        } else if (name.equals("equals")) {
+            return proxy == args[0];
+        } else if (args.length >= 2 && name.startsWith("set") && args[0] instanceof Integer) {
+            keepParameter((Integer) args[0], name.equals("setNull") ? null : args[1]);
+        }
+
+        return invokeOn(statement, method, args);
+    }
+
+    @Override
+    public String describe()
+    {
+        if (batchCount > 0) {
+            return String.format("(lot de %s)", batchCount);
+        }
+        return Arrays.toString(Arrays.copyOf(parameters, parameterCount));
+    }
+
+    /**
+     * Execute the statement and record how long it took.
+     */
+    private Object execute(Object proxy, Method method) throws Throwable
+    {
+        boolean failed = true;
+        long start = System.nanoTime();
+        try {
+            Object result = invokeOn(statement, method, null);
+            failed = false;
+            countRows(result);
+            if (result instanceof ResultSet) {
+                return wrapResultSet(proxy, (ResultSet) result);
+            }
+            return result;
+        } finally {
+            statistics.recordStatement(measure, System.nanoTime() - start, failed, this);
+            batchCount = 0;
+        }
+    }
+
+    /**
+     * Count the rows written by an execution. The rows read are counted by the result set.
+     */
+    private void countRows(Object result)
+    {
+        if (result instanceof Integer) {
+            measure.addRows(Math.max((Integer) result, 0));
+        } else if (result instanceof Long) {
+            measure.addRows(Math.max((Long) result, 0));
+        } else if (result instanceof int[]) {
+            for (int rows : (int[]) result) {
+                measure.addRows(Math.max(rows, 0));
+            }
+        } else if (result instanceof long[]) {
+            for (long rows : (long[]) result) {
+                measure.addRows(Math.max(rows, 0));
+            }
+        }
+    }
+
+    private void keepParameter(int index, Object value)
+    {
+        if (index < 1) {
+            return;
+        }
+        if (index > parameters.length) {
+            parameters = Arrays.copyOf(parameters, Math.max(index, parameters.length * 2));
+        }
+        parameters[index - 1] = value;
+        parameterCount = Math.max(parameterCount, index);
+    }
+
+    /**
+     * Wrap a result set to count the rows read.
+     */
+    private ResultSet wrapResultSet(final Object statementProxy, final ResultSet resultSet)
+    {
+        if (resultSet == null) {
+            return null;
+        }
+        return (ResultSet) Proxy.newProxyInstance(ResultSet.class.getClassLoader(), new Class<?>[] { ResultSet.class }, new InvocationHandler() {
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args) throws Throwable
+            {
+                switch (method.getName()) {
+                    case "next":
+                        boolean hasRow = resultSet.next();
+                        if (hasRow) {
+                            measure.addRows(1);
+                        }
+                        return hasRow;
+                    case "getStatement":
+                        return statementProxy;
+                    case "equals":
+                        return proxy == args[0];
+                    case "hashCode":
+                        return System.identityHashCode(proxy);
+                    default:
+                        return invokeOn(resultSet, method, args);
+                }
+            }
+        });
+    }
+
+    /**
+     * Invoke the method on the target, hiding the reflection exception.
+     */
+    private static Object invokeOn(Object target, Method method, Object[] args) throws Throwable
+    {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package ligueBaseball.database;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Distribution of latencies, recorded without lock. Each power of two is split in 8 buckets, so the percentiles are known within 12.5 %.
+ */
+public class LatencyHistogram
+{
+    private static final int SUB_BUCKET_BITS = 3;
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+    private static final double NANOS_PER_MILLI = 1000000.0;
+
+    private final AtomicLongArray counts = new AtomicLongArray(64 * SUB_BUCKET_COUNT);
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong totalNanos = new AtomicLong();
+    private final AtomicLong maximumNanos = new AtomicLong();
+
+    /**
+     * Record a latency.
+     *
+     * @param nanos - Latency in nanoseconds.
+     */
+    public void record(long nanos)
+    {
+        if (nanos < 0) {
+            nanos = 0;
+        }
+        counts.incrementAndGet(indexOf(nanos));
+        count.incrementAndGet();
+        totalNanos.addAndGet(nanos);
+
+        long maximum = maximumNanos.get();
+        while (nanos > maximum && !maximumNanos.compareAndSet(maximum, nanos)) {
+            maximum = maximumNanos.get();
+        }
+    }
+
+    /**
+     * Forget all the recorded latencies.
+     */
+    public void reset()
+    {
+        for (int i = 0; i < counts.length(); ++i) {
+            counts.set(i, 0);
+        }
+        count.set(0);
+        totalNanos.set(0);
+        maximumNanos.set(0);
+    }
+
+    public long getCount()
+    {
+        return count.get();
+    }
+
+    public double getTotalMillis()
+    {
+        return totalNanos.get() / NANOS_PER_MILLI;
+    }
+
+    public double getMeanMillis()
+    {
+        long recorded = count.get();
+        return recorded == 0 ? 0 : totalNanos.get() / (recorded * NANOS_PER_MILLI);
+    }
+
+    public double getMaximumMillis()
+    {
+        return maximumNanos.get() / NANOS_PER_MILLI;
+    }
+
+    /**
+     * Get the latency under which the given part of the recorded latencies are.
+     *
+     * @param percentile - Part of the latencies, between 0 and 100 (ex: 99).
+     * @return double - Latency in milliseconds, 0 if nothing was recorded.
+     */
+    public double getPercentileMillis(double percentile)
+    {
+        long recorded = count.get();
+        if (recorded == 0) {
+            return 0;
+        }
+
+        long target = Math.max(1, (long) Math.ceil(recorded * percentile / 100));
+        long cumulated = 0;
+        for (int i = 0; i < counts.length(); ++i) {
+            cumulated += counts.get(i);
+            if (cumulated >= target) {
+                return Math.min(upperBoundOf(i), maximumNanos.get()) / NANOS_PER_MILLI;
+            }
+        }
+        return getMaximumMillis();
+    }
+
+    /**
+     * Get the bucket of a latency. The latencies under 8 ns have their own bucket, the others share a bucket with the latencies having the same
+     * power of two and the same 3 following bits.
+     *
+     * @param nanos - Latency in nanoseconds.
+     * @return int - Index of the bucket.
+     */
+    private static int indexOf(long nanos)
+    {
+        if (nanos < SUB_BUCKET_COUNT) {
+            return (int) nanos;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(nanos);
+        int subBucket = (int) (nanos >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKET_COUNT - 1);
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKET_COUNT + subBucket;
+    }
+
+    /**
+     * Get the biggest latency of a bucket.
+     *
+     * @param index - Index of the bucket.
+     * @return long - Latency in nanoseconds.
+     */
+    private static long upperBoundOf(int index)
+    {
+        if (index < SUB_BUCKET_COUNT) {
+            return index;
+        }
+        int shift = index / SUB_BUCKET_COUNT - 1;
+        long lowerBound = (long) (SUB_BUCKET_COUNT + index % SUB_BUCKET_COUNT) << shift;
+        return lowerBound + (1L << shift) - 1;
+    }
+}
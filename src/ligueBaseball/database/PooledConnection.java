@@ -0,0 +1,199 @@
+package ligueBaseball.database;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+/**
+ * Physical connection owned by a ConnectionPool. Every time it is borrowed, a new handle is given to the caller. Closing this handle gives the
+ * connection back to the pool instead of closing the physical connection.
+ */
+class PooledConnection
+{
+    private final ConnectionPool pool;
+    private final Connection connection;
+    private final StatementCache statementCache;
+
+    private volatile long lastReleaseTime = System.currentTimeMillis();
+    private volatile long borrowTime;
+    private volatile Throwable borrower;
+    private volatile boolean leakReported;
+    private Handle handle;
+
+    /**
+     * Constructor
+     *
+     * @param pool - Pool owning this connection.
+     * @param connection - Physical connection with the database.
+     * @param statementCache - Prepared statements kept open for this connection, null to disable.
+     */
+    PooledConnection(ConnectionPool pool, Connection connection, StatementCache statementCache) {
+        this.pool = pool;
+        this.connection = connection;
+        this.statementCache = statementCache;
+    }
+
+    /**
+     * Get the physical connection with the database.
+     *
+     * @return Connection - Physical connection.
+     */
+    Connection getPhysicalConnection()
+    {
+        return connection;
+    }
+
+    /**
+     * Make sure the physical connection is still usable.
+     *
+     * @param timeoutSeconds - Maximum time to wait for the database to answer.
+     * @return boolean - True if the connection can be used.
+     */
+    boolean isValid(int timeoutSeconds)
+    {
+        try {
+            return !connection.isClosed() && connection.isValid(timeoutSeconds);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Mark the connection as borrowed and create a new handle for the borrower.
+     *
+     * @param trackBorrower - Keep the stack trace of the borrower for the leak detection.
+     * @return Connection - Handle to give to the borrower.
+     */
+    Connection borrow(boolean trackBorrower)
+    {
+        borrowTime = System.currentTimeMillis();
+        borrower = trackBorrower ? new Throwable("Emprunteur de la connexion") : null;
+        leakReported = false;
+        handle = new Handle();
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[] { Connection.class }, handle);
+    }
+
+    /**
+     * Mark the connection as idle. The handle given to the last borrower can't be used anymore, nor the statements it didn't close.
+     */
+    void markIdle()
+    {
+        if (handle != null) {
+            handle.released = true;
+            handle = null;
+        }
+        if (statementCache != null) {
+            statementCache.releaseAll();
+        }
+        borrower = null;
+        lastReleaseTime = System.currentTimeMillis();
+    }
+
+    /**
+     * Close the physical connection.
+     */
+    void destroy()
+    {
+        markIdle();
+        if (statementCache != null) {
+            statementCache.close();
+        }
+        try {
+            connection.close();
+        } catch (SQLException e) {
+            // Nothing, the connection is being thrown away anyway.
+        }
+    }
+
+    long getLastReleaseTime()
+    {
+        return lastReleaseTime;
+    }
+
+    long getBorrowTime()
+    {
+        return borrowTime;
+    }
+
+    Throwable getBorrower()
+    {
+        return borrower;
+    }
+
+    boolean isLeakReported()
+    {
+        return leakReported;
+    }
+
+    void setLeakReported(boolean leakReported)
+    {
+        this.leakReported = leakReported;
+    }
+
+    /**
+     * Handle given to the borrower of the connection.
+     */
+    private class Handle implements InvocationHandler
+    {
+        private volatile boolean released = false;
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable
+        {
+            switch (method.getName()) {
+                case "close":
+                    if (!released) {
+                        pool.release(PooledConnection.this);
+                    }
+                    return null;
+                case "isClosed":
+                    return released || connection.isClosed();
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "PooledConnection(" + connection + ")";
+                default:
+                    if (released) {
+                        throw new SQLException("La connexion a déjà été rendue au pool.");
+                    }
+                    if (method.getName().equals("prepareStatement")) {
+                        return prepareStatement((Connection) proxy, method, args);
+                    }
+            }
+
+            return invoke(method, args);
+        }
+
+        /**
+         * Prepare a statement, taken from the cache if possible and measured if the pool keeps statistics.
+         */
+        private PreparedStatement prepareStatement(Connection proxy, Method method, Object[] args) throws Throwable
+        {
+            String sql = (String) args[0];
+            PreparedStatement statement;
+            if (statementCache != null && args.length == 1) {
+                statement = statementCache.prepare(sql, proxy);
+            } else {
+                statement = (PreparedStatement) invoke(method, args);
+            }
+
+            QueryStatistics statistics = pool.getQueryStatistics();
+            return statistics == null ? statement : InstrumentedStatement.wrap(statement, sql, proxy, statistics);
+        }
+
+        private Object invoke(Method method, Object[] args) throws Throwable
+        {
+            try {
+                return method.invoke(connection, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+}
@@ -0,0 +1,201 @@
+package ligueBaseball.database;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import ligueBaseball.Logger;
+import ligueBaseball.Logger.LOG_TYPE;
+
+/**
+ * Count, rows and latencies of the SQL statements executed through the connections of a pool. The statements slower than a threshold are logged
+ * with their parameters.
+ */
+public class QueryStatistics
+{
+    private final ConcurrentHashMap<String, Measure> statements = new ConcurrentHashMap<>();
+    private volatile long slowThresholdNanos;
+
+    /**
+     * Constructor
+     *
+     * @param slowThresholdMillis - Statements slower than this delay are logged. 0 to disable.
+     */
+    public QueryStatistics(long slowThresholdMillis) {
+        setSlowThresholdMillis(slowThresholdMillis);
+    }
+
+    /**
+     * Set the delay over which a statement is logged.
+     *
+     * @param slowThresholdMillis - Delay in milliseconds, 0 to disable.
+     */
+    public void setSlowThresholdMillis(long slowThresholdMillis)
+    {
+        this.slowThresholdNanos = slowThresholdMillis <= 0 ? Long.MAX_VALUE : slowThresholdMillis * 1000000;
+    }
+
+    /**
+     * Get the measure of a statement, created on first use.
+     *
+     * @param sql - SQL of the statement.
+     * @return Measure - Measure of the statement.
+     */
+    Measure getStatementMeasure(String sql)
+    {
+        return getMeasure(statements, sql);
+    }
+
+    /**
+     * Record the execution of a statement, and log it if it was slow.
+     *
+     * @param measure - Measure of the statement.
+     * @param nanos - Time spent executing the statement.
+     * @param failed - True if the statement threw an exception.
+     * @param parameters - Description of the parameters of the statement, only used if it was slow.
+     */
+    void recordStatement(Measure measure, long nanos, boolean failed, ParameterDescription parameters)
+    {
+        measure.record(nanos, failed);
+        if (nanos >= slowThresholdNanos) {
+            Logger.warning(LOG_TYPE.SYSTEM, "Requête lente (%.3f ms) : %s %s", nanos / 1000000.0, measure.name, parameters.describe());
+        }
+    }
+
+    /**
+     * Get the measures of the statements that were executed, the most time consuming first.
+     *
+     * @return List - Measures of the statements.
+     */
+    public List<Measure> getStatementMeasures()
+    {
+        return sortByTotalTime(statements);
+    }
+
+    /**
+     * Forget everything that was measured. The measures are reset in place, the prepared statements already holding one keep recording into it.
+     */
+    public void reset()
+    {
+        for (Measure measure : statements.values()) {
+            measure.reset();
+        }
+    }
+
+    private static Measure getMeasure(ConcurrentHashMap<String, Measure> measures, String name)
+    {
+        Measure measure = measures.get(name);
+        if (measure == null) {
+            Measure newMeasure = new Measure(name);
+            measure = measures.putIfAbsent(name, newMeasure);
+            if (measure == null) {
+                measure = newMeasure;
+            }
+        }
+        return measure;
+    }
+
+    private static List<Measure> sortByTotalTime(ConcurrentHashMap<String, Measure> measures)
+    {
+        List<Measure> sorted = new ArrayList<>();
+        for (Measure measure : measures.values()) {
+            if (measure.histogram.getCount() > 0) {
+                sorted.add(measure);
+            }
+        }
+        Collections.sort(sorted, new Comparator<Measure>() {
+            @Override
+            public int compare(Measure first, Measure second)
+            {
+                return Double.compare(second.histogram.getTotalMillis(), first.histogram.getTotalMillis());
+            }
+        });
+        return sorted;
+    }
+
+    /**
+     * Parameters of a statement, described only when the statement is logged.
+     */
+    interface ParameterDescription
+    {
+        String describe();
+    }
+
+    /**
+     * What was measured for a statement or a command.
+     */
+    public static class Measure
+    {
+        private final String name;
+        private final LatencyHistogram histogram = new LatencyHistogram();
+        private final AtomicLong rowCount = new AtomicLong();
+        private final AtomicLong errorCount = new AtomicLong();
+
+        /**
+         * Constructor
+         *
+         * @param name - SQL of the statement or name of the command.
+         */
+        public Measure(String name) {
+            this.name = name;
+        }
+
+        /**
+         * Record an execution.
+         *
+         * @param nanos - Time spent executing.
+         * @param failed - True if the execution threw an exception.
+         */
+        public void record(long nanos, boolean failed)
+        {
+            histogram.record(nanos);
+            if (failed) {
+                errorCount.incrementAndGet();
+            }
+        }
+
+        /**
+         * Forget every execution.
+         */
+        public void reset()
+        {
+            histogram.reset();
+            rowCount.set(0);
+            errorCount.set(0);
+        }
+
+        void addRows(long rows)
+        {
+            rowCount.addAndGet(rows);
+        }
+
+        /**
+         * SQL of the statement or name of the command.
+         */
+        public String getName()
+        {
+            return name;
+        }
+
+        public LatencyHistogram getHistogram()
+        {
+            return histogram;
+        }
+
+        /**
+         * Number of rows read or written by the statement. Always 0 for a command.
+         */
+        public long getRowCount()
+        {
+            return rowCount.get();
+        }
+
+        public long getErrorCount()
+        {
+            return errorCount.get();
+        }
+    }
+}
@@ -0,0 +1,315 @@
+package ligueBaseball.database;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import ligueBaseball.Logger;
+import ligueBaseball.Logger.LOG_TYPE;
+
+/**
+ * Make sure the database has the indexes the queries of the entities rely on. The indexes of each table are read from the catalog, and the
+ * missing ones are reported, and created if asked. The indexes are built concurrently, so the tables stay usable while they are built. An
+ * invalid index, left by a concurrent build that failed, isn't used by the queries and doesn't count.
+ *
+ * The plan of each query of the entities is then checked: a query still reading a whole table, even with sequential scans discouraged, has no
+ * index to use and is reported. The check doesn't depend on the size of the tables, a small table being read as a whole anyway.
+ */
+public class SchemaVerifier
+{
+    /**
+     * Indexes the queries of the entities need, as columns they must start with, and the unique constraints refusing a team or an official
+     * created twice at the same time.
+     */
+    private static final RequiredIndex[] REQUIRED_INDEXES = {
+        new RequiredIndex("equipe_equipenom_key", "equipe", true, "equipenom"),
+        new RequiredIndex("joueur_nom_prenom_idx", "joueur", false, "joueurnom", "joueurprenom"),
+        new RequiredIndex("faitpartie_equipeid_datefin_idx", "faitpartie", false, "equipeid", "datefin"),
+        new RequiredIndex("faitpartie_joueurid_idx", "faitpartie", false, "joueurid"),
+        new RequiredIndex("match_equipes_date_heure_idx", "match", false, "equipelocal", "equipevisiteur", "matchdate", "matchheure"),
+        new RequiredIndex("match_matchdate_idx", "match", false, "matchdate"),
+        new RequiredIndex("arbitrer_matchid_idx", "arbitrer", false, "matchid"),
+        new RequiredIndex("arbitre_prenom_nom_key", "arbitre", true, "arbitreprenom", "arbitrenom"),
+        new RequiredIndex("terrain_terrainnom_idx", "terrain", false, "terrainnom")
+    };
+
+    /**
+     * Queries of the entities whose plan is checked, with the same predicates and values of the right types.
+     */
+    private static final String[][] CHECKED_QUERIES = {
+        { "Équipe par nom", "SELECT * FROM equipe WHERE equipenom = 'a';" },
+        { "Joueur par nom", "SELECT * FROM joueur WHERE joueurnom = 'a' AND joueurprenom = 'b';" },
+        { "Joueurs d'une équipe", "SELECT * FROM faitpartie WHERE equipeid = 1 AND datefin IS NULL;" },
+        { "Équipes d'un joueur", "SELECT * FROM faitpartie WHERE joueurid = 1;" },
+        { "Match par équipes et date", "SELECT * FROM match WHERE equipelocal = 1 AND equipevisiteur = 2 AND matchdate = DATE '2014-01-01' AND matchheure = TIME '19:00';" },
+        { "Matchs depuis une date", "SELECT * FROM match WHERE matchdate >= DATE '2014-01-01';" },
+        { "Arbitres d'un match", "SELECT * FROM arbitrer WHERE matchid = 1;" },
+        { "Arbitre par nom", "SELECT * FROM arbitre WHERE arbitreprenom = 'a' AND arbitrenom = 'b';" },
+        { "Terrain par nom", "SELECT * FROM terrain WHERE terrainnom = 'a';" }
+    };
+
+    // Validity of the indexes having a name, among the relations the queries can see.
+    private static final String VALIDITY_SQL = "SELECT c.relname, i.indisvalid FROM pg_index i INNER JOIN pg_class c ON c.oid = i.indexrelid "
+            + "INNER JOIN pg_class t ON t.oid = i.indrelid WHERE pg_table_is_visible(c.oid) AND (c.relname = ? OR t.relname = ?);";
+
+    private final boolean creatingMissingIndexes;
+    private int warningCount = 0;
+
+    /**
+     * Constructor
+     *
+     * @param creatingMissingIndexes - True to create the missing indexes, false to only report them.
+     */
+    public SchemaVerifier(boolean creatingMissingIndexes) {
+        this.creatingMissingIndexes = creatingMissingIndexes;
+    }
+
+    /**
+     * Check the indexes and the plans of the queries, reporting what is missing.
+     *
+     * @param connection - Connection with database, auto-commit disabled. It is given back in the same state.
+     * @return int - Number of warnings reported.
+     * @throws SQLException Failed to read the catalog.
+     */
+    public int verify(Connection connection) throws SQLException
+    {
+        warningCount = 0;
+        int createdCount = 0;
+
+        Map<String, List<IndexInfo>> indexesByTable = new LinkedHashMap<>();
+        DatabaseMetaData metaData = connection.getMetaData();
+        for (RequiredIndex required : REQUIRED_INDEXES) {
+            if (!indexesByTable.containsKey(required.table)) {
+                indexesByTable.put(required.table, readIndexes(connection, metaData, required.table));
+            }
+            List<IndexInfo> indexes = indexesByTable.get(required.table);
+            if (indexes == null) {
+                warn("La table %s n'existe pas.", required.table);
+                continue;
+            }
+            if (isCovered(required, indexes)) {
+                continue;
+            }
+
+            if (!creatingMissingIndexes) {
+                warn("Index manquant : %s", required.getDefinition());
+            } else if (createIndex(connection, required)) {
+                Logger.info(LOG_TYPE.SYSTEM, "Index créé : %s", required.getDefinition());
+                ++createdCount;
+            }
+        }
+        connection.commit();
+
+        checkPlans(connection);
+        Logger.info(LOG_TYPE.SYSTEM, "Schéma vérifié : %s index créés, %s avertissements.", createdCount, warningCount);
+        return warningCount;
+    }
+
+    /**
+     * Read the valid indexes of a table from the catalog, their columns in order.
+     *
+     * @return List - Indexes of the table, null if the table doesn't exist.
+     */
+    private List<IndexInfo> readIndexes(Connection connection, DatabaseMetaData metaData, String table) throws SQLException
+    {
+        try (ResultSet tables = metaData.getTables(null, null, table, new String[] { "TABLE" })) {
+            if (!tables.next()) {
+                return null;
+            }
+        }
+
+        Set<String> invalidIndexes = new HashSet<>();
+        for (Map.Entry<String, Boolean> index : readValidity(connection, null, table).entrySet()) {
+            if (!index.getValue()) {
+                invalidIndexes.add(index.getKey());
+            }
+        }
+
+        Map<String, IndexInfo> indexes = new LinkedHashMap<>();
+        try (ResultSet resultSet = metaData.getIndexInfo(null, null, table, false, false)) {
+            while (resultSet.next()) {
+                String name = resultSet.getString("INDEX_NAME");
+                if (name == null || resultSet.getShort("TYPE") == DatabaseMetaData.tableIndexStatistic || invalidIndexes.contains(name)) {
+                    continue;
+                }
+                IndexInfo index = indexes.get(name);
+                if (index == null) {
+                    index = new IndexInfo(!resultSet.getBoolean("NON_UNIQUE"), resultSet.getString("FILTER_CONDITION") != null);
+                    indexes.put(name, index);
+                }
+                // An expression has no column, the index can't be used for the columns after it.
+                String column = resultSet.getString("COLUMN_NAME");
+                index.columns.add(column == null ? "" : column.replace("\"", "").toLowerCase());
+            }
+        }
+        return new ArrayList<>(indexes.values());
+    }
+
+    /**
+     * Check if an index can be used in place of the required one. A unique index must have exactly the required columns, any other index
+     * must start with them.
+     */
+    private static boolean isCovered(RequiredIndex required, List<IndexInfo> indexes)
+    {
+        List<String> requiredColumns = Arrays.asList(required.columns);
+        for (IndexInfo index : indexes) {
+            if (index.partial || index.columns.size() < requiredColumns.size()) {
+                continue;
+            }
+            if (required.unique) {
+                if (index.unique && index.columns.equals(requiredColumns)) {
+                    return true;
+                }
+            } else if (index.columns.subList(0, requiredColumns.size()).equals(requiredColumns)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Build the index concurrently. It can't be done in a transaction, so auto-commit is enabled while it is built. A build that failed may
+     * leave an invalid index behind, which is dropped. An index that already had the name is never dropped, whatever its state.
+     *
+     * @return boolean - True if the index was created.
+     */
+    private boolean createIndex(Connection connection, RequiredIndex required) throws SQLException
+    {
+        connection.setAutoCommit(true);
+        try (Statement statement = connection.createStatement()) {
+            boolean existed = readValidity(connection, required.name, null).containsKey(required.name);
+            try {
+                statement.execute(required.getCreateSql());
+                return true;
+            } catch (SQLException e) {
+                warn("Impossible de créer l'index %s : %s", required.getDefinition(), e.getMessage());
+                if (!existed && Boolean.FALSE.equals(readValidity(connection, required.name, null).get(required.name))) {
+                    statement.execute("DROP INDEX CONCURRENTLY IF EXISTS " + required.name + ";");
+                }
+                return false;
+            }
+        } finally {
+            connection.setAutoCommit(false);
+        }
+    }
+
+    /**
+     * Read if indexes are valid, an index being invalid until a concurrent build succeeds.
+     *
+     * @param name - Name of the index, null for any.
+     * @param table - Table of the indexes, null for any.
+     * @return Map - Validity of each index found, by name.
+     */
+    private static Map<String, Boolean> readValidity(Connection connection, String name, String table) throws SQLException
+    {
+        Map<String, Boolean> validity = new LinkedHashMap<>();
+        try (PreparedStatement statement = connection.prepareStatement(VALIDITY_SQL)) {
+            statement.setString(1, name);
+            statement.setString(2, table);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    validity.put(resultSet.getString(1), resultSet.getBoolean(2));
+                }
+            }
+        }
+        return validity;
+    }
+
+    /**
+     * Explain each checked query with sequential scans discouraged, and report those still reading a whole table.
+     */
+    private void checkPlans(Connection connection) throws SQLException
+    {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("SET LOCAL enable_seqscan = off;");
+            for (String[] query : CHECKED_QUERIES) {
+                try (ResultSet plan = statement.executeQuery("EXPLAIN " + query[1])) {
+                    while (plan.next()) {
+                        String line = plan.getString(1);
+                        int scan = line.indexOf("Seq Scan on ");
+                        if (scan >= 0) {
+                            warn("La requête « %s » parcourt toute la table : %s", query[0], line.substring(scan).trim());
+                        }
+                    }
+                } catch (SQLException e) {
+                    // The transaction is aborted, the following queries could not be explained.
+                    warn("Impossible d'expliquer la requête « %s » : %s", query[0], e.getMessage());
+                    break;
+                }
+            }
+        } finally {
+            connection.rollback();
+        }
+    }
+
+    private void warn(String format, Object... arguments)
+    {
+        Logger.warning(LOG_TYPE.SYSTEM, format, arguments);
+        ++warningCount;
+    }
+
+    /**
+     * Index the queries need.
+     */
+    private static class RequiredIndex
+    {
+        final String name;
+        final String table;
+        final boolean unique;
+        final String[] columns;
+
+        RequiredIndex(String name, String table, boolean unique, String... columns) {
+            this.name = name;
+            this.table = table;
+            this.unique = unique;
+            this.columns = columns;
+        }
+
+        /**
+         * Table and columns of the index, as written in CREATE INDEX.
+         */
+        String getTarget()
+        {
+            StringBuilder target = new StringBuilder(table).append(" (");
+            for (int i = 0; i < columns.length; ++i) {
+                target.append(i == 0 ? "" : ", ").append(columns[i]);
+            }
+            return target.append(")").toString();
+        }
+
+        String getDefinition()
+        {
+            return (unique ? "UNIQUE " : "") + getTarget();
+        }
+
+        String getCreateSql()
+        {
+            return "CREATE " + (unique ? "UNIQUE " : "") + "INDEX CONCURRENTLY " + name + " ON " + getTarget() + ";";
+        }
+    }
+
+    /**
+     * Index found in the catalog.
+     */
+    private static class IndexInfo
+    {
+        final boolean unique;
+        final boolean partial;
+        final List<String> columns = new ArrayList<>();
+
+        IndexInfo(boolean unique, boolean partial) {
+            this.unique = unique;
+            this.partial = partial;
+        }
+    }
+}
@@ -0,0 +1,234 @@
+package ligueBaseball.database;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Prepared statements of a physical connection, kept open between the commands and indexed by their SQL. Closing a statement given by this cache
+ * puts it back in the cache, so the driver and the server don't parse and plan the same SQL again. The least recently used statement is closed
+ * when the cache is full.
+ */
+class StatementCache
+{
+    private final Connection connection;
+    private final int capacity;
+    private final StatementCacheStatistics statistics;
+    private final LinkedHashMap<String, CachedStatement> statements = new LinkedHashMap<>(16, 0.75f, true);
+
+    /**
+     * Constructor
+     *
+     * @param connection - Physical connection preparing the statements.
+     * @param capacity - Maximum number of statements kept open.
+     * @param statistics - Statistics shared by the caches of a pool.
+     */
+    StatementCache(Connection connection, int capacity, StatementCacheStatistics statistics) {
+        this.connection = connection;
+        this.capacity = capacity;
+        this.statistics = statistics;
+    }
+
+    /**
+     * Get a prepared statement for the given SQL. If the cached statement is already used by the caller, a statement that won't be cached is given.
+     *
+     * @param sql - SQL of the statement.
+     * @param owner - Connection given to the caller, returned by getConnection() of the statement.
+     * @return PreparedStatement - Statement to close once done.
+     * @throws SQLException Failed to prepare the statement.
+     */
+    synchronized PreparedStatement prepare(String sql, Connection owner) throws SQLException
+    {
+        CachedStatement cached = statements.get(sql);
+        if (cached == null) {
+            statistics.recordMiss();
+            cached = new CachedStatement(connection.prepareStatement(sql));
+            statements.put(sql, cached);
+            evictIfNeeded();
+        } else if (cached.handle != null) {
+            // Same SQL used twice at the same time (ex: nested cursors).
+            statistics.recordBypass();
+            return connection.prepareStatement(sql);
+        } else {
+            statistics.recordHit();
+        }
+
+        cached.handle = new Handle(cached, owner);
+        return (PreparedStatement) Proxy.newProxyInstance(PreparedStatement.class.getClassLoader(), new Class<?>[] { PreparedStatement.class }, cached.handle);
+    }
+
+    /**
+     * Put back all the statements still used by the last borrower of the connection. Their handles can't be used anymore.
+     */
+    synchronized void releaseAll()
+    {
+        for (CachedStatement cached : statements.values()) {
+            if (cached.handle != null) {
+                release(cached);
+            }
+        }
+    }
+
+    /**
+     * Close all the cached statements.
+     */
+    synchronized void close()
+    {
+        for (CachedStatement cached : new ArrayList<>(statements.values())) {
+            if (cached.handle != null) {
+                cached.handle.released = true;
+                cached.handle = null;
+            }
+            closeQuietly(cached.statement);
+        }
+        statements.clear();
+    }
+
+    synchronized int getSize()
+    {
+        return statements.size();
+    }
+
+    /**
+     * Put a statement back in the cache, ready for the next caller: without result set, queued rows, parameters or fetch size.
+     *
+     * @param cached - Statement to put back.
+     */
+    private synchronized void release(CachedStatement cached)
+    {
+        cached.handle.released = true;
+        cached.handle = null;
+        try {
+            ResultSet resultSet = cached.statement.getResultSet();
+            if (resultSet != null) {
+                resultSet.close();
+            }
+            // A statement closed in the middle of a batch must not send its rows for the next caller.
+            cached.statement.clearBatch();
+            cached.statement.clearParameters();
+            cached.statement.setFetchSize(0);
+        } catch (SQLException e) {
+            // Unusable, it will be prepared again next time.
+            remove(cached);
+            return;
+        }
+
+        if (!statements.containsValue(cached)) {
+            // Evicted while it was used.
+            closeQuietly(cached.statement);
+        }
+    }
+
+    /**
+     * Forget a statement and close it.
+     *
+     * @param cached - Statement to forget.
+     */
+    private void remove(CachedStatement cached)
+    {
+        Iterator<CachedStatement> iterator = statements.values().iterator();
+        while (iterator.hasNext()) {
+            if (iterator.next() == cached) {
+                iterator.remove();
+                break;
+            }
+        }
+        closeQuietly(cached.statement);
+    }
+
+    /**
+     * Close the least recently used statements until the cache isn't over capacity. A statement in use is closed once put back.
+     */
+    private void evictIfNeeded()
+    {
+        Iterator<Map.Entry<String, CachedStatement>> iterator = statements.entrySet().iterator();
+        while (statements.size() > capacity && iterator.hasNext()) {
+            CachedStatement evicted = iterator.next().getValue();
+            iterator.remove();
+            statistics.recordEviction();
+            if (evicted.handle == null) {
+                closeQuietly(evicted.statement);
+            }
+        }
+    }
+
+    private static void closeQuietly(PreparedStatement statement)
+    {
+        try {
+            statement.close();
+        } catch (SQLException e) {
+            // Nothing
+        }
+    }
+
+    /**
+     * Statement kept open and the handle of its current user, if any.
+     */
+    private static class CachedStatement
+    {
+        private final PreparedStatement statement;
+        private Handle handle;
+
+        CachedStatement(PreparedStatement statement) {
+            this.statement = statement;
+        }
+    }
+
+    /**
+     * Statement given to the caller. Closing it puts the statement back in the cache.
+     */
+    private class Handle implements InvocationHandler
+    {
+        private final CachedStatement cached;
+        private final Connection owner;
+        private volatile boolean released = false;
+
+        Handle(CachedStatement cached, Connection owner) {
+            this.cached = cached;
+            this.owner = owner;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable
+        {
+            switch (method.getName()) {
+                case "close":
+                    synchronized (StatementCache.this) {
+                        if (!released) {
+                            release(cached);
+                        }
+                    }
+                    return null;
+                case "isClosed":
+                    return released || cached.statement.isClosed();
+                case "getConnection":
+                    return owner;
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return cached.statement.toString();
+                default:
+                    if (released) {
+                        throw new SQLException("L'instruction a déjà été fermée.");
+                    }
+            }
+
+            try {
+                return method.invoke(cached.statement, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+}
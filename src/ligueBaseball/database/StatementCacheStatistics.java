@@ -0,0 +1,81 @@
+package ligueBaseball.database;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Use of the prepared statement caches of all the connections of a pool.
+ */
+public class StatementCacheStatistics
+{
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+    private final AtomicLong bypassCount = new AtomicLong();
+    private final AtomicLong evictionCount = new AtomicLong();
+
+    void recordHit()
+    {
+        hitCount.incrementAndGet();
+    }
+
+    void recordMiss()
+    {
+        missCount.incrementAndGet();
+    }
+
+    void recordBypass()
+    {
+        bypassCount.incrementAndGet();
+    }
+
+    void recordEviction()
+    {
+        evictionCount.incrementAndGet();
+    }
+
+    /**
+     * Number of statements taken from the cache.
+     */
+    public long getHitCount()
+    {
+        return hitCount.get();
+    }
+
+    /**
+     * Number of statements prepared and added to the cache.
+     */
+    public long getMissCount()
+    {
+        return missCount.get();
+    }
+
+    /**
+     * Number of statements prepared without the cache because the cached one was in use.
+     */
+    public long getBypassCount()
+    {
+        return bypassCount.get();
+    }
+
+    public long getEvictionCount()
+    {
+        return evictionCount.get();
+    }
+
+    /**
+     * Get the part of the statements taken from the cache.
+     *
+     * @return double - Hit rate, between 0 and 1.
+     */
+    public double getHitRate()
+    {
+        long hits = hitCount.get();
+        long lookups = hits + missCount.get() + bypassCount.get();
+        return lookups == 0 ? 0 : hits / (double) lookups;
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format("Cache des instructions: %s succès, %s échecs, %s contournements (%.1f %%), %s évictions", hitCount.get(), missCount.get(), bypassCount.get(), getHitRate() * 100, evictionCount.get());
+    }
+}
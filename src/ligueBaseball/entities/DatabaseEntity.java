@@ -2,17 +2,23 @@ package ligueBaseball.entities;
 
 import java.sql.Connection;
 import java.sql.PreparedStatement;
-import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
 
 import ligueBaseball.exceptions.FailedToDeleteEntityException;
 import ligueBaseball.exceptions.FailedToRetrieveNextKeyFromSequenceException;
-import ligueBaseball.exceptions.FailedToSaveEntityException;
 
 public abstract class DatabaseEntity
 {
+    /**
+     * Number of rows read at once by the cursors when none is given.
+     */
+    public static final int DEFAULT_FETCH_SIZE = 500;
+
+    private static final KeyAllocator keyAllocator = new KeyAllocator(KeyAllocator.DEFAULT_BLOCK_SIZE);
+
     protected int id = -1;
+    private int dirtyColumns = 0;
 
     /**
      * Return the ID related to this entity.
@@ -25,43 +31,126 @@ public abstract class DatabaseEntity
     }
 
     /**
-     * Save the current entity
+     * Give its ID to a new entity kept outside of the database. Only the repositories keeping the entities themselves should call it.
      *
-     * @param databaseConnection - Connection with database
-     * @throws FailedToSaveEntityException Failed to save entity.
+     * @param id - Unique ID in the table of the entity.
      */
-    public void save(Connection databaseConnection) throws FailedToSaveEntityException
+    public final void assignId(int id)
     {
-        if (id < 0) {
-            create(databaseConnection);
-        } else {
-            update(databaseConnection);
+        if (this.id >= 0) {
+            throw new IllegalStateException("L'entité a déjà un ID.");
         }
+        this.id = id;
     }
 
     /**
-     * Create the new entity.
+     * Get the table of the entity and the columns it writes.
      *
-     * @param databaseConnection - Connection with database
-     * @throws FailedToSaveEntityException Failed to save entity.
+     * @return EntityTable - Table shared by the entities of the class.
      */
-    protected abstract void create(Connection databaseConnection) throws FailedToSaveEntityException;
+    abstract EntityTable getTable();
 
     /**
-     * Update the current entity.
+     * Give the value of a column of the entity to a statement writing it.
      *
-     * @param databaseConnection - Connection with database
-     * @throws FailedToSaveEntityException Failed to save entity.
+     * @param statement - Statement creating or updating the entity.
+     * @param parameterIndex - Index of the parameter taking the value.
+     * @param column - Index of the column in the table of the entity.
+     * @throws SQLException Failed to set the value.
      */
-    protected abstract void update(Connection databaseConnection) throws FailedToSaveEntityException;
+    protected abstract void bindColumn(PreparedStatement statement, int parameterIndex, int column) throws SQLException;
 
     /**
-     * Delete the current entity.
+     * Remember that a column was changed and must be written by the next save.
      *
-     * @param databaseConnection - Connection with database
+     * @param column - Index of the column in the table of the entity.
+     */
+    protected final void markChanged(int column)
+    {
+        dirtyColumns |= 1 << column;
+    }
+
+    /**
+     * Check if the entity was changed since it was read or saved.
+     *
+     * @return boolean - True if a column must be written.
+     */
+    public final boolean isDirty()
+    {
+        return dirtyColumns != 0;
+    }
+
+    final int getDirtyColumns()
+    {
+        return dirtyColumns;
+    }
+
+    final void markDirty(int columns)
+    {
+        dirtyColumns |= columns;
+    }
+
+    final void markClean(int columns)
+    {
+        dirtyColumns &= ~columns;
+    }
+
+    /**
+     * Give the ID, then every column, to the statement returned by EntityTable.getInsertSql().
+     */
+    final void bindInsert(PreparedStatement statement) throws SQLException
+    {
+        statement.setInt(1, id);
+        for (int column = 0; column < getTable().getColumnCount(); ++column) {
+            bindColumn(statement, column + 2, column);
+        }
+    }
+
+    /**
+     * Give the given columns, then the ID, to the statement returned by EntityTable.getUpdateSql().
+     */
+    final void bindUpdate(PreparedStatement statement, int columns) throws SQLException
+    {
+        int parameterIndex = 1;
+        for (int column = 0; column < getTable().getColumnCount(); ++column) {
+            if ((columns & (1 << column)) != 0) {
+                bindColumn(statement, parameterIndex++, column);
+            }
+        }
+        statement.setInt(parameterIndex, id);
+    }
+
+    /**
+     * Called once the entity has been committed.
+     */
+    protected void committed()
+    {
+        // Nothing by default.
+    }
+
+    /**
+     * Called when the transaction saving the entity has been rolled back, before a new entity loses its ID.
+     */
+    protected void rolledBack()
+    {
+        // Nothing by default.
+    }
+
+    /**
+     * Called once the deletion of the entity has been committed, before it loses its ID.
+     */
+    protected void deleted()
+    {
+        // Nothing by default.
+    }
+
+    /**
+     * Delete the current entity when the work is committed.
+     *
+     * @param work - Work of the command, committed with it.
      * @throws FailedToDeleteEntityException Failed to delete entity.
      */
-    public abstract void delete(Connection databaseConnection) throws FailedToDeleteEntityException, Exception;
+    public abstract void delete(UnitOfWork work) throws FailedToDeleteEntityException, Exception;
 
     /**
      * Close the given statement if not null.
@@ -80,7 +169,7 @@ public abstract class DatabaseEntity
     }
 
     /**
-     * Retrieve the next ID for the given table name.
+     * Retrieve the next ID for the given table name. The IDs are reserved by blocks, most calls don't go to the database.
      *
      * @param databaseConnection - Connection with database
      * @param tableName - Name of the table we want the next primary id.
@@ -88,45 +177,18 @@ public abstract class DatabaseEntity
      * @return int - ID to use.
      * @throws FailedToRetrieveNextKeyFromSequenceException Thrown if there is a problem while retriving the next ID to use.
      */
-    protected synchronized int getNextIdForTable(Connection databaseConnection, String tableName, String keyColumnName) throws FailedToRetrieveNextKeyFromSequenceException
+    protected int getNextIdForTable(Connection databaseConnection, String tableName, String keyColumnName) throws FailedToRetrieveNextKeyFromSequenceException
     {
-        PreparedStatement statement = null;
-
-        try {
-            statement = databaseConnection.prepareStatement("SELECT nextcle FROM sequence WHERE nomtable = ?;");
-            statement.setString(1, tableName);
-            ResultSet result = statement.executeQuery();
-
-            if (!result.next()) {
-                // Do not exists in the sequence table
-                closeStatement(statement);
-                statement = databaseConnection.prepareStatement("INSERT INTO sequence (nomtable, nextcle) SELECT ? AS nomtable, (MAX(" + keyColumnName + ") + 1) AS nextcle FROM " + tableName + ";");
-                statement.setString(1, tableName);
-
-                statement.execute();
-                databaseConnection.commit();
-                closeStatement(statement);
-
-                // Recurcivity because we now have an entry in this table.
-                return getNextIdForTable(databaseConnection, tableName, keyColumnName);
-            }
-
-            int nextId = result.getInt("nextcle");
-            closeStatement(statement);
-
-            // Increment current value
-            statement = databaseConnection.prepareStatement("UPDATE sequence SET nextcle = nextcle + 1 WHERE nomtable = ?;");
-            statement.setString(1, tableName);
-            statement.executeUpdate();
-            databaseConnection.commit();
-
-            return nextId;
-
-        } catch (SQLException e) {
-            throw new FailedToRetrieveNextKeyFromSequenceException(tableName);
+        return keyAllocator.nextId(databaseConnection, tableName, keyColumnName);
+    }
 
-        } finally {
-            closeStatement(statement);
-        }
+    /**
+     * Get the allocator giving the primary keys of the new entities.
+     *
+     * @return KeyAllocator - Allocator shared by all the entities.
+     */
+    public static KeyAllocator getKeyAllocator()
+    {
+        return keyAllocator;
     }
 }
@@ -0,0 +1,15 @@
+package ligueBaseball.entities;
+
+import java.io.Closeable;
+import java.util.Iterator;
+
+/**
+ * Iterate over entities while they are read from the database. The cursor must be closed once done, even if it wasn't read until the end.
+ *
+ * @param <T> - Type of the entities.
+ */
+public interface EntityCursor<T> extends Iterator<T>, Closeable
+{
+    @Override
+    void close();
+}
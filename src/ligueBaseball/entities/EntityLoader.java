@@ -0,0 +1,223 @@
+package ligueBaseball.entities;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import ligueBaseball.Logger;
+import ligueBaseball.Logger.LOG_TYPE;
+
+/**
+ * Cache of the teams, fields and officials a command reads by ID, and of the officials of its matches. The entities read are kept until the
+ * loader is cleared, so an entity is read at most once by a command, and the teams already in the team cache aren't read at all.
+ *
+ * The commands going through many matches read their reports instead, with the names of the teams, of the field and of the officials
+ * already joined, so they don't read the entities one by one.
+ */
+public class EntityLoader
+{
+    private final Connection connection;
+
+    private final Reads<Team> teams = new Reads<Team>("SELECT * FROM equipe WHERE equipeid = ?;") {
+        @Override
+        Team getCached(int id)
+        {
+            return Team.getCache().getWithId(id);
+        }
+
+        @Override
+        void read(ResultSet resultSet) throws SQLException
+        {
+            Team team = Team.getEntityFromResultSet(resultSet);
+            Team.getCache().put(team);
+            loaded.put(team.getId(), team);
+        }
+    };
+
+    private final Reads<Field> fields = new Reads<Field>("SELECT * FROM terrain WHERE terrainid = ?;") {
+        @Override
+        void read(ResultSet resultSet) throws SQLException
+        {
+            Field field = Field.createFieldFromResultSet(resultSet);
+            loaded.put(field.getId(), field);
+        }
+    };
+
+    private final Reads<Official> officials = new Reads<Official>("SELECT * FROM arbitre WHERE arbitreid = ?;") {
+        @Override
+        void read(ResultSet resultSet) throws SQLException
+        {
+            Official official = Official.getEntityFromResultSet(resultSet);
+            loaded.put(official.getId(), official);
+        }
+    };
+
+    private final Reads<List<Official>> officialsByMatch = new Reads<List<Official>>("SELECT arbitrer.matchid, arbitre.* FROM arbitrer INNER JOIN arbitre ON arbitre.arbitreid = arbitrer.arbitreid WHERE arbitrer.matchid = ?;") {
+        @Override
+        void load(int id) throws SQLException
+        {
+            // A match without official has no row, but must not be read again.
+            loaded.put(id, new ArrayList<Official>());
+            super.load(id);
+        }
+
+        @Override
+        void read(ResultSet resultSet) throws SQLException
+        {
+            Official official = officials.loaded.get(resultSet.getInt("arbitreid"));
+            if (official == null) {
+                official = Official.getEntityFromResultSet(resultSet);
+                officials.loaded.put(official.getId(), official);
+            }
+            loaded.get(resultSet.getInt("matchid")).add(official);
+        }
+    };
+
+    /**
+     * Constructor
+     *
+     * @param connection - Connection with database.
+     */
+    public EntityLoader(Connection connection) {
+        this.connection = connection;
+    }
+
+    /**
+     * Get the team with the given ID, reading it if it wasn't read yet.
+     *
+     * @param id - ID of the team.
+     * @return Team - If found, otherwise return null.
+     */
+    public Team getTeam(int id)
+    {
+        return teams.get(id);
+    }
+
+    /**
+     * Get the field with the given ID, reading it if it wasn't read yet.
+     *
+     * @param id - ID of the field.
+     * @return Field - If found, otherwise return null.
+     */
+    public Field getField(int id)
+    {
+        return fields.get(id);
+    }
+
+    /**
+     * Get the official with the given ID, reading it if it wasn't read yet.
+     *
+     * @param id - ID of the official.
+     * @return Official - If found, otherwise return null.
+     */
+    public Official getOfficial(int id)
+    {
+        return officials.get(id);
+    }
+
+    /**
+     * Get the officials of the match, reading them if they weren't read yet.
+     *
+     * @param match - Match.
+     * @return List - Officials of the match, empty if none or if they couldn't be read.
+     */
+    public List<Official> getOfficials(Match match)
+    {
+        List<Official> matchOfficials = officialsByMatch.get(match.getId());
+        return matchOfficials == null ? new ArrayList<Official>() : new ArrayList<>(matchOfficials);
+    }
+
+    /**
+     * Forget the entities read, they will be read again when needed. Must be called once entities may have been changed in the database.
+     */
+    public void clear()
+    {
+        teams.clear();
+        fields.clear();
+        officials.clear();
+        officialsByMatch.clear();
+    }
+
+    /**
+     * Entities of a kind read by ID, each with its own query.
+     *
+     * @param <T> - Kind of entity.
+     */
+    private abstract class Reads<T>
+    {
+        private final String sql;
+        final Map<Integer, T> loaded = new HashMap<>();
+        private final Set<Integer> missing = new HashSet<>();
+
+        Reads(String sql) {
+            this.sql = sql;
+        }
+
+        /**
+         * Get the entity if it is already known without query, null otherwise.
+         */
+        T getCached(int id)
+        {
+            return null;
+        }
+
+        /**
+         * Read a row of the query, putting what it holds in loaded.
+         */
+        abstract void read(ResultSet resultSet) throws SQLException;
+
+        T get(int id)
+        {
+            if (id < 0 || loaded.containsKey(id) || missing.contains(id)) {
+                return loaded.get(id);
+            }
+            T cached = getCached(id);
+            if (cached != null) {
+                loaded.put(id, cached);
+                return cached;
+            }
+
+            try {
+                load(id);
+            } catch (SQLException e) {
+                Logger.error(LOG_TYPE.EXCEPTION, e.getMessage());
+            }
+            return loaded.get(id);
+        }
+
+        /**
+         * Read the entity with its query. An ID not found is remembered so it isn't read again.
+         */
+        void load(int id) throws SQLException
+        {
+            PreparedStatement statement = null;
+            try {
+                statement = connection.prepareStatement(sql);
+                statement.setInt(1, id);
+                ResultSet resultSet = statement.executeQuery();
+                while (resultSet.next()) {
+                    read(resultSet);
+                }
+            } finally {
+                DatabaseEntity.closeStatement(statement);
+            }
+
+            if (!loaded.containsKey(id)) {
+                missing.add(id);
+            }
+        }
+
+        void clear()
+        {
+            loaded.clear();
+            missing.clear();
+        }
+    }
+}
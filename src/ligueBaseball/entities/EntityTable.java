@@ -0,0 +1,113 @@
+package ligueBaseball.entities;
+
+/**
+ * Table of a kind of entity: its primary key and the columns written by the entity. The SQL writing the entities is built from the columns, an
+ * UPDATE only setting the columns that were changed.
+ */
+final class EntityTable
+{
+    private final String name;
+    private final String keyColumnName;
+    private final String[] columnNames;
+    private final String insertSql;
+    private final String[] updateSqls;
+    private final String deleteSql;
+
+    /**
+     * Constructor
+     *
+     * @param name - Name of the table.
+     * @param keyColumnName - Name of the primary key column.
+     * @param columnNames - Columns written by the entity, the primary key excluded. An entity refers to a column by its index in this list.
+     */
+    EntityTable(String name, String keyColumnName, String... columnNames) {
+        if (columnNames.length > 30) {
+            throw new IllegalArgumentException("Trop de colonnes pour la table " + name);
+        }
+        this.name = name;
+        this.keyColumnName = keyColumnName;
+        this.columnNames = columnNames;
+        this.updateSqls = new String[1 << columnNames.length];
+
+        StringBuilder sql = new StringBuilder("INSERT INTO ").append(name).append(" (").append(keyColumnName);
+        for (String columnName : columnNames) {
+            sql.append(", ").append(columnName);
+        }
+        sql.append(") VALUES(?");
+        for (int i = 0; i < columnNames.length; ++i) {
+            sql.append(", ?");
+        }
+        this.insertSql = sql.append(");").toString();
+        this.deleteSql = "DELETE FROM " + name + " WHERE " + keyColumnName + " = ?;";
+    }
+
+    String getName()
+    {
+        return name;
+    }
+
+    String getKeyColumnName()
+    {
+        return keyColumnName;
+    }
+
+    int getColumnCount()
+    {
+        return columnNames.length;
+    }
+
+    /**
+     * Get a mask holding every column.
+     *
+     * @return int - One bit per column.
+     */
+    int getAllColumns()
+    {
+        return (1 << columnNames.length) - 1;
+    }
+
+    /**
+     * Get the INSERT writing the ID, then every column in order.
+     *
+     * @return String - INSERT statement.
+     */
+    String getInsertSql()
+    {
+        return insertSql;
+    }
+
+    /**
+     * Get the DELETE taking the ID.
+     *
+     * @return String - DELETE statement.
+     */
+    String getDeleteSql()
+    {
+        return deleteSql;
+    }
+
+    /**
+     * Get the UPDATE setting the given columns in order, then taking the ID. The statements are built once for each set of columns.
+     *
+     * @param columns - Mask of the columns, bit i for the column i.
+     * @return String - UPDATE statement.
+     */
+    String getUpdateSql(int columns)
+    {
+        // Several threads may build the same statement, they are equal.
+        String sql = updateSqls[columns];
+        if (sql == null) {
+            StringBuilder builder = new StringBuilder("UPDATE ").append(name).append(" SET ");
+            String separator = "";
+            for (int column = 0; column < columnNames.length; ++column) {
+                if ((columns & (1 << column)) != 0) {
+                    builder.append(separator).append(columnNames[column]).append(" = ?");
+                    separator = ", ";
+                }
+            }
+            sql = builder.append(" WHERE ").append(keyColumnName).append(" = ?;").toString();
+            updateSqls[columns] = sql;
+        }
+        return sql;
+    }
+}
@@ -4,15 +4,18 @@ import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.Objects;
 
 import ligueBaseball.Logger;
 import ligueBaseball.Logger.LOG_TYPE;
-import ligueBaseball.exceptions.FailedToDeleteEntityException;
-import ligueBaseball.exceptions.FailedToRetrieveNextKeyFromSequenceException;
 import ligueBaseball.exceptions.FailedToSaveEntityException;
 
 public class Field extends DatabaseEntity
 {
+    private static final int NAME = 0;
+    private static final int ADDRESS = 1;
+    private static final EntityTable TABLE = new EntityTable("terrain", "terrainid", "terrainnom", "terrainadresse");
+
     String name;
     String address;
 
@@ -76,7 +79,7 @@ public class Field extends DatabaseEntity
         }
     }
 
-    private static Field createFieldFromResultSet(ResultSet resultSet) throws SQLException
+    static Field createFieldFromResultSet(ResultSet resultSet) throws SQLException
     {
         Field field = new Field();
         field.id = resultSet.getInt("terrainid");
@@ -87,77 +90,43 @@ public class Field extends DatabaseEntity
     }
 
     @Override
-    protected void create(Connection databaseConnection) throws FailedToSaveEntityException
+    EntityTable getTable()
     {
-        PreparedStatement statement = null;
-        try {
-            id = getNextIdForTable(databaseConnection, "terrain", "terrainid");
-            statement = databaseConnection.prepareStatement("INSERT INTO terrain (terrainid, terrainnom, terrainadresse) VALUES(?, ?, ?);");
-            statement.setInt(1, id);
-            statement.setString(2, name);
-            statement.setString(3, address);
-            statement.execute();
-            databaseConnection.commit();
-
-        } catch (SQLException | FailedToRetrieveNextKeyFromSequenceException e) {
-            try {
-                databaseConnection.rollback();
-            } catch (SQLException e1) {
-                Logger.error(LOG_TYPE.EXCEPTION, e1.getMessage());
-            }
-            throw new FailedToSaveEntityException(e);
-        } finally {
-            closeStatement(statement);
-        }
+        return TABLE;
     }
 
     @Override
-    protected void update(Connection databaseConnection) throws FailedToSaveEntityException
+    protected void bindColumn(PreparedStatement statement, int parameterIndex, int column) throws SQLException
     {
-        PreparedStatement statement = null;
-        try {
-            statement = databaseConnection.prepareStatement("UPDATE terrain SET terrainnom = ?, terrainadresse = ? WHERE terrainid = ?;");
-            statement.setString(1, name);
-            statement.setString(2, address);
-            statement.setInt(3, id);
-            statement.executeUpdate();
-            databaseConnection.commit();
-
-        } catch (SQLException e) {
-            try {
-                databaseConnection.rollback();
-            } catch (SQLException e1) {
-                Logger.error(LOG_TYPE.EXCEPTION, e1.getMessage());
-            }
-            throw new FailedToSaveEntityException(e);
-        } finally {
-            closeStatement(statement);
+        switch (column) {
+            case NAME:
+                statement.setString(parameterIndex, name);
+                break;
+            default:
+                statement.setString(parameterIndex, address);
+                break;
         }
     }
 
+    /**
+     * Copy this field, used by the in-memory engine to hand out fields that can be modified safely.
+     *
+     * @return Field - Copy of this field.
+     */
+    public Field copy()
+    {
+        Field copy = new Field();
+        copy.id = id;
+        copy.name = name;
+        copy.address = address;
+        return copy;
+    }
+
     @Override
-    public void delete(Connection databaseConnection) throws FailedToDeleteEntityException
+    public void delete(UnitOfWork work)
     {
-        if (id >= 0) {
-            PreparedStatement statement = null;
-            try {
-                statement = databaseConnection.prepareStatement("DELETE FROM terrain WHERE terrainid = ?;");
-                statement.setInt(1, id);
-                statement.executeQuery();
-                databaseConnection.commit();
-
-            } catch (SQLException e) {
-                try {
-                    databaseConnection.rollback();
-                } catch (SQLException e1) {
-                    Logger.error(LOG_TYPE.EXCEPTION, e1.getMessage());
-                }
-                throw new FailedToDeleteEntityException(e);
-            } finally {
-                closeStatement(statement);
-            }
-        }
-        // Else the current field has never been created in the database before.
+        // A field that has never been created in the database is left as is.
+        work.delete(this);
     }
 
     /**
@@ -177,7 +146,10 @@ public class Field extends DatabaseEntity
      */
     public void setName(String name)
     {
-        this.name = name;
+        if (!Objects.equals(this.name, name)) {
+            this.name = name;
+            markChanged(NAME);
+        }
     }
 
     /**
@@ -197,6 +169,9 @@ public class Field extends DatabaseEntity
      */
     public void setAddress(String address)
     {
-        this.address = address;
+        if (!Objects.equals(this.address, address)) {
+            this.address = address;
+            markChanged(ADDRESS);
+        }
     }
 }
@@ -0,0 +1,264 @@
+package ligueBaseball.entities;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import ligueBaseball.database.ConnectionPool;
+import ligueBaseball.exceptions.FailedToConnectToDatabaseException;
+import ligueBaseball.exceptions.FailedToRetrieveNextKeyFromSequenceException;
+
+/**
+ * Hand out primary keys reserved by blocks in the sequence table (hi-lo). A whole block of IDs is reserved with a single atomic UPDATE, so many
+ * threads and many programs can share the same database without ever getting the same ID. The IDs of a block are then given without going to the
+ * database nor taking a lock.
+ *
+ * With a pool, the blocks are reserved on a connection of their own, opened outside of the pool: reserving IDs never commits the work of a
+ * command, and never waits for a pooled connection while the command holds one.
+ */
+public class KeyAllocator
+{
+    /**
+     * Number of IDs reserved at once when none is given.
+     */
+    public static final int DEFAULT_BLOCK_SIZE = 50;
+
+    private static final String SQLSTATE_UNIQUE_VIOLATION = "23505";
+
+    private volatile int blockSize;
+    private volatile ConnectionPool connectionPool;
+    private final Object connectionLock = new Object();
+    private Connection dedicatedConnection; // Guarded by connectionLock, opened when the first block is reserved
+    private final ConcurrentHashMap<String, KeyBlock> blocks = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Object> locks = new ConcurrentHashMap<>();
+
+    /**
+     * Constructor
+     *
+     * @param blockSize - Number of IDs reserved at once for a table.
+     */
+    public KeyAllocator(int blockSize) {
+        setBlockSize(blockSize);
+    }
+
+    /**
+     * Set the number of IDs reserved at once for a table. Blocks already reserved are kept until they are exhausted.
+     *
+     * @param blockSize - Number of IDs reserved at once.
+     */
+    public void setBlockSize(int blockSize)
+    {
+        if (blockSize < 1) {
+            throw new IllegalArgumentException("Un bloc doit contenir au moins une clé.");
+        }
+        this.blockSize = blockSize;
+    }
+
+    /**
+     * Set the pool opening the connection the blocks are reserved on. Without pool, the blocks are reserved with the connection of the caller,
+     * which is then committed. The connection opened for the previous pool is closed.
+     *
+     * @param connectionPool - Pool of connections with the database, can be null.
+     */
+    public void setConnectionPool(ConnectionPool connectionPool)
+    {
+        synchronized (connectionLock) {
+            closeDedicatedConnection();
+            this.connectionPool = connectionPool;
+        }
+    }
+
+    /**
+     * Forget all the reserved blocks. The IDs left in those blocks won't be used.
+     */
+    public void clear()
+    {
+        blocks.clear();
+    }
+
+    /**
+     * Get the next ID to use for the given table.
+     *
+     * @param databaseConnection - Connection with database
+     * @param tableName - Name of the table we want the next primary id.
+     * @param keyColumnName - Name of the column where is the primary key in the table given in the second parameter.
+     * @return int - ID to use.
+     * @throws FailedToRetrieveNextKeyFromSequenceException Thrown if there is a problem while reserving a new block of IDs.
+     */
+    public int nextId(Connection databaseConnection, String tableName, String keyColumnName) throws FailedToRetrieveNextKeyFromSequenceException
+    {
+        while (true) {
+            KeyBlock block = blocks.get(tableName);
+            if (block != null) {
+                int id = block.next();
+                if (id >= 0) {
+                    return id;
+                }
+            }
+
+            synchronized (getLock(tableName)) {
+                // Another thread may have reserved a new block while we were waiting.
+                if (blocks.get(tableName) == block) {
+                    int size = blockSize;
+                    int first = reserve(databaseConnection, tableName, keyColumnName, size);
+                    blocks.put(tableName, new KeyBlock(first, first + size));
+                }
+            }
+        }
+    }
+
+    /**
+     * Reserve a range of IDs for the given table. The reserved IDs won't ever be given by this allocator nor any other one sharing the database.
+     *
+     * @param databaseConnection - Connection with database
+     * @param tableName - Name of the table we want the IDs for.
+     * @param keyColumnName - Name of the column where is the primary key in the table given in the second parameter.
+     * @param count - Number of IDs to reserve.
+     * @return int - First ID of the range, the range ends at first + count (excluded).
+     * @throws FailedToRetrieveNextKeyFromSequenceException Thrown if there is a problem while reserving the IDs.
+     */
+    public int reserve(Connection databaseConnection, String tableName, String keyColumnName, int count) throws FailedToRetrieveNextKeyFromSequenceException
+    {
+        if (connectionPool == null) {
+            return reserveWithConnection(databaseConnection, tableName, keyColumnName, count);
+        }
+
+        synchronized (connectionLock) {
+            try {
+                if (dedicatedConnection == null) {
+                    dedicatedConnection = connectionPool.openDedicatedConnection();
+                }
+                return reserveWithConnection(dedicatedConnection, tableName, keyColumnName, count);
+            } catch (FailedToRetrieveNextKeyFromSequenceException e) {
+                // The connection may be broken, a new one is opened for the next block.
+                closeDedicatedConnection();
+                throw e;
+            } catch (FailedToConnectToDatabaseException e) {
+                throw new FailedToRetrieveNextKeyFromSequenceException(tableName, e);
+            }
+        }
+    }
+
+    /**
+     * Close the connection the blocks are reserved on, if it was opened. Must be called with connectionLock held.
+     */
+    private void closeDedicatedConnection()
+    {
+        if (dedicatedConnection != null) {
+            try {
+                dedicatedConnection.close();
+            } catch (SQLException e) {
+                // Nothing, the connection is thrown away anyway.
+            }
+            dedicatedConnection = null;
+        }
+    }
+
+    /**
+     * Reserve a range of IDs with the given connection. The connection is committed.
+     *
+     * @param databaseConnection - Connection with database
+     * @param tableName - Name of the table we want the IDs for.
+     * @param keyColumnName - Name of the column where is the primary key.
+     * @param count - Number of IDs to reserve.
+     * @return int - First ID of the range.
+     * @throws FailedToRetrieveNextKeyFromSequenceException Thrown if there is a problem while reserving the IDs.
+     */
+    private int reserveWithConnection(Connection databaseConnection, String tableName, String keyColumnName, int count) throws FailedToRetrieveNextKeyFromSequenceException
+    {
+        PreparedStatement statement = null;
+
+        try {
+            while (true) {
+                statement = databaseConnection.prepareStatement("UPDATE sequence SET nextcle = nextcle + ? WHERE nomtable = ? RETURNING nextcle;");
+                statement.setInt(1, count);
+                statement.setString(2, tableName);
+                ResultSet result = statement.executeQuery();
+
+                if (result.next()) {
+                    int nextId = result.getInt("nextcle");
+                    databaseConnection.commit();
+                    return nextId - count;
+                }
+                DatabaseEntity.closeStatement(statement);
+
+                // Do not exists in the sequence table, start after the biggest ID of the table.
+                statement = databaseConnection.prepareStatement("INSERT INTO sequence (nomtable, nextcle) SELECT ?, nextcle FROM (SELECT COALESCE(MAX(" + keyColumnName + "), 0) + 1 AS nextcle FROM " + tableName + ") AS biggest WHERE NOT EXISTS (SELECT 1 FROM sequence WHERE nomtable = ?);");
+                statement.setString(1, tableName);
+                statement.setString(2, tableName);
+                try {
+                    statement.executeUpdate();
+                    databaseConnection.commit();
+                } catch (SQLException e) {
+                    // Another program created the entry at the same time, use it.
+                    databaseConnection.rollback();
+                    if (!SQLSTATE_UNIQUE_VIOLATION.equals(e.getSQLState())) {
+                        throw e;
+                    }
+                }
+                DatabaseEntity.closeStatement(statement);
+            }
+
+        } catch (SQLException e) {
+            try {
+                databaseConnection.rollback();
+            } catch (SQLException e1) {
+                // Nothing
+            }
+            throw new FailedToRetrieveNextKeyFromSequenceException(tableName, e);
+
+        } finally {
+            DatabaseEntity.closeStatement(statement);
+        }
+    }
+
+    /**
+     * Get the object used to make sure only one block is reserved at a time for a table.
+     *
+     * @param tableName - Name of the table.
+     * @return Object - Lock of the table.
+     */
+    private Object getLock(String tableName)
+    {
+        Object lock = locks.get(tableName);
+        if (lock == null) {
+            Object newLock = new Object();
+            lock = locks.putIfAbsent(tableName, newLock);
+            if (lock == null) {
+                lock = newLock;
+            }
+        }
+        return lock;
+    }
+
+    /**
+     * Range of reserved IDs, handed out without lock.
+     */
+    private static class KeyBlock
+    {
+        private final AtomicInteger next;
+        private final int end;
+
+        KeyBlock(int first, int end) {
+            this.next = new AtomicInteger(first);
+            this.end = end;
+        }
+
+        /**
+         * Get the next ID of the block.
+         *
+         * @return int - ID, or -1 if the block is exhausted.
+         */
+        int next()
+        {
+            if (next.get() >= end) {
+                return -1;
+            }
+            int id = next.getAndIncrement();
+            return id < end ? id : -1;
+        }
+    }
+}
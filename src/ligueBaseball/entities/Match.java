@@ -1,25 +1,36 @@
 package ligueBaseball.entities;
 
-import java.security.InvalidParameterException;
 import java.sql.Connection;
 import java.sql.Date;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Time;
+import java.sql.Types;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Objects;
 
 import ligueBaseball.Logger;
 import ligueBaseball.Logger.LOG_TYPE;
 import ligueBaseball.exceptions.FailedToDeleteEntityException;
-import ligueBaseball.exceptions.FailedToRetrieveNextKeyFromSequenceException;
-import ligueBaseball.exceptions.FailedToSaveEntityException;
 import ligueBaseball.exceptions.TeamDoesntExistException;
+import ligueBaseball.standings.TeamStanding;
 import sun.reflect.generics.reflectiveObjects.NotImplementedException;
 
 public class Match extends DatabaseEntity
 {
+    static final String INSERT_OFFICIAL_SQL = "INSERT INTO arbitrer (arbitreid, matchid) VALUES(?, ?);";
+
+    private static final int LOCAL_TEAM = 0;
+    private static final int VISITOR_TEAM = 1;
+    private static final int FIELD = 2;
+    private static final int DATE = 3;
+    private static final int TIME = 4;
+    private static final int LOCAL_SCORE = 5;
+    private static final int VISITOR_SCORE = 6;
+    private static final EntityTable TABLE = new EntityTable("match", "matchid", "equipelocal", "equipevisiteur", "terrainid", "matchdate", "matchheure", "pointslocal", "pointsvisiteur");
+
     private int localTeamId;
     private int visitorTeamId;
     private int fieldId;
@@ -27,6 +38,7 @@ public class Match extends DatabaseEntity
     private Time time;
     private int localTeamScore = 0;
     private int visitorTeamScore = 0;
+    private boolean resultEntered = false; // The scores are NULL in the database until the result is entered.
 
     /**
      * Get the match that match with the given ID.
@@ -36,11 +48,29 @@ public class Match extends DatabaseEntity
      * @return Match - If found, otherwise return null.
      */
     public static Match getMatchWithId(Connection databaseConnection, int id)
+    {
+        return getMatchWithId(databaseConnection, "SELECT * FROM match WHERE matchid = ?;", id);
+    }
+
+    /**
+     * Get the match that match with the given ID, and lock it until the transaction ends. Another transaction locking it waits until then, and
+     * reads the match as this one left it.
+     *
+     * @param databaseConnection - Connection with database, auto-commit must be disabled.
+     * @param id - ID of the match to find.
+     * @return Match - If found, otherwise return null.
+     */
+    public static Match lockMatchWithId(Connection databaseConnection, int id)
+    {
+        return getMatchWithId(databaseConnection, "SELECT * FROM match WHERE matchid = ? FOR UPDATE;", id);
+    }
+
+    private static Match getMatchWithId(Connection databaseConnection, String sql, int id)
     {
         PreparedStatement statement = null;
 
         try {
-            statement = databaseConnection.prepareStatement("SELECT * FROM match WHERE matchid = ?;");
+            statement = databaseConnection.prepareStatement(sql);
             statement.setInt(1, id);
 
             ResultSet matchResult = statement.executeQuery();
@@ -69,7 +99,7 @@ public class Match extends DatabaseEntity
      * @return Match - If found, otherwise return null.
      * @throws TeamDoesntExistException Team doesn't exists.
      */
-    public static Match getMatchWithDateTimeEquipe(Connection databaseConnection, String date, String time, String equipelocal, String equipevisiteur) throws TeamDoesntExistException
+    public static Match getMatchWithDateTimeEquipe(Connection databaseConnection, Date date, Time time, String equipelocal, String equipevisiteur) throws TeamDoesntExistException
     {
         PreparedStatement statement = null;
 
@@ -88,19 +118,8 @@ public class Match extends DatabaseEntity
             }
             statement.setInt(2, visitor.getId());
 
-            try {
-                statement.setDate(3, Date.valueOf(date));
-            } catch (IllegalArgumentException e) {
-                throw new IllegalArgumentException("La date est invalide.");
-            }
-            try {
-                if (time.lastIndexOf(':') <= 2) {
-                    time += ":00";
-                }
-                statement.setTime(4, Time.valueOf(time));
-            } catch (IllegalArgumentException e) {
-                throw new IllegalArgumentException("L'heure est invalide.");
-            }
+            statement.setDate(3, date);
+            statement.setTime(4, time);
 
             ResultSet matchResult = statement.executeQuery();
             if (!matchResult.next()) {
@@ -134,234 +153,143 @@ public class Match extends DatabaseEntity
         match.date = resultSet.getDate("matchdate");
         match.time = resultSet.getTime("matchheure");
         match.localTeamScore = resultSet.getInt("pointslocal");
+        match.resultEntered = !resultSet.wasNull();
         match.visitorTeamScore = resultSet.getInt("pointsvisiteur");
+        match.resultEntered &= !resultSet.wasNull();
 
         return match;
     }
 
     @Override
-    protected void create(Connection databaseConnection) throws FailedToSaveEntityException
+    EntityTable getTable()
     {
-        PreparedStatement statement = null;
-        try {
-            id = getNextIdForTable(databaseConnection, "match", "matchid");
-            statement = databaseConnection.prepareStatement("INSERT INTO match (matchid, equipelocal, equipevisiteur, terrainid, matchdate, matchheure, pointslocal, pointsvisiteur) VALUES(?, ?, ?, ?, ?, ?, ?, ?);");
-            statement.setInt(1, id);
-            statement.setInt(2, localTeamId);
-            statement.setInt(3, visitorTeamId);
-            statement.setInt(4, fieldId);
-            statement.setDate(5, date);
-            statement.setTime(6, time);
-            statement.setInt(7, localTeamScore);
-            statement.setInt(8, visitorTeamScore);
-            statement.execute();
-            databaseConnection.commit();
-
-        } catch (SQLException | FailedToRetrieveNextKeyFromSequenceException e) {
-            try {
-                databaseConnection.rollback();
-            } catch (SQLException e1) {
-                Logger.error(LOG_TYPE.EXCEPTION, e1.getMessage());
-            }
-            throw new FailedToSaveEntityException(e);
-        } finally {
-            closeStatement(statement);
-        }
+        return TABLE;
     }
 
     @Override
-    protected void update(Connection databaseConnection) throws FailedToSaveEntityException
+    protected void bindColumn(PreparedStatement statement, int parameterIndex, int column) throws SQLException
     {
-        PreparedStatement statement = null;
-        try {
-            statement = databaseConnection.prepareStatement("UPDATE match SET equipelocal = ?, equipevisiteur = ?,terrainid = ?,matchdate = ?,matchheure = ?,pointslocal = ?,pointsvisiteur = ? WHERE matchid = ?;");
-            statement.setInt(1, localTeamId);
-            statement.setInt(2, visitorTeamId);
-            statement.setInt(3, fieldId);
-            statement.setDate(4, date);
-            statement.setTime(5, time);
-            statement.setInt(6, localTeamScore);
-            statement.setInt(7, visitorTeamScore);
-            statement.setInt(8, this.id);
-            statement.executeUpdate();
-            databaseConnection.commit();
-
-        } catch (SQLException e) {
-            try {
-                databaseConnection.rollback();
-            } catch (SQLException e1) {
-                Logger.error(LOG_TYPE.EXCEPTION, e1.getMessage());
-            }
-            throw new FailedToSaveEntityException(e);
-
-        } finally {
-            closeStatement(statement);
+        switch (column) {
+            case LOCAL_TEAM:
+                statement.setInt(parameterIndex, localTeamId);
+                break;
+            case VISITOR_TEAM:
+                statement.setInt(parameterIndex, visitorTeamId);
+                break;
+            case FIELD:
+                statement.setInt(parameterIndex, fieldId);
+                break;
+            case DATE:
+                statement.setDate(parameterIndex, date);
+                break;
+            case TIME:
+                statement.setTime(parameterIndex, time);
+                break;
+            case LOCAL_SCORE:
+                setScore(statement, parameterIndex, localTeamScore);
+                break;
+            default:
+                setScore(statement, parameterIndex, visitorTeamScore);
+                break;
         }
     }
 
     /**
-     * Get all match for a team
+     * Copy this match, used by the in-memory engine to hand out matches that can be modified safely.
      *
-     * @param databaseConnection - Connection with database - Connection with database
-     * @param teamName - Name of the team
-     * @return List of match
-     * @throws TeamDoesntExistException Team doesn't exists.
+     * @return Match - Copy of this match.
      */
-    public static List<Match> getMatchForTeam(Connection databaseConnection, String teamName) throws TeamDoesntExistException
+    public Match copy()
     {
-        List<Match> MatchTeam = new ArrayList<>();
-        PreparedStatement statement = null;
-
-        try {
-            Team team = Team.getTeamWithName(databaseConnection, teamName);
-            if (team == null) {
-                throw new TeamDoesntExistException(teamName);
-            }
-            int id = team.getId();
-
-            statement = databaseConnection.prepareStatement("SELECT * FROM match WHERE equipelocal = ? " + "or equipevisiteur = ? " + "AND pointslocal NOTNULL " + "AND pointsvisiteur NOTNULL;");
-            statement.setInt(1, id);
-            statement.setInt(2, id);
-
-            ResultSet MatchResultSet = statement.executeQuery();
-            while (MatchResultSet.next()) {
-                MatchTeam.add(getEntityFromResultSet(MatchResultSet));
-            }
-
-        } catch (SQLException e) {
-            Logger.error(LOG_TYPE.EXCEPTION, e.getMessage());
-            return null;
-
-        } finally {
-            closeStatement(statement);
-        }
-        return MatchTeam;
-    }
-
-    @Override
-    public void delete(Connection databaseConnection) throws FailedToDeleteEntityException, Exception
-
-    {
-        throw new NotImplementedException();
+        Match copy = new Match();
+        copy.id = id;
+        copy.localTeamId = localTeamId;
+        copy.visitorTeamId = visitorTeamId;
+        copy.fieldId = fieldId;
+        copy.date = date;
+        copy.time = time;
+        copy.localTeamScore = localTeamScore;
+        copy.visitorTeamScore = visitorTeamScore;
+        copy.resultEntered = resultEntered;
+        return copy;
     }
 
     /**
-     * Get every match
+     * Set the scores as the parameters of the statement, NULL if the result wasn't entered.
      *
-     * @param databaseConnection - Connection with database - Connection
-     * @return list of all match
+     * @param statement - Statement inserting or updating the match.
+     * @param index - Index of the parameter of the local team score, the visitor team score is the next one.
+     * @throws SQLException Exception during communication with the database.
      */
-    public static List<Match> getAllMatch(Connection databaseConnection)
+    private void setScore(PreparedStatement statement, int index, int score) throws SQLException
     {
-        List<Match> Match = new ArrayList<>();
-        PreparedStatement statement = null;
-
-        try {
-            statement = databaseConnection.prepareStatement("SELECT * FROM match");
-            ResultSet MatchResultSet = statement.executeQuery();
-            while (MatchResultSet.next()) {
-                Match.add(getEntityFromResultSet(MatchResultSet));
-            }
-
-        } catch (SQLException e) {
-            Logger.error(LOG_TYPE.EXCEPTION, e.getMessage());
-            return null;
-
-        } finally {
-            closeStatement(statement);
+        if (resultEntered) {
+            statement.setInt(index, score);
+        } else {
+            statement.setNull(index, Types.INTEGER);
         }
-        return Match;
-
     }
 
     /**
-     * Get list of match from a date
+     * Compute the standings of every team from the results of all the matches, with a single query.
      *
      * @param databaseConnection - Connection with database
-     * @param date - Date of the match
-     * @return list of match after the date
+     * @return List - Standings of the teams having at least one result, null if the query failed.
      */
-    public static List<Match> getMatchWithDate(Connection databaseConnection, String date)
+    public static List<TeamStanding> getStandings(Connection databaseConnection)
     {
-        List<Match> MatchDate = new ArrayList<>();
         PreparedStatement statement = null;
-
         try {
-            statement = databaseConnection.prepareStatement("SELECT * FROM match WHERE matchdate >= ?" + "AND pointslocal NOTNULL " + "AND pointsvisiteur NOTNULL;");
-            statement.setDate(1, Date.valueOf(date));
-
-            ResultSet MatchResultSet = statement.executeQuery();
-            while (MatchResultSet.next()) {
-                MatchDate.add(getEntityFromResultSet(MatchResultSet));
+            // Each match counts once for each team, from its own point of view.
+            statement = databaseConnection.prepareStatement("SELECT equipeid, SUM(CASE WHEN pour > contre THEN 1 ELSE 0 END) AS victoires, SUM(CASE WHEN pour < contre THEN 1 ELSE 0 END) AS defaites, SUM(CASE WHEN pour = contre THEN 1 ELSE 0 END) AS nulles, SUM(pour) AS pointspour, SUM(contre) AS pointscontre "
+                    + "FROM (SELECT equipelocal AS equipeid, pointslocal AS pour, pointsvisiteur AS contre FROM match WHERE pointslocal NOTNULL AND pointsvisiteur NOTNULL "
+                    + "UNION ALL SELECT equipevisiteur, pointsvisiteur, pointslocal FROM match WHERE pointslocal NOTNULL AND pointsvisiteur NOTNULL) AS resultats GROUP BY equipeid;");
+
+            List<TeamStanding> standings = new ArrayList<>();
+            ResultSet resultSet = statement.executeQuery();
+            while (resultSet.next()) {
+                standings.add(new TeamStanding(resultSet.getInt("equipeid"), resultSet.getInt("victoires"), resultSet.getInt("defaites"), resultSet.getInt("nulles"), resultSet.getInt("pointspour"), resultSet.getInt("pointscontre")));
             }
+            return standings;
 
         } catch (SQLException e) {
             Logger.error(LOG_TYPE.EXCEPTION, e.getMessage());
             return null;
 
-        } catch (IllegalArgumentException e) {
-            throw new InvalidParameterException("La date est invalide.");
-
         } finally {
             closeStatement(statement);
         }
-        return MatchDate;
+    }
+
+    @Override
+    public void delete(UnitOfWork work) throws FailedToDeleteEntityException, Exception
+
+    {
+        throw new NotImplementedException();
     }
 
     /**
-     * Get the officials for this match, if any.
+     * Get the officials for this match, if any, with a single query.
      *
      * @param databaseConnection - Connection with database
      * @return List of the officials that where there for the match.
      */
-
     public List<Official> getOfficials(Connection databaseConnection)
     {
-        List<Official> officials = new ArrayList<>();
-        PreparedStatement statement = null;
-        try {
-            statement = databaseConnection.prepareStatement("SELECT arbitreid FROM arbitrer WHERE matchid = ?;");
-            statement.setInt(1, id);
-            ResultSet officialResultSet = statement.executeQuery();
-            while (officialResultSet.next()) {
-                officials.add(Official.getOfficialWithId(databaseConnection, officialResultSet.getInt("arbitreid")));
-            }
-        } catch (SQLException e) {
-            Logger.error(LOG_TYPE.EXCEPTION, e.getMessage());
-        } finally {
-            closeStatement(statement);
-        }
-        return officials;
+        return new EntityLoader(databaseConnection).getOfficials(this);
     }
 
     /**
-     * Add an official that was present at this match. Match MUST have been saved in the database before doing this.
+     * Give the values of an assignment of an official to the statement returned by INSERT_OFFICIAL_SQL.
      *
-     * @param databaseConnection - Connection with database
-     * @param official - Official that was present at this match.
-     * @throws FailedToSaveEntityException Failed to save entity.
+     * @param statement - Statement assigning the official.
+     * @param official - Official refereeing this match.
+     * @throws SQLException Failed to set a value.
      */
-    public void addOfficial(Connection databaseConnection, Official official) throws FailedToSaveEntityException
+    void bindOfficial(PreparedStatement statement, Official official) throws SQLException
     {
-        PreparedStatement statement = null;
-        try {
-            statement = databaseConnection.prepareStatement("INSERT INTO arbitrer (arbitreid, matchid) VALUES(?, ?);");
-            statement.setInt(1, official.getId());
-            statement.setInt(2, id);
-            statement.execute();
-            databaseConnection.commit();
-
-        } catch (SQLException e) {
-            try {
-                databaseConnection.rollback();
-            } catch (SQLException e1) {
-                Logger.error(LOG_TYPE.EXCEPTION, e1.getMessage());
-            }
-            e.printStackTrace();
-            throw new FailedToSaveEntityException(e);
-        } finally {
-            closeStatement(statement);
-        }
+        statement.setInt(1, official.getId());
+        statement.setInt(2, id);
     }
 
     /**
@@ -382,7 +310,20 @@ public class Match extends DatabaseEntity
      */
     public void setLocalTeam(Team localTeam)
     {
-        this.localTeamId = localTeam.getId();
+        if (localTeamId != localTeam.getId()) {
+            localTeamId = localTeam.getId();
+            markChanged(LOCAL_TEAM);
+        }
+    }
+
+    /**
+     * Get the ID of the local team.
+     *
+     * @return int - ID of the local team.
+     */
+    public int getLocalTeamId()
+    {
+        return localTeamId;
     }
 
     /**
@@ -403,7 +344,20 @@ public class Match extends DatabaseEntity
      */
     public void setVisitorTeam(Team visitorTeam)
     {
-        this.visitorTeamId = visitorTeam.getId();
+        if (visitorTeamId != visitorTeam.getId()) {
+            visitorTeamId = visitorTeam.getId();
+            markChanged(VISITOR_TEAM);
+        }
+    }
+
+    /**
+     * Get the ID of the visitor team.
+     *
+     * @return int - ID of the visitor team.
+     */
+    public int getVisitorTeamId()
+    {
+        return visitorTeamId;
     }
 
     /**
@@ -424,7 +378,20 @@ public class Match extends DatabaseEntity
      */
     public void setField(Field field)
     {
-        this.fieldId = field.getId();
+        if (fieldId != field.getId()) {
+            fieldId = field.getId();
+            markChanged(FIELD);
+        }
+    }
+
+    /**
+     * Get the ID of the field the match was/will be played on.
+     *
+     * @return int - ID of the field.
+     */
+    public int getFieldId()
+    {
+        return fieldId;
     }
 
     /**
@@ -444,7 +411,10 @@ public class Match extends DatabaseEntity
      */
     public void setDate(Date date)
     {
-        this.date = date;
+        if (!Objects.equals(this.date, date)) {
+            this.date = date;
+            markChanged(DATE);
+        }
     }
 
     /**
@@ -464,7 +434,10 @@ public class Match extends DatabaseEntity
      */
     public void setTime(Time time)
     {
-        this.time = time;
+        if (!Objects.equals(this.time, time)) {
+            this.time = time;
+            markChanged(TIME);
+        }
     }
 
     /**
@@ -484,7 +457,11 @@ public class Match extends DatabaseEntity
      */
     public void setLocalTeamScore(int localTeamScore)
     {
-        this.localTeamScore = localTeamScore;
+        if (!resultEntered || this.localTeamScore != localTeamScore) {
+            this.localTeamScore = localTeamScore;
+            markChanged(LOCAL_SCORE);
+        }
+        setResultEntered();
     }
 
     /**
@@ -504,7 +481,33 @@ public class Match extends DatabaseEntity
      */
     public void setVisitorTeamScore(int visitorTeamScore)
     {
-        this.visitorTeamScore = visitorTeamScore;
+        if (!resultEntered || this.visitorTeamScore != visitorTeamScore) {
+            this.visitorTeamScore = visitorTeamScore;
+            markChanged(VISITOR_SCORE);
+        }
+        setResultEntered();
+    }
+
+    /**
+     * Enter the result. Both scores were NULL until then, and are written together.
+     */
+    private void setResultEntered()
+    {
+        if (!resultEntered) {
+            resultEntered = true;
+            markChanged(LOCAL_SCORE);
+            markChanged(VISITOR_SCORE);
+        }
+    }
+
+    /**
+     * Tell if the result of the match was entered. Until then, both scores are 0.
+     *
+     * @return boolean - True if the scores were set.
+     */
+    public boolean isResultEntered()
+    {
+        return resultEntered;
     }
 
 }
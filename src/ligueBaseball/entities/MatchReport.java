@@ -0,0 +1,236 @@
+package ligueBaseball.entities;
+
+import java.sql.Array;
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Time;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import ligueBaseball.Logger;
+import ligueBaseball.Logger.LOG_TYPE;
+import ligueBaseball.exceptions.TeamDoesntExistException;
+
+/**
+ * Everything needed to display the result of a match: the match, the names of both teams, the field and the officials. The reports come from a
+ * single query, read a few rows at a time through a cursor.
+ */
+public class MatchReport
+{
+    private static final String SELECT_REPORTS = "SELECT match.matchid, match.matchdate, match.matchheure, match.pointslocal, match.pointsvisiteur, locale.equipenom AS equipelocalnom, visiteur.equipenom AS equipevisiteurnom, terrain.terrainnom, "
+            + "array_agg(arbitre.arbitreid ORDER BY arbitre.arbitreprenom, arbitre.arbitrenom) AS arbitreids, array_agg(arbitre.arbitreprenom ORDER BY arbitre.arbitreprenom, arbitre.arbitrenom) AS arbitreprenoms, array_agg(arbitre.arbitrenom ORDER BY arbitre.arbitreprenom, arbitre.arbitrenom) AS arbitrenoms "
+            + "FROM match INNER JOIN equipe AS locale ON locale.equipeid = match.equipelocal INNER JOIN equipe AS visiteur ON visiteur.equipeid = match.equipevisiteur LEFT JOIN terrain ON terrain.terrainid = match.terrainid "
+            + "LEFT JOIN arbitrer ON arbitrer.matchid = match.matchid LEFT JOIN arbitre ON arbitre.arbitreid = arbitrer.arbitreid ";
+    private static final String GROUP_AND_ORDER = " GROUP BY match.matchid, match.matchdate, match.matchheure, match.pointslocal, match.pointsvisiteur, locale.equipenom, visiteur.equipenom, terrain.terrainnom ORDER BY match.matchdate, match.matchheure, match.matchid;";
+
+    private int matchId;
+    private Date date;
+    private Time time;
+    private int localTeamScore;
+    private int visitorTeamScore;
+    private String localTeamName;
+    private String visitorTeamName;
+    private String fieldName;
+    private List<Official> officials;
+
+    private MatchReport() {
+    }
+
+    /**
+     * Constructor of a report built without the database.
+     *
+     * @param matchId - ID of the match.
+     * @param date - Date of the match.
+     * @param time - Time of the match.
+     * @param localTeamScore - Score of the local team.
+     * @param visitorTeamScore - Score of the visitor team.
+     * @param localTeamName - Name of the local team.
+     * @param visitorTeamName - Name of the visitor team.
+     * @param fieldName - Name of the field, can be null.
+     * @param officials - Officials of the match, ordered by name.
+     */
+    public MatchReport(int matchId, Date date, Time time, int localTeamScore, int visitorTeamScore, String localTeamName, String visitorTeamName, String fieldName, List<Official> officials) {
+        this.matchId = matchId;
+        this.date = date;
+        this.time = time;
+        this.localTeamScore = localTeamScore;
+        this.visitorTeamScore = visitorTeamScore;
+        this.localTeamName = localTeamName;
+        this.visitorTeamName = visitorTeamName;
+        this.fieldName = fieldName;
+        this.officials = officials;
+    }
+
+    /**
+     * Iterate over the report of every match.
+     *
+     * @param databaseConnection - Connection with database, auto-commit must be disabled.
+     * @param fetchSize - Number of reports read from the database at once.
+     * @return EntityCursor - Cursor to close once done, null if the query failed.
+     */
+    public static EntityCursor<MatchReport> openAllMatches(Connection databaseConnection, int fetchSize)
+    {
+        return open(databaseConnection, "", fetchSize);
+    }
+
+    /**
+     * Iterate over the report of every match played since the given date.
+     *
+     * @param databaseConnection - Connection with database, auto-commit must be disabled.
+     * @param date - Date of the first match.
+     * @param fetchSize - Number of reports read from the database at once.
+     * @return EntityCursor - Cursor to close once done, null if the query failed.
+     */
+    public static EntityCursor<MatchReport> openMatchesFromDate(Connection databaseConnection, Date date, int fetchSize)
+    {
+        return open(databaseConnection, "WHERE match.matchdate >= ? AND match.pointslocal NOTNULL AND match.pointsvisiteur NOTNULL", fetchSize, date);
+    }
+
+    /**
+     * Iterate over the report of every match played by the given team.
+     *
+     * @param databaseConnection - Connection with database, auto-commit must be disabled.
+     * @param teamName - Name of the team.
+     * @param fetchSize - Number of reports read from the database at once.
+     * @return EntityCursor - Cursor to close once done, null if the query failed.
+     * @throws TeamDoesntExistException Team doesn't exists.
+     */
+    public static EntityCursor<MatchReport> openMatchesOfTeam(Connection databaseConnection, String teamName, int fetchSize) throws TeamDoesntExistException
+    {
+        Team team = Team.getTeamWithName(databaseConnection, teamName);
+        if (team == null) {
+            throw new TeamDoesntExistException(teamName);
+        }
+        return open(databaseConnection, "WHERE (match.equipelocal = ? OR match.equipevisiteur = ?) AND match.pointslocal NOTNULL AND match.pointsvisiteur NOTNULL", fetchSize, team.getId(), team.getId());
+    }
+
+    /**
+     * Open a cursor over the reports matching the given condition.
+     *
+     * @param databaseConnection - Connection with database
+     * @param condition - WHERE clause, can be empty.
+     * @param fetchSize - Number of reports read from the database at once.
+     * @param parameters - Values of the parameters of the condition.
+     * @return EntityCursor - Cursor to close once done, null if the query failed.
+     */
+    private static EntityCursor<MatchReport> open(Connection databaseConnection, String condition, int fetchSize, Object... parameters)
+    {
+        try {
+            PreparedStatement statement = databaseConnection.prepareStatement(SELECT_REPORTS + condition + GROUP_AND_ORDER);
+            for (int i = 0; i < parameters.length; ++i) {
+                statement.setObject(i + 1, parameters[i]);
+            }
+
+            return new ResultSetCursor<MatchReport>(statement, fetchSize) {
+                @Override
+                protected MatchReport getEntityFromResultSet(ResultSet resultSet) throws SQLException
+                {
+                    return getReportFromResultSet(resultSet);
+                }
+            };
+
+        } catch (SQLException e) {
+            Logger.error(LOG_TYPE.EXCEPTION, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Extract report from given ResultSet.
+     *
+     * @param resultSet - Result set
+     * @return MatchReport - Created object from the result set.
+     * @throws SQLException Exception during communication with the database.
+     */
+    private static MatchReport getReportFromResultSet(ResultSet resultSet) throws SQLException
+    {
+        MatchReport report = new MatchReport();
+        report.matchId = resultSet.getInt("matchid");
+        report.date = resultSet.getDate("matchdate");
+        report.time = resultSet.getTime("matchheure");
+        report.localTeamScore = resultSet.getInt("pointslocal");
+        report.visitorTeamScore = resultSet.getInt("pointsvisiteur");
+        report.localTeamName = resultSet.getString("equipelocalnom");
+        report.visitorTeamName = resultSet.getString("equipevisiteurnom");
+        report.fieldName = resultSet.getString("terrainnom");
+        report.officials = getOfficialsFromArrays(resultSet.getArray("arbitreids"), resultSet.getArray("arbitreprenoms"), resultSet.getArray("arbitrenoms"));
+
+        return report;
+    }
+
+    /**
+     * Build the officials from the aggregated columns. A match without official has a single NULL element.
+     *
+     * @return List - Officials of the match.
+     * @throws SQLException Exception during communication with the database.
+     */
+    private static List<Official> getOfficialsFromArrays(Array idArray, Array firstNameArray, Array lastNameArray) throws SQLException
+    {
+        Object[] ids = (Object[]) idArray.getArray();
+        Object[] firstNames = (Object[]) firstNameArray.getArray();
+        Object[] lastNames = (Object[]) lastNameArray.getArray();
+
+        if (ids.length == 0 || ids[0] == null) {
+            return Collections.emptyList();
+        }
+
+        List<Official> officials = new ArrayList<>(ids.length);
+        for (int i = 0; i < ids.length; ++i) {
+            Official official = new Official();
+            official.id = ((Number) ids[i]).intValue();
+            official.setFirstName((String) firstNames[i]);
+            official.setLastName((String) lastNames[i]);
+            officials.add(official);
+        }
+        return officials;
+    }
+
+    public int getMatchId()
+    {
+        return matchId;
+    }
+
+    public Date getDate()
+    {
+        return date;
+    }
+
+    public Time getTime()
+    {
+        return time;
+    }
+
+    public int getLocalTeamScore()
+    {
+        return localTeamScore;
+    }
+
+    public int getVisitorTeamScore()
+    {
+        return visitorTeamScore;
+    }
+
+    public String getLocalTeamName()
+    {
+        return localTeamName;
+    }
+
+    public String getVisitorTeamName()
+    {
+        return visitorTeamName;
+    }
+
+    public String getFieldName()
+    {
+        return fieldName;
+    }
+
+    public List<Official> getOfficials()
+    {
+        return officials;
+    }
+}
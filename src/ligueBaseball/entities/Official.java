@@ -6,16 +6,24 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Objects;
 
 import ligueBaseball.Logger;
 import ligueBaseball.Logger.LOG_TYPE;
 import ligueBaseball.exceptions.FailedToDeleteEntityException;
-import ligueBaseball.exceptions.FailedToRetrieveNextKeyFromSequenceException;
 import ligueBaseball.exceptions.FailedToSaveEntityException;
+import ligueBaseball.exceptions.OfficialAlreadyExistsException;
 import sun.reflect.generics.reflectiveObjects.NotImplementedException;
 
 public class Official extends DatabaseEntity
 {
+    private static final int FIRST_NAME = 0;
+    private static final int LAST_NAME = 1;
+    private static final EntityTable TABLE = new EntityTable("arbitre", "arbitreid", "arbitreprenom", "arbitrenom");
+    private static final String UNIQUE_CONSTRAINT = "arbitre_prenom_nom_key";
+    private static final String CREATE_SQL = "INSERT INTO arbitre (arbitreid, arbitreprenom, arbitrenom) SELECT ?, ?, ? "
+            + "WHERE NOT EXISTS (SELECT 1 FROM arbitre WHERE arbitreprenom = ? AND arbitrenom = ?) RETURNING arbitreid;";
+
     private String firstName;
     private String lastName;
 
@@ -121,58 +129,65 @@ public class Official extends DatabaseEntity
     }
 
     @Override
-    protected void create(Connection databaseConnection) throws FailedToSaveEntityException
+    EntityTable getTable()
     {
-        PreparedStatement statement = null;
-        try {
-            id = getNextIdForTable(databaseConnection, "arbitre", "arbitreid");
-            statement = databaseConnection.prepareStatement("INSERT INTO arbitre (arbitreid, arbitreprenom, arbitrenom) VALUES(?, ?, ?);");
-            statement.setInt(1, id);
-            statement.setString(2, firstName);
-            statement.setString(3, lastName);
-            statement.execute();
-            databaseConnection.commit();
-
-        } catch (SQLException | FailedToRetrieveNextKeyFromSequenceException e) {
-            try {
-                databaseConnection.rollback();
-            } catch (SQLException e1) {
-                Logger.error(LOG_TYPE.EXCEPTION, e1.getMessage());
-            }
-            Logger.error(LOG_TYPE.EXCEPTION, e.getMessage());
-            throw new FailedToSaveEntityException(e);
-        } finally {
-            closeStatement(statement);
-        }
+        return TABLE;
     }
 
     @Override
-    protected void update(Connection databaseConnection) throws FailedToSaveEntityException
+    protected void bindColumn(PreparedStatement statement, int parameterIndex, int column) throws SQLException
     {
-        PreparedStatement statement = null;
-        try {
-            statement = databaseConnection.prepareStatement("UPDATE arbitre SET arbitreprenom = ?, arbitrenom = ? WHERE arbitreid = ?;");
-            statement.setString(1, firstName);
-            statement.setString(2, lastName);
-            statement.setInt(3, id);
-            statement.executeUpdate();
-            databaseConnection.commit();
+        switch (column) {
+            case FIRST_NAME:
+                statement.setString(parameterIndex, firstName);
+                break;
+            default:
+                statement.setString(parameterIndex, lastName);
+                break;
+        }
+    }
 
-        } catch (SQLException e) {
-            try {
-                databaseConnection.rollback();
-            } catch (SQLException e1) {
-                Logger.error(LOG_TYPE.EXCEPTION, e1.getMessage());
+    /**
+     * Copy this official, used by the in-memory engine to hand out officials that can be modified safely.
+     *
+     * @return Official - Copy of this official.
+     */
+    public Official copy()
+    {
+        Official copy = new Official();
+        copy.id = id;
+        copy.firstName = firstName;
+        copy.lastName = lastName;
+        return copy;
+    }
+
+    /**
+     * Create this official with a single INSERT, unless an official has the same names. The unique constraint on the names of the officials
+     * also refuses an official created by another client at the same time.
+     *
+     * @param work - Work of the command, committed with it.
+     * @throws OfficialAlreadyExistsException An official has the same names, nothing was written.
+     * @throws FailedToSaveEntityException Failed to save entity.
+     */
+    public void create(UnitOfWork work) throws OfficialAlreadyExistsException, FailedToSaveEntityException
+    {
+        boolean created = work.create(CREATE_SQL, UNIQUE_CONSTRAINT, new UnitOfWork.Write() {
+            @Override
+            void bind(PreparedStatement statement) throws SQLException
+            {
+                bindInsert(statement);
+                statement.setString(4, firstName);
+                statement.setString(5, lastName);
             }
-            Logger.error(LOG_TYPE.EXCEPTION, e.getMessage());
-            throw new FailedToSaveEntityException(e);
-        } finally {
-            closeStatement(statement);
+        }, this);
+
+        if (!created) {
+            throw new OfficialAlreadyExistsException();
         }
     }
 
     @Override
-    public void delete(Connection databaseConnection) throws FailedToDeleteEntityException, Exception
+    public void delete(UnitOfWork work) throws FailedToDeleteEntityException, Exception
     {
         throw new NotImplementedException(); // Not needed for the moment
     }
@@ -184,7 +199,10 @@ public class Official extends DatabaseEntity
 
     public void setFirstName(String firstName)
     {
-        this.firstName = firstName;
+        if (!Objects.equals(this.firstName, firstName)) {
+            this.firstName = firstName;
+            markChanged(FIRST_NAME);
+        }
     }
 
     public String getLastName()
@@ -194,7 +212,10 @@ public class Official extends DatabaseEntity
 
     public void setLastName(String lastName)
     {
-        this.lastName = lastName;
+        if (!Objects.equals(this.lastName, lastName)) {
+            this.lastName = lastName;
+            markChanged(LAST_NAME);
+        }
     }
 
     @Override
@@ -7,16 +7,27 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Objects;
 
 import ligueBaseball.Logger;
 import ligueBaseball.Logger.LOG_TYPE;
 import ligueBaseball.exceptions.FailedToDeleteEntityException;
-import ligueBaseball.exceptions.FailedToRetrieveNextKeyFromSequenceException;
 import ligueBaseball.exceptions.FailedToSaveEntityException;
+import ligueBaseball.exceptions.PlayerAlreadyExistsException;
 import sun.reflect.generics.reflectiveObjects.NotImplementedException;
 
 public class Player extends DatabaseEntity
 {
+    // The number, the team and the dates are those of the membership, kept in faitpartie.
+    private static final int LAST_NAME = 0;
+    private static final int FIRST_NAME = 1;
+    private static final EntityTable TABLE = new EntityTable("joueur", "joueurid", "joueurnom", "joueurprenom");
+    // The player is created only if no current player has the same names and number.
+    private static final String CREATE_WITH_MEMBERSHIP_SQL = "WITH nouveau AS (INSERT INTO joueur (joueurid, joueurnom, joueurprenom) SELECT ?, ?, ? "
+            + "WHERE NOT EXISTS (SELECT 1 FROM joueur j INNER JOIN faitpartie f ON f.joueurid = j.joueurid AND f.datefin IS NULL "
+            + "WHERE j.joueurnom = ? AND j.joueurprenom = ? AND f.numero = ?) RETURNING joueurid) "
+            + "INSERT INTO faitpartie (joueurid, equipeid, numero, datedebut) SELECT joueurid, ?, ?, ? FROM nouveau RETURNING joueurid;";
+
     String lastName;
     String firstName;
     int number = -1;
@@ -36,9 +47,8 @@ public class Player extends DatabaseEntity
         PreparedStatement statement = null;
 
         try {
-            statement = databaseConnection.prepareStatement("SELECT * FROM joueur INNER JOIN faitpartie ON faitpartie.joueurid = ? WHERE joueur.joueurid = ?;");
+            statement = databaseConnection.prepareStatement("SELECT * FROM joueur INNER JOIN faitpartie ON faitpartie.joueurid = joueur.joueurid WHERE joueur.joueurid = ? ORDER BY faitpartie.datefin DESC NULLS FIRST LIMIT 1;");
             statement.setInt(1, id);
-            statement.setInt(2, id);
 
             ResultSet fieldResult = statement.executeQuery();
             if (fieldResult.next()) {
@@ -89,7 +99,7 @@ public class Player extends DatabaseEntity
         return players;
     }
 
-    private static Player createFieldFromResultSet(ResultSet resultSet) throws SQLException
+    static Player createFieldFromResultSet(ResultSet resultSet) throws SQLException
     {
         Player player = new Player();
 
@@ -104,82 +114,75 @@ public class Player extends DatabaseEntity
     }
 
     @Override
-    protected void create(Connection databaseConnection) throws FailedToSaveEntityException
+    EntityTable getTable()
     {
-        PreparedStatement statement = null;
-        try {
-            id = getNextIdForTable(databaseConnection, "joueur", "joueurid");
-            statement = databaseConnection.prepareStatement("INSERT INTO joueur (joueurid, joueurnom, joueurprenom) VALUES(?, ?, ?);");
-            statement.setInt(1, id);
-            statement.setString(2, lastName);
-            statement.setString(3, firstName);
-            statement.execute();
-            databaseConnection.commit();
-
-        } catch (SQLException | FailedToRetrieveNextKeyFromSequenceException e) {
-            try {
-                databaseConnection.rollback();
-            } catch (SQLException e1) {
-                Logger.error(LOG_TYPE.EXCEPTION, e1.getMessage());
-            }
-            throw new FailedToSaveEntityException(e);
-        } finally {
-            closeStatement(statement);
-        }
+        return TABLE;
     }
 
     @Override
-    protected void update(Connection databaseConnection) throws FailedToSaveEntityException
+    protected void bindColumn(PreparedStatement statement, int parameterIndex, int column) throws SQLException
     {
-        PreparedStatement statement = null;
-        try {
-            id = getNextIdForTable(databaseConnection, "joueur", "joueurid");
-            statement = databaseConnection.prepareStatement("UPDATE joueur SET joueurnom = ?, joueurprenom = ? WHERE joueurid = ?;");
-            statement.setString(1, lastName);
-            statement.setString(2, firstName);
-            statement.setInt(3, id);
-            statement.executeUpdate();
-            databaseConnection.commit();
-
-        } catch (SQLException | FailedToRetrieveNextKeyFromSequenceException e) {
-            try {
-                databaseConnection.rollback();
-            } catch (SQLException e1) {
-                Logger.error(LOG_TYPE.EXCEPTION, e1.getMessage());
-            }
-            throw new FailedToSaveEntityException(e);
-        } finally {
-            closeStatement(statement);
+        switch (column) {
+            case LAST_NAME:
+                statement.setString(parameterIndex, lastName);
+                break;
+            default:
+                statement.setString(parameterIndex, firstName);
+                break;
         }
     }
 
     @Override
-    public void delete(Connection databaseConnection) throws FailedToDeleteEntityException, Exception
+    public void delete(UnitOfWork work) throws FailedToDeleteEntityException, Exception
     {
         throw new NotImplementedException();
     }
 
     /**
-     * Get the team this player plays for.
+     * Create this player, in the team if one is given, with a single statement. The player isn't created if a current player has the same names
+     * and number.
      *
-     * @param databaseConnection - Connection with database
-     * @return Team - Get the current team for the player.
+     * @param work - Work of the command, committed with it.
+     * @param team - Team the player joins with its number and beginning date, null for none.
+     * @throws PlayerAlreadyExistsException A current player has the same names and number, nothing was written.
+     * @throws FailedToSaveEntityException Failed to save entity.
      */
-    public Team getTeam(Connection databaseConnection)
+    public void create(UnitOfWork work, final Team team) throws PlayerAlreadyExistsException, FailedToSaveEntityException
     {
-        return Team.getTeamWithId(databaseConnection, teamId);
+        if (team == null) {
+            // Nothing can conflict, the player is written with the rest of the work.
+            work.save(this);
+            return;
+        }
+
+        boolean created = work.create(CREATE_WITH_MEMBERSHIP_SQL, null, new UnitOfWork.Write() {
+            @Override
+            void bind(PreparedStatement statement) throws SQLException
+            {
+                bindInsert(statement);
+                statement.setString(4, lastName);
+                statement.setString(5, firstName);
+                statement.setInt(6, number);
+                statement.setInt(7, team.getId());
+                statement.setInt(8, number);
+                statement.setDate(9, Team.getBeginningDate(Player.this));
+            }
+        }, this);
+
+        if (!created) {
+            throw new PlayerAlreadyExistsException();
+        }
     }
 
     /**
-     * Set the team this player will play for.
+     * Get the team this player plays for.
      *
      * @param databaseConnection - Connection with database
-     * @param team - New team for the player.
-     * @throws FailedToSaveEntityException Failed to save entity.
+     * @return Team - Get the current team for the player.
      */
-    public void setTeam(Connection databaseConnection, Team team) throws FailedToSaveEntityException
+    public Team getTeam(Connection databaseConnection)
     {
-        team.addPlayer(databaseConnection, this);
+        return Team.getTeamWithId(databaseConnection, teamId);
     }
 
     /**
@@ -199,7 +202,10 @@ public class Player extends DatabaseEntity
      */
     public void setLastName(String lastName)
     {
-        this.lastName = lastName;
+        if (!Objects.equals(this.lastName, lastName)) {
+            this.lastName = lastName;
+            markChanged(LAST_NAME);
+        }
     }
 
     /**
@@ -219,7 +225,10 @@ public class Player extends DatabaseEntity
      */
     public void setFirstName(String firstName)
     {
-        this.firstName = firstName;
+        if (!Objects.equals(this.firstName, firstName)) {
+            this.firstName = firstName;
+            markChanged(FIRST_NAME);
+        }
     }
 
     /**
@@ -0,0 +1,85 @@
+package ligueBaseball.entities;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.NoSuchElementException;
+
+import ligueBaseball.exceptions.FailedToReadEntitiesException;
+
+/**
+ * Cursor reading the rows of a query a few at a time. With auto-commit disabled, the PostgreSQL driver only keeps fetchSize rows in memory.
+ * A row that can't be read closes the cursor and fails the command, instead of ending the iteration as if every row had been read.
+ *
+ * @param <T> - Type of the entities.
+ */
+abstract class ResultSetCursor<T> implements EntityCursor<T>
+{
+    private final PreparedStatement statement;
+    private ResultSet resultSet;
+    private T nextEntity = null;
+    private boolean closed = false;
+
+    /**
+     * Execute the statement and open the cursor. The statement is closed with the cursor.
+     *
+     * @param statement - Statement ready to be executed.
+     * @param fetchSize - Number of rows read from the database at once.
+     * @throws SQLException Exception during communication with the database.
+     */
+    ResultSetCursor(PreparedStatement statement, int fetchSize) throws SQLException {
+        this.statement = statement;
+        try {
+            statement.setFetchSize(fetchSize);
+            resultSet = statement.executeQuery();
+        } catch (SQLException e) {
+            close();
+            throw e;
+        }
+    }
+
+    /**
+     * Create the entity from the current row.
+     *
+     * @param resultSet - Result set positioned on the row.
+     * @return T - Entity.
+     * @throws SQLException Exception during communication with the database.
+     */
+    protected abstract T getEntityFromResultSet(ResultSet resultSet) throws SQLException;
+
+    @Override
+    public boolean hasNext()
+    {
+        if (nextEntity == null && !closed) {
+            try {
+                if (resultSet.next()) {
+                    nextEntity = getEntityFromResultSet(resultSet);
+                } else {
+                    close();
+                }
+            } catch (SQLException e) {
+                close();
+                throw new FailedToReadEntitiesException(e);
+            }
+        }
+        return nextEntity != null;
+    }
+
+    @Override
+    public T next()
+    {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        T entity = nextEntity;
+        nextEntity = null;
+        return entity;
+    }
+
+    @Override
+    public void close()
+    {
+        closed = true;
+        DatabaseEntity.closeStatement(statement);
+    }
+}
@@ -7,21 +7,52 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.Calendar;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Objects;
+import java.util.Map;
 
 import ligueBaseball.Logger;
 import ligueBaseball.Logger.LOG_TYPE;
 import ligueBaseball.exceptions.FailedToDeleteEntityException;
-import ligueBaseball.exceptions.FailedToRetrieveNextKeyFromSequenceException;
 import ligueBaseball.exceptions.FailedToRetrievePlayersOfTeamException;
 import ligueBaseball.exceptions.FailedToSaveEntityException;
 import ligueBaseball.exceptions.TeamIsNotEmptyException;
+import ligueBaseball.exceptions.TeamNameAlreadyTakenException;
 
 public class Team extends DatabaseEntity
 {
+    static final String INSERT_MEMBERSHIP_SQL = "INSERT INTO faitpartie (joueurid, equipeid, numero, datedebut) VALUES(?, ?, ?, ?);";
+    static final String END_MEMBERSHIP_SQL = "UPDATE faitpartie SET datefin = ? WHERE joueurid = ? AND equipeid = ?;";
+
+    private static final int NAME = 0;
+    private static final int FIELD = 1;
+    private static final EntityTable TABLE = new EntityTable("equipe", "equipeid", "equipenom", "terrainid");
+    private static final String UNIQUE_CONSTRAINT = "equipe_equipenom_key";
+    private static final String CREATE_SQL = "INSERT INTO equipe (equipeid, equipenom, terrainid) SELECT ?, ?, ? "
+            + "WHERE NOT EXISTS (SELECT 1 FROM equipe WHERE equipenom = ?) RETURNING terrainid;";
+    // The field is created only if none has its name and the team is created, the team gets the field returned either way.
+    private static final String CREATE_WITH_FIELD_SQL = "WITH nouveau AS (INSERT INTO terrain (terrainid, terrainnom, terrainadresse) SELECT ?, ?, ? "
+            + "WHERE NOT EXISTS (SELECT 1 FROM terrain WHERE terrainnom = ?) AND NOT EXISTS (SELECT 1 FROM equipe WHERE equipenom = ?) RETURNING terrainid) "
+            + "INSERT INTO equipe (equipeid, equipenom, terrainid) SELECT ?, ?, COALESCE((SELECT terrainid FROM nouveau), (SELECT MIN(terrainid) FROM terrain WHERE terrainnom = ?)) "
+            + "WHERE NOT EXISTS (SELECT 1 FROM equipe WHERE equipenom = ?) RETURNING terrainid;";
+    private static final TeamCache cache = new TeamCache(256);
+
     String name;
     int fieldId = -1;
 
+    /**
+     * Get the cache of the teams used by the finders.
+     *
+     * @return TeamCache - Cache shared by all the connections.
+     */
+    public static TeamCache getCache()
+    {
+        return cache;
+    }
+
     /**
      * Get all the teams.
      *
@@ -37,7 +68,9 @@ public class Team extends DatabaseEntity
             statement = databaseConnection.prepareStatement("SELECT * FROM equipe;");
             ResultSet teams = statement.executeQuery();
             while (teams.next()) {
-                teamList.add(getEntityFromResultSet(teams));
+                Team team = getEntityFromResultSet(teams);
+                cache.put(team);
+                teamList.add(team);
             }
         } catch (SQLException e) {
             Logger.error(LOG_TYPE.EXCEPTION, e.getMessage());
@@ -56,6 +89,11 @@ public class Team extends DatabaseEntity
      */
     public static Team getTeamWithId(Connection databaseConnection, int id)
     {
+        Team cachedTeam = cache.getWithId(id);
+        if (cachedTeam != null) {
+            return cachedTeam;
+        }
+
         PreparedStatement statement = null;
 
         try {
@@ -66,7 +104,9 @@ public class Team extends DatabaseEntity
             if (!teamResult.next()) {
                 return null;
             }
-            return getEntityFromResultSet(teamResult);
+            Team team = getEntityFromResultSet(teamResult);
+            cache.put(team);
+            return team;
 
         } catch (SQLException e) {
             Logger.error(LOG_TYPE.EXCEPTION, e.getMessage());
@@ -86,6 +126,11 @@ public class Team extends DatabaseEntity
      */
     public static Team getTeamWithName(Connection databaseConnection, String name)
     {
+        Team cachedTeam = cache.getWithName(name);
+        if (cachedTeam != null) {
+            return cachedTeam;
+        }
+
         PreparedStatement statement = null;
 
         try {
@@ -96,7 +141,9 @@ public class Team extends DatabaseEntity
             if (!teamResult.next()) {
                 return null;
             }
-            return getEntityFromResultSet(teamResult);
+            Team team = getEntityFromResultSet(teamResult);
+            cache.put(team);
+            return team;
 
         } catch (SQLException e) {
             Logger.error(LOG_TYPE.EXCEPTION, e.getMessage());
@@ -107,6 +154,20 @@ public class Team extends DatabaseEntity
         }
     }
 
+    /**
+     * Copy this team, used by the cache and the in-memory engine to hand out teams that can be modified safely.
+     *
+     * @return Team - Copy of this team.
+     */
+    public Team copy()
+    {
+        Team copy = new Team();
+        copy.id = id;
+        copy.name = name;
+        copy.fieldId = fieldId;
+        return copy;
+    }
+
     protected static Team getEntityFromResultSet(ResultSet teamResultSet) throws SQLException
     {
         Team entity = new Team();
@@ -118,56 +179,53 @@ public class Team extends DatabaseEntity
     }
 
     @Override
-    protected void create(Connection databaseConnection) throws FailedToSaveEntityException
+    EntityTable getTable()
     {
-        PreparedStatement statement = null;
-        try {
-            id = getNextIdForTable(databaseConnection, "equipe", "equipeid");
-            statement = databaseConnection.prepareStatement("INSERT INTO equipe (equipeid, equipenom, terrainid) VALUES(?, ?, ?);");
-            statement.setInt(1, id);
-            statement.setString(2, name);
-            statement.setInt(3, fieldId);
-            statement.execute();
-            databaseConnection.commit();
-
-        } catch (SQLException | FailedToRetrieveNextKeyFromSequenceException e) {
-            try {
-                databaseConnection.rollback();
-            } catch (SQLException e1) {
-                Logger.error(LOG_TYPE.EXCEPTION, e1.getMessage());
-            }
-            throw new FailedToSaveEntityException(e);
-        } finally {
-            closeStatement(statement);
+        return TABLE;
+    }
+
+    @Override
+    protected void bindColumn(PreparedStatement statement, int parameterIndex, int column) throws SQLException
+    {
+        switch (column) {
+            case NAME:
+                statement.setString(parameterIndex, name);
+                break;
+            default:
+                statement.setInt(parameterIndex, fieldId);
+                break;
         }
     }
 
     @Override
-    protected void update(Connection databaseConnection) throws FailedToSaveEntityException
+    protected void committed()
     {
-        PreparedStatement statement = null;
-        try {
-            statement = databaseConnection.prepareStatement("UPDATE equipe SET equipenom = ?, terrainid = ? WHERE equipeid = ?;");
-            statement.setString(1, name);
-            statement.setInt(2, fieldId);
-            statement.setInt(3, id);
-            statement.executeUpdate();
-            databaseConnection.commit();
+        cache.put(this);
+    }
 
-        } catch (SQLException e) {
-            try {
-                databaseConnection.rollback();
-            } catch (SQLException e1) {
-                Logger.error(LOG_TYPE.EXCEPTION, e1.getMessage());
-            }
-            throw new FailedToSaveEntityException(e);
-        } finally {
-            closeStatement(statement);
-        }
+    @Override
+    protected void rolledBack()
+    {
+        cache.remove(id);
     }
 
     @Override
-    public void delete(Connection databaseConnection) throws FailedToDeleteEntityException, TeamIsNotEmptyException
+    protected void deleted()
+    {
+        cache.remove(id);
+        name = null;
+        fieldId = -1;
+    }
+
+    /**
+     * Delete this team when the work is committed. Only a team without player can be deleted.
+     *
+     * @param databaseConnection - Connection with database, used to read the players of the team.
+     * @param work - Work of the command, committed with it.
+     * @throws FailedToDeleteEntityException Failed to delete entity.
+     * @throws TeamIsNotEmptyException The team still has players.
+     */
+    public void delete(Connection databaseConnection, UnitOfWork work) throws FailedToDeleteEntityException, TeamIsNotEmptyException
     {
         try {
             if (!getPlayers(databaseConnection).isEmpty()) {
@@ -176,30 +234,13 @@ public class Team extends DatabaseEntity
         } catch (FailedToRetrievePlayersOfTeamException e) {
             throw new FailedToDeleteEntityException("Impossible d'aller chercher la liste des joueurs.", e);
         }
+        delete(work);
+    }
 
-        if (id >= 0) {
-            PreparedStatement statement = null;
-            try {
-                // Delete equipe
-                statement = databaseConnection.prepareStatement("DELETE FROM equipe WHERE equipeid = ?;");
-                statement.setInt(1, id);
-                statement.executeUpdate();
-                databaseConnection.commit();
-
-            } catch (SQLException e) {
-                try {
-                    databaseConnection.rollback();
-                } catch (SQLException e1) {
-                    Logger.error(LOG_TYPE.EXCEPTION, e1.getMessage());
-                }
-                throw new FailedToDeleteEntityException(e);
-            } finally {
-                closeStatement(statement);
-            }
-        }
-        id = -1;
-        name = null;
-        fieldId = -1;
+    @Override
+    public void delete(UnitOfWork work)
+    {
+        work.delete(this);
     }
 
     /**
@@ -219,7 +260,10 @@ public class Team extends DatabaseEntity
      */
     public void setName(String name)
     {
-        this.name = name;
+        if (!Objects.equals(this.name, name)) {
+            this.name = name;
+            markChanged(NAME);
+        }
     }
 
     /**
@@ -231,103 +275,156 @@ public class Team extends DatabaseEntity
      */
     public List<Player> getPlayers(Connection databaseConnection) throws FailedToRetrievePlayersOfTeamException
     {
-        List<Player> players = new ArrayList<>();
+        return getRosters(databaseConnection, Collections.singletonList(this)).get(id);
+    }
+
+    /**
+     * Get the current players of many teams with a single query.
+     *
+     * @param databaseConnection - Connection with database
+     * @param teams - Teams for which we want the players, null for all the teams.
+     * @return Map - Players of each team ordered by name, by team ID. Every requested team has an entry, even when it has no player.
+     * @throws FailedToRetrievePlayersOfTeamException Failed to retrieve players of team.
+     */
+    public static Map<Integer, List<Player>> getRosters(Connection databaseConnection, Collection<Team> teams) throws FailedToRetrievePlayersOfTeamException
+    {
+        Map<Integer, List<Player>> rosters = new LinkedHashMap<>();
         PreparedStatement statement = null;
         try {
-            statement = databaseConnection.prepareStatement("SELECT joueurid FROM faitpartie WHERE equipeid = ? AND datefin IS NULL;");
-            statement.setInt(1, id);
+            String sql = "SELECT joueur.joueurid, joueur.joueurnom, joueur.joueurprenom, faitpartie.equipeid, faitpartie.numero, faitpartie.datedebut FROM faitpartie INNER JOIN joueur ON joueur.joueurid = faitpartie.joueurid WHERE faitpartie.datefin IS NULL";
+            if (teams == null) {
+                statement = databaseConnection.prepareStatement(sql + " ORDER BY faitpartie.equipeid, joueur.joueurnom, joueur.joueurprenom;");
+            } else {
+                Integer[] teamIds = new Integer[teams.size()];
+                int i = 0;
+                for (Team team : teams) {
+                    teamIds[i++] = team.id;
+                    rosters.put(team.id, new ArrayList<Player>());
+                }
+                statement = databaseConnection.prepareStatement(sql + " AND faitpartie.equipeid = ANY(?) ORDER BY faitpartie.equipeid, joueur.joueurnom, joueur.joueurprenom;");
+                statement.setArray(1, databaseConnection.createArrayOf("integer", teamIds));
+            }
 
+            // Rows are ordered by team, so the list only changes when the team does.
             ResultSet playersResultSet = statement.executeQuery();
-            if (playersResultSet.isBeforeFirst()) {
-                // Get all the players
-                while (playersResultSet.next()) {
-                    players.add(Player.getPlayerWithId(databaseConnection, playersResultSet.getInt("joueurid")));
+            int currentTeamId = -1;
+            List<Player> currentRoster = null;
+            while (playersResultSet.next()) {
+                Player player = Player.createFieldFromResultSet(playersResultSet);
+                if (currentRoster == null || player.teamId != currentTeamId) {
+                    currentTeamId = player.teamId;
+                    currentRoster = rosters.get(currentTeamId);
+                    if (currentRoster == null) {
+                        currentRoster = new ArrayList<>();
+                        rosters.put(currentTeamId, currentRoster);
+                    }
                 }
+                currentRoster.add(player);
             }
 
         } catch (SQLException e) {
-            throw new FailedToRetrievePlayersOfTeamException(name, e);
+            throw new FailedToRetrievePlayersOfTeamException(teams != null && teams.size() == 1 ? teams.iterator().next().name : "*", e);
 
         } finally {
             closeStatement(statement);
         }
 
-        return players;
+        return rosters;
     }
 
     /**
-     * Add a new player in this team.
+     * Create this team with a single statement, unless its name is taken, finding its field by name or creating it in the same statement. The
+     * unique constraint on the names of the teams also refuses a name taken by another client at the same time.
      *
-     * @param databaseConnection - Connection with database
-     * @param player - Player to add to team.
+     * @param work - Work of the command, committed with it.
+     * @param field - Field of the team, created only if no field has its name: it keeps no ID otherwise. Null for none.
+     * @throws TeamNameAlreadyTakenException The name of the team is already taken, nothing was written.
      * @throws FailedToSaveEntityException Failed to save entity.
      */
-    public void addPlayer(Connection databaseConnection, Player player) throws FailedToSaveEntityException
+    public void create(UnitOfWork work, final Field field) throws TeamNameAlreadyTakenException, FailedToSaveEntityException
     {
-        if (player.id < 0) {
-            player.save(databaseConnection);
-        }
-        // Insert
-        PreparedStatement statement = null;
-        try {
-            statement = databaseConnection.prepareStatement("INSERT INTO faitpartie (joueurid, equipeid, numero, datedebut) VALUES(?, ?, ?, ?);");
-            statement.setInt(1, player.getId());
-            statement.setInt(2, id);
-            statement.setInt(3, player.getNumber());
+        boolean created;
+        if (field == null) {
+            created = work.create(CREATE_SQL, UNIQUE_CONSTRAINT, new UnitOfWork.Write() {
+                @Override
+                void bind(PreparedStatement statement) throws SQLException
+                {
+                    bindInsert(statement);
+                    statement.setString(4, name);
+                }
+            }, this);
+        } else {
+            created = work.create(CREATE_WITH_FIELD_SQL, UNIQUE_CONSTRAINT, new UnitOfWork.Write() {
+                @Override
+                void bind(PreparedStatement statement) throws SQLException
+                {
+                    field.bindInsert(statement);
+                    statement.setString(4, field.getName());
+                    statement.setString(5, name);
+                    statement.setInt(6, id);
+                    statement.setString(7, name);
+                    statement.setString(8, field.getName());
+                    statement.setString(9, name);
+                }
 
-            if (player.getBeginningDate() != null) {
-                statement.setDate(4, player.getBeginningDate());
-            } else {
-                statement.setDate(4, new Date(Calendar.getInstance().getTime().getTime()));
-            }
+                @Override
+                void returned(ResultSet resultSet) throws SQLException
+                {
+                    fieldId = resultSet.getInt("terrainid");
+                    if (fieldId != field.id) {
+                        field.id = -1;
+                    }
+                }
+            }, field, this);
+        }
 
-            statement.execute();
-            databaseConnection.commit();
+        if (!created) {
+            throw new TeamNameAlreadyTakenException(name);
+        }
+    }
 
-        } catch (SQLException e) {
-            try {
-                databaseConnection.rollback();
-            } catch (SQLException e1) {
-                Logger.error(LOG_TYPE.EXCEPTION, e1.getMessage());
-            }
-            e.printStackTrace();
-            // Nothing because it should be because it was already there.
+    /**
+     * Give the values of a membership of a player to the statement returned by INSERT_MEMBERSHIP_SQL. The membership begins today if the player
+     * has no beginning date.
+     *
+     * @param statement - Statement adding the player to this team.
+     * @param player - Player joining this team.
+     * @throws SQLException Failed to set a value.
+     */
+    void bindMembership(PreparedStatement statement, Player player) throws SQLException
+    {
+        statement.setInt(1, player.getId());
+        statement.setInt(2, id);
+        statement.setInt(3, player.getNumber());
+        statement.setDate(4, getBeginningDate(player));
+    }
 
-        } finally {
-            closeStatement(statement);
+    /**
+     * Get the date a player joins a team: its beginning date, or today if it has none.
+     *
+     * @param player - Player joining a team.
+     * @return Date - Beginning of the membership.
+     */
+    static Date getBeginningDate(Player player)
+    {
+        if (player.getBeginningDate() != null) {
+            return player.getBeginningDate();
         }
+        return new Date(Calendar.getInstance().getTime().getTime());
     }
 
     /**
-     * Remove a player from this team.
+     * Give the values of the end of a membership of a player to the statement returned by END_MEMBERSHIP_SQL. The membership ends today.
      *
-     * @param databaseConnection - Connection with database
-     * @param player - Player to remove from team.
+     * @param statement - Statement removing the player from this team.
+     * @param player - Player leaving this team.
+     * @throws SQLException Failed to set a value.
      */
-    public void removePlayer(Connection databaseConnection, Player player)
+    void bindEndOfMembership(PreparedStatement statement, Player player) throws SQLException
     {
-        if (player.id >= 0) {
-            PreparedStatement statement = null;
-            try {
-                statement = databaseConnection.prepareStatement("UPDATE faitpartie SET datefin = ? WHERE joueurid = ? AND equipeid = ?;");
-                statement.setDate(1, new Date(Calendar.getInstance().getTime().getTime()));
-                statement.setInt(2, player.getId());
-                statement.setInt(3, id);
-
-                statement.executeUpdate();
-                databaseConnection.commit();
-
-            } catch (SQLException e) {
-                try {
-                    databaseConnection.rollback();
-                } catch (SQLException e1) {
-                    Logger.error(LOG_TYPE.EXCEPTION, e1.getMessage());
-                }
-                // Nothing
-            } finally {
-                closeStatement(statement);
-            }
-        }
+        statement.setDate(1, new Date(Calendar.getInstance().getTime().getTime()));
+        statement.setInt(2, player.getId());
+        statement.setInt(3, id);
     }
 
     /**
@@ -345,19 +442,35 @@ public class Team extends DatabaseEntity
     }
 
     /**
-     * Set the field related to this team.
-     * 
-     * @param databaseConnection - Connection with database
-     * @param field - Field to associate with this team.
-     * @throws FailedToSaveEntityException Failed to save entity.
+     * Set the field related to this team. The field must have been saved before.
+     *
+     * @param field - Field to associate with this team, null to keep the current one.
      */
-    public void setField(Connection databaseConnection, Field field) throws FailedToSaveEntityException
+    public void setField(Field field)
     {
         if (field != null) {
-            if (field.id < 0) { // Field haven't been created yet
-                field.save(databaseConnection);
+            if (field.id < 0) {
+                throw new IllegalArgumentException("Le terrain doit être sauvegardé avant d'être associé à une équipe.");
             }
-            fieldId = field.id;
+            setFieldId(field.id);
+        }
+    }
+
+    private void setFieldId(int fieldId)
+    {
+        if (this.fieldId != fieldId) {
+            this.fieldId = fieldId;
+            markChanged(FIELD);
         }
     }
+
+    /**
+     * Get the ID of the field related to this team.
+     *
+     * @return int - ID of the field, -1 if none.
+     */
+    public int getFieldId()
+    {
+        return fieldId;
+    }
 }
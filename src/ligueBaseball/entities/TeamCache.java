@@ -0,0 +1,167 @@
+package ligueBaseball.entities;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Bounded cache of the teams, indexed by ID and by name. The least recently used team is evicted when the cache is full. Copies are handed out so
+ * the cached teams can't be modified without being saved.
+ */
+public class TeamCache
+{
+    private int capacity;
+    private final LinkedHashMap<Integer, Team> teamsById = new LinkedHashMap<>(16, 0.75f, true);
+    private final HashMap<String, Integer> idsByName = new HashMap<>();
+
+    private long hitCount = 0;
+    private long missCount = 0;
+    private long evictionCount = 0;
+
+    /**
+     * Constructor
+     *
+     * @param capacity - Maximum number of teams kept in the cache, 0 to disable it.
+     */
+    public TeamCache(int capacity) {
+        this.capacity = capacity;
+    }
+
+    /**
+     * Set the maximum number of teams kept in the cache. Teams are evicted if needed.
+     *
+     * @param capacity - Maximum number of teams, 0 to disable the cache.
+     */
+    public synchronized void setCapacity(int capacity)
+    {
+        this.capacity = Math.max(capacity, 0);
+        evictIfNeeded();
+    }
+
+    /**
+     * Get the team with the given ID.
+     *
+     * @param id - ID of the team.
+     * @return Team - Copy of the cached team, null if not cached.
+     */
+    synchronized Team getWithId(int id)
+    {
+        Team team = teamsById.get(id);
+        return hitOrMiss(team);
+    }
+
+    /**
+     * Get the team with the given name.
+     *
+     * @param name - Name of the team.
+     * @return Team - Copy of the cached team, null if not cached.
+     */
+    synchronized Team getWithName(String name)
+    {
+        Integer id = idsByName.get(name);
+        return hitOrMiss(id == null ? null : teamsById.get(id));
+    }
+
+    /**
+     * Add or replace a team in the cache.
+     *
+     * @param team - Team as saved in the database.
+     */
+    synchronized void put(Team team)
+    {
+        if (capacity == 0 || team.id < 0) {
+            return;
+        }
+
+        Team previous = teamsById.put(team.id, team.copy());
+        if (previous != null && previous.name != null && !previous.name.equals(team.name)) {
+            idsByName.remove(previous.name);
+        }
+        if (team.name != null) {
+            idsByName.put(team.name, team.id);
+        }
+        evictIfNeeded();
+    }
+
+    /**
+     * Remove a team from the cache.
+     *
+     * @param id - ID of the team.
+     */
+    synchronized void remove(int id)
+    {
+        Team previous = teamsById.remove(id);
+        if (previous != null && previous.name != null) {
+            idsByName.remove(previous.name);
+        }
+    }
+
+    /**
+     * Remove all the teams from the cache. Used when changes made to the database have been rolled back.
+     */
+    public synchronized void clear()
+    {
+        teamsById.clear();
+        idsByName.clear();
+    }
+
+    public synchronized int getSize()
+    {
+        return teamsById.size();
+    }
+
+    public synchronized long getHitCount()
+    {
+        return hitCount;
+    }
+
+    public synchronized long getMissCount()
+    {
+        return missCount;
+    }
+
+    public synchronized long getEvictionCount()
+    {
+        return evictionCount;
+    }
+
+    @Override
+    public synchronized String toString()
+    {
+        long lookups = hitCount + missCount;
+        return String.format("Cache des équipes: %s/%s équipes, %s succès, %s échecs (%.1f %%), %s évictions", teamsById.size(), capacity, hitCount, missCount, lookups == 0 ? 0.0 : hitCount * 100.0 / lookups, evictionCount);
+    }
+
+    /**
+     * Count the lookup and copy the team if found.
+     *
+     * @param team - Cached team, can be null.
+     * @return Team - Copy of the team, null if not found.
+     */
+    private Team hitOrMiss(Team team)
+    {
+        if (team == null) {
+            ++missCount;
+            return null;
+        }
+        ++hitCount;
+        return team.copy();
+    }
+
+    /**
+     * Evict the least recently used teams until the cache isn't over capacity.
+     */
+    private void evictIfNeeded()
+    {
+        Iterator<Map.Entry<Integer, Team>> iterator = teamsById.entrySet().iterator();
+        while (teamsById.size() > capacity && iterator.hasNext()) {
+            Team evicted = iterator.next().getValue();
+            iterator.remove();
+            if (evicted.name != null) {
+                idsByName.remove(evicted.name);
+            }
+            ++evictionCount;
+        }
+    }
+}
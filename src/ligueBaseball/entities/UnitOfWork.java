@@ -0,0 +1,541 @@
+package ligueBaseball.entities;
+
+import java.sql.BatchUpdateException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import ligueBaseball.Logger;
+import ligueBaseball.Logger.LOG_TYPE;
+import ligueBaseball.exceptions.FailedToRetrieveNextKeyFromSequenceException;
+import ligueBaseball.exceptions.FailedToSaveEntityException;
+
+import org.postgresql.util.PSQLException;
+import org.postgresql.util.ServerErrorMessage;
+
+/**
+ * Writes of a command, kept until the command is done and then committed together. The rows are written table by table, a table only after
+ * the tables its rows refer to, and the rows of a table sharing the same SQL are sent in a single batch. A command saving a field and a team, or
+ * a player and its membership, costs one commit, and leaves nothing behind if one of the rows can't be written.
+ *
+ * The new entities get their ID when they are saved, so they can be referred to right away by the entities saved after them. The existing
+ * entities are only updated if they were changed, and only the columns that were changed are written: an entity saved many times is updated
+ * once, with every column changed in the meantime.
+ */
+public class UnitOfWork
+{
+    /**
+     * Tables in the order they are written, each one only referring to the tables before it.
+     */
+    private static final String[] TABLE_ORDER = { "terrain", "equipe", "joueur", "faitpartie", "arbitre", "match", "arbitrer" };
+
+    /**
+     * SQLState of a row refused by a unique constraint.
+     */
+    private static final String UNIQUE_VIOLATION = "23505";
+
+    private final Connection connection;
+    private final Map<String, Map<String, List<Write>>> pendingWrites = new HashMap<>();
+    private final Map<String, List<DatabaseEntity>> pendingUpdates = new HashMap<>();
+    private final Map<String, List<DatabaseEntity>> pendingDeletes = new HashMap<>();
+    private final Set<DatabaseEntity> pendingEntities = Collections.newSetFromMap(new IdentityHashMap<DatabaseEntity, Boolean>());
+    private final List<DatabaseEntity> createdEntities = new ArrayList<>();
+    private final List<DatabaseEntity> savedEntities = new ArrayList<>();
+    private final List<DatabaseEntity> deletedEntities = new ArrayList<>();
+    private final List<DatabaseEntity> writtenEntities = new ArrayList<>();
+    private final List<Integer> writtenColumns = new ArrayList<>();
+    private FailedToSaveEntityException failure;
+
+    /**
+     * Constructor
+     *
+     * @param connection - Connection with database, auto-commit must be disabled.
+     */
+    public UnitOfWork(Connection connection) {
+        this.connection = connection;
+    }
+
+    /**
+     * Create the entity, or update the columns changed since it was read or saved. Nothing is written for an existing entity that wasn't changed.
+     *
+     * @param entity - Entity to save.
+     * @throws FailedToSaveEntityException Failed to get an ID for a new entity.
+     */
+    public void save(final DatabaseEntity entity) throws FailedToSaveEntityException
+    {
+        if (pendingEntities.contains(entity) || (entity.id >= 0 && !entity.isDirty())) {
+            return;
+        }
+
+        EntityTable table = entity.getTable();
+        if (entity.id < 0) {
+            try {
+                entity.id = entity.getNextIdForTable(connection, table.getName(), table.getKeyColumnName());
+            } catch (FailedToRetrieveNextKeyFromSequenceException e) {
+                throw new FailedToSaveEntityException(e);
+            }
+            createdEntities.add(entity);
+            add(table.getName(), table.getInsertSql(), new Write() {
+                @Override
+                void bind(PreparedStatement statement) throws SQLException
+                {
+                    entity.bindInsert(statement);
+                }
+
+                @Override
+                void written()
+                {
+                    markWritten(entity, entity.getTable().getAllColumns());
+                }
+            });
+        } else {
+            List<DatabaseEntity> updates = pendingUpdates.get(table.getName());
+            if (updates == null) {
+                updates = new ArrayList<>();
+                pendingUpdates.put(table.getName(), updates);
+            }
+            updates.add(entity);
+        }
+        pendingEntities.add(entity);
+        savedEntities.add(entity);
+    }
+
+    /**
+     * Delete the entity when the work is committed, once the other rows are written. The rows are deleted table by table, a table before the
+     * tables its rows refer to. The entity loses its ID once the deletion is committed.
+     *
+     * @param entity - Entity to delete, nothing is done if it was never saved.
+     */
+    public void delete(DatabaseEntity entity)
+    {
+        if (entity.id < 0) {
+            return;
+        }
+        String table = entity.getTable().getName();
+        List<DatabaseEntity> deletes = pendingDeletes.get(table);
+        if (deletes == null) {
+            deletes = new ArrayList<>();
+            pendingDeletes.put(table, deletes);
+        }
+        deletes.add(entity);
+        deletedEntities.add(entity);
+    }
+
+    /**
+     * Add the player to the team when the work is committed. The player must have an ID, saving it in this work is enough.
+     *
+     * @param team - Team the player joins.
+     * @param player - Player joining the team, with its number and beginning date.
+     */
+    public void addPlayer(final Team team, final Player player)
+    {
+        add("faitpartie", Team.INSERT_MEMBERSHIP_SQL, new Write() {
+            @Override
+            void bind(PreparedStatement statement) throws SQLException
+            {
+                team.bindMembership(statement, player);
+            }
+        });
+    }
+
+    /**
+     * Remove the player from the team when the work is committed. The player keeps its history with the team.
+     *
+     * @param team - Team the player leaves.
+     * @param player - Player leaving the team.
+     */
+    public void removePlayer(final Team team, final Player player)
+    {
+        add("faitpartie", Team.END_MEMBERSHIP_SQL, new Write() {
+            @Override
+            void bind(PreparedStatement statement) throws SQLException
+            {
+                team.bindEndOfMembership(statement, player);
+            }
+        });
+    }
+
+    /**
+     * Assign the official to the match when the work is committed.
+     *
+     * @param match - Match to referee.
+     * @param official - Official refereeing the match.
+     */
+    public void addOfficial(final Match match, final Official official)
+    {
+        add("arbitrer", Match.INSERT_OFFICIAL_SQL, new Write() {
+            @Override
+            void bind(PreparedStatement statement) throws SQLException
+            {
+                match.bindOfficial(statement, official);
+            }
+        });
+    }
+
+    /**
+     * Create entities at once with a single statement, instead of when the work is committed. The pending rows are written first. The statement
+     * checks itself that the entity doesn't exist yet, and then returns no row. A unique constraint may also refuse an entity created by
+     * another client at the same time, the check not seeing it yet.
+     *
+     * @param sql - Statement creating the entities, with RETURNING so it is never deferred.
+     * @param uniqueConstraint - Name of the constraint refusing an entity that already exists, null if none.
+     * @param write - Binds the values of the statement, and reads the rows it returns.
+     * @param entities - New entities written by the statement, given their ID before it is executed.
+     * @return boolean - False if the entities already exist. If the constraint refused them, the transaction is rolled back, as for any failure.
+     * @throws FailedToSaveEntityException Failed to write the rows, another constraint refused them included.
+     */
+    boolean create(String sql, String uniqueConstraint, Write write, DatabaseEntity... entities) throws FailedToSaveEntityException
+    {
+        flushOrThrow();
+        for (DatabaseEntity entity : entities) {
+            if (entity.id >= 0) {
+                throw new IllegalStateException("L'entité a déjà un ID.");
+            }
+            EntityTable table = entity.getTable();
+            try {
+                entity.id = entity.getNextIdForTable(connection, table.getName(), table.getKeyColumnName());
+            } catch (FailedToRetrieveNextKeyFromSequenceException e) {
+                throw new FailedToSaveEntityException(e);
+            }
+            createdEntities.add(entity);
+            savedEntities.add(entity);
+        }
+
+        boolean returned = false;
+        PreparedStatement statement = null;
+        try {
+            statement = connection.prepareStatement(sql);
+            write.bind(statement);
+            if (statement.execute()) {
+                ResultSet resultSet = statement.getResultSet();
+                while (resultSet.next()) {
+                    write.returned(resultSet);
+                    returned = true;
+                }
+            }
+        } catch (SQLException e) {
+            fail(e);
+            FailedToSaveEntityException failed = takeFailure();
+            if (uniqueConstraint != null && uniqueConstraint.equals(getViolatedConstraint(e))) {
+                return false;
+            }
+            throw failed;
+        } finally {
+            DatabaseEntity.closeStatement(statement);
+        }
+
+        if (!returned) {
+            // Nothing was written, the entities are new again.
+            for (DatabaseEntity entity : entities) {
+                createdEntities.remove(entity);
+                savedEntities.remove(entity);
+                entity.id = -1;
+            }
+            return false;
+        }
+        for (DatabaseEntity entity : entities) {
+            markWritten(entity, entity.getTable().getAllColumns());
+        }
+        return true;
+    }
+
+    /**
+     * Check if nothing is waiting to be written.
+     *
+     * @return boolean - True if there is no pending write.
+     */
+    public boolean isEmpty()
+    {
+        return pendingWrites.isEmpty() && pendingUpdates.isEmpty() && pendingDeletes.isEmpty();
+    }
+
+    /**
+     * Write the pending rows without committing, so the queries of the command can read them. If it fails, the transaction is rolled back and
+     * the failure is kept for the commit.
+     *
+     * @return boolean - False if the rows couldn't be written.
+     */
+    public boolean flush()
+    {
+        if (failure != null) {
+            return false;
+        }
+        if (isEmpty()) {
+            return true;
+        }
+
+        try {
+            for (String table : TABLE_ORDER) {
+                Map<String, List<Write>> writes = pendingWrites.get(table);
+                if (writes != null) {
+                    for (Map.Entry<String, List<Write>> entry : writes.entrySet()) {
+                        execute(entry.getKey(), entry.getValue());
+                    }
+                }
+                List<DatabaseEntity> updates = pendingUpdates.get(table);
+                if (updates != null) {
+                    executeUpdates(updates);
+                }
+            }
+            for (int i = TABLE_ORDER.length - 1; i >= 0; --i) {
+                List<DatabaseEntity> deletes = pendingDeletes.get(TABLE_ORDER[i]);
+                if (deletes != null) {
+                    executeDeletes(deletes);
+                }
+            }
+            pendingWrites.clear();
+            pendingUpdates.clear();
+            pendingDeletes.clear();
+            pendingEntities.clear();
+            return true;
+
+        } catch (SQLException e) {
+            fail(e);
+            return false;
+        }
+    }
+
+    /**
+     * Write the pending rows without committing, and report the failure right away instead of keeping it for the commit.
+     *
+     * @throws FailedToSaveEntityException Failed to write the rows, the transaction was rolled back.
+     */
+    public void flushOrThrow() throws FailedToSaveEntityException
+    {
+        if (!flush()) {
+            throw takeFailure();
+        }
+    }
+
+    /**
+     * Write the pending rows and commit them. The work can be used again afterwards.
+     *
+     * @throws FailedToSaveEntityException Failed to write the rows, nothing was saved.
+     */
+    public void commit() throws FailedToSaveEntityException
+    {
+        if (flush()) {
+            try {
+                connection.commit();
+            } catch (SQLException e) {
+                fail(e);
+            }
+        }
+
+        if (failure != null) {
+            throw takeFailure();
+        }
+        for (DatabaseEntity entity : savedEntities) {
+            entity.committed();
+        }
+        for (DatabaseEntity entity : deletedEntities) {
+            entity.deleted();
+            entity.id = -1;
+        }
+        createdEntities.clear();
+        savedEntities.clear();
+        deletedEntities.clear();
+        writtenEntities.clear();
+        writtenColumns.clear();
+    }
+
+    /**
+     * Forget the pending rows. The rows already flushed stay in the transaction of the connection.
+     */
+    public void clear()
+    {
+        pendingWrites.clear();
+        pendingUpdates.clear();
+        pendingDeletes.clear();
+        pendingEntities.clear();
+        createdEntities.clear();
+        savedEntities.clear();
+        deletedEntities.clear();
+        writtenEntities.clear();
+        writtenColumns.clear();
+        failure = null;
+    }
+
+    /**
+     * Get the name of the unique constraint that refused a row, null if the failure is another one.
+     */
+    private static String getViolatedConstraint(SQLException e)
+    {
+        if (!UNIQUE_VIOLATION.equals(e.getSQLState()) || !(e instanceof PSQLException)) {
+            return null;
+        }
+        ServerErrorMessage message = ((PSQLException) e).getServerErrorMessage();
+        return message == null ? null : message.getConstraint();
+    }
+
+    private FailedToSaveEntityException takeFailure()
+    {
+        FailedToSaveEntityException e = failure;
+        failure = null;
+        return e;
+    }
+
+    private void add(String table, String sql, Write write)
+    {
+        Map<String, List<Write>> writes = pendingWrites.get(table);
+        if (writes == null) {
+            writes = new LinkedHashMap<>();
+            pendingWrites.put(table, writes);
+        }
+        List<Write> sameSql = writes.get(sql);
+        if (sameSql == null) {
+            sameSql = new ArrayList<>();
+            writes.put(sql, sameSql);
+        }
+        sameSql.add(write);
+    }
+
+    /**
+     * Update the entities of a table, the entities having the same changed columns in the same batch.
+     */
+    private void executeUpdates(List<DatabaseEntity> entities) throws SQLException
+    {
+        Map<Integer, List<Write>> writesByColumns = new LinkedHashMap<>();
+        for (final DatabaseEntity entity : entities) {
+            final int columns = entity.getDirtyColumns();
+            if (columns == 0) {
+                continue;
+            }
+            List<Write> writes = writesByColumns.get(columns);
+            if (writes == null) {
+                writes = new ArrayList<>();
+                writesByColumns.put(columns, writes);
+            }
+            writes.add(new Write() {
+                @Override
+                void bind(PreparedStatement statement) throws SQLException
+                {
+                    entity.bindUpdate(statement, columns);
+                }
+
+                @Override
+                void written()
+                {
+                    markWritten(entity, columns);
+                }
+            });
+        }
+
+        for (Map.Entry<Integer, List<Write>> entry : writesByColumns.entrySet()) {
+            execute(entities.get(0).getTable().getUpdateSql(entry.getKey()), entry.getValue());
+        }
+    }
+
+    /**
+     * Delete the entities of a table in a single batch.
+     */
+    private void executeDeletes(List<DatabaseEntity> entities) throws SQLException
+    {
+        List<Write> writes = new ArrayList<>();
+        for (final DatabaseEntity entity : entities) {
+            writes.add(new Write() {
+                @Override
+                void bind(PreparedStatement statement) throws SQLException
+                {
+                    statement.setInt(1, entity.id);
+                }
+            });
+        }
+        execute(entities.get(0).getTable().getDeleteSql(), writes);
+    }
+
+    /**
+     * Execute the writes sharing the same SQL, in a batch when there are many.
+     */
+    private void execute(String sql, List<Write> writes) throws SQLException
+    {
+        PreparedStatement statement = null;
+        try {
+            statement = connection.prepareStatement(sql);
+            if (writes.size() == 1) {
+                writes.get(0).bind(statement);
+                statement.executeUpdate();
+            } else {
+                for (Write write : writes) {
+                    write.bind(statement);
+                    statement.addBatch();
+                }
+                statement.executeBatch();
+            }
+        } catch (BatchUpdateException e) {
+            throw e.getNextException() != null ? e.getNextException() : e;
+        } finally {
+            DatabaseEntity.closeStatement(statement);
+        }
+
+        for (Write write : writes) {
+            write.written();
+        }
+    }
+
+    /**
+     * Mark the written columns of the entity as clean, remembering them in case the transaction is rolled back.
+     */
+    private void markWritten(DatabaseEntity entity, int columns)
+    {
+        entity.markClean(columns);
+        writtenEntities.add(entity);
+        writtenColumns.add(columns);
+    }
+
+    /**
+     * Roll back the transaction and give back their state to the entities, as if they had never been saved.
+     */
+    private void fail(SQLException e)
+    {
+        try {
+            connection.rollback();
+        } catch (SQLException e1) {
+            Logger.error(LOG_TYPE.EXCEPTION, e1.getMessage());
+        }
+        for (int i = 0; i < writtenEntities.size(); ++i) {
+            writtenEntities.get(i).markDirty(writtenColumns.get(i));
+        }
+        for (DatabaseEntity entity : savedEntities) {
+            entity.rolledBack();
+        }
+        for (DatabaseEntity entity : createdEntities) {
+            entity.id = -1;
+        }
+        clear();
+        failure = new FailedToSaveEntityException(e);
+    }
+
+    /**
+     * Row waiting to be written, binding its values when the statement is executed.
+     */
+    abstract static class Write
+    {
+        abstract void bind(PreparedStatement statement) throws SQLException;
+
+        /**
+         * Called with each row returned by a statement creating entities.
+         */
+        void returned(ResultSet resultSet) throws SQLException
+        {
+            // Nothing by default.
+        }
+
+        /**
+         * Called once the row has been written.
+         */
+        void written()
+        {
+            // Nothing by default.
+        }
+    }
+}
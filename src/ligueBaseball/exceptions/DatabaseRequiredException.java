@@ -0,0 +1,10 @@
+package ligueBaseball.exceptions;
+
+public class DatabaseRequiredException extends Exception
+{
+    private static final long serialVersionUID = 3620994715468825012L;
+
+    public DatabaseRequiredException(String commandName) {
+        super(String.format("La commande %s n'est possible qu'avec une base de données PostgreSQL.", commandName));
+    }
+}
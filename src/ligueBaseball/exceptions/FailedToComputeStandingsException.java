@@ -0,0 +1,10 @@
+package ligueBaseball.exceptions;
+
+public class FailedToComputeStandingsException extends Exception
+{
+    private static final long serialVersionUID = 2750914408867713129L;
+
+    public FailedToComputeStandingsException() {
+        super("Impossible de calculer le classement à partir des matchs.");
+    }
+}
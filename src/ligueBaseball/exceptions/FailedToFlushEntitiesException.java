@@ -0,0 +1,13 @@
+package ligueBaseball.exceptions;
+
+/**
+ * The entities saved by a command couldn't be written before one of its queries. Unchecked, since any query of the repositories writes them.
+ */
+public class FailedToFlushEntitiesException extends RuntimeException
+{
+    private static final long serialVersionUID = 5019834276310558841L;
+
+    public FailedToFlushEntitiesException(FailedToSaveEntityException cause) {
+        super(cause.getMessage(), cause);
+    }
+}
@@ -0,0 +1,15 @@
+package ligueBaseball.exceptions;
+
+import java.sql.SQLException;
+
+/**
+ * The rows of a cursor couldn't be read while going through it. Unchecked, since the cursors are iterators.
+ */
+public class FailedToReadEntitiesException extends RuntimeException
+{
+    private static final long serialVersionUID = -3615207484190673528L;
+
+    public FailedToReadEntitiesException(SQLException cause) {
+        super(String.format("Impossible de lire la suite des résultats : %s", cause.getMessage()), cause);
+    }
+}
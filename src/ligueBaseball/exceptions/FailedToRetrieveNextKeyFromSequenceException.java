@@ -7,4 +7,8 @@ public class FailedToRetrieveNextKeyFromSequenceException extends Exception
     public FailedToRetrieveNextKeyFromSequenceException(String tableName) {
         super(String.format("Problème lors de la récupération de la prochaine clé primaire pour la table '%s'.", tableName));
     }
+
+    public FailedToRetrieveNextKeyFromSequenceException(String tableName, Throwable cause) {
+        super(String.format("Problème lors de la récupération de la prochaine clé primaire pour la table '%s'.", tableName), cause);
+    }
 }
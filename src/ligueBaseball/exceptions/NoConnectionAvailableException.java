@@ -0,0 +1,10 @@
+package ligueBaseball.exceptions;
+
+public class NoConnectionAvailableException extends Exception
+{
+    private static final long serialVersionUID = -3061783312514512604L;
+
+    public NoConnectionAvailableException(int poolSize, long waitedMillis) {
+        super(String.format("Aucune connexion disponible parmi les %s du pool après %s ms d'attente.", poolSize, waitedMillis));
+    }
+}
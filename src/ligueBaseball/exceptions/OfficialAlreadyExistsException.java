@@ -0,0 +1,10 @@
+package ligueBaseball.exceptions;
+
+public class OfficialAlreadyExistsException extends Exception
+{
+    private static final long serialVersionUID = 4630719284365128903L;
+
+    public OfficialAlreadyExistsException() {
+        super("L'arbitre existe déjà.");
+    }
+}
@@ -0,0 +1,10 @@
+package ligueBaseball.exceptions;
+
+public class TooManyCommandParametersException extends Exception
+{
+    private static final long serialVersionUID = 2816075925637181092L;
+
+    public TooManyCommandParametersException(String command, String usage) {
+        super(String.format("Trop de paramètres pour la commande '%s' : %s", command, usage));
+    }
+}
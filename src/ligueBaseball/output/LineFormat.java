@@ -0,0 +1,113 @@
+package ligueBaseball.output;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Format of a line, parsed once and reused for every line written with it. Only supports %s with an optional width (%10s, %-10s) and %%, which is
+ * all the display commands need.
+ */
+public class LineFormat
+{
+    private final String[] literals;
+    private final int[] widths;
+
+    /**
+     * Parse a format such as " -> %-10s %-10s".
+     *
+     * @param pattern - Format of the line.
+     * @return LineFormat - Parsed format.
+     */
+    public static LineFormat compile(String pattern)
+    {
+        List<String> literals = new ArrayList<>();
+        List<Integer> widths = new ArrayList<>();
+        StringBuilder literal = new StringBuilder();
+
+        int i = 0;
+        while (i < pattern.length()) {
+            char c = pattern.charAt(i++);
+            if (c != '%') {
+                literal.append(c);
+                continue;
+            }
+            if (i < pattern.length() && pattern.charAt(i) == '%') {
+                literal.append('%');
+                ++i;
+                continue;
+            }
+
+            // %[-][width]s, a negative width pads on the right.
+            int sign = 1;
+            if (i < pattern.length() && pattern.charAt(i) == '-') {
+                sign = -1;
+                ++i;
+            }
+            int width = 0;
+            while (i < pattern.length() && Character.isDigit(pattern.charAt(i))) {
+                width = width * 10 + (pattern.charAt(i++) - '0');
+            }
+            if (i >= pattern.length() || pattern.charAt(i) != 's') {
+                throw new IllegalArgumentException(String.format("Format de ligne non supporté : %s", pattern));
+            }
+            ++i;
+
+            literals.add(literal.toString());
+            widths.add(sign * width);
+            literal.setLength(0);
+        }
+        literals.add(literal.toString());
+
+        int[] widthArray = new int[widths.size()];
+        for (int j = 0; j < widthArray.length; ++j) {
+            widthArray[j] = widths.get(j);
+        }
+        return new LineFormat(literals.toArray(new String[literals.size()]), widthArray);
+    }
+
+    private LineFormat(String[] literals, int[] widths) {
+        this.literals = literals;
+        this.widths = widths;
+    }
+
+    /**
+     * Get the number of values expected by the format.
+     *
+     * @return int - Number of values.
+     */
+    public int getColumnCount()
+    {
+        return widths.length;
+    }
+
+    /**
+     * Format the values at the end of the given line, as String.format would.
+     *
+     * @param line - Line being built.
+     * @param values - Values of the columns.
+     */
+    public void appendTo(StringBuilder line, Object... values)
+    {
+        for (int i = 0; i < widths.length; ++i) {
+            line.append(literals[i]);
+
+            String value = String.valueOf(values[i]);
+            int padding = Math.abs(widths[i]) - value.length();
+            if (widths[i] > 0) {
+                appendSpaces(line, padding);
+            }
+            line.append(value);
+            if (widths[i] < 0) {
+                appendSpaces(line, padding);
+            }
+        }
+        line.append(literals[widths.length]);
+    }
+
+    private static void appendSpaces(StringBuilder line, int count)
+    {
+        for (int i = 0; i < count; ++i) {
+            line.append(' ');
+        }
+    }
+}
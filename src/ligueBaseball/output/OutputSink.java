@@ -0,0 +1,174 @@
+package ligueBaseball.output;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+
+/**
+ * Buffered output of the commands. Nothing is written until the sink is flushed, once per command. In raw mode, only the data is written, one
+ * record per line with tab separated values, for other programs to read.
+ */
+public class OutputSink
+{
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final String LINE_SEPARATOR = System.lineSeparator();
+
+    private final Writer writer;
+    private final boolean raw;
+    private final StringBuilder line = new StringBuilder(256);
+    private boolean failed = false;
+
+    /**
+     * Constructor
+     *
+     * @param stream - Where to write, usually System.out.
+     * @param raw - Write tab separated records instead of the formatted text.
+     */
+    public OutputSink(OutputStream stream, boolean raw) {
+        this.writer = new BufferedWriter(new OutputStreamWriter(stream), BUFFER_SIZE);
+        this.raw = raw;
+    }
+
+    /**
+     * Check if only the raw records are written.
+     *
+     * @return boolean - True in raw mode.
+     */
+    public boolean isRaw()
+    {
+        return raw;
+    }
+
+    /**
+     * Write text without ending the line, in every mode.
+     *
+     * @param text - Text to write.
+     */
+    public void print(String text)
+    {
+        write(text);
+    }
+
+    /**
+     * Write a line, in every mode.
+     *
+     * @param text - Text of the line.
+     */
+    public void println(String text)
+    {
+        write(text);
+        write(LINE_SEPARATOR);
+    }
+
+    /**
+     * Write a line meant for humans only, skipped in raw mode.
+     *
+     * @param text - Text of the line.
+     */
+    public void text(String text)
+    {
+        if (!raw) {
+            println(text);
+        }
+    }
+
+    /**
+     * Write a formatted line meant for humans only, skipped in raw mode.
+     *
+     * @param format - Format of the line.
+     * @param values - Values of the columns.
+     */
+    public void text(LineFormat format, Object... values)
+    {
+        if (!raw) {
+            line.setLength(0);
+            format.appendTo(line, values);
+            writeLine();
+        }
+    }
+
+    /**
+     * Write a record in raw mode only.
+     *
+     * @param values - Values of the record.
+     */
+    public void record(Object... values)
+    {
+        if (raw) {
+            line.setLength(0);
+            for (int i = 0; i < values.length; ++i) {
+                if (i > 0) {
+                    line.append('\t');
+                }
+                appendRawValue(String.valueOf(values[i]));
+            }
+            writeLine();
+        }
+    }
+
+    /**
+     * Write a line in every mode: formatted for humans, or as a record in raw mode.
+     *
+     * @param format - Format of the line.
+     * @param values - Values of the columns.
+     */
+    public void row(LineFormat format, Object... values)
+    {
+        if (raw) {
+            record(values);
+        } else {
+            text(format, values);
+        }
+    }
+
+    /**
+     * Write everything that has been buffered.
+     */
+    public void flush()
+    {
+        try {
+            writer.flush();
+        } catch (IOException e) {
+            failed = true;
+        }
+    }
+
+    /**
+     * Check if an error occurred while writing, like PrintStream.checkError().
+     *
+     * @return boolean - True if some output has been lost.
+     */
+    public boolean checkError()
+    {
+        return failed;
+    }
+
+    private void appendRawValue(String value)
+    {
+        for (int i = 0; i < value.length(); ++i) {
+            char c = value.charAt(i);
+            line.append(c == '\t' || c == '\n' || c == '\r' ? ' ' : c);
+        }
+    }
+
+    private void writeLine()
+    {
+        line.append(LINE_SEPARATOR);
+        try {
+            writer.append(line);
+        } catch (IOException e) {
+            failed = true;
+        }
+    }
+
+    private void write(String text)
+    {
+        try {
+            writer.write(text);
+        } catch (IOException e) {
+            failed = true;
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package ligueBaseball.repositories;
+
+/**
+ * Action run once the work of a command is over, such as updating what is kept in memory from what the command saved.
+ */
+public interface CompletionListener
+{
+    /**
+     * Called once, after the work of the command was committed or dropped.
+     *
+     * @param committed - True if the work was committed, false if it was dropped.
+     */
+    void completed(boolean committed);
+}
@@ -0,0 +1,34 @@
+package ligueBaseball.repositories;
+
+import ligueBaseball.entities.Field;
+import ligueBaseball.exceptions.FailedToSaveEntityException;
+
+/**
+ * Access to the fields.
+ */
+public interface FieldRepository
+{
+    /**
+     * Get the field with the given ID.
+     *
+     * @param id - ID of the field.
+     * @return Field - If found, otherwise return null.
+     */
+    Field getFieldWithId(int id);
+
+    /**
+     * Get the field with the given name.
+     *
+     * @param name - Name of the field.
+     * @return Field - If found, otherwise return null.
+     */
+    Field getFieldWithName(String name);
+
+    /**
+     * Create or update the field.
+     *
+     * @param field - Field to save.
+     * @throws FailedToSaveEntityException Failed to save entity.
+     */
+    void save(Field field) throws FailedToSaveEntityException;
+}
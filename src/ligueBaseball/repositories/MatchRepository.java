@@ -0,0 +1,108 @@
+package ligueBaseball.repositories;
+
+import java.sql.Date;
+import java.sql.Time;
+import java.util.List;
+
+import ligueBaseball.entities.EntityCursor;
+import ligueBaseball.entities.Match;
+import ligueBaseball.entities.MatchReport;
+import ligueBaseball.entities.Official;
+import ligueBaseball.exceptions.FailedToSaveEntityException;
+import ligueBaseball.exceptions.TeamDoesntExistException;
+import ligueBaseball.standings.TeamStanding;
+
+/**
+ * Access to the matches, to their officials and to their reports.
+ */
+public interface MatchRepository
+{
+    /**
+     * Get the match with the given ID.
+     *
+     * @param id - ID of the match.
+     * @return Match - If found, otherwise return null.
+     */
+    Match getMatchWithId(int id);
+
+    /**
+     * Get a match that occured at a specific time between two given teams.
+     *
+     * @param date - Date of the match.
+     * @param time - Time of the match.
+     * @param localTeamName - Name of the local team.
+     * @param visitorTeamName - Name of the visitor team.
+     * @return Match - If found, otherwise return null.
+     * @throws TeamDoesntExistException Team doesn't exists.
+     */
+    Match getMatchWithDateTimeTeams(Date date, Time time, String localTeamName, String visitorTeamName) throws TeamDoesntExistException;
+
+    /**
+     * Create or update the match.
+     *
+     * @param match - Match to save.
+     * @throws FailedToSaveEntityException Failed to save entity.
+     */
+    void save(Match match) throws FailedToSaveEntityException;
+
+    /**
+     * Enter the result of a saved match. The result it had is read again as it is replaced: another command entering the result of the same
+     * match at the same time waits until this one is done, and then replaces the result this one entered.
+     *
+     * @param match - Match, given the new result.
+     * @param localTeamScore - Local team score.
+     * @param visitorTeamScore - Visitor team score.
+     * @return Match - The match as it was before, with the result it had.
+     * @throws FailedToSaveEntityException Failed to save entity.
+     */
+    Match enterResult(Match match, int localTeamScore, int visitorTeamScore) throws FailedToSaveEntityException;
+
+    /**
+     * Get the officials of the match.
+     *
+     * @param match - Match.
+     * @return List - Officials of the match, empty if none.
+     */
+    List<Official> getOfficials(Match match);
+
+    /**
+     * Add an official to a saved match.
+     *
+     * @param match - Match.
+     * @param official - Official that was present at this match.
+     * @throws FailedToSaveEntityException Failed to save entity.
+     */
+    void addOfficial(Match match, Official official) throws FailedToSaveEntityException;
+
+    /**
+     * Iterate over the report of every match, ordered by date and time.
+     *
+     * @return EntityCursor - Cursor to close once done, null if the query failed.
+     */
+    EntityCursor<MatchReport> openAllReports();
+
+    /**
+     * Iterate over the report of every match played since the given date, ordered by date and time.
+     *
+     * @param date - Date of the first match.
+     * @return EntityCursor - Cursor to close once done, null if the query failed.
+     */
+    EntityCursor<MatchReport> openReportsFromDate(Date date);
+
+    /**
+     * Iterate over the report of every match played by the given team, ordered by date and time.
+     *
+     * @param teamName - Name of the team.
+     * @return EntityCursor - Cursor to close once done, null if the query failed.
+     * @throws TeamDoesntExistException Team doesn't exists.
+     */
+    EntityCursor<MatchReport> openReportsOfTeam(String teamName) throws TeamDoesntExistException;
+
+    /**
+     * Compute the standings of the teams from the results of all the matches. Reads every match, the standings are kept up to date by the
+     * application afterward.
+     *
+     * @return List - Standings of the teams having at least one result, null if they couldn't be computed.
+     */
+    List<TeamStanding> computeStandings();
+}
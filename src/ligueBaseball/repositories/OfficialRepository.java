@@ -0,0 +1,55 @@
+package ligueBaseball.repositories;
+
+import java.util.List;
+
+import ligueBaseball.entities.Official;
+import ligueBaseball.exceptions.FailedToSaveEntityException;
+import ligueBaseball.exceptions.OfficialAlreadyExistsException;
+
+/**
+ * Access to the officials.
+ */
+public interface OfficialRepository
+{
+    /**
+     * Get all the officials.
+     *
+     * @return List - All the officials, ordered by first name.
+     */
+    List<Official> getAllOfficials();
+
+    /**
+     * Get the official with the given ID.
+     *
+     * @param id - ID of the official.
+     * @return Official - If found, otherwise return null.
+     */
+    Official getOfficialWithId(int id);
+
+    /**
+     * Get the official with the given name.
+     *
+     * @param firstName - First name of the official.
+     * @param lastName - Last name of the official.
+     * @return Official - If found, otherwise return null.
+     */
+    Official getOfficialWithName(String firstName, String lastName);
+
+    /**
+     * Create the official at once. The names are checked by the storage itself while the official is written, so the same official can't be
+     * created twice even at the same time.
+     *
+     * @param official - New official.
+     * @throws OfficialAlreadyExistsException An official has the same names, nothing was saved.
+     * @throws FailedToSaveEntityException Failed to save entity.
+     */
+    void create(Official official) throws OfficialAlreadyExistsException, FailedToSaveEntityException;
+
+    /**
+     * Create or update the official.
+     *
+     * @param official - Official to save.
+     * @throws FailedToSaveEntityException Failed to save entity.
+     */
+    void save(Official official) throws FailedToSaveEntityException;
+}
@@ -0,0 +1,58 @@
+package ligueBaseball.repositories;
+
+import java.util.List;
+
+import ligueBaseball.entities.Player;
+import ligueBaseball.entities.Team;
+import ligueBaseball.exceptions.FailedToSaveEntityException;
+import ligueBaseball.exceptions.PlayerAlreadyExistsException;
+
+/**
+ * Access to the players.
+ */
+public interface PlayerRepository
+{
+    /**
+     * Get the player with the given ID, with its current or last team.
+     *
+     * @param id - ID of the player.
+     * @return Player - If found, otherwise return null.
+     */
+    Player getPlayerWithId(int id);
+
+    /**
+     * Get the players currently in a team having the given name.
+     *
+     * @param firstName - First name of the player.
+     * @param lastName - Last name of the player.
+     * @return List - Players found, empty if none.
+     */
+    List<Player> getPlayerWithName(String firstName, String lastName);
+
+    /**
+     * Create the player at once, in its team if one is given. The number is checked by the storage itself while the player joins the team, so
+     * two current players of a team can't wear the same number even when they are added at the same time.
+     *
+     * @param player - New player, with its number and beginning date if it joins a team.
+     * @param team - Team the player joins, null for none.
+     * @throws PlayerAlreadyExistsException The number is already worn by a current player of the team, nothing was saved.
+     * @throws FailedToSaveEntityException Failed to save entity.
+     */
+    void create(Player player, Team team) throws PlayerAlreadyExistsException, FailedToSaveEntityException;
+
+    /**
+     * Create or update the player.
+     *
+     * @param player - Player to save.
+     * @throws FailedToSaveEntityException Failed to save entity.
+     */
+    void save(Player player) throws FailedToSaveEntityException;
+
+    /**
+     * Get the team the player plays for.
+     *
+     * @param player - Player.
+     * @return Team - If found, otherwise return null.
+     */
+    Team getTeam(Player player);
+}
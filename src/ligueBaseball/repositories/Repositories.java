@@ -0,0 +1,44 @@
+package ligueBaseball.repositories;
+
+import ligueBaseball.exceptions.FailedToSaveEntityException;
+
+/**
+ * Repositories of every entity, used by a single command at a time. The work of the command is committed once it succeeds, closing them without
+ * committing drops what wasn't committed and gives back what they hold, like the connection with the database.
+ */
+public interface Repositories extends AutoCloseable
+{
+    TeamRepository teams();
+
+    PlayerRepository players();
+
+    FieldRepository fields();
+
+    OfficialRepository officials();
+
+    MatchRepository matches();
+
+    /**
+     * Make the work of the command durable. The entities saved by the command may only be written now, all together: if one of them can't be
+     * written, none is.
+     *
+     * @throws FailedToSaveEntityException Failed to save the entities, nothing was saved.
+     */
+    void commit() throws FailedToSaveEntityException;
+
+    /**
+     * Run an action once the work of the command is committed or dropped. Only the work committed so far is durable, what is kept in memory
+     * from what the command saved must only be updated once it is.
+     *
+     * @param listener - Action run once, by commit(), discard() or close().
+     */
+    void addCompletionListener(CompletionListener listener);
+
+    /**
+     * Drop the work of the command that wasn't committed, keeping the connection. Used when the transaction is rolled back by its owner.
+     */
+    void discard();
+
+    @Override
+    void close();
+}
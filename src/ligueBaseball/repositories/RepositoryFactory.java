@@ -0,0 +1,19 @@
+package ligueBaseball.repositories;
+
+import ligueBaseball.exceptions.FailedToConnectToDatabaseException;
+import ligueBaseball.exceptions.NoConnectionAvailableException;
+
+/**
+ * Storage engine of the league. Gives the repositories used by each command.
+ */
+public interface RepositoryFactory
+{
+    /**
+     * Open the repositories for a command. They must be closed once the command is done.
+     *
+     * @return Repositories - Repositories of every entity.
+     * @throws FailedToConnectToDatabaseException Failed to open a connection with the database.
+     * @throws NoConnectionAvailableException No connection became available in time.
+     */
+    Repositories open() throws FailedToConnectToDatabaseException, NoConnectionAvailableException;
+}
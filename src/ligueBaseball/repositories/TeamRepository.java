@@ -0,0 +1,114 @@
+package ligueBaseball.repositories;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+import ligueBaseball.entities.Field;
+import ligueBaseball.entities.Player;
+import ligueBaseball.entities.Team;
+import ligueBaseball.exceptions.FailedToDeleteEntityException;
+import ligueBaseball.exceptions.FailedToRetrievePlayersOfTeamException;
+import ligueBaseball.exceptions.FailedToSaveEntityException;
+import ligueBaseball.exceptions.TeamIsNotEmptyException;
+import ligueBaseball.exceptions.TeamNameAlreadyTakenException;
+
+/**
+ * Access to the teams and to their players.
+ */
+public interface TeamRepository
+{
+    /**
+     * Get all the teams.
+     *
+     * @return List - All the teams.
+     */
+    List<Team> getAllTeams();
+
+    /**
+     * Get the team with the given ID.
+     *
+     * @param id - ID of the team.
+     * @return Team - If found, otherwise return null.
+     */
+    Team getTeamWithId(int id);
+
+    /**
+     * Get the team with the given name.
+     *
+     * @param name - Name of the team.
+     * @return Team - If found, otherwise return null.
+     */
+    Team getTeamWithName(String name);
+
+    /**
+     * Create the team at once, with its field. The name is checked by the storage itself while the team is written, so two teams can't take
+     * the same name even when they are created at the same time.
+     *
+     * @param team - New team.
+     * @param field - Field of the team, found by its name or created with its address. Null for none.
+     * @throws TeamNameAlreadyTakenException The name of the team is already taken, nothing was saved.
+     * @throws FailedToSaveEntityException Failed to save entity.
+     */
+    void create(Team team, Field field) throws TeamNameAlreadyTakenException, FailedToSaveEntityException;
+
+    /**
+     * Create or update the team.
+     *
+     * @param team - Team to save.
+     * @throws FailedToSaveEntityException Failed to save entity.
+     */
+    void save(Team team) throws FailedToSaveEntityException;
+
+    /**
+     * Delete the team. Only a team without player can be deleted.
+     *
+     * @param team - Team to delete.
+     * @throws FailedToDeleteEntityException Failed to delete entity.
+     * @throws TeamIsNotEmptyException The team still has players.
+     */
+    void delete(Team team) throws FailedToDeleteEntityException, TeamIsNotEmptyException;
+
+    /**
+     * Get the current players of the team.
+     *
+     * @param team - Team.
+     * @return List - Players ordered by name.
+     * @throws FailedToRetrievePlayersOfTeamException Failed to retrieve players of team.
+     */
+    List<Player> getPlayers(Team team) throws FailedToRetrievePlayersOfTeamException;
+
+    /**
+     * Get the current players of many teams at once.
+     *
+     * @param teams - Teams for which we want the players, null for all the teams.
+     * @return Map - Players of each team ordered by name, by team ID. Every requested team has an entry, even when it has no player.
+     * @throws FailedToRetrievePlayersOfTeamException Failed to retrieve players of team.
+     */
+    Map<Integer, List<Player>> getRosters(Collection<Team> teams) throws FailedToRetrievePlayersOfTeamException;
+
+    /**
+     * Add a player to the team, saving the player first if needed.
+     *
+     * @param team - Team the player joins.
+     * @param player - Player joining the team.
+     * @throws FailedToSaveEntityException Failed to save entity.
+     */
+    void addPlayer(Team team, Player player) throws FailedToSaveEntityException;
+
+    /**
+     * Remove a player from the team. The player keeps its history with the team.
+     *
+     * @param team - Team the player leaves.
+     * @param player - Player leaving the team.
+     */
+    void removePlayer(Team team, Player player);
+
+    /**
+     * Get the field of the team.
+     *
+     * @param team - Team.
+     * @return Field - If the team has one, otherwise return null.
+     */
+    Field getField(Team team);
+}
@@ -0,0 +1,41 @@
+package ligueBaseball.repositories.memory;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import ligueBaseball.entities.EntityCursor;
+
+/**
+ * Cursor over entities already in memory. Closing it only stops the iteration.
+ *
+ * @param <T> - Type of the entities.
+ */
+class IteratorCursor<T> implements EntityCursor<T>
+{
+    private Iterator<T> iterator;
+
+    IteratorCursor(Iterator<T> iterator) {
+        this.iterator = iterator;
+    }
+
+    @Override
+    public boolean hasNext()
+    {
+        return iterator != null && iterator.hasNext();
+    }
+
+    @Override
+    public T next()
+    {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        return iterator.next();
+    }
+
+    @Override
+    public void close()
+    {
+        iterator = null;
+    }
+}
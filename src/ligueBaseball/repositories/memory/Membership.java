@@ -0,0 +1,27 @@
+package ligueBaseball.repositories.memory;
+
+import java.sql.Date;
+
+/**
+ * Time a player spent in a team, the in-memory version of a row of faitpartie.
+ */
+class Membership
+{
+    final int playerId;
+    final int teamId;
+    final int number;
+    final Date beginDate;
+    Date endDate; // Null while the player is in the team
+
+    Membership(int playerId, int teamId, int number, Date beginDate) {
+        this.playerId = playerId;
+        this.teamId = teamId;
+        this.number = number;
+        this.beginDate = beginDate;
+    }
+
+    boolean isCurrent()
+    {
+        return endDate == null;
+    }
+}
@@ -0,0 +1,854 @@
+package ligueBaseball.repositories.memory;
+
+import java.sql.Date;
+import java.sql.Time;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import ligueBaseball.entities.EntityCursor;
+import ligueBaseball.entities.Field;
+import ligueBaseball.entities.Match;
+import ligueBaseball.entities.MatchReport;
+import ligueBaseball.entities.Official;
+import ligueBaseball.entities.Player;
+import ligueBaseball.entities.Team;
+import ligueBaseball.exceptions.FailedToDeleteEntityException;
+import ligueBaseball.exceptions.FailedToSaveEntityException;
+import ligueBaseball.exceptions.OfficialAlreadyExistsException;
+import ligueBaseball.exceptions.PlayerAlreadyExistsException;
+import ligueBaseball.exceptions.TeamDoesntExistException;
+import ligueBaseball.exceptions.TeamIsNotEmptyException;
+import ligueBaseball.exceptions.TeamNameAlreadyTakenException;
+import ligueBaseball.repositories.CompletionListener;
+import ligueBaseball.repositories.FieldRepository;
+import ligueBaseball.repositories.MatchRepository;
+import ligueBaseball.repositories.OfficialRepository;
+import ligueBaseball.repositories.PlayerRepository;
+import ligueBaseball.repositories.Repositories;
+import ligueBaseball.repositories.TeamRepository;
+import ligueBaseball.standings.TeamStanding;
+
+/**
+ * League kept in memory. Every table has a hash index on its primary key and on the names used by the commands, the officials are kept sorted
+ * by name and the matches by date. The entities are copied when they are saved and when they are handed out, so a change made to an entity is
+ * only seen once it is saved, and never outside the lock. Every access locks the whole database, the sessions of the server can share it.
+ */
+class MemoryDatabase implements Repositories
+{
+    // Same orders as the queries of the entities.
+    private static final Comparator<Player> PLAYER_ORDER = new Comparator<Player>() {
+        @Override
+        public int compare(Player first, Player second)
+        {
+            int result = first.getLastName().compareTo(second.getLastName());
+            return result != 0 ? result : first.getFirstName().compareTo(second.getFirstName());
+        }
+    };
+    private static final Comparator<Match> MATCH_ORDER = new Comparator<Match>() {
+        @Override
+        public int compare(Match first, Match second)
+        {
+            int result = first.getDate().compareTo(second.getDate());
+            if (result == 0) {
+                result = first.getTime().compareTo(second.getTime());
+            }
+            return result != 0 ? result : Integer.compare(first.getId(), second.getId());
+        }
+    };
+    private static final char KEY_SEPARATOR = '\u0000';
+
+    // Teams
+    private final Map<Integer, Team> teams = new LinkedHashMap<>();
+    private final Map<String, Team> teamsByName = new HashMap<>();
+    private final Map<Integer, String> teamNames = new HashMap<>();
+    private int nextTeamId = 1;
+
+    // Fields
+    private final Map<Integer, Field> fields = new HashMap<>();
+    private final Map<String, Field> fieldsByName = new HashMap<>();
+    private final Map<Integer, String> fieldNames = new HashMap<>();
+    private int nextFieldId = 1;
+
+    // Officials, sorted by first name then last name.
+    private final Map<Integer, Official> officials = new HashMap<>();
+    private final TreeMap<String, Official> officialsByName = new TreeMap<>();
+    private final Map<Integer, String> officialNames = new HashMap<>();
+    private int nextOfficialId = 1;
+
+    // Players and the teams they played for.
+    private final Map<Integer, Player> players = new HashMap<>();
+    private final Map<String, List<Player>> playersByName = new HashMap<>();
+    private final Map<Integer, String> playerNames = new HashMap<>();
+    private final Map<Integer, List<Membership>> membershipsByPlayer = new HashMap<>();
+    private final Map<Integer, List<Membership>> rosters = new HashMap<>();
+    private int nextPlayerId = 1;
+
+    // Matches, sorted by date, and their officials.
+    private final Map<Integer, Match> matches = new HashMap<>();
+    private final Map<List<Object>, Match> matchesByKey = new HashMap<>();
+    private final Map<Integer, List<Object>> matchKeys = new HashMap<>();
+    private final TreeMap<Date, List<Match>> matchesByDate = new TreeMap<>();
+    private final Map<Integer, List<Match>> matchesByTeam = new HashMap<>();
+    private final Map<Integer, List<Integer>> officialsByMatch = new HashMap<>();
+    private int nextMatchId = 1;
+
+    private final TeamRepository teamRepository = new TeamRepository() {
+        @Override
+        public List<Team> getAllTeams()
+        {
+            synchronized (MemoryDatabase.this) {
+                List<Team> copies = new ArrayList<>(teams.size());
+                for (Team team : teams.values()) {
+                    copies.add(team.copy());
+                }
+                return copies;
+            }
+        }
+
+        @Override
+        public Team getTeamWithId(int id)
+        {
+            synchronized (MemoryDatabase.this) {
+                return copyOf(teams.get(id));
+            }
+        }
+
+        @Override
+        public Team getTeamWithName(String name)
+        {
+            synchronized (MemoryDatabase.this) {
+                return copyOf(teamsByName.get(name));
+            }
+        }
+
+        @Override
+        public void create(Team team, Field field) throws TeamNameAlreadyTakenException, FailedToSaveEntityException
+        {
+            synchronized (MemoryDatabase.this) {
+                if (teamsByName.containsKey(team.getName())) {
+                    throw new TeamNameAlreadyTakenException(team.getName());
+                }
+                if (field != null) {
+                    Field sameName = fieldsByName.get(field.getName());
+                    if (sameName == null) {
+                        fieldRepository.save(field);
+                        sameName = field;
+                    }
+                    team.setField(sameName);
+                }
+                save(team);
+            }
+        }
+
+        @Override
+        public void save(Team team) throws FailedToSaveEntityException
+        {
+            synchronized (MemoryDatabase.this) {
+                Team sameName = teamsByName.get(team.getName());
+                if (sameName != null && sameName.getId() != team.getId()) {
+                    throw new FailedToSaveEntityException(String.format("le nom d'équipe '%s' est déjà pris.", team.getName()));
+                }
+                if (team.getFieldId() >= 0 && !fields.containsKey(team.getFieldId())) {
+                    throw new FailedToSaveEntityException("le terrain de l'équipe n'existe pas.");
+                }
+                if (team.getId() < 0) {
+                    team.assignId(nextTeamId++);
+                }
+                Team snapshot = team.copy();
+                teams.put(snapshot.getId(), snapshot);
+                index(teamsByName, teamNames, snapshot.getId(), snapshot.getName(), snapshot);
+            }
+        }
+
+        @Override
+        public void delete(Team team) throws FailedToDeleteEntityException, TeamIsNotEmptyException
+        {
+            synchronized (MemoryDatabase.this) {
+                List<Membership> roster = rosters.get(team.getId());
+                if (roster != null && !roster.isEmpty()) {
+                    throw new TeamIsNotEmptyException(team.getName());
+                }
+                List<Match> played = matchesByTeam.get(team.getId());
+                if (played != null && !played.isEmpty()) {
+                    throw new FailedToDeleteEntityException(String.format("L'équipe %s a joué des matchs.", team.getName()));
+                }
+                teams.remove(team.getId());
+                teamsByName.remove(teamNames.remove(team.getId()));
+                rosters.remove(team.getId());
+            }
+        }
+
+        @Override
+        public List<Player> getPlayers(Team team)
+        {
+            synchronized (MemoryDatabase.this) {
+                return getRoster(team.getId());
+            }
+        }
+
+        @Override
+        public Map<Integer, List<Player>> getRosters(Collection<Team> requestedTeams)
+        {
+            synchronized (MemoryDatabase.this) {
+                Map<Integer, List<Player>> result = new LinkedHashMap<>();
+                if (requestedTeams == null) {
+                    List<Integer> teamIds = new ArrayList<>(rosters.keySet());
+                    Collections.sort(teamIds);
+                    for (int teamId : teamIds) {
+                        List<Player> roster = getRoster(teamId);
+                        if (!roster.isEmpty()) {
+                            result.put(teamId, roster);
+                        }
+                    }
+                } else {
+                    for (Team team : requestedTeams) {
+                        result.put(team.getId(), getRoster(team.getId()));
+                    }
+                }
+                return result;
+            }
+        }
+
+        @Override
+        public void addPlayer(Team team, Player player) throws FailedToSaveEntityException
+        {
+            synchronized (MemoryDatabase.this) {
+                if (player.getId() < 0) {
+                    playerRepository.save(player);
+                }
+                if (!teams.containsKey(team.getId())) {
+                    throw new FailedToSaveEntityException(String.format("l'équipe %s n'existe pas.", team.getName()));
+                }
+                if (findCurrentMembership(player.getId(), team.getId()) != null) {
+                    return; // Already in the team.
+                }
+
+                Date beginDate = player.getBeginningDate() != null ? player.getBeginningDate() : today();
+                Membership membership = new Membership(player.getId(), team.getId(), player.getNumber(), beginDate);
+                getOrCreate(membershipsByPlayer, player.getId()).add(membership);
+                getOrCreate(rosters, team.getId()).add(membership);
+            }
+        }
+
+        @Override
+        public void removePlayer(Team team, Player player)
+        {
+            synchronized (MemoryDatabase.this) {
+                Membership membership = findCurrentMembership(player.getId(), team.getId());
+                if (membership != null) {
+                    membership.endDate = today();
+                    rosters.get(team.getId()).remove(membership);
+                }
+            }
+        }
+
+        @Override
+        public Field getField(Team team)
+        {
+            synchronized (MemoryDatabase.this) {
+                return copyOf(fields.get(team.getFieldId()));
+            }
+        }
+    };
+
+    private final PlayerRepository playerRepository = new PlayerRepository() {
+        @Override
+        public Player getPlayerWithId(int id)
+        {
+            synchronized (MemoryDatabase.this) {
+                Membership membership = findLastMembership(id);
+                return membership == null ? null : createPlayerView(membership);
+            }
+        }
+
+        @Override
+        public List<Player> getPlayerWithName(String firstName, String lastName)
+        {
+            synchronized (MemoryDatabase.this) {
+                List<Player> found = new ArrayList<>();
+                List<Player> sameName = playersByName.get(nameKey(firstName, lastName));
+                if (sameName != null) {
+                    for (Player player : sameName) {
+                        for (Membership membership : getOrEmpty(membershipsByPlayer, player.getId())) {
+                            if (membership.isCurrent()) {
+                                found.add(createPlayerView(membership));
+                            }
+                        }
+                    }
+                }
+                return found;
+            }
+        }
+
+        @Override
+        public void create(Player player, Team team) throws PlayerAlreadyExistsException, FailedToSaveEntityException
+        {
+            synchronized (MemoryDatabase.this) {
+                if (team != null) {
+                    if (!teams.containsKey(team.getId())) {
+                        throw new FailedToSaveEntityException(String.format("l'équipe %s n'existe pas.", team.getName()));
+                    }
+                    // Same rule as the database: a current player with the same names and number already exists.
+                    for (Player sameName : getOrEmpty(playersByName, nameKey(player.getFirstName(), player.getLastName()))) {
+                        for (Membership membership : getOrEmpty(membershipsByPlayer, sameName.getId())) {
+                            if (membership.isCurrent() && membership.number == player.getNumber()) {
+                                throw new PlayerAlreadyExistsException();
+                            }
+                        }
+                    }
+                }
+                save(player);
+                if (team != null) {
+                    teamRepository.addPlayer(team, player);
+                }
+            }
+        }
+
+        @Override
+        public void save(Player player) throws FailedToSaveEntityException
+        {
+            synchronized (MemoryDatabase.this) {
+                if (player.getId() < 0) {
+                    player.assignId(nextPlayerId++);
+                }
+                Player stored = players.get(player.getId());
+                if (stored == null) {
+                    stored = new Player();
+                    stored.assignId(player.getId());
+                    players.put(stored.getId(), stored);
+                }
+                // Only the name is kept, the number and the dates are those of the memberships.
+                stored.setFirstName(player.getFirstName());
+                stored.setLastName(player.getLastName());
+
+                String oldKey = playerNames.put(stored.getId(), nameKey(stored.getFirstName(), stored.getLastName()));
+                if (oldKey != null) {
+                    playersByName.get(oldKey).remove(stored);
+                }
+                getOrCreate(playersByName, playerNames.get(stored.getId())).add(stored);
+            }
+        }
+
+        @Override
+        public Team getTeam(Player player)
+        {
+            synchronized (MemoryDatabase.this) {
+                Membership membership = findLastMembership(player.getId());
+                return membership == null ? null : copyOf(teams.get(membership.teamId));
+            }
+        }
+    };
+
+    private final FieldRepository fieldRepository = new FieldRepository() {
+        @Override
+        public Field getFieldWithId(int id)
+        {
+            synchronized (MemoryDatabase.this) {
+                return copyOf(fields.get(id));
+            }
+        }
+
+        @Override
+        public Field getFieldWithName(String name)
+        {
+            synchronized (MemoryDatabase.this) {
+                return copyOf(fieldsByName.get(name));
+            }
+        }
+
+        @Override
+        public void save(Field field) throws FailedToSaveEntityException
+        {
+            synchronized (MemoryDatabase.this) {
+                if (field.getId() < 0) {
+                    field.assignId(nextFieldId++);
+                }
+                Field snapshot = field.copy();
+                fields.put(snapshot.getId(), snapshot);
+                index(fieldsByName, fieldNames, snapshot.getId(), snapshot.getName(), snapshot);
+            }
+        }
+    };
+
+    private final OfficialRepository officialRepository = new OfficialRepository() {
+        @Override
+        public List<Official> getAllOfficials()
+        {
+            synchronized (MemoryDatabase.this) {
+                List<Official> copies = new ArrayList<>(officialsByName.size());
+                for (Official official : officialsByName.values()) {
+                    copies.add(official.copy());
+                }
+                return copies;
+            }
+        }
+
+        @Override
+        public Official getOfficialWithId(int id)
+        {
+            synchronized (MemoryDatabase.this) {
+                return copyOf(officials.get(id));
+            }
+        }
+
+        @Override
+        public Official getOfficialWithName(String firstName, String lastName)
+        {
+            synchronized (MemoryDatabase.this) {
+                return copyOf(officialsByName.get(nameKey(firstName, lastName)));
+            }
+        }
+
+        @Override
+        public void create(Official official) throws OfficialAlreadyExistsException, FailedToSaveEntityException
+        {
+            synchronized (MemoryDatabase.this) {
+                if (officialsByName.containsKey(nameKey(official.getFirstName(), official.getLastName()))) {
+                    throw new OfficialAlreadyExistsException();
+                }
+                save(official);
+            }
+        }
+
+        @Override
+        public void save(Official official) throws FailedToSaveEntityException
+        {
+            synchronized (MemoryDatabase.this) {
+                String key = nameKey(official.getFirstName(), official.getLastName());
+                Official sameName = officialsByName.get(key);
+                if (sameName != null && sameName.getId() != official.getId()) {
+                    throw new FailedToSaveEntityException("l'arbitre existe déjà.");
+                }
+                if (official.getId() < 0) {
+                    official.assignId(nextOfficialId++);
+                }
+                Official snapshot = official.copy();
+                officials.put(snapshot.getId(), snapshot);
+                index(officialsByName, officialNames, snapshot.getId(), key, snapshot);
+            }
+        }
+    };
+
+    private final MatchRepository matchRepository = new MatchRepository() {
+        @Override
+        public Match getMatchWithId(int id)
+        {
+            synchronized (MemoryDatabase.this) {
+                return copyOf(matches.get(id));
+            }
+        }
+
+        @Override
+        public Match getMatchWithDateTimeTeams(Date date, Time time, String localTeamName, String visitorTeamName) throws TeamDoesntExistException
+        {
+            synchronized (MemoryDatabase.this) {
+                Team local = teamsByName.get(localTeamName);
+                if (local == null) {
+                    throw new TeamDoesntExistException(localTeamName);
+                }
+                Team visitor = teamsByName.get(visitorTeamName);
+                if (visitor == null) {
+                    throw new TeamDoesntExistException(visitorTeamName);
+                }
+
+                return copyOf(matchesByKey.get(matchKey(local.getId(), visitor.getId(), date, time)));
+            }
+        }
+
+        @Override
+        public void save(Match match) throws FailedToSaveEntityException
+        {
+            synchronized (MemoryDatabase.this) {
+                if (!teams.containsKey(match.getLocalTeamId()) || !teams.containsKey(match.getVisitorTeamId())) {
+                    throw new FailedToSaveEntityException("une des équipes du match n'existe pas.");
+                }
+                if (match.getDate() == null || match.getTime() == null) {
+                    throw new FailedToSaveEntityException("la date et l'heure du match sont obligatoires.");
+                }
+                if (match.getId() < 0) {
+                    match.assignId(nextMatchId++);
+                }
+
+                Match stored = matches.get(match.getId());
+                if (stored != null) {
+                    unindexMatch(stored);
+                }
+                Match snapshot = match.copy();
+                List<Object> key = matchKey(snapshot.getLocalTeamId(), snapshot.getVisitorTeamId(), snapshot.getDate(), snapshot.getTime());
+                matches.put(snapshot.getId(), snapshot);
+                matchKeys.put(snapshot.getId(), key);
+                if (!matchesByKey.containsKey(key)) {
+                    // Like the query, the finder gives the first match created at that time.
+                    matchesByKey.put(key, snapshot);
+                }
+                getOrCreate(matchesByDate, snapshot.getDate()).add(snapshot);
+                getOrCreate(matchesByTeam, snapshot.getLocalTeamId()).add(snapshot);
+                getOrCreate(matchesByTeam, snapshot.getVisitorTeamId()).add(snapshot);
+            }
+        }
+
+        @Override
+        public Match enterResult(Match match, int localTeamScore, int visitorTeamScore) throws FailedToSaveEntityException
+        {
+            synchronized (MemoryDatabase.this) {
+                Match previous = copyOf(matches.get(match.getId()));
+                if (previous == null) {
+                    throw new FailedToSaveEntityException("le match n'existe pas.");
+                }
+                match.setLocalTeamScore(localTeamScore);
+                match.setVisitorTeamScore(visitorTeamScore);
+                save(match);
+                return previous;
+            }
+        }
+
+        @Override
+        public List<Official> getOfficials(Match match)
+        {
+            synchronized (MemoryDatabase.this) {
+                return getOfficialsOfMatch(match.getId());
+            }
+        }
+
+        @Override
+        public void addOfficial(Match match, Official official) throws FailedToSaveEntityException
+        {
+            synchronized (MemoryDatabase.this) {
+                if (!matches.containsKey(match.getId()) || !officials.containsKey(official.getId())) {
+                    throw new FailedToSaveEntityException("le match et l'arbitre doivent avoir été sauvegardés.");
+                }
+                List<Integer> matchOfficials = getOrCreate(officialsByMatch, match.getId());
+                if (matchOfficials.contains(official.getId())) {
+                    throw new FailedToSaveEntityException("l'arbitre est déjà assigné à ce match.");
+                }
+                matchOfficials.add(official.getId());
+            }
+        }
+
+        @Override
+        public EntityCursor<MatchReport> openAllReports()
+        {
+            synchronized (MemoryDatabase.this) {
+                List<Match> selected = new ArrayList<>(matches.size());
+                for (List<Match> sameDate : matchesByDate.values()) {
+                    selected.addAll(sameDate);
+                }
+                return createReports(selected);
+            }
+        }
+
+        @Override
+        public EntityCursor<MatchReport> openReportsFromDate(Date fromDate)
+        {
+            synchronized (MemoryDatabase.this) {
+                List<Match> selected = new ArrayList<>();
+                for (List<Match> sameDate : matchesByDate.tailMap(fromDate, true).values()) {
+                    addWithResult(selected, sameDate);
+                }
+                return createReports(selected);
+            }
+        }
+
+        @Override
+        public EntityCursor<MatchReport> openReportsOfTeam(String teamName) throws TeamDoesntExistException
+        {
+            synchronized (MemoryDatabase.this) {
+                Team team = teamsByName.get(teamName);
+                if (team == null) {
+                    throw new TeamDoesntExistException(teamName);
+                }
+                List<Match> selected = new ArrayList<>();
+                addWithResult(selected, getOrEmpty(matchesByTeam, team.getId()));
+                return createReports(selected);
+            }
+        }
+
+        @Override
+        public List<TeamStanding> computeStandings()
+        {
+            synchronized (MemoryDatabase.this) {
+                Map<Integer, TeamStanding> standings = new HashMap<>();
+                for (Match match : matches.values()) {
+                    if (match.isResultEntered()) {
+                        getStanding(standings, match.getLocalTeamId()).addResult(match.getLocalTeamScore(), match.getVisitorTeamScore());
+                        getStanding(standings, match.getVisitorTeamId()).addResult(match.getVisitorTeamScore(), match.getLocalTeamScore());
+                    }
+                }
+                return new ArrayList<>(standings.values());
+            }
+        }
+    };
+
+    @Override
+    public TeamRepository teams()
+    {
+        return teamRepository;
+    }
+
+    @Override
+    public PlayerRepository players()
+    {
+        return playerRepository;
+    }
+
+    @Override
+    public FieldRepository fields()
+    {
+        return fieldRepository;
+    }
+
+    @Override
+    public OfficialRepository officials()
+    {
+        return officialRepository;
+    }
+
+    @Override
+    public MatchRepository matches()
+    {
+        return matchRepository;
+    }
+
+    @Override
+    public void commit()
+    {
+        // Nothing, the entities are saved right away.
+    }
+
+    @Override
+    public void addCompletionListener(CompletionListener listener)
+    {
+        // The entities were saved right away, the work is already durable.
+        listener.completed(true);
+    }
+
+    @Override
+    public void discard()
+    {
+        // Nothing, the entities are saved right away.
+    }
+
+    @Override
+    public void close()
+    {
+        // Nothing, the league stays in memory.
+    }
+
+    @Override
+    public synchronized String toString()
+    {
+        return String.format("Base en mémoire: %s équipes, %s joueurs, %s terrains, %s arbitres, %s matchs", teams.size(), players.size(), fields.size(), officials.size(), matches.size());
+    }
+
+    /**
+     * Get the current players of a team, ordered by name.
+     */
+    private List<Player> getRoster(int teamId)
+    {
+        List<Player> roster = new ArrayList<>();
+        for (Membership membership : getOrEmpty(rosters, teamId)) {
+            roster.add(createPlayerView(membership));
+        }
+        Collections.sort(roster, PLAYER_ORDER);
+        return roster;
+    }
+
+    /**
+     * Copy a player with the number and the beginning date it has in a team, like the rows joining joueur and faitpartie.
+     */
+    private Player createPlayerView(Membership membership)
+    {
+        Player stored = players.get(membership.playerId);
+        Player player = new Player();
+        player.assignId(stored.getId());
+        player.setFirstName(stored.getFirstName());
+        player.setLastName(stored.getLastName());
+        player.setNumber(membership.number);
+        player.setDate(membership.beginDate);
+        return player;
+    }
+
+    private Membership findCurrentMembership(int playerId, int teamId)
+    {
+        for (Membership membership : getOrEmpty(membershipsByPlayer, playerId)) {
+            if (membership.isCurrent() && membership.teamId == teamId) {
+                return membership;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Get the current membership of a player, or the one that ended last if the player isn't in a team anymore.
+     */
+    private Membership findLastMembership(int playerId)
+    {
+        Membership last = null;
+        for (Membership membership : getOrEmpty(membershipsByPlayer, playerId)) {
+            if (membership.isCurrent()) {
+                return membership;
+            }
+            if (last == null || membership.endDate.after(last.endDate)) {
+                last = membership;
+            }
+        }
+        return last;
+    }
+
+    /**
+     * Get copies of the officials of a match, in the order they were assigned.
+     */
+    private List<Official> getOfficialsOfMatch(int matchId)
+    {
+        List<Official> matchOfficials = new ArrayList<>();
+        for (int officialId : getOrEmpty(officialsByMatch, matchId)) {
+            matchOfficials.add(officials.get(officialId).copy());
+        }
+        return matchOfficials;
+    }
+
+    /**
+     * Remove the stored copy of a match from the indexes where it was put by its last save.
+     */
+    private void unindexMatch(Match stored)
+    {
+        List<Object> oldKey = matchKeys.remove(stored.getId());
+        if (oldKey == null) {
+            return;
+        }
+        if (matchesByKey.get(oldKey) == stored) {
+            matchesByKey.remove(oldKey);
+        }
+        removeFrom(matchesByDate, (Date) oldKey.get(2), stored);
+        removeFrom(matchesByTeam, (Integer) oldKey.get(0), stored);
+        removeFrom(matchesByTeam, (Integer) oldKey.get(1), stored);
+    }
+
+    /**
+     * Add the matches having a result, like the queries asking for NOTNULL scores.
+     */
+    private static void addWithResult(List<Match> selected, List<Match> candidates)
+    {
+        for (Match match : candidates) {
+            if (match.isResultEntered()) {
+                selected.add(match);
+            }
+        }
+    }
+
+    private static TeamStanding getStanding(Map<Integer, TeamStanding> standings, int teamId)
+    {
+        TeamStanding standing = standings.get(teamId);
+        if (standing == null) {
+            standing = new TeamStanding(teamId);
+            standings.put(teamId, standing);
+        }
+        return standing;
+    }
+
+    /**
+     * Build the reports of the given matches, ordered by date and time.
+     */
+    private EntityCursor<MatchReport> createReports(List<Match> selected)
+    {
+        Collections.sort(selected, MATCH_ORDER);
+
+        List<MatchReport> reports = new ArrayList<>(selected.size());
+        for (Match match : selected) {
+            Field field = fields.get(match.getFieldId());
+            List<Official> matchOfficials = getOfficialsOfMatch(match.getId());
+            Collections.sort(matchOfficials, new Comparator<Official>() {
+                @Override
+                public int compare(Official first, Official second)
+                {
+                    return nameKey(first.getFirstName(), first.getLastName()).compareTo(nameKey(second.getFirstName(), second.getLastName()));
+                }
+            });
+            reports.add(new MatchReport(match.getId(), match.getDate(), match.getTime(), match.getLocalTeamScore(), match.getVisitorTeamScore(), teams.get(match.getLocalTeamId()).getName(), teams.get(match.getVisitorTeamId()).getName(), field == null ? null : field.getName(), matchOfficials));
+        }
+        return new IteratorCursor<>(reports.iterator());
+    }
+
+    /**
+     * Put an entity in a unique index, removing the key it had before.
+     */
+    private static <T> void index(Map<String, T> index, Map<Integer, String> keys, int id, String key, T entity)
+    {
+        String oldKey = keys.put(id, key);
+        if (oldKey != null && !oldKey.equals(key)) {
+            index.remove(oldKey);
+        }
+        index.put(key, entity);
+    }
+
+    private static Team copyOf(Team team)
+    {
+        return team == null ? null : team.copy();
+    }
+
+    private static Field copyOf(Field field)
+    {
+        return field == null ? null : field.copy();
+    }
+
+    private static Official copyOf(Official official)
+    {
+        return official == null ? null : official.copy();
+    }
+
+    private static Match copyOf(Match match)
+    {
+        return match == null ? null : match.copy();
+    }
+
+    private static String nameKey(String firstName, String lastName)
+    {
+        return firstName + KEY_SEPARATOR + lastName;
+    }
+
+    private static List<Object> matchKey(int localTeamId, int visitorTeamId, Date date, Time time)
+    {
+        return Arrays.<Object> asList(localTeamId, visitorTeamId, date, time);
+    }
+
+    private static <K, V> List<V> getOrCreate(Map<K, List<V>> map, K key)
+    {
+        List<V> values = map.get(key);
+        if (values == null) {
+            values = new ArrayList<>();
+            map.put(key, values);
+        }
+        return values;
+    }
+
+    private static <K, V> List<V> getOrEmpty(Map<K, List<V>> map, K key)
+    {
+        List<V> values = map.get(key);
+        return values == null ? Collections.<V> emptyList() : values;
+    }
+
+    private static <K, V> void removeFrom(Map<K, List<V>> map, K key, V value)
+    {
+        List<V> values = map.get(key);
+        if (values != null) {
+            values.remove(value);
+            if (values.isEmpty()) {
+                map.remove(key);
+            }
+        }
+    }
+
+    private static Date today()
+    {
+        return new Date(Calendar.getInstance().getTime().getTime());
+    }
+}
@@ -0,0 +1,24 @@
+package ligueBaseball.repositories.memory;
+
+import ligueBaseball.repositories.Repositories;
+import ligueBaseball.repositories.RepositoryFactory;
+
+/**
+ * Engine keeping the league in memory only, without database. The league starts empty and is lost when the program ends.
+ */
+public class MemoryRepositoryFactory implements RepositoryFactory
+{
+    private final MemoryDatabase database = new MemoryDatabase();
+
+    @Override
+    public Repositories open()
+    {
+        return database;
+    }
+
+    @Override
+    public String toString()
+    {
+        return database.toString();
+    }
+}
@@ -0,0 +1,409 @@
+package ligueBaseball.repositories.postgresql;
+
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.SQLException;
+import java.sql.Time;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+import ligueBaseball.Logger;
+import ligueBaseball.Logger.LOG_TYPE;
+import ligueBaseball.entities.EntityCursor;
+import ligueBaseball.entities.EntityLoader;
+import ligueBaseball.entities.Field;
+import ligueBaseball.entities.Match;
+import ligueBaseball.entities.MatchReport;
+import ligueBaseball.entities.Official;
+import ligueBaseball.entities.Player;
+import ligueBaseball.entities.Team;
+import ligueBaseball.entities.UnitOfWork;
+import ligueBaseball.exceptions.FailedToDeleteEntityException;
+import ligueBaseball.exceptions.FailedToFlushEntitiesException;
+import ligueBaseball.exceptions.FailedToRetrievePlayersOfTeamException;
+import ligueBaseball.exceptions.FailedToSaveEntityException;
+import ligueBaseball.exceptions.OfficialAlreadyExistsException;
+import ligueBaseball.exceptions.PlayerAlreadyExistsException;
+import ligueBaseball.exceptions.TeamDoesntExistException;
+import ligueBaseball.exceptions.TeamIsNotEmptyException;
+import ligueBaseball.exceptions.TeamNameAlreadyTakenException;
+import ligueBaseball.repositories.CompletionListener;
+import ligueBaseball.repositories.FieldRepository;
+import ligueBaseball.repositories.MatchRepository;
+import ligueBaseball.repositories.OfficialRepository;
+import ligueBaseball.repositories.PlayerRepository;
+import ligueBaseball.repositories.Repositories;
+import ligueBaseball.repositories.TeamRepository;
+import ligueBaseball.standings.TeamStanding;
+
+/**
+ * Repositories reading and writing the entities through a connection with the PostgreSQL database. The connection is closed with the
+ * repositories. The entities saved are kept in a unit of work until the repositories are committed, and written before any query. The teams,
+ * fields and officials found by ID are kept for the rest of the command.
+ */
+public class PostgreSqlRepositories implements Repositories
+{
+    private final Connection connection;
+    private final int fetchSize;
+    private final UnitOfWork work;
+    private final EntityLoader loader;
+    private final List<CompletionListener> listeners = new ArrayList<>();
+
+    private final TeamRepository teams = new TeamRepository() {
+        @Override
+        public List<Team> getAllTeams()
+        {
+            return Team.getAllTeams(flushed());
+        }
+
+        @Override
+        public Team getTeamWithId(int id)
+        {
+            return loader().getTeam(id);
+        }
+
+        @Override
+        public Team getTeamWithName(String name)
+        {
+            return Team.getTeamWithName(flushed(), name);
+        }
+
+        @Override
+        public void create(Team team, Field field) throws TeamNameAlreadyTakenException, FailedToSaveEntityException
+        {
+            team.create(work, field);
+        }
+
+        @Override
+        public void save(Team team) throws FailedToSaveEntityException
+        {
+            work.save(team);
+        }
+
+        @Override
+        public void delete(Team team) throws FailedToDeleteEntityException, TeamIsNotEmptyException
+        {
+            team.delete(flushed(), work);
+        }
+
+        @Override
+        public List<Player> getPlayers(Team team) throws FailedToRetrievePlayersOfTeamException
+        {
+            return team.getPlayers(flushed());
+        }
+
+        @Override
+        public Map<Integer, List<Player>> getRosters(Collection<Team> teams) throws FailedToRetrievePlayersOfTeamException
+        {
+            return Team.getRosters(flushed(), teams);
+        }
+
+        @Override
+        public void addPlayer(Team team, Player player) throws FailedToSaveEntityException
+        {
+            if (player.getId() < 0) {
+                work.save(player);
+            }
+            work.addPlayer(team, player);
+        }
+
+        @Override
+        public void removePlayer(Team team, Player player)
+        {
+            work.removePlayer(team, player);
+        }
+
+        @Override
+        public Field getField(Team team)
+        {
+            return team.getFieldId() < 0 ? null : loader().getField(team.getFieldId());
+        }
+    };
+
+    private final PlayerRepository players = new PlayerRepository() {
+        @Override
+        public Player getPlayerWithId(int id)
+        {
+            return Player.getPlayerWithId(flushed(), id);
+        }
+
+        @Override
+        public List<Player> getPlayerWithName(String firstName, String lastName)
+        {
+            return Player.getPlayerWithName(flushed(), firstName, lastName);
+        }
+
+        @Override
+        public void create(Player player, Team team) throws PlayerAlreadyExistsException, FailedToSaveEntityException
+        {
+            player.create(work, team);
+        }
+
+        @Override
+        public void save(Player player) throws FailedToSaveEntityException
+        {
+            work.save(player);
+        }
+
+        @Override
+        public Team getTeam(Player player)
+        {
+            return player.getTeam(flushed());
+        }
+    };
+
+    private final FieldRepository fields = new FieldRepository() {
+        @Override
+        public Field getFieldWithId(int id)
+        {
+            return loader().getField(id);
+        }
+
+        @Override
+        public Field getFieldWithName(String name)
+        {
+            return Field.getFieldWithName(flushed(), name);
+        }
+
+        @Override
+        public void save(Field field) throws FailedToSaveEntityException
+        {
+            work.save(field);
+        }
+    };
+
+    private final OfficialRepository officials = new OfficialRepository() {
+        @Override
+        public List<Official> getAllOfficials()
+        {
+            return Official.getAllOfficials(flushed());
+        }
+
+        @Override
+        public Official getOfficialWithId(int id)
+        {
+            return loader().getOfficial(id);
+        }
+
+        @Override
+        public Official getOfficialWithName(String firstName, String lastName)
+        {
+            return Official.getOfficialWithName(flushed(), firstName, lastName);
+        }
+
+        @Override
+        public void create(Official official) throws OfficialAlreadyExistsException, FailedToSaveEntityException
+        {
+            official.create(work);
+        }
+
+        @Override
+        public void save(Official official) throws FailedToSaveEntityException
+        {
+            work.save(official);
+        }
+    };
+
+    private final MatchRepository matches = new MatchRepository() {
+        @Override
+        public Match getMatchWithId(int id)
+        {
+            return Match.getMatchWithId(flushed(), id);
+        }
+
+        @Override
+        public Match getMatchWithDateTimeTeams(Date date, Time time, String localTeamName, String visitorTeamName) throws TeamDoesntExistException
+        {
+            return Match.getMatchWithDateTimeEquipe(flushed(), date, time, localTeamName, visitorTeamName);
+        }
+
+        @Override
+        public void save(Match match) throws FailedToSaveEntityException
+        {
+            work.save(match);
+        }
+
+        @Override
+        public Match enterResult(Match match, int localTeamScore, int visitorTeamScore) throws FailedToSaveEntityException
+        {
+            // The row stays locked until the command is committed.
+            Match previous = Match.lockMatchWithId(flushed(), match.getId());
+            if (previous == null) {
+                throw new FailedToSaveEntityException("le match n'a pas pu être lu.");
+            }
+            match.setLocalTeamScore(localTeamScore);
+            match.setVisitorTeamScore(visitorTeamScore);
+            work.save(match);
+            return previous;
+        }
+
+        @Override
+        public List<Official> getOfficials(Match match)
+        {
+            return loader().getOfficials(match);
+        }
+
+        @Override
+        public void addOfficial(Match match, Official official) throws FailedToSaveEntityException
+        {
+            work.addOfficial(match, official);
+        }
+
+        @Override
+        public EntityCursor<MatchReport> openAllReports()
+        {
+            return MatchReport.openAllMatches(flushed(), fetchSize);
+        }
+
+        @Override
+        public EntityCursor<MatchReport> openReportsFromDate(Date date)
+        {
+            return MatchReport.openMatchesFromDate(flushed(), date, fetchSize);
+        }
+
+        @Override
+        public EntityCursor<MatchReport> openReportsOfTeam(String teamName) throws TeamDoesntExistException
+        {
+            return MatchReport.openMatchesOfTeam(flushed(), teamName, fetchSize);
+        }
+
+        @Override
+        public List<TeamStanding> computeStandings()
+        {
+            return Match.getStandings(flushed());
+        }
+    };
+
+    /**
+     * Constructor
+     *
+     * @param connection - Connection with database, auto-commit must be disabled.
+     * @param fetchSize - Number of reports read from the database at once by the cursors.
+     */
+    public PostgreSqlRepositories(Connection connection, int fetchSize) {
+        this.connection = connection;
+        this.fetchSize = fetchSize;
+        this.work = new UnitOfWork(connection);
+        this.loader = new EntityLoader(connection);
+    }
+
+    /**
+     * Get the connection after writing the pending rows, so the queries of the command see them. If they can't be written, the transaction was
+     * rolled back and the command must stop: its queries would read the league without what it saved.
+     *
+     * @return Connection - Connection with database.
+     * @throws FailedToFlushEntitiesException Failed to write the pending rows.
+     */
+    private Connection flushed()
+    {
+        if (!work.isEmpty()) {
+            // The entities read so far may have been changed.
+            loader.clear();
+            try {
+                work.flushOrThrow();
+            } catch (FailedToSaveEntityException e) {
+                throw new FailedToFlushEntitiesException(e);
+            }
+        }
+        return connection;
+    }
+
+    /**
+     * Get the loader of the entities of the command, the pending rows written.
+     *
+     * @return EntityLoader - Loader keeping the entities read by the command.
+     */
+    private EntityLoader loader()
+    {
+        flushed();
+        return loader;
+    }
+
+    /**
+     * Get the connection used by the repositories, the pending rows written.
+     *
+     * @return Connection - Connection with database.
+     */
+    public Connection getConnection()
+    {
+        return flushed();
+    }
+
+    @Override
+    public TeamRepository teams()
+    {
+        return teams;
+    }
+
+    @Override
+    public PlayerRepository players()
+    {
+        return players;
+    }
+
+    @Override
+    public FieldRepository fields()
+    {
+        return fields;
+    }
+
+    @Override
+    public OfficialRepository officials()
+    {
+        return officials;
+    }
+
+    @Override
+    public MatchRepository matches()
+    {
+        return matches;
+    }
+
+    @Override
+    public void commit() throws FailedToSaveEntityException
+    {
+        work.commit();
+        complete(true);
+    }
+
+    @Override
+    public void addCompletionListener(CompletionListener listener)
+    {
+        listeners.add(listener);
+    }
+
+    @Override
+    public void discard()
+    {
+        work.clear();
+        loader.clear();
+        complete(false);
+    }
+
+    @Override
+    public void close()
+    {
+        // The work that wasn't committed is lost, the pool rolls back the connection.
+        discard();
+        try {
+            connection.close();
+        } catch (SQLException e) {
+            Logger.error(LOG_TYPE.EXCEPTION, e.getMessage());
+        }
+    }
+
+    /**
+     * Run the listeners added since the last commit, and forget them.
+     */
+    private void complete(boolean committed)
+    {
+        // A listener may add another one, run with the next commit.
+        List<CompletionListener> completed = new ArrayList<>(listeners);
+        listeners.clear();
+        for (CompletionListener listener : completed) {
+            listener.completed(committed);
+        }
+    }
+}
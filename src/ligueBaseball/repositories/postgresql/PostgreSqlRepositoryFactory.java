@@ -0,0 +1,33 @@
+package ligueBaseball.repositories.postgresql;
+
+import ligueBaseball.database.ConnectionPool;
+import ligueBaseball.exceptions.FailedToConnectToDatabaseException;
+import ligueBaseball.exceptions.NoConnectionAvailableException;
+import ligueBaseball.repositories.Repositories;
+import ligueBaseball.repositories.RepositoryFactory;
+
+/**
+ * Engine keeping the league in the PostgreSQL database. Each opening borrows a connection from the pool until the repositories are closed.
+ */
+public class PostgreSqlRepositoryFactory implements RepositoryFactory
+{
+    private final ConnectionPool connectionPool;
+    private final int fetchSize;
+
+    /**
+     * Constructor
+     *
+     * @param connectionPool - Pool of connections with the database.
+     * @param fetchSize - Number of reports read from the database at once by the cursors.
+     */
+    public PostgreSqlRepositoryFactory(ConnectionPool connectionPool, int fetchSize) {
+        this.connectionPool = connectionPool;
+        this.fetchSize = fetchSize;
+    }
+
+    @Override
+    public Repositories open() throws FailedToConnectToDatabaseException, NoConnectionAvailableException
+    {
+        return new PostgreSqlRepositories(connectionPool.getConnection(), fetchSize);
+    }
+}
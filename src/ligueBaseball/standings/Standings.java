@@ -0,0 +1,139 @@
+package ligueBaseball.standings;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Standings of the league kept in memory. They are computed from every match once, then each result entered or corrected changes only the
+ * standings of the two teams, so reading them doesn't depend on the number of matches.
+ *
+ * A result is entered between beginChange() and endChange(), which both increment a version. Standings computed while a result was being
+ * entered are not kept, since they may or may not include it: load() refuses them if the version changed or if a change is still in progress.
+ */
+public class Standings
+{
+    private final Map<Integer, TeamStanding> standings = new HashMap<>();
+    private boolean loaded = false;
+    private long version = 0;
+    private int changesInProgress = 0;
+
+    /**
+     * Get the version of the standings, to give to load() once they are computed.
+     *
+     * @return long - Current version.
+     */
+    public synchronized long getVersion()
+    {
+        return version;
+    }
+
+    /**
+     * Get a copy of the standings of every team having a result.
+     *
+     * @return List - Standings in no particular order, null if they must be computed first.
+     */
+    public synchronized List<TeamStanding> getStandings()
+    {
+        if (!loaded) {
+            return null;
+        }
+        List<TeamStanding> copy = new ArrayList<>(standings.size());
+        for (TeamStanding standing : standings.values()) {
+            copy.add(standing.copy());
+        }
+        return copy;
+    }
+
+    /**
+     * Keep the standings computed from every match, unless a result changed since getVersion() was called or is being changed.
+     *
+     * @param computed - Standings of every team having a result.
+     * @param computedVersion - Version returned by getVersion() before computing them.
+     * @return boolean - True if they were kept.
+     */
+    public synchronized boolean load(Collection<TeamStanding> computed, long computedVersion)
+    {
+        if (changesInProgress > 0 || computedVersion != version) {
+            return false;
+        }
+        standings.clear();
+        for (TeamStanding standing : computed) {
+            standings.put(standing.getTeamId(), standing.copy());
+        }
+        loaded = true;
+        return true;
+    }
+
+    /**
+     * Forget the standings, they will be computed again on the next read. Used when results may have been rolled back.
+     */
+    public synchronized void invalidate()
+    {
+        standings.clear();
+        loaded = false;
+        ++version;
+    }
+
+    /**
+     * Start changing a result, before it is written. Until endChange() is called, the standings computed from the matches are not kept.
+     */
+    public synchronized void beginChange()
+    {
+        ++changesInProgress;
+        ++version;
+    }
+
+    /**
+     * End a change started by beginChange(), whether the result was counted or the change failed.
+     */
+    public synchronized void endChange()
+    {
+        --changesInProgress;
+        ++version;
+    }
+
+    /**
+     * Count the result of a match, once it is committed.
+     *
+     * @param localTeamId - ID of the local team.
+     * @param visitorTeamId - ID of the visitor team.
+     * @param localTeamScore - Points of the local team.
+     * @param visitorTeamScore - Points of the visitor team.
+     */
+    public synchronized void addResult(int localTeamId, int visitorTeamId, int localTeamScore, int visitorTeamScore)
+    {
+        if (loaded) {
+            getOrCreate(localTeamId).addResult(localTeamScore, visitorTeamScore);
+            getOrCreate(visitorTeamId).addResult(visitorTeamScore, localTeamScore);
+        }
+    }
+
+    /**
+     * Stop counting the result of a match, once its correction is committed.
+     *
+     * @param localTeamId - ID of the local team.
+     * @param visitorTeamId - ID of the visitor team.
+     * @param localTeamScore - Points of the local team, as they were counted.
+     * @param visitorTeamScore - Points of the visitor team, as they were counted.
+     */
+    public synchronized void removeResult(int localTeamId, int visitorTeamId, int localTeamScore, int visitorTeamScore)
+    {
+        if (loaded) {
+            getOrCreate(localTeamId).removeResult(localTeamScore, visitorTeamScore);
+            getOrCreate(visitorTeamId).removeResult(visitorTeamScore, localTeamScore);
+        }
+    }
+
+    private TeamStanding getOrCreate(int teamId)
+    {
+        TeamStanding standing = standings.get(teamId);
+        if (standing == null) {
+            standing = new TeamStanding(teamId);
+            standings.put(teamId, standing);
+        }
+        return standing;
+    }
+}
@@ -0,0 +1,138 @@
+package ligueBaseball.standings;
+
+/**
+ * Wins, losses and runs of a team, counted over the matches having a result.
+ */
+public class TeamStanding
+{
+    private final int teamId;
+    private int wins;
+    private int losses;
+    private int ties;
+    private int runsFor;
+    private int runsAgainst;
+
+    /**
+     * Constructor of a team that didn't play yet.
+     *
+     * @param teamId - ID of the team.
+     */
+    public TeamStanding(int teamId) {
+        this(teamId, 0, 0, 0, 0, 0);
+    }
+
+    /**
+     * Constructor
+     *
+     * @param teamId - ID of the team.
+     * @param wins - Number of matches won.
+     * @param losses - Number of matches lost.
+     * @param ties - Number of matches ending with the same score.
+     * @param runsFor - Points scored by the team.
+     * @param runsAgainst - Points scored against the team.
+     */
+    public TeamStanding(int teamId, int wins, int losses, int ties, int runsFor, int runsAgainst) {
+        this.teamId = teamId;
+        this.wins = wins;
+        this.losses = losses;
+        this.ties = ties;
+        this.runsFor = runsFor;
+        this.runsAgainst = runsAgainst;
+    }
+
+    /**
+     * Copy this standing, so it can be handed out while the original keeps changing.
+     *
+     * @return TeamStanding - Copy of this standing.
+     */
+    public TeamStanding copy()
+    {
+        return new TeamStanding(teamId, wins, losses, ties, runsFor, runsAgainst);
+    }
+
+    /**
+     * Count the result of a match played by the team.
+     *
+     * @param scored - Points scored by the team.
+     * @param allowed - Points scored by the other team.
+     */
+    public void addResult(int scored, int allowed)
+    {
+        apply(scored, allowed, 1);
+    }
+
+    /**
+     * Stop counting the result of a match, before it is corrected.
+     *
+     * @param scored - Points scored by the team, as they were counted.
+     * @param allowed - Points scored by the other team, as they were counted.
+     */
+    public void removeResult(int scored, int allowed)
+    {
+        apply(scored, allowed, -1);
+    }
+
+    private void apply(int scored, int allowed, int sign)
+    {
+        if (scored > allowed) {
+            wins += sign;
+        } else if (scored < allowed) {
+            losses += sign;
+        } else {
+            ties += sign;
+        }
+        runsFor += sign * scored;
+        runsAgainst += sign * allowed;
+    }
+
+    public int getTeamId()
+    {
+        return teamId;
+    }
+
+    public int getPlayed()
+    {
+        return wins + losses + ties;
+    }
+
+    public int getWins()
+    {
+        return wins;
+    }
+
+    public int getLosses()
+    {
+        return losses;
+    }
+
+    public int getTies()
+    {
+        return ties;
+    }
+
+    public int getRunsFor()
+    {
+        return runsFor;
+    }
+
+    public int getRunsAgainst()
+    {
+        return runsAgainst;
+    }
+
+    public int getRunDifferential()
+    {
+        return runsFor - runsAgainst;
+    }
+
+    /**
+     * Get the part of the matches won, a tie counting as half a win.
+     *
+     * @return double - Between 0 and 1, 0 if the team didn't play yet.
+     */
+    public double getWinningPercentage()
+    {
+        int played = getPlayed();
+        return played == 0 ? 0 : (wins + ties / 2.0) / played;
+    }
+}